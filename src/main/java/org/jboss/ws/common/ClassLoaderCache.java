@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free cache of values by classloader. Classloaders are weakly referenced and
+ * compared by identity. Values are softly referenced: a value loaded by (or referencing)
+ * its key classloader keeps the key reachable until the value is cleared by the garbage
+ * collector, or removed through {@link #remove(ClassLoader)} when the classloader is
+ * undeployed, so the classloader is never pinned for good. A cleared value is simply
+ * not found anymore, the caller creates it again.
+ */
+final class ClassLoaderCache<V>
+{
+   private final ConcurrentMap<Object, SoftReference<V>> values = new ConcurrentHashMap<Object, SoftReference<V>>();
+   private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<ClassLoader>();
+   // the value for the null (bootstrap) classloader
+   private final AtomicReference<V> bootstrapValue = new AtomicReference<V>();
+
+   V get(ClassLoader classLoader)
+   {
+      if (classLoader == null)
+         return bootstrapValue.get();
+
+      final SoftReference<V> ref = values.get(new LookupKey(classLoader));
+      return ref != null ? ref.get() : null;
+   }
+
+   /**
+    * Associate the value with the classloader, unless another value is already there;
+    * return the value actually associated.
+    */
+   V putIfAbsent(ClassLoader classLoader, V value)
+   {
+      if (classLoader == null)
+      {
+         return bootstrapValue.compareAndSet(null, value) ? value : bootstrapValue.get();
+      }
+      expungeStaleEntries();
+      final WeakKey key = new WeakKey(classLoader, queue);
+      final SoftReference<V> ref = new SoftReference<V>(value);
+      for (;;)
+      {
+         final SoftReference<V> existing = values.putIfAbsent(key, ref);
+         if (existing == null)
+            return value;
+         final V existingValue = existing.get();
+         if (existingValue != null)
+            return existingValue;
+         // the existing value has been cleared
+         if (values.replace(key, existing, ref))
+            return value;
+      }
+   }
+
+   /**
+    * Remove the values for the given classloader and for any of its children
+    */
+   void remove(ClassLoader classLoader)
+   {
+      if (classLoader == null)
+         return;
+
+      expungeStaleEntries();
+      for (Iterator<Object> it = values.keySet().iterator(); it.hasNext();)
+      {
+         ClassLoader cl = ((WeakKey)it.next()).get();
+         while (cl != null && cl != classLoader)
+         {
+            cl = cl.getParent();
+         }
+         if (cl != null)
+            it.remove();
+      }
+   }
+
+   /**
+    * A snapshot of the distinct values currently cached, for monitoring purposes
+    */
+   List<V> values()
+   {
+      final Set<V> distinct = Collections.newSetFromMap(new IdentityHashMap<V, Boolean>());
+      final V bootstrap = bootstrapValue.get();
+      if (bootstrap != null)
+         distinct.add(bootstrap);
+      for (SoftReference<V> ref : values.values())
+      {
+         final V value = ref.get();
+         if (value != null)
+            distinct.add(value);
+      }
+      return new ArrayList<V>(distinct);
+   }
+
+   private void expungeStaleEntries()
+   {
+      Reference<? extends ClassLoader> ref;
+      while ((ref = queue.poll()) != null)
+      {
+         values.remove(ref);
+      }
+   }
+
+   private static final class WeakKey extends WeakReference<ClassLoader>
+   {
+      private final int hash;
+
+      WeakKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue)
+      {
+         super(classLoader, queue);
+         this.hash = System.identityHashCode(classLoader);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (obj == this)
+            return true;
+         if (obj instanceof LookupKey)
+            return ((LookupKey)obj).classLoader == get();
+         if (obj instanceof WeakKey)
+         {
+            final ClassLoader classLoader = get();
+            return classLoader != null && classLoader == ((WeakKey)obj).get();
+         }
+         return false;
+      }
+   }
+
+   // a short-lived key for lookups, not to allocate a reference on each get
+   private static final class LookupKey
+   {
+      private final ClassLoader classLoader;
+
+      LookupKey(ClassLoader classLoader)
+      {
+         this.classLoader = classLoader;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return System.identityHashCode(classLoader);
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (obj instanceof WeakKey)
+            return ((WeakKey)obj).get() == classLoader;
+         return obj instanceof LookupKey && ((LookupKey)obj).classLoader == classLoader;
+      }
+   }
+}
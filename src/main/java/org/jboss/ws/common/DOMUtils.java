@@ -28,25 +28,34 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
-import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.jboss.ws.common.io.ByteBufferInputStream;
+import org.jboss.ws.common.io.CharSequenceReader;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -58,6 +67,9 @@ import org.xml.sax.SAXException;
  * DOM2 utilities: this extends the {@link org.jboss.wsf.util.DOMUtils} adding parse and creation methods.
  * These leverage static thread-local instances of {@link org.w3c.dom.Document} and {@link javax.xml.parsers.DocumentBuilder}.
  * The ThreadLocal attributes can be reset using the clearThreadLocals() method.
+ * When the org.jboss.ws.document_builder_pool system property is set to true, the parse methods borrow
+ * the builder from a bounded {@link DocumentBuilderPool} instead (size set by org.jboss.ws.document_builder_pool_size),
+ * which is better suited to virtual threads and very large thread pools.
  *
  * @author Thomas.Diesler@jboss.org
  * @author alessio.soldano@jboss.com
@@ -65,59 +77,34 @@ import org.xml.sax.SAXException;
 public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
 {
    private static final String DISABLE_DEFERRED_NODE_EXPANSION = "org.jboss.ws.disable_deferred_node_expansion";
-   private static final String DEFER_NODE_EXPANSION_FEATURE = "http://apache.org/xml/features/dom/defer-node-expansion";
    private static final String ENABLE_DOCTYPE_DECL = "org.jboss.ws.enable_doctype_decl";
-   private static final String DISALLOW_DOCTYPE_DECL_FEATURE = "http://apache.org/xml/features/disallow-doctype-decl";
+   private static final String DOCUMENT_BUILDER_POOL = "org.jboss.ws.document_builder_pool";
+   private static final String DOCUMENT_BUILDER_POOL_SIZE = "org.jboss.ws.document_builder_pool_size";
    
-   private static final String documentBuilderFactoryName;
-   private static final DocumentBuilderFactory documentBuilderFactory;
-
    private static final boolean disableDeferedNodeExpansion = Boolean.getBoolean(DISABLE_DEFERRED_NODE_EXPANSION);
    private static final boolean enableDoctypeDeclaration = Boolean.getBoolean(ENABLE_DOCTYPE_DECL);
+   private static final boolean useDocumentBuilderPool = Boolean.getBoolean(DOCUMENT_BUILDER_POOL);
+   private static final int documentBuilderPoolSize = Integer.getInteger(DOCUMENT_BUILDER_POOL_SIZE, 2 * Runtime.getRuntime().availableProcessors());
    
-   static
-   {
-      //load default document builder factory using the DOMUtils' defining classloader
-      final ClassLoader classLoader = SecurityActions.getContextClassLoader();
-      SecurityActions.setContextClassLoader(DOMUtils.class.getClassLoader());
-      try
-      {
-         final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
-         initializeFactory(factory);
-         documentBuilderFactoryName = factory.getClass().getCanonicalName();
-         documentBuilderFactory = factory;
-      }
-      finally
-      {
-         SecurityActions.setContextClassLoader(classLoader);
-      }
-   }
+   private static final int documentBuilderFactoryFeatures = DocumentBuilderFactoryRegistry.SECURE_PROCESSING
+         | (disableDeferedNodeExpansion ? DocumentBuilderFactoryRegistry.DISABLE_DEFERRED_NODE_EXPANSION : 0)
+         | (enableDoctypeDeclaration ? 0 : DocumentBuilderFactoryRegistry.DISALLOW_DOCTYPE_DECL);
+   //load default document builder factory using the DOMUtils' defining classloader
+   private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactoryRegistry.getFactory(DOMUtils.class.getClassLoader(),
+         documentBuilderFactoryFeatures);
    
-   // All elements created by the same thread are created by the same builder and belong to the same doc
-   private static ThreadLocal<Document> documentThreadLocal = new ThreadLocal<Document>();
+   // All elements created by the same thread are created by the same builder and belong to the same doc,
+   // unless a document scope is open
+   private static ThreadLocal<OwnerDocument> documentThreadLocal = new ThreadLocal<OwnerDocument>();
+   // The nodes created through DOMUtils in (and the number of) documents bound to a thread rather than to a scope
+   private static final LongAdder threadBoundNodes = new LongAdder();
+   private static final LongAdder threadBoundDocuments = new LongAdder();
    private static ThreadLocal<DocumentBuilder> builderThreadLocal = new ThreadLocal<DocumentBuilder>() {
       protected DocumentBuilder initialValue()
       {
          try
          {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
-            //check if the factory we'd get for this thread is equivalent to the default one;
-            //in that case re-use the default one and skip the initialization, which is time-consuming
-            final DocumentBuilderFactory threadFactory ;
-            if (factory.getClass().getClassLoader() == documentBuilderFactory.getClass().getClassLoader() &&
-                documentBuilderFactoryName.equals(factory.getClass().getCanonicalName()))
-            {
-               threadFactory = documentBuilderFactory ;
-            }
-            else
-            {
-               threadFactory = factory ;
-               initializeFactory(threadFactory) ;
-            }
-
-            DocumentBuilder builder = threadFactory.newDocumentBuilder();
+            DocumentBuilder builder = resolveFactory().newDocumentBuilder();
             return builder;
          }
          catch (Exception e)
@@ -128,34 +115,29 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       
    };
    
-   private static void initializeFactory(final DocumentBuilderFactory factory)
+   // The builder pools, by the context classloader resolving their factory; classloaders resolving
+   // a factory equivalent to the default one share the default pool
+   private static final ClassLoaderCache<DocumentBuilderPool> builderPools = new ClassLoaderCache<DocumentBuilderPool>();
+   // The transformer factories, by the context classloader resolving them
+   private static final ClassLoaderCache<TransformerFactory> transformerFactories = new ClassLoaderCache<TransformerFactory>();
+   // The identity transformer of the current thread, reset and reused by its transformations
+   private static final ThreadLocal<IdentityTransformer> identityTransformerThreadLocal = new ThreadLocal<IdentityTransformer>();
+   
+   /**
+    * Get the factory for the current thread from the registry; that's the default one
+    * when the context classloader resolves an equivalent factory
+    */
+   private static DocumentBuilderFactory resolveFactory()
    {
-      factory.setValidating(false);
-      factory.setNamespaceAware(true);
-      factory.setExpandEntityReferences(false);
-
-      try
-      {
-         factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-         if (disableDeferedNodeExpansion)
-         {
-            factory.setFeature(DEFER_NODE_EXPANSION_FEATURE, false);
-         }
-         if (!enableDoctypeDeclaration)
-         {
-            factory.setFeature(DISALLOW_DOCTYPE_DECL_FEATURE, true);
-         }
-      }
-      catch (ParserConfigurationException pce)
-      {
-         ROOT_LOGGER.error(pce);
-      }
+      return DocumentBuilderFactoryRegistry.getFactory(documentBuilderFactoryFeatures);
    }
 
    public static void clearThreadLocals()
    {
+      release(documentThreadLocal.get());
       documentThreadLocal.remove();
       builderThreadLocal.remove();
+      identityTransformerThreadLocal.remove();
    }
 
    // Hide the constructor
@@ -182,6 +164,50 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       }
    }
 
+   /**
+    * Get the pool of builders created by the factory the current thread resolves,
+    * or null if the pooled mode is not enabled
+    */
+   public static DocumentBuilderPool getDocumentBuilderPool()
+   {
+      if (!useDocumentBuilderPool)
+         return null;
+
+      final ClassLoader classLoader = SecurityActions.getContextClassLoader();
+      DocumentBuilderPool pool = builderPools.get(classLoader);
+      if (pool == null)
+      {
+         final DocumentBuilderFactory factory = resolveFactory();
+         pool = (factory == documentBuilderFactory) ? DefaultBuilderPool.INSTANCE : new DocumentBuilderPool(factory, documentBuilderPoolSize);
+         pool = builderPools.putIfAbsent(classLoader, pool);
+      }
+      return pool;
+   }
+
+   /**
+    * Get the builder pools currently in use, an empty list if the pooled mode is not enabled
+    */
+   public static List<DocumentBuilderPool> getDocumentBuilderPools()
+   {
+      return builderPools.values();
+   }
+
+   /**
+    * Release the builder pools and the transformer factories cached for the given
+    * classloader (and for its children), to be called when the classloader is undeployed.
+    */
+   public static void clearCaches(ClassLoader classLoader)
+   {
+      builderPools.remove(classLoader);
+      transformerFactories.remove(classLoader);
+   }
+
+   // lazily created on first use of the default pool
+   private static final class DefaultBuilderPool
+   {
+      static final DocumentBuilderPool INSTANCE = new DocumentBuilderPool(documentBuilderFactory, documentBuilderPoolSize);
+   }
+
    /**
     * Initialize the DocumentBuilder, set the current thread association and returns it
     */
@@ -198,7 +224,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
    {
       try
       {
-         return parse(new ByteArrayInputStream(xmlString.getBytes("UTF-8")));
+         return parse(new InputSource(new StringReader(xmlString)));
       }
       catch (IOException e)
       {
@@ -207,6 +233,56 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       }
    }
 
+   /**
+    * Parse the given XML characters and return the root Element.
+    * The characters are read in place, with no copy or transcoding to bytes;
+    * any encoding declaration in the prolog is hence ignored.
+    */
+   public static Element parse(CharSequence xmlChars) throws IOException
+   {
+      if (xmlChars instanceof String)
+      {
+         return parse((String)xmlChars);
+      }
+      return parse(new InputSource(new CharSequenceReader(xmlChars)));
+   }
+
+   /**
+    * Parse the remaining bytes of the given (heap, direct or mapped) buffer and return the root Element.
+    * Heap buffers are read from their backing array, other buffers are read in place; in both
+    * cases the position of the provided buffer is not changed.
+    */
+   public static Element parse(ByteBuffer xmlBuffer) throws IOException
+   {
+      final InputStream is;
+      if (xmlBuffer.hasArray())
+      {
+         is = new ByteArrayInputStream(xmlBuffer.array(), xmlBuffer.arrayOffset() + xmlBuffer.position(), xmlBuffer.remaining());
+      }
+      else
+      {
+         is = new ByteBufferInputStream(xmlBuffer);
+      }
+      return parse(new InputSource(is));
+   }
+
+   /**
+    * Parse the given XML file and return the root Element.
+    * The file is memory mapped and read in place, with no intermediate copy on the heap;
+    * the file path is used as system id.
+    */
+   public static Element parse(Path xmlFile) throws IOException
+   {
+      final MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(xmlFile, StandardOpenOption.READ))
+      {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      final InputSource source = new InputSource(new ByteBufferInputStream(buffer));
+      source.setSystemId(xmlFile.toUri().toString());
+      return parse(source);
+   }
+
    /**
     * Parse the given XML stream and return the root Element
     */
@@ -237,6 +313,24 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static Element parse(InputStream xmlStream) throws IOException
    {
+      if (useDocumentBuilderPool)
+      {
+         final DocumentBuilderPool pool = getDocumentBuilderPool();
+         final DocumentBuilder builder = pool.borrow();
+         try
+         {
+            return builder.parse(xmlStream).getDocumentElement();
+         }
+         catch (SAXException se)
+         {
+            throw new IOException(se.toString());
+         }
+         finally
+         {
+            pool.release(builder);
+            xmlStream.close();
+         }
+      }
       DocumentBuilder builder = getDocumentBuilder();
       return parse(xmlStream, builder);
    }
@@ -250,10 +344,26 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
       try
       {
          Document doc;
-         DocumentBuilder builder = getDocumentBuilder();
-         synchronized (builder) //synchronize to prevent concurrent parsing on the same DocumentBuilder
+         if (useDocumentBuilderPool)
          {
-            doc = builder.parse(source);
+            final DocumentBuilderPool pool = getDocumentBuilderPool();
+            final DocumentBuilder builder = pool.borrow();
+            try
+            {
+               doc = builder.parse(source);
+            }
+            finally
+            {
+               pool.release(builder);
+            }
+         }
+         else
+         {
+            DocumentBuilder builder = getDocumentBuilder();
+            synchronized (builder) //synchronize to prevent concurrent parsing on the same DocumentBuilder
+            {
+               doc = builder.parse(source);
+            }
          }
          return doc.getDocumentElement();
       }
@@ -282,7 +392,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static Element createElement(String localPart)
    {
-      Document doc = getOwnerDocument();
+      Document doc = getNodeOwnerDocument();
       if (ROOT_LOGGER.isTraceEnabled()) ROOT_LOGGER.trace("createElement {}" + localPart);
       return doc.createElement(localPart);
    }
@@ -293,7 +403,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static Element createElement(String localPart, String prefix)
    {
-      Document doc = getOwnerDocument();
+      Document doc = getNodeOwnerDocument();
       if (ROOT_LOGGER.isTraceEnabled()) ROOT_LOGGER.trace("createElement {}" + prefix + ":" + localPart);
       return doc.createElement(prefix + ":" + localPart);
    }
@@ -304,7 +414,7 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static Element createElement(String localPart, String prefix, String uri)
    {
-      Document doc = getOwnerDocument();
+      Document doc = getNodeOwnerDocument();
       if (prefix == null || prefix.length() == 0)
       {
          if (ROOT_LOGGER.isTraceEnabled()) ROOT_LOGGER.trace("createElement {" + uri + "}" + localPart);
@@ -332,31 +442,244 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static Text createTextNode(String value)
    {
-      Document doc = getOwnerDocument();
+      Document doc = getNodeOwnerDocument();
       return doc.createTextNode(value);
    }
 
    /** Peek at the owner document without creating a new one if not set. */
    public static Document peekOwnerDocument()
    {
-      return documentThreadLocal.get();
+      OwnerDocument owner = documentThreadLocal.get();
+      return (owner != null ? owner.document : null);
    }
    
    public static void setOwnerDocument(Document doc)
    {
-      documentThreadLocal.set(doc);
+      release(documentThreadLocal.get());
+      if (doc != null)
+      {
+         documentThreadLocal.set(new OwnerDocument(doc, false));
+         threadBoundDocuments.increment();
+      }
+      else
+      {
+         documentThreadLocal.remove();
+      }
    }
    
    /** Get the owner document that is associated with the current thread */
    public static Document getOwnerDocument()
    {
-      Document doc = documentThreadLocal.get();
-      if (doc == null)
+      return getOwnerDocumentHolder().document;
+   }
+
+   /**
+    * Open a scope giving a fresh owner document to the current unit of work: until the scope
+    * is closed, the elements and text nodes created by the current thread belong to that document,
+    * which is then released instead of being retained by the thread. Scopes can be nested.
+    * 
+    * <pre>
+    * try (DocumentScope scope = DOMUtils.openDocumentScope())
+    * {
+    *    Element el = DOMUtils.createElement("foo");
+    *    ...
+    * }
+    * </pre>
+    */
+   public static DocumentScope openDocumentScope()
+   {
+      OwnerDocument owner = new OwnerDocument(newDocument(), true);
+      OwnerDocument previous = documentThreadLocal.get();
+      documentThreadLocal.set(owner);
+      return new DocumentScope(owner, previous);
+   }
+
+   /**
+    * The number of nodes created through DOMUtils and still held by thread-bound owner
+    * documents, i.e. the ones that are not released till clearThreadLocals() is called
+    */
+   public static long getThreadBoundNodeCount()
+   {
+      return threadBoundNodes.sum();
+   }
+
+   /** The number of owner documents currently bound to a thread */
+   public static long getThreadBoundDocumentCount()
+   {
+      return threadBoundDocuments.sum();
+   }
+
+   private static OwnerDocument getOwnerDocumentHolder()
+   {
+      OwnerDocument owner = documentThreadLocal.get();
+      if (owner == null)
+      {
+         owner = new OwnerDocument(newDocument(), false);
+         documentThreadLocal.set(owner);
+         threadBoundDocuments.increment();
+      }
+      return owner;
+   }
+
+   /** Get the owner document for a node that is about to be created */
+   private static Document getNodeOwnerDocument()
+   {
+      OwnerDocument owner = getOwnerDocumentHolder();
+      if (!owner.scoped)
+      {
+         owner.nodeCount++;
+         threadBoundNodes.increment();
+      }
+      return owner.document;
+   }
+
+   private static void release(OwnerDocument owner)
+   {
+      if (owner != null && !owner.scoped)
+      {
+         threadBoundNodes.add(-owner.nodeCount);
+         threadBoundDocuments.decrement();
+      }
+   }
+
+   /**
+    * Copy the source into the result with the identity transformer of the current thread, which streams the
+    * SAX events straight into the result; the transformer is created by the TransformerFactory the current
+    * thread resolves, then reset and reused by the following transformations of the thread.
+    */
+   private static void identityTransform(Source source, Result result) throws TransformerException
+   {
+      final TransformerFactory factory = resolveTransformerFactory();
+      IdentityTransformer identity = identityTransformerThreadLocal.get();
+      if (identity == null || identity.factory != factory)
+      {
+         identity = new IdentityTransformer(factory, newIdentityTransformer(factory));
+         identityTransformerThreadLocal.set(identity);
+      }
+      else if (identity.busy)
+      {
+         // a transformation nested in the current one
+         newIdentityTransformer(factory).transform(source, result);
+         return;
+      }
+      identity.busy = true;
+      try
+      {
+         identity.transformer.transform(source, result);
+      }
+      finally
+      {
+         identity.transformer.reset();
+         identity.busy = false;
+      }
+   }
+
+   /**
+    * Get the TransformerFactory for the current thread; the factory is looked up once per context classloader
+    */
+   private static TransformerFactory resolveTransformerFactory()
+   {
+      final ClassLoader classLoader = SecurityActions.getContextClassLoader();
+      TransformerFactory factory = transformerFactories.get(classLoader);
+      if (factory == null)
       {
-         doc = getDocumentBuilder().newDocument();
-         documentThreadLocal.set(doc);
+         factory = transformerFactories.putIfAbsent(classLoader, TransformerFactory.newInstance());
+      }
+      return factory;
+   }
+
+   private static Transformer newIdentityTransformer(TransformerFactory factory) throws TransformerConfigurationException
+   {
+      // the factory is not thread safe; this only happens once per thread and factory
+      synchronized (factory)
+      {
+         return factory.newTransformer();
+      }
+   }
+
+   private static final class IdentityTransformer
+   {
+      final TransformerFactory factory;
+      final Transformer transformer;
+      boolean busy;
+
+      IdentityTransformer(TransformerFactory factory, Transformer transformer)
+      {
+         this.factory = factory;
+         this.transformer = transformer;
+      }
+   }
+
+   private static Document newDocument()
+   {
+      if (useDocumentBuilderPool)
+      {
+         final DocumentBuilderPool pool = getDocumentBuilderPool();
+         final DocumentBuilder builder = pool.borrow();
+         try
+         {
+            return builder.newDocument();
+         }
+         finally
+         {
+            pool.release(builder);
+         }
+      }
+      return getDocumentBuilder().newDocument();
+   }
+
+   private static final class OwnerDocument
+   {
+      private final Document document;
+      private final boolean scoped;
+      private long nodeCount;
+
+      private OwnerDocument(Document document, boolean scoped)
+      {
+         this.document = document;
+         this.scoped = scoped;
+      }
+   }
+
+   /**
+    * A unit of work owning the document the nodes created by DOMUtils belong to;
+    * closing it restores the owner document that was associated with the thread before.
+    */
+   public static final class DocumentScope implements AutoCloseable
+   {
+      private final OwnerDocument owner;
+      private final OwnerDocument previous;
+      private boolean closed;
+
+      private DocumentScope(OwnerDocument owner, OwnerDocument previous)
+      {
+         this.owner = owner;
+         this.previous = previous;
+      }
+
+      public Document getDocument()
+      {
+         return owner.document;
+      }
+
+      @Override
+      public void close()
+      {
+         if (closed)
+            return;
+
+         closed = true;
+         OwnerDocument current = documentThreadLocal.get();
+         if (current != owner)
+         {
+            // the thread-bound document set within the scope is dropped as well
+            release(current);
+         }
+         if (previous != null)
+            documentThreadLocal.set(previous);
+         else
+            documentThreadLocal.remove();
       }
-      return doc;
    }
 
    /**
@@ -412,13 +735,10 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
          {
             try
             {
-               TransformerFactory tf = TransformerFactory.newInstance();
-               ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-               Transformer transformer = tf.newTransformer();
-               transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-               transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-               transformer.transform(source, new StreamResult(baos));
-               retElement = DOMUtils.parse(new ByteArrayInputStream(baos.toByteArray()));
+               //transform the SAX events straight into a document, no serialization and re-parsing
+               Document doc = newDocument();
+               identityTransform(source, new DOMResult(doc));
+               retElement = doc.getDocumentElement();
             }
             catch (TransformerException ex)
             {
@@ -470,8 +790,12 @@ public final class DOMUtils extends org.jboss.ws.api.util.DOMUtils
     */
    public static String node2String(final Node node, boolean prettyPrint, String encoding) throws UnsupportedEncodingException 
    {
+      if (!Charset.isSupported(encoding))
+      {
+         throw new UnsupportedEncodingException(encoding);
+      }
       final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      new DOMWriter(new PrintWriter(baos), encoding).setPrettyprint(prettyPrint).print(node);
+      new DOMWriter(baos, encoding).setPrettyprint(prettyPrint).print(node);
       return baos.toString(encoding);
    }
 
@@ -57,16 +57,23 @@ package org.jboss.ws.common;
 
 import static org.jboss.ws.common.Messages.MESSAGES;
 
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.jboss.ws.common.io.EncodingBufferedWriter;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -75,14 +82,22 @@ import org.w3c.dom.NodeList;
 
 /**
  * Traverse a DOM tree in order to print a document that is parsed.
+ * 
+ * When constructed on an OutputStream or a WritableByteChannel the characters
+ * are encoded straight into a reusable byte buffer (see {@link EncodingBufferedWriter});
+ * the target is flushed once, when the whole node has been printed.
+ *
+ * When a {@link C14NMethod} is set, the node is serialized as inclusive or exclusive
+ * Canonical XML instead; constructed on a MessageDigest, the canonical UTF-8 bytes
+ * are streamed into the digest without building the serialized document.
  *
  * @author Andy Clark, IBM
  * @author Thomas.Diesler@jboss.org
  */
 public class DOMWriter
 {
-   // Print writer
-   private PrintWriter out;
+   // The output writer
+   private Writer out;
    // True, if canonical output
    private boolean canonical;
    // True, if pretty printing should be used
@@ -103,40 +118,133 @@ public class DOMWriter
    private boolean completeNamespaces = true;
    // The current default namespace
    private String currentDefaultNamespace;
+   // The prefix bindings declared from the root node down to the current element
+   private final Map<String, String> nsScope = new HashMap<String, String>();
+   // The bindings shadowed by nsScope, restored when leaving an element
+   private String[] nsUndoPrefixes = new String[16];
+   private String[] nsUndoURIs = new String[16];
+   private int nsUndoTop;
+   // The prefix bindings declared by the ancestors of the root node, lazily initialized
+   private Map<String, String> outerNsScope;
+   // The prefixes of the current element that are not bound within the root node
+   private Set<String> unboundPrefixes = new HashSet<String>();
+   // The canonicalization method, null for the plain serialization
+   private C14NMethod c14nMethod;
+   // The prefixes treated as with inclusive canonicalization by the exclusive methods, "" for the default namespace
+   private Set<String> inclusivePrefixes = new HashSet<String>();
+   // The namespace bindings in scope of the current element, "" for the default namespace
+   private final Map<String, String> c14nScope = new HashMap<String, String>();
+   // The namespace declarations rendered by the output ancestors of the current element (exclusive methods only)
+   private final Map<String, String> c14nRendered = new HashMap<String, String>();
+   // The bindings shadowed by c14nScope and c14nRendered, as (map, prefix, uri) triples
+   private Object[] c14nUndo = new Object[48];
+   private int c14nUndoTop;
+   // The namespace declarations of the current element, sorted by prefix
+   private final TreeMap<String, String> c14nDeclarations = new TreeMap<String, String>();
+
+   private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+   private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+   /**
+    * The Canonical XML methods
+    */
+   public enum C14NMethod
+   {
+      INCLUSIVE("http://www.w3.org/TR/2001/REC-xml-c14n-20010315", false, false),
+      INCLUSIVE_WITH_COMMENTS("http://www.w3.org/TR/2001/REC-xml-c14n-20010315#WithComments", false, true),
+      EXCLUSIVE("http://www.w3.org/2001/10/xml-exc-c14n#", true, false),
+      EXCLUSIVE_WITH_COMMENTS("http://www.w3.org/2001/10/xml-exc-c14n#WithComments", true, true);
+
+      private final String uri;
+      private final boolean exclusive;
+      private final boolean withComments;
+
+      private C14NMethod(String uri, boolean exclusive, boolean withComments)
+      {
+         this.uri = uri;
+         this.exclusive = exclusive;
+         this.withComments = withComments;
+      }
+
+      /** The algorithm identifier */
+      public String getURI()
+      {
+         return uri;
+      }
+
+      public boolean isExclusive()
+      {
+         return exclusive;
+      }
+
+      public boolean isWithComments()
+      {
+         return withComments;
+      }
+
+      /** Get the method by algorithm identifier, null if unknown */
+      public static C14NMethod fromURI(String uri)
+      {
+         for (C14NMethod method : values())
+         {
+            if (method.uri.equals(uri))
+               return method;
+         }
+         return null;
+      }
+   }
 
    public DOMWriter(Writer w)
    {
-      this.out = new PrintWriter(w);
+      this.out = w;
    }
 
    public DOMWriter(Writer w, String charsetName)
    {
-      this.out = new PrintWriter(w);
+      this.out = w;
       this.charsetName = charsetName;
       this.writeXMLDeclaration = true;
    }
 
    public DOMWriter(OutputStream stream)
    {
-      try
-      {
-         this.out = new PrintWriter(new OutputStreamWriter(stream, "UTF-8"));
-      }
-      catch (UnsupportedEncodingException e)
-      {
-         // ignore, UTF-8 should be available
-      }
+      this.out = new EncodingBufferedWriter(stream, StandardCharsets.UTF_8);
    }
 
    public DOMWriter(OutputStream stream, String charsetName)
+   {
+      this.out = new EncodingBufferedWriter(stream, toCharset(charsetName));
+      this.charsetName = charsetName;
+      this.writeXMLDeclaration = true;
+   }
+
+   public DOMWriter(WritableByteChannel channel)
+   {
+      this.out = new EncodingBufferedWriter(channel, StandardCharsets.UTF_8);
+   }
+
+   public DOMWriter(WritableByteChannel channel, String charsetName)
+   {
+      this.out = new EncodingBufferedWriter(channel, toCharset(charsetName));
+      this.charsetName = charsetName;
+      this.writeXMLDeclaration = true;
+   }
+
+   /**
+    * Writes the UTF-8 encoded output to the given digest
+    */
+   public DOMWriter(MessageDigest digest)
+   {
+      this.out = new EncodingBufferedWriter(new DigestOutputStream(digest), StandardCharsets.UTF_8);
+   }
+
+   private static Charset toCharset(String charsetName)
    {
       try
       {
-         this.out = new PrintWriter(new OutputStreamWriter(stream, charsetName));
-         this.charsetName = charsetName;
-         this.writeXMLDeclaration = true;
+         return Charset.forName(charsetName);
       }
-      catch (UnsupportedEncodingException e)
+      catch (RuntimeException e)
       {
          throw new IllegalArgumentException(e);
       }
@@ -154,6 +262,15 @@ public class DOMWriter
       return strw.toString();
    }
 
+   /**
+    * Digest the canonical form of the given node, without serializing it to memory.
+    */
+   public static byte[] digest(Node node, C14NMethod method, MessageDigest digest)
+   {
+      new DOMWriter(digest).setC14NMethod(method).print(node);
+      return digest.digest();
+   }
+
    public boolean isCanonical()
    {
       return canonical;
@@ -169,6 +286,36 @@ public class DOMWriter
       return this;
    }
 
+   public C14NMethod getC14NMethod()
+   {
+      return c14nMethod;
+   }
+
+   /**
+    * Set the Canonical XML method used to serialize the node; when set, the
+    * canonical, prettyprint and XML declaration settings do not apply.
+    * The default is null (no canonicalization).
+    */
+   public DOMWriter setC14NMethod(C14NMethod method)
+   {
+      this.c14nMethod = method;
+      return this;
+   }
+
+   /**
+    * Set the InclusiveNamespaces PrefixList of the exclusive methods,
+    * using "#default" for the default namespace.
+    */
+   public DOMWriter setInclusiveNamespaces(String... prefixes)
+   {
+      inclusivePrefixes.clear();
+      for (String prefix : prefixes)
+      {
+         inclusivePrefixes.add("#default".equals(prefix) ? "" : prefix);
+      }
+      return this;
+   }
+
    public boolean isIgnoreWhitespace()
    {
       return ignoreWhitespace;
@@ -227,14 +374,28 @@ public class DOMWriter
 
    public void print(Node node)
    {
+      if (c14nMethod != null)
+      {
+         printC14N(node);
+         return;
+      }
       if (prettyprint && ignoreWhitespace)
          throw MESSAGES.cannotPrettyPrintAndIgnoreWhiteSpaces();
       
       rootNode = node;
-      printInternal(node, false);
+      resetNamespaceScope();
+      try
+      {
+         printInternal(node, false);
+         out.flush();
+      }
+      catch (IOException e)
+      {
+         throw MESSAGES.cannotWriteNode(e);
+      }
    }
 
-   private void printInternal(Node node, boolean indentEndMarker)
+   private void printInternal(Node node, boolean indentEndMarker) throws IOException
    {
       // is there anything to do?
       if (node == null)
@@ -247,18 +408,23 @@ public class DOMWriter
 
       if (wroteXMLDeclaration == false && writeXMLDeclaration == true && canonical == false)
       {
-         out.print("<?xml version='1.0'");
+         out.write("<?xml version='1.0'");
          if (charsetName != null)
-            out.print(" encoding='" + charsetName + "'");
+         {
+            out.write(" encoding='");
+            out.write(charsetName);
+            out.write('\'');
+         }
 
-         out.print("?>");
+         out.write("?>");
          if (prettyprint)
-            out.println();
+            out.write(LINE_SEPARATOR);
 
          wroteXMLDeclaration = true;
       }
 
       int type = node.getNodeType();
+      int nsMark = nsUndoTop;
       boolean hasChildNodes = node.getChildNodes().getLength() > 0;
 
       String nodeName = node.getNodeName();
@@ -273,7 +439,6 @@ public class DOMWriter
             {
                printInternal(children.item(iChild), false);
             }
-            out.flush();
             break;
          }
 
@@ -285,71 +450,83 @@ public class DOMWriter
             {
                for (int i = 0; i < prettyIndent; i++)
                {
-                  out.print(' ');
+                  out.write(' ');
                }
                prettyIndent++;
             }
 
-            out.print('<');
-            out.print(nodeName);
+            out.write('<');
+            out.write(nodeName);
+
+            Attr attrs[] = sortAttributes(node.getAttributes());
+            for (int i = 0; i < attrs.length; i++)
+            {
+               String atName = attrs[i].getNodeName();
+               if (atName.startsWith("xmlns:"))
+                  pushNamespace(atName.substring(6), attrs[i].getNodeValue());
+            }
 
-            Map<String, String> nsMap = new HashMap<String, String>();
             String elPrefix = node.getPrefix();
             String elNamespaceURI = node.getNamespaceURI();
-            if (elPrefix != null)
+            if (elPrefix != null && nsScope.get(elPrefix) == null)
             {
-               String nsURI = getNamespaceURI(elPrefix, element, rootNode);
-               nsMap.put(elPrefix, nsURI);
+               unboundPrefixes.add(elPrefix);
             }
 
-            Attr attrs[] = sortAttributes(node.getAttributes());
             for (int i = 0; i < attrs.length; i++)
             {
                Attr attr = attrs[i];
                String atPrefix = attr.getPrefix();
                String atName = attr.getNodeName();
-               String atValue = normalize(attr.getNodeValue(), canonical);
+               String atValue = attr.getNodeValue();
 
                if (atName.equals("xmlns"))
-                  currentDefaultNamespace = atValue;
+                  currentDefaultNamespace = normalize(atValue, canonical);
 
                if (atPrefix != null && !atPrefix.equals("xmlns") && !atPrefix.equals("xml"))
                {
-                  String nsURI = getNamespaceURI(atPrefix, element, rootNode);
-                  nsMap.put(atPrefix, nsURI);
+                  String nsURI = nsScope.get(atPrefix);
+                  if (nsURI == null)
+                     unboundPrefixes.add(atPrefix);
                   // xsi:type='ns1:SubType', xsi:type='xsd:string'
-                  if (atName.equals(atPrefix + ":type") && atValue.indexOf(":") > 0)
+                  if (atName.length() == atPrefix.length() + 5 && atName.endsWith(":type") && atValue.indexOf(':') > 0)
                   {
                      // xsi defined on the envelope
                      if (nsURI == null)
-                        nsURI = getNamespaceURI(atPrefix, element, null);
+                        nsURI = getOuterNamespaceURI(atPrefix);
 
                      if ("http://www.w3.org/2001/XMLSchema-instance".equals(nsURI))
                      {
-                        String typePrefix = atValue.substring(0, atValue.indexOf(":"));
-                        String typeURI = getNamespaceURI(typePrefix, element, rootNode);
-                        nsMap.put(typePrefix, typeURI);
+                        String typeName = normalize(atValue, canonical);
+                        String typePrefix = typeName.substring(0, typeName.indexOf(':'));
+                        if (nsScope.get(typePrefix) == null)
+                           unboundPrefixes.add(typePrefix);
                      }
                   }
                }
 
-               out.print(" " + atName + "='" + atValue + "'");
+               out.write(' ');
+               out.write(atName);
+               out.write("='");
+               Normalizer.normalize(atValue, canonical, out);
+               out.write('\'');
             }
 
             // Add namespace declaration for prefixes 
             // that are defined further up the tree
             if (completeNamespaces)
             {
-               for (Entry<String, String> e : nsMap.entrySet()) {
-                  String prefix = e.getKey();
-                  String nsURI = e.getValue();
-                  if (nsURI == null)
-                  {
-                     nsURI = getNamespaceURI(prefix, element, null);
-                     out.print(" xmlns:" + prefix + "='" + nsURI + "'");
-                  }
+               for (String prefix : unboundPrefixes)
+               {
+                  String nsURI = getOuterNamespaceURI(prefix);
+                  out.write(" xmlns:");
+                  out.write(prefix);
+                  out.write("='");
+                  out.write(String.valueOf(nsURI));
+                  out.write('\'');
                }
             }
+            clearUnboundPrefixes();
 
             // The SAX ContentHandler will by default not add the namespace declaration 
             // <Hello xmlns='http://somens'>World</Hello>
@@ -358,14 +535,16 @@ public class DOMWriter
                String defaultNamespace = element.getAttribute("xmlns");
                if (defaultNamespace.length() == 0 && !elNamespaceURI.equals(currentDefaultNamespace))
                {
-                  out.print(" xmlns='" + elNamespaceURI + "'");
+                  out.write(" xmlns='");
+                  out.write(elNamespaceURI);
+                  out.write('\'');
                   currentDefaultNamespace = elNamespaceURI;
                }
             }
 
             if (hasChildNodes)
             {
-               out.print('>');
+               out.write('>');
             }
 
             // Find out if the end marker is indented
@@ -373,7 +552,7 @@ public class DOMWriter
 
             if (indentEndMarker)
             {
-               out.print('\n');
+               out.write('\n');
             }
 
             NodeList childNodes = node.getChildNodes();
@@ -403,9 +582,9 @@ public class DOMWriter
             }
             else
             {
-               out.print('&');
-               out.print(nodeName);
-               out.print(';');
+               out.write('&');
+               out.write(nodeName);
+               out.write(';');
             }
             break;
          }
@@ -415,13 +594,13 @@ public class DOMWriter
          {
             if (canonical)
             {
-               out.print(normalize(node.getNodeValue(), canonical));
+               Normalizer.normalize(node.getNodeValue(), canonical, out);
             }
             else
             {
-               out.print("<![CDATA[");
-               out.print(node.getNodeValue());
-               out.print("]]>");
+               out.write("<![CDATA[");
+               out.write(node.getNodeValue());
+               out.write("]]>");
             }
             break;
          }
@@ -429,14 +608,10 @@ public class DOMWriter
             // print text
          case Node.TEXT_NODE:
          {
-            String text = normalize(node.getNodeValue(), canonical);
-            if (text.trim().length() > 0)
-            {
-               out.print(text);
-            }
-            else if (prettyprint == false && ignoreWhitespace == false)
+            String text = node.getNodeValue();
+            if ((prettyprint == false && ignoreWhitespace == false) || isBlank(text, canonical) == false)
             {
-               out.print(text);
+               Normalizer.normalize(text, canonical, out);
             }
             break;
          }
@@ -444,15 +619,15 @@ public class DOMWriter
             // print processing instruction
          case Node.PROCESSING_INSTRUCTION_NODE:
          {
-            out.print("<?");
-            out.print(nodeName);
+            out.write("<?");
+            out.write(nodeName);
             String data = node.getNodeValue();
             if (data != null && data.length() > 0)
             {
-               out.print(' ');
-               out.print(data);
+               out.write(' ');
+               out.write(data);
             }
-            out.print("?>");
+            out.write("?>");
             break;
          }
 
@@ -461,20 +636,20 @@ public class DOMWriter
          {
             for (int i = 0; i < prettyIndent; i++)
             {
-               out.print(' ');
+               out.write(' ');
             }
 
-            out.print("<!--");
+            out.write("<!--");
             String data = node.getNodeValue();
             if (data != null)
             {
-               out.print(data);
+               out.write(data);
             }
-            out.print("-->");
+            out.write("-->");
 
             if (prettyprint)
             {
-               out.print('\n');
+               out.write('\n');
             }
 
             break;
@@ -488,7 +663,7 @@ public class DOMWriter
 
          if (hasChildNodes == false)
          {
-            out.print("/>");
+            out.write("/>");
          }
          else
          {
@@ -496,31 +671,522 @@ public class DOMWriter
             {
                for (int i = 0; i < prettyIndent; i++)
                {
-                  out.print(' ');
+                  out.write(' ');
                }
             }
 
-            out.print("</");
-            out.print(nodeName);
-            out.print('>');
+            out.write("</");
+            out.write(nodeName);
+            out.write('>');
          }
 
+         popNamespaces(nsMark);
+
          if (prettyIndent > 0)
          {
-            out.print('\n');
+            out.write('\n');
+         }
+      }
+   }
+
+   private void printC14N(Node node)
+   {
+      c14nScope.clear();
+      c14nRendered.clear();
+      c14nUndoTop = 0;
+      try
+      {
+         if (node == null)
+         {
+            // nothing to print
+         }
+         else if (node.getNodeType() == Node.DOCUMENT_NODE)
+         {
+            boolean afterDocumentElement = false;
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+            {
+               int type = child.getNodeType();
+               if (type == Node.ELEMENT_NODE)
+               {
+                  printC14NElement((Element)child, true);
+                  afterDocumentElement = true;
+               }
+               else if (type == Node.PROCESSING_INSTRUCTION_NODE || (type == Node.COMMENT_NODE && c14nMethod.isWithComments()))
+               {
+                  // the document element is separated by a line feed from the other top level nodes
+                  if (afterDocumentElement)
+                     out.write('\n');
+                  printC14NNode(child);
+                  if (afterDocumentElement == false)
+                     out.write('\n');
+               }
+            }
+         }
+         else if (node.getNodeType() == Node.ELEMENT_NODE)
+         {
+            // the apex element of a subtree also gets the namespaces declared by its ancestors
+            for (Node parent = node.getParentNode(); parent instanceof Element; parent = parent.getParentNode())
+            {
+               NamedNodeMap attrs = parent.getAttributes();
+               for (int i = 0; i < attrs.getLength(); i++)
+               {
+                  String prefix = getDeclaredPrefix(attrs.item(i));
+                  if (prefix != null && c14nScope.containsKey(prefix) == false && (prefix.length() == 0 || attrs.item(i).getNodeValue().length() > 0))
+                     c14nScope.put(prefix, attrs.item(i).getNodeValue());
+               }
+            }
+            printC14NElement((Element)node, true);
+         }
+         else
+         {
+            printC14NNode(node);
          }
+         out.flush();
+      }
+      catch (IOException e)
+      {
+         throw MESSAGES.cannotWriteNode(e);
       }
-      out.flush();
    }
 
-   private String getNamespaceURI(String prefix, Element element, Node stopNode)
+   private void printC14NNode(Node node) throws IOException
    {
-      Node parent = element.getParentNode();
-      String nsURI = element.getAttribute("xmlns:" + prefix);
-      if (nsURI.length() == 0 && element != stopNode && parent instanceof Element)
-         return getNamespaceURI(prefix, (Element)parent, stopNode);
+      switch (node.getNodeType())
+      {
+         case Node.ELEMENT_NODE:
+            printC14NElement((Element)node, false);
+            break;
+
+         case Node.TEXT_NODE:
+         case Node.CDATA_SECTION_NODE:
+            Normalizer.normalizeC14N(node.getNodeValue(), false, out);
+            break;
+
+         case Node.ENTITY_REFERENCE_NODE:
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling())
+            {
+               printC14NNode(child);
+            }
+            break;
+
+         case Node.PROCESSING_INSTRUCTION_NODE:
+         {
+            out.write("<?");
+            out.write(node.getNodeName());
+            String data = node.getNodeValue();
+            if (data != null && data.length() > 0)
+            {
+               out.write(' ');
+               out.write(data);
+            }
+            out.write("?>");
+            break;
+         }
 
-      return (nsURI.length() > 0 ? nsURI : null);
+         case Node.COMMENT_NODE:
+         {
+            if (c14nMethod.isWithComments())
+            {
+               out.write("<!--");
+               String data = node.getNodeValue();
+               if (data != null)
+                  out.write(data);
+               out.write("-->");
+            }
+            break;
+         }
+      }
+   }
+
+   private void printC14NElement(Element element, boolean apex) throws IOException
+   {
+      int undoMark = c14nUndoTop;
+      NamedNodeMap attrs = element.getAttributes();
+      int len = attrs.getLength();
+      Attr[] sorted = new Attr[len];
+      int attrCount = 0;
+
+      // the declared bindings enter the scope, the other attributes get sorted
+      for (int i = 0; i < len; i++)
+      {
+         Attr attr = (Attr)attrs.item(i);
+         String prefix = getDeclaredPrefix(attr);
+         if (prefix != null)
+         {
+            // an empty prefixed namespace cannot be undeclared in XML 1.0
+            if (prefix.length() == 0 || attr.getNodeValue().length() > 0)
+               bindC14N(c14nScope, prefix, attr.getNodeValue());
+         }
+         else
+         {
+            sorted[attrCount++] = attr;
+         }
+      }
+
+      // the prefixes used by the element and its attributes are bound even when the
+      // tree lacks the corresponding declarations (e.g. when built with createElementNS)
+      boolean namespaceAware = element.getLocalName() != null;
+      String elPrefix = getPrefix(element);
+      if (namespaceAware)
+         fixupBinding(elPrefix, element.getNamespaceURI());
+      for (int i = 0; i < attrCount; i++)
+      {
+         String atPrefix = sorted[i].getPrefix();
+         if (atPrefix != null && sorted[i].getLocalName() != null)
+            fixupBinding(atPrefix, sorted[i].getNamespaceURI());
+      }
+
+      // select the namespace declarations to render
+      c14nDeclarations.clear();
+      if (c14nMethod.isExclusive())
+      {
+         renderExclusive(elPrefix);
+         for (int i = 0; i < attrCount; i++)
+         {
+            String atPrefix = sorted[i].getPrefix();
+            if (atPrefix != null)
+               renderExclusive(atPrefix);
+         }
+         for (String prefix : inclusivePrefixes)
+         {
+            if (c14nDeclarations.containsKey(prefix) == false)
+               renderInclusive(prefix, apex, undoMark);
+         }
+         for (Map.Entry<String, String> entry : c14nDeclarations.entrySet())
+         {
+            bindC14N(c14nRendered, entry.getKey(), entry.getValue());
+         }
+      }
+      else if (apex)
+      {
+         for (String prefix : c14nScope.keySet())
+         {
+            renderInclusive(prefix, true, undoMark);
+         }
+      }
+      else
+      {
+         for (int i = undoMark; i < c14nUndoTop; i += 3)
+         {
+            renderInclusive((String)c14nUndo[i + 1], false, undoMark);
+         }
+      }
+
+      // the xml:* attributes are inherited by the apex element, with inclusive canonicalization
+      if (apex && c14nMethod.isExclusive() == false)
+      {
+         for (Node parent = element.getParentNode(); parent instanceof Element; parent = parent.getParentNode())
+         {
+            NamedNodeMap parentAttrs = parent.getAttributes();
+            for (int i = 0; i < parentAttrs.getLength(); i++)
+            {
+               Attr attr = (Attr)parentAttrs.item(i);
+               if (attr.getNodeName().startsWith("xml:") && hasAttribute(sorted, attrCount, attr.getNodeName()) == false)
+               {
+                  if (attrCount == sorted.length)
+                     sorted = Arrays.copyOf(sorted, attrCount + 4);
+                  sorted[attrCount++] = attr;
+               }
+            }
+         }
+      }
+      Arrays.sort(sorted, 0, attrCount, C14N_ATTRIBUTE_ORDER);
+
+      String nodeName = element.getNodeName();
+      out.write('<');
+      out.write(nodeName);
+      for (Map.Entry<String, String> entry : c14nDeclarations.entrySet())
+      {
+         String prefix = entry.getKey();
+         if (prefix.length() == 0)
+         {
+            out.write(" xmlns=\"");
+         }
+         else
+         {
+            out.write(" xmlns:");
+            out.write(prefix);
+            out.write("=\"");
+         }
+         Normalizer.normalizeC14N(entry.getValue(), true, out);
+         out.write('"');
+      }
+      for (int i = 0; i < attrCount; i++)
+      {
+         out.write(' ');
+         out.write(sorted[i].getNodeName());
+         out.write("=\"");
+         Normalizer.normalizeC14N(sorted[i].getNodeValue(), true, out);
+         out.write('"');
+      }
+      out.write('>');
+
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+      {
+         printC14NNode(child);
+      }
+
+      out.write("</");
+      out.write(nodeName);
+      out.write('>');
+
+      // restore the bindings that were in scope before this element
+      while (c14nUndoTop > undoMark)
+      {
+         c14nUndoTop -= 3;
+         @SuppressWarnings("unchecked")
+         Map<String, String> map = (Map<String, String>)c14nUndo[c14nUndoTop];
+         String prefix = (String)c14nUndo[c14nUndoTop + 1];
+         String shadowed = (String)c14nUndo[c14nUndoTop + 2];
+         if (shadowed == null)
+            map.remove(prefix);
+         else
+            map.put(prefix, shadowed);
+         Arrays.fill(c14nUndo, c14nUndoTop, c14nUndoTop + 3, null);
+      }
+   }
+
+   /** A visibly utilized prefix is rendered unless an output ancestor already rendered the same binding. */
+   private void renderExclusive(String prefix)
+   {
+      String nsURI = c14nScope.get(prefix);
+      if (nsURI == null || "xml".equals(prefix))
+         return;
+
+      String rendered = c14nRendered.get(prefix);
+      if (prefix.length() == 0 && rendered == null)
+         rendered = "";
+      if (nsURI.equals(rendered) == false)
+         c14nDeclarations.put(prefix, nsURI);
+   }
+
+   /**
+    * An in scope binding is rendered on the apex element, and on its descendants
+    * when it differs from the binding in scope of the parent element.
+    */
+   private void renderInclusive(String prefix, boolean apex, int undoMark)
+   {
+      String nsURI = c14nScope.get(prefix);
+      if (nsURI == null || "xml".equals(prefix))
+         return;
+
+      String parentURI = null;
+      boolean changed = apex;
+      for (int i = undoMark; i < c14nUndoTop; i += 3)
+      {
+         if (c14nUndo[i] == c14nScope && prefix.equals(c14nUndo[i + 1]))
+         {
+            // the first entry holds the binding of the parent element
+            parentURI = (String)c14nUndo[i + 2];
+            changed = true;
+            break;
+         }
+      }
+      if (changed == false)
+         return;
+
+      if (apex == false && nsURI.equals(parentURI))
+         return;
+
+      // an empty default namespace is only declared to undeclare a non empty one
+      if (prefix.length() == 0 && nsURI.length() == 0 && (apex || parentURI == null || parentURI.length() == 0))
+         return;
+
+      c14nDeclarations.put(prefix, nsURI);
+   }
+
+   private void fixupBinding(String prefix, String nsURI)
+   {
+      if ("xml".equals(prefix))
+         return;
+
+      String value = (nsURI != null ? nsURI : "");
+      String current = c14nScope.get(prefix);
+      if (current == null ? (prefix.length() > 0 || value.length() > 0) : current.equals(value) == false)
+      {
+         if (prefix.length() == 0 || value.length() > 0)
+            bindC14N(c14nScope, prefix, value);
+      }
+   }
+
+   private void bindC14N(Map<String, String> map, String prefix, String nsURI)
+   {
+      if (c14nUndoTop == c14nUndo.length)
+         c14nUndo = Arrays.copyOf(c14nUndo, c14nUndoTop * 2);
+
+      c14nUndo[c14nUndoTop] = map;
+      c14nUndo[c14nUndoTop + 1] = prefix;
+      c14nUndo[c14nUndoTop + 2] = map.put(prefix, nsURI);
+      c14nUndoTop += 3;
+   }
+
+   /** The prefix declared by the given attribute, "" for the default namespace, null if it is not a declaration */
+   private static String getDeclaredPrefix(Node attr)
+   {
+      String atName = attr.getNodeName();
+      if (atName.equals("xmlns"))
+         return "";
+      if (atName.startsWith("xmlns:"))
+         return atName.substring(6);
+      return null;
+   }
+
+   private static String getPrefix(Node node)
+   {
+      String prefix = node.getPrefix();
+      return (prefix != null ? prefix : "");
+   }
+
+   private static boolean hasAttribute(Attr[] attrs, int count, String name)
+   {
+      for (int i = 0; i < count; i++)
+      {
+         if (attrs[i].getNodeName().equals(name))
+            return true;
+      }
+      return false;
+   }
+
+   /** Attributes are sorted by namespace URI and local name, the ones with no namespace first */
+   private static final Comparator<Attr> C14N_ATTRIBUTE_ORDER = new Comparator<Attr>()
+   {
+      public int compare(Attr a1, Attr a2)
+      {
+         int result = getNamespaceURI(a1).compareTo(getNamespaceURI(a2));
+         return (result != 0 ? result : getLocalName(a1).compareTo(getLocalName(a2)));
+      }
+
+      private String getNamespaceURI(Attr attr)
+      {
+         String nsURI = attr.getNamespaceURI();
+         if (nsURI == null && attr.getNodeName().startsWith("xml:"))
+            nsURI = XML_NAMESPACE;
+         return (nsURI != null ? nsURI : "");
+      }
+
+      private String getLocalName(Attr attr)
+      {
+         String localName = attr.getLocalName();
+         if (localName == null)
+         {
+            String name = attr.getNodeName();
+            localName = name.substring(name.indexOf(':') + 1);
+         }
+         return localName;
+      }
+   };
+
+   /** Feeds the written bytes to a MessageDigest */
+   private static final class DigestOutputStream extends OutputStream
+   {
+      private final MessageDigest digest;
+
+      DigestOutputStream(MessageDigest digest)
+      {
+         if (digest == null)
+            throw new IllegalArgumentException();
+         this.digest = digest;
+      }
+
+      @Override
+      public void write(int b)
+      {
+         digest.update((byte)b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len)
+      {
+         digest.update(b, off, len);
+      }
+   }
+
+   private void resetNamespaceScope()
+   {
+      nsScope.clear();
+      for (int i = 0; i < nsUndoTop; i++)
+      {
+         nsUndoPrefixes[i] = null;
+         nsUndoURIs[i] = null;
+      }
+      nsUndoTop = 0;
+      outerNsScope = null;
+      clearUnboundPrefixes();
+   }
+
+   private void clearUnboundPrefixes()
+   {
+      // a grown set would iterate in a different order than a fresh one
+      if (unboundPrefixes.size() > 12)
+         unboundPrefixes = new HashSet<String>();
+      else
+         unboundPrefixes.clear();
+   }
+
+   /** Binds the prefix declared by the current element, remembering the binding it shadows. */
+   private void pushNamespace(String prefix, String nsURI)
+   {
+      if (nsURI == null || nsURI.length() == 0)
+         return;
+
+      if (nsUndoTop == nsUndoPrefixes.length)
+      {
+         nsUndoPrefixes = Arrays.copyOf(nsUndoPrefixes, nsUndoTop * 2);
+         nsUndoURIs = Arrays.copyOf(nsUndoURIs, nsUndoTop * 2);
+      }
+      nsUndoPrefixes[nsUndoTop] = prefix;
+      nsUndoURIs[nsUndoTop] = nsScope.put(prefix, nsURI);
+      nsUndoTop++;
+   }
+
+   /** Restores the bindings that were in scope before the current element. */
+   private void popNamespaces(int mark)
+   {
+      while (nsUndoTop > mark)
+      {
+         nsUndoTop--;
+         String prefix = nsUndoPrefixes[nsUndoTop];
+         String shadowed = nsUndoURIs[nsUndoTop];
+         if (shadowed == null)
+            nsScope.remove(prefix);
+         else
+            nsScope.put(prefix, shadowed);
+         nsUndoPrefixes[nsUndoTop] = null;
+         nsUndoURIs[nsUndoTop] = null;
+      }
+   }
+
+   /** 
+    * Get the namespace URI of the given prefix, looking at the bindings declared by
+    * the ancestors of the root node when the prefix is not bound within the root node.
+    */
+   private String getOuterNamespaceURI(String prefix)
+   {
+      String nsURI = nsScope.get(prefix);
+      if (nsURI != null)
+         return nsURI;
+
+      if (outerNsScope == null)
+      {
+         outerNsScope = new HashMap<String, String>();
+         Node parent = (rootNode instanceof Element ? rootNode.getParentNode() : null);
+         while (parent instanceof Element)
+         {
+            NamedNodeMap attrs = parent.getAttributes();
+            int len = (attrs != null ? attrs.getLength() : 0);
+            for (int i = 0; i < len; i++)
+            {
+               Node attr = attrs.item(i);
+               String atName = attr.getNodeName();
+               String atValue = attr.getNodeValue();
+               // the nearest declaration wins
+               if (atName.startsWith("xmlns:") && atValue != null && atValue.length() > 0 && !outerNsScope.containsKey(atName.substring(6)))
+                  outerNsScope.put(atName.substring(6), atValue);
+            }
+            parent = parent.getParentNode();
+         }
+      }
+      return outerNsScope.get(prefix);
    }
 
    private boolean isEndMarkerIndented(Node node)
@@ -541,6 +1207,19 @@ public class DOMWriter
       return false;
    }
 
+   /** True, if the normalized text would be empty after trimming. */
+   private static boolean isBlank(String text, boolean canonical)
+   {
+      int len = text.length();
+      for (int i = 0; i < len; i++)
+      {
+         char ch = text.charAt(i);
+         if (ch > ' ' || (canonical && (ch == '\r' || ch == '\n')))
+            return false;
+      }
+      return true;
+   }
+
    /** Returns a sorted list of attributes. */
    private Attr[] sortAttributes(NamedNodeMap attrs)
    {
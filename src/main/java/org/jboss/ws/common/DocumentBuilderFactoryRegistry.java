@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common;
+
+import static org.jboss.ws.common.Loggers.ROOT_LOGGER;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * A registry of fully initialized (non validating, namespace aware) DocumentBuilderFactory
+ * instances, weakly keyed by the classloader used for the provider lookup and by the
+ * configured features. The lookup and the initialization, which are time-consuming,
+ * hence happen once per classloader and configuration instead of once per thread.
+ * Lookups of already registered factories are lock-free.
+ *
+ * Factories are softly referenced; a factory loaded by the key classloader (e.g. a parser
+ * shipped by a deployment) hence keeps that classloader reachable until {@link #clear(ClassLoader)}
+ * is called for it on undeploy, or until the garbage collector clears the factory.
+ */
+public final class DocumentBuilderFactoryRegistry
+{
+   public static final int SECURE_PROCESSING = 0x1;
+   public static final int DISALLOW_DOCTYPE_DECL = 0x2;
+   public static final int DISABLE_DEFERRED_NODE_EXPANSION = 0x4;
+
+   private static final int CONFIGURATIONS = 0x8;
+   private static final String DEFER_NODE_EXPANSION_FEATURE = "http://apache.org/xml/features/dom/defer-node-expansion";
+   private static final String DISALLOW_DOCTYPE_DECL_FEATURE = "http://apache.org/xml/features/disallow-doctype-decl";
+
+   // the factories by classloader, one slot per configuration
+   private static final ClassLoaderCache<AtomicReferenceArray<DocumentBuilderFactory>> factories = new ClassLoaderCache<AtomicReferenceArray<DocumentBuilderFactory>>();
+   // the factories resolved by the classloader of this class, re-used for any other classloader resolving the same implementation
+   private static final AtomicReferenceArray<DocumentBuilderFactory> defaultFactories = new AtomicReferenceArray<DocumentBuilderFactory>(CONFIGURATIONS);
+
+   // Hide the constructor
+   private DocumentBuilderFactoryRegistry()
+   {
+   }
+
+   /**
+    * Get the factory resolved by the current thread context classloader,
+    * initialized with the given features.
+    */
+   public static DocumentBuilderFactory getFactory(int features)
+   {
+      return getFactory(SecurityActions.getContextClassLoader(), features);
+   }
+
+   /**
+    * Get the factory resolved by the given classloader, initialized with the given features.
+    */
+   public static DocumentBuilderFactory getFactory(ClassLoader classLoader, int features)
+   {
+      if (features < 0 || features >= CONFIGURATIONS)
+         throw new IllegalArgumentException();
+
+      AtomicReferenceArray<DocumentBuilderFactory> slots = factories.get(classLoader);
+      DocumentBuilderFactory factory = (slots != null ? slots.get(features) : null);
+      if (factory == null)
+      {
+         //resolve and initialize the factory, which involves a service lookup; on a race,
+         //the first registered factory wins
+         factory = newFactory(classLoader, features);
+         if (slots == null)
+            slots = factories.putIfAbsent(classLoader, new AtomicReferenceArray<DocumentBuilderFactory>(CONFIGURATIONS));
+         if (!slots.compareAndSet(features, null, factory))
+            factory = slots.get(features);
+      }
+      return factory;
+   }
+
+   /**
+    * Remove the factories resolved by the given classloader (and by its children), to be called
+    * when the classloader is undeployed.
+    */
+   public static void clear(ClassLoader classLoader)
+   {
+      factories.remove(classLoader);
+   }
+
+   private static DocumentBuilderFactory newFactory(ClassLoader classLoader, int features)
+   {
+      final DocumentBuilderFactory factory;
+      final ClassLoader origClassLoader = SecurityActions.getContextClassLoader();
+      SecurityActions.setContextClassLoader(classLoader);
+      try
+      {
+         factory = DocumentBuilderFactory.newInstance();
+      }
+      finally
+      {
+         SecurityActions.setContextClassLoader(origClassLoader);
+      }
+
+      //check if the factory is equivalent to the default one; in that case
+      //re-use the default one and skip the initialization
+      final ClassLoader defaultClassLoader = DocumentBuilderFactoryRegistry.class.getClassLoader();
+      if (classLoader != defaultClassLoader)
+      {
+         final DocumentBuilderFactory defaultFactory = getFactory(defaultClassLoader, features);
+         if (factory.getClass() == defaultFactory.getClass())
+            return defaultFactory;
+      }
+
+      initializeFactory(factory, features);
+      if (classLoader == defaultClassLoader)
+      {
+         defaultFactories.compareAndSet(features, null, factory);
+         return defaultFactories.get(features);
+      }
+      return factory;
+   }
+
+   private static void initializeFactory(final DocumentBuilderFactory factory, int features)
+   {
+      factory.setValidating(false);
+      factory.setNamespaceAware(true);
+      factory.setExpandEntityReferences(false);
+
+      try
+      {
+         if ((features & SECURE_PROCESSING) != 0)
+         {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+         }
+         if ((features & DISABLE_DEFERRED_NODE_EXPANSION) != 0)
+         {
+            factory.setFeature(DEFER_NODE_EXPANSION_FEATURE, false);
+         }
+         if ((features & DISALLOW_DOCTYPE_DECL) != 0)
+         {
+            factory.setFeature(DISALLOW_DOCTYPE_DECL_FEATURE, true);
+         }
+      }
+      catch (ParserConfigurationException pce)
+      {
+         ROOT_LOGGER.error(pce);
+      }
+
+      //prewarm the factory, so that the first parse on a new thread doesn't pay for the parser configuration loading
+      try
+      {
+         factory.newDocumentBuilder();
+      }
+      catch (ParserConfigurationException pce)
+      {
+         ROOT_LOGGER.error(pce);
+      }
+   }
+}
@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common;
+
+import static org.jboss.ws.common.Messages.MESSAGES;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * A bounded, lock-free pool of DocumentBuilder instances created by a given
+ * (already configured) DocumentBuilderFactory.
+ *
+ * Builders are created on demand up to the max size; when they're all borrowed,
+ * the caller spins and then parks until one is released. No monitor is ever held,
+ * hence virtual threads are not pinned to their carrier while waiting or parsing.
+ */
+public final class DocumentBuilderPool
+{
+   private static final long MAX_PARK_NANOS = 1000000L;
+
+   private final DocumentBuilderFactory factory;
+   private final AtomicReferenceArray<DocumentBuilder> idle;
+   private final AtomicInteger size = new AtomicInteger();
+   private final AtomicLong borrowCount = new AtomicLong();
+   private final AtomicLong waitCount = new AtomicLong();
+   private final AtomicLong totalWaitTime = new AtomicLong();
+   private final AtomicLong maxWaitTime = new AtomicLong();
+
+   public DocumentBuilderPool(DocumentBuilderFactory factory, int maxSize)
+   {
+      if (factory == null || maxSize < 1)
+         throw new IllegalArgumentException();
+
+      this.factory = factory;
+      this.idle = new AtomicReferenceArray<DocumentBuilder>(maxSize);
+   }
+
+   public DocumentBuilderFactory getFactory()
+   {
+      return factory;
+   }
+
+   /**
+    * Get a builder from the pool, creating it if the pool is not full yet,
+    * otherwise waiting for another thread to release one.
+    */
+   public DocumentBuilder borrow()
+   {
+      borrowCount.incrementAndGet();
+      DocumentBuilder builder = poll();
+      if (builder != null)
+         return builder;
+
+      builder = create();
+      if (builder != null)
+         return builder;
+
+      // all builders are in use
+      final long start = System.nanoTime();
+      int spins = 0;
+      long parkNanos = 1000L;
+      while ((builder = poll()) == null && (builder = create()) == null)
+      {
+         if (spins++ < 16)
+         {
+            Thread.yield();
+         }
+         else
+         {
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+         }
+      }
+      final long waited = System.nanoTime() - start;
+      waitCount.incrementAndGet();
+      totalWaitTime.addAndGet(waited);
+      long max = maxWaitTime.get();
+      while (waited > max && !maxWaitTime.compareAndSet(max, waited))
+      {
+         max = maxWaitTime.get();
+      }
+      return builder;
+   }
+
+   /**
+    * Give a builder back to the pool; the builder is reset and discarded if
+    * it can't be reset.
+    */
+   public void release(DocumentBuilder builder)
+   {
+      if (builder == null)
+         return;
+
+      try
+      {
+         builder.reset();
+      }
+      catch (UnsupportedOperationException e)
+      {
+         size.decrementAndGet();
+         return;
+      }
+      final int len = idle.length();
+      final int start = (int)(Thread.currentThread().getId() % len);
+      for (int i = 0; i < len; i++)
+      {
+         if (idle.compareAndSet((start + i) % len, null, builder))
+            return;
+      }
+      // no free slot, should never happen
+      size.decrementAndGet();
+   }
+
+   private DocumentBuilder poll()
+   {
+      final int len = idle.length();
+      final int start = (int)(Thread.currentThread().getId() % len);
+      for (int i = 0; i < len; i++)
+      {
+         final int index = (start + i) % len;
+         final DocumentBuilder builder = idle.get(index);
+         if (builder != null && idle.compareAndSet(index, builder, null))
+            return builder;
+      }
+      return null;
+   }
+
+   private DocumentBuilder create()
+   {
+      int current;
+      while ((current = size.get()) < idle.length())
+      {
+         if (size.compareAndSet(current, current + 1))
+         {
+            try
+            {
+               return factory.newDocumentBuilder();
+            }
+            catch (Exception e)
+            {
+               size.decrementAndGet();
+               throw MESSAGES.unableToCreateInstanceOf(e, DocumentBuilder.class.getName());
+            }
+         }
+      }
+      return null;
+   }
+
+   /** The max number of builders of this pool */
+   public int getMaxSize()
+   {
+      return idle.length();
+   }
+
+   /** The number of builders currently created by this pool */
+   public int getSize()
+   {
+      return size.get();
+   }
+
+   /** The number of builders currently available in this pool */
+   public int getIdleCount()
+   {
+      int count = 0;
+      for (int i = 0; i < idle.length(); i++)
+      {
+         if (idle.get(i) != null)
+            count++;
+      }
+      return count;
+   }
+
+   /** The number of borrow requests */
+   public long getBorrowCount()
+   {
+      return borrowCount.get();
+   }
+
+   /** The number of borrow requests that had to wait for a builder to be released */
+   public long getWaitCount()
+   {
+      return waitCount.get();
+   }
+
+   /** The total time spent waiting for a builder, in nanoseconds */
+   public long getTotalWaitTime()
+   {
+      return totalWaitTime.get();
+   }
+
+   /** The max time spent waiting for a builder, in nanoseconds */
+   public long getMaxWaitTime()
+   {
+      return maxWaitTime.get();
+   }
+}
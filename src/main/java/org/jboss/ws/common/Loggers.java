@@ -230,4 +230,28 @@ public interface Loggers extends BasicLogger
     @LogMessage(level = WARN)
     @Message(id = 22119, value = "Cannot obtain port for vituralHost %s, use default port")
     void cannotObtainPort(String host);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 22124, value = "Cannot process monitoring records")
+    void cannotProcessRecords(@Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 22125, value = "Cannot write the monitoring journal to %s")
+    void cannotWriteJournal(String directory, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 22127, value = "Cannot write the monitoring records to %s")
+    void cannotWriteRecordLog(String file, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 22128, value = "Cannot register operation metrics %s with JMX server")
+    void cannotRegisterOperationWithJmxServer(ObjectName operationName, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 22129, value = "Cannot unregister operation metrics %s with JMX server")
+    void cannotUnregisterOperationWithJmxServer(ObjectName operationName, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 22130, value = "Cannot close record processor %s")
+    void cannotCloseProcessor(String processorName, @Cause Throwable cause);
 }
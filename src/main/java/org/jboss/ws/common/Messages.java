@@ -273,4 +273,10 @@ public interface Messages {
     WSFDeploymentException couldNotFindEndpointConfigName(String name);
     @Message(id = 22122, value = "SecurityContext is not set for Endpoint: %s. A jaas security domain is required")
     IllegalStateException cannotGetJBossSecurityContext(String endpointName);
+    
+    @Message(id = 22123, value = "Cannot write XML node")
+    RuntimeException cannotWriteNode(@Cause Throwable cause);
+    
+    @Message(id = 22126, value = "Invalid record filter expression '%s': unexpected '%s' at position %s")
+    IllegalArgumentException invalidRecordFilterExpression(String expression, String token, int position);
 }
@@ -21,19 +21,50 @@
  */
 package org.jboss.ws.common;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
+* Escapes the XML markup characters of text and attribute values.
+* The replacements are looked up in a table indexed by character and
+* written straight into the provided sink, with no intermediate String.
 *
 * @author <a href="mailto:mvecera@redhat.com">Martin Vecera</a>
 * @author <a href="mailto:alessio.soldano@jboss.com">Alessio Soldano</a>
 * @since 09-Dic-2009
-* 
+*
 */
 final public class Normalizer
 {
-   private static final Pattern PATTERN = Pattern.compile("[&<>'\"\r\n]");
+   // all the characters to escape are below '@'
+   private static final int TABLE_SIZE = 64;
+   private static final String[] ESCAPES = new String[TABLE_SIZE];
+   private static final String[] CANONICAL_ESCAPES = new String[TABLE_SIZE];
+   // the replacements mandated by Canonical XML (http://www.w3.org/TR/xml-c14n)
+   private static final String[] C14N_TEXT_ESCAPES = new String[TABLE_SIZE];
+   private static final String[] C14N_ATTRIBUTE_ESCAPES = new String[TABLE_SIZE];
+
+   static
+   {
+      ESCAPES['<'] = "&lt;";
+      ESCAPES['>'] = "&gt;";
+      ESCAPES['"'] = "&quot;";
+      ESCAPES['\''] = "&apos;";
+      ESCAPES['&'] = "&amp;";
+      System.arraycopy(ESCAPES, 0, CANONICAL_ESCAPES, 0, TABLE_SIZE);
+      CANONICAL_ESCAPES['\r'] = "&#13;";
+      CANONICAL_ESCAPES['\n'] = "&#10;";
+      C14N_TEXT_ESCAPES['&'] = "&amp;";
+      C14N_TEXT_ESCAPES['<'] = "&lt;";
+      C14N_TEXT_ESCAPES['>'] = "&gt;";
+      C14N_TEXT_ESCAPES['\r'] = "&#xD;";
+      C14N_ATTRIBUTE_ESCAPES['&'] = "&amp;";
+      C14N_ATTRIBUTE_ESCAPES['<'] = "&lt;";
+      C14N_ATTRIBUTE_ESCAPES['"'] = "&quot;";
+      C14N_ATTRIBUTE_ESCAPES['\t'] = "&#x9;";
+      C14N_ATTRIBUTE_ESCAPES['\n'] = "&#xA;";
+      C14N_ATTRIBUTE_ESCAPES['\r'] = "&#xD;";
+   }
 
    public static String normalize(String strValue)
    {
@@ -42,89 +73,87 @@ final public class Normalizer
 
    public static String normalize(String strValue, boolean canonical)
    {
-      Matcher m = PATTERN.matcher(strValue);
-      if (m.find())
+      final String[] table = canonical ? CANONICAL_ESCAPES : ESCAPES;
+      final int len = strValue.length();
+      int pos = 0;
+      while (pos < len)
       {
-         int pos = m.start(); // we can use previous match to skip some part at the string beginning
-         int len = strValue.length(); // just a single call to length()
-         char[] input = new char[len]; // this is to ommit calls to String.charAt()
-         strValue.getChars(0, len, input, 0);
-         StringBuilder sb = new StringBuilder(len * 3); // faster than StringBuffer, not thread safe
+         char ch = strValue.charAt(pos);
+         if (ch < TABLE_SIZE && table[ch] != null)
+            break;
+         pos++;
+      }
+      if (pos == len)
+      {
+         return strValue;
+      }
+      StringBuilder sb = new StringBuilder(len + 16);
+      sb.append(strValue, 0, pos);
+      try
+      {
+         escape(strValue, pos, len, table, sb);
+      }
+      catch (IOException e)
+      {
+         // cannot happen, StringBuilder does not throw IOException
+         throw new IllegalStateException(e);
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Writes the normalized form of the given value to the provided sink.
+    */
+   public static void normalize(CharSequence value, boolean canonical, Appendable out) throws IOException
+   {
+      escape(value, 0, value.length(), canonical ? CANONICAL_ESCAPES : ESCAPES, out);
+   }
 
-         int copyStart = 0;
+   /**
+    * Writes the given text or (double quoted) attribute value to the provided sink,
+    * escaped as required by Canonical XML.
+    */
+   public static void normalizeC14N(CharSequence value, boolean attribute, Appendable out) throws IOException
+   {
+      escape(value, 0, value.length(), attribute ? C14N_ATTRIBUTE_ESCAPES : C14N_TEXT_ESCAPES, out);
+   }
 
-         for (int i = pos; i < len; i++)
+   private static void escape(CharSequence s, int start, int end, String[] table, Appendable out) throws IOException
+   {
+      int copyStart = start;
+      for (int i = start; i < end; i++)
+      {
+         char c = s.charAt(i);
+         if (c < TABLE_SIZE)
          {
-            char ch = input[i];
-            switch (ch)
+            String replacement = table[c];
+            if (replacement != null)
             {
-               case '<':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&lt;");
-                  break;
-               case '>':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&gt;");
-                  break;
-               case '"':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&quot;");
-                  break;
-               case '\'':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&apos;");
-                  break;
-               case '&':
-                  if (copyStart < i)
-                  {
-                     sb.append(input, copyStart, i - copyStart);
-                  }
-                  copyStart = i + 1;
-                  sb.append("&amp;");
-                  break;
-               case '\r':
-               case '\n':
-                  if (canonical)
-                  {
-                     if (copyStart < i)
-                     {
-                        sb.append(input, copyStart, i - copyStart);
-                     }
-                     copyStart = i + 1;
-                     sb.append("&#");
-                     sb.append(Integer.toString(ch));
-                     sb.append(';');
-                     break;
-                  }
-
+               if (copyStart < i)
+               {
+                  append(s, copyStart, i, out);
+               }
+               out.append(replacement);
+               copyStart = i + 1;
             }
          }
-         if (copyStart < len)
-         {
-            sb.append(input, copyStart, len - copyStart);
-         }
+      }
+      if (copyStart < end)
+      {
+         append(s, copyStart, end, out);
+      }
+   }
 
-         return sb.toString();
+   private static void append(CharSequence s, int start, int end, Appendable out) throws IOException
+   {
+      // Writer.append(CharSequence, int, int) creates a sub sequence string
+      if (s instanceof String && out instanceof Writer)
+      {
+         ((Writer)out).write((String)s, start, end - start);
       }
       else
       {
-         return strValue;
+         out.append(s, start, end);
       }
    }
 }
@@ -21,9 +21,11 @@
  */
 package org.jboss.ws.common.deployment;
 
-import java.util.Iterator;
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
@@ -33,6 +35,11 @@ import org.jboss.ws.api.monitoring.RecordFilter;
 import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.Messages;
 import org.jboss.ws.common.injection.PreDestroyHolder;
+import org.jboss.ws.common.management.OperationMetricsRegistry;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.HoldingRecordFilter;
+import org.jboss.ws.common.monitoring.RecordDispatcher;
+import org.jboss.ws.common.monitoring.RecordDispatcher.OverflowPolicy;
 import org.jboss.wsf.spi.deployment.AbstractExtensible;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.deployment.EndpointState;
@@ -72,6 +79,20 @@ public abstract class AbstractDefaultEndpoint extends AbstractExtensible impleme
    private volatile SecurityDomainContext securityDomainContext;
    private volatile InstanceProvider instanceProvider;
    private volatile EndpointConfig endpointConfig;
+   private volatile RecordDispatcher recordDispatcher;
+   // True once the endpoint is stopped, the dispatcher is not re-created then; guarded by this
+   private boolean recordDispatchStopped;
+   // The records dropped by any dispatcher of this endpoint
+   private final LongAdder droppedOldestRecords = new LongAdder();
+   private final LongAdder droppedNewestRecords = new LongAdder();
+   private final OperationMetricsRegistry operationMetrics = new OperationMetricsRegistry();
+
+   // True, if the records are dispatched to the processors by a background thread
+   private static final boolean asyncRecordDispatch = Boolean.getBoolean("org.jboss.ws.monitoring.async_dispatch");
+   private static final int recordQueueSize = Integer.getInteger("org.jboss.ws.monitoring.record_queue_size", 4096);
+   private static final int recordBatchSize = Integer.getInteger("org.jboss.ws.monitoring.record_batch_size", 64);
+   private static final OverflowPolicy recordOverflowPolicy = OverflowPolicy.fromString(
+         System.getProperty("org.jboss.ws.monitoring.record_overflow_policy"), OverflowPolicy.DROP_OLDEST);
    
    AbstractDefaultEndpoint(String targetBean)
    {
@@ -173,6 +194,17 @@ public abstract class AbstractDefaultEndpoint extends AbstractExtensible impleme
    public void setState(EndpointState state)
    {
       this.state = state;
+      if (state == EndpointState.STOPPED)
+      {
+         stopRecordDispatcher();
+      }
+      else if (state == EndpointState.STARTED)
+      {
+         synchronized (this)
+         {
+            recordDispatchStopped = false;
+         }
+      }
    }
 
    public EndpointType getType()
@@ -274,24 +306,189 @@ public abstract class AbstractDefaultEndpoint extends AbstractExtensible impleme
    
    public void processRecord(Record record)
    {
+      if (asyncRecordDispatch)
+      {
+         final RecordDispatcher dispatcher = getOrCreateRecordDispatcher();
+         if (dispatcher != null)
+         {
+            dispatcher.offer(record);
+            return;
+         }
+         // the endpoint is stopped, process the record synchronously
+      }
       for (RecordProcessor processor : recordProcessors)
       {
          if (processor.isRecording())
          {
-            boolean match = true;
-            if (processor.getFilters() != null)
+            process(processor, record);
+         }
+      }
+   }
+
+   /**
+    * Hands a batch of records to the processors, one processor at a time;
+    * an exception thrown by a processor only affects the current record.
+    */
+   protected void processRecords(Record[] batch, int size)
+   {
+      for (RecordProcessor processor : recordProcessors)
+      {
+         if (processor.isRecording())
+         {
+            for (int i = 0; i < size; i++)
             {
-               for (Iterator<RecordFilter> it = processor.getFilters().iterator(); it.hasNext() && match;)
+               try
                {
-                  match = it.next().match(record);
+                  process(processor, batch[i]);
+               }
+               catch (RuntimeException e)
+               {
+                  MONITORING_LOGGER.cannotProcessRecords(e);
                }
             }
-            if (match)
+         }
+      }
+   }
+
+   /**
+    * Hands the record to the processor if it matches the processor's filters; the
+    * record held back by a {@link HoldingRecordFilter} for the record's group is
+    * handed to the processor first. The holding filters nested in other filters are
+    * only released for the {@link AbstractRecordProcessor}s, whose filters are compiled.
+    */
+   private static void process(RecordProcessor processor, Record record)
+   {
+      final boolean matched;
+      Record held = null;
+      if (processor instanceof AbstractRecordProcessor)
+      {
+         final HoldingRecordFilter filter = ((AbstractRecordProcessor)processor).getCompiledFilter();
+         matched = filter.match(record);
+         held = filter.release(record, matched);
+      }
+      else
+      {
+         final List<RecordFilter> filters = processor.getFilters();
+         matched = filters == null || matchAll(filters, record);
+         if (filters != null)
+         {
+            for (RecordFilter filter : filters)
+            {
+               if (filter instanceof HoldingRecordFilter)
+               {
+                  final Record released = ((HoldingRecordFilter)filter).release(record, matched);
+                  if (held == null)
+                  {
+                     held = released;
+                  }
+               }
+            }
+         }
+      }
+      if (!matched)
+      {
+         return;
+      }
+      if (held != null)
+      {
+         processor.processRecord(held);
+      }
+      processor.processRecord(record);
+   }
+
+   private static boolean matchAll(List<RecordFilter> filters, Record record)
+   {
+      for (RecordFilter filter : filters)
+      {
+         if (!filter.match(record))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Gets the per operation metrics of this endpoint
+    */
+   public OperationMetricsRegistry getOperationMetrics()
+   {
+      return operationMetrics;
+   }
+
+   /**
+    * Gets the dispatcher of the records, null if records are dispatched synchronously
+    * or no record has been processed yet.
+    */
+   public RecordDispatcher getRecordDispatcher()
+   {
+      return recordDispatcher;
+   }
+
+   /**
+    * Gets the number of records evicted by the DROP_OLDEST overflow policy of the
+    * dispatchers of this endpoint, including the stopped ones.
+    */
+   public long getDroppedOldestRecordCount()
+   {
+      return droppedOldestRecords.sum();
+   }
+
+   /**
+    * Gets the number of records discarded by the DROP_NEWEST overflow policy of the
+    * dispatchers of this endpoint, including the stopped ones.
+    */
+   public long getDroppedNewestRecordCount()
+   {
+      return droppedNewestRecords.sum();
+   }
+
+   /**
+    * Gets the dispatcher, creating it on first use; null once the endpoint is stopped
+    */
+   private RecordDispatcher getOrCreateRecordDispatcher()
+   {
+      RecordDispatcher dispatcher = recordDispatcher;
+      if (dispatcher == null)
+      {
+         synchronized (this)
+         {
+            dispatcher = recordDispatcher;
+            if (dispatcher == null && !recordDispatchStopped)
             {
-               processor.processRecord(record);
+               dispatcher = new RecordDispatcher("jbossws-record-dispatcher-" + shortName, recordQueueSize, recordBatchSize,
+                     recordOverflowPolicy, new RecordDispatcher.Sink()
+                     {
+                        public void processRecords(Record[] batch, int size)
+                        {
+                           AbstractDefaultEndpoint.this.processRecords(batch, size);
+                        }
+                     }, droppedOldestRecords, droppedNewestRecords);
+               recordDispatcher = dispatcher;
             }
          }
       }
+      return dispatcher;
+   }
+
+   private void stopRecordDispatcher()
+   {
+      RecordDispatcher dispatcher;
+      synchronized (this)
+      {
+         dispatcher = recordDispatcher;
+         recordDispatchStopped = true;
+      }
+      if (dispatcher != null)
+      {
+         //the records offered to the stopped dispatcher are processed by the offering threads,
+         //so none is lost while the reference is still around
+         dispatcher.stop();
+         synchronized (this)
+         {
+            recordDispatcher = null;
+         }
+      }
    }
 
    public String getAddress()
@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.deployment;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.jws.WebMethod;
+import javax.jws.WebService;
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.common.integration.AbstractDeploymentAspect;
+import org.jboss.wsf.spi.deployment.Deployment;
+import org.jboss.wsf.spi.deployment.Endpoint;
+
+/**
+ * A deployer that sizes the operation metrics of each endpoint for the
+ * operations of its endpoint interface, so the request threads never
+ * rebuild the operation table.
+ *
+ * The operations are derived from the JSR-181 annotations of the endpoint
+ * bean or of its endpoint interface; provider endpoints and operations
+ * named by a deployment descriptor only are not known upfront, their
+ * metrics are still added on the first invocation.
+ */
+public class EndpointOperationsDeploymentAspect extends AbstractDeploymentAspect
+{
+   @Override
+   public void start(Deployment dep)
+   {
+      for (Endpoint ep : dep.getService().getEndpoints())
+      {
+         if (ep instanceof AbstractDefaultEndpoint)
+         {
+            final Set<QName> operations = getOperations(ep.getTargetBeanClass(), dep.getClassLoader());
+            if (!operations.isEmpty())
+               ((AbstractDefaultEndpoint)ep).getOperationMetrics().setOperations(operations);
+         }
+      }
+   }
+
+   static Set<QName> getOperations(Class<?> implClass, ClassLoader loader)
+   {
+      final Set<QName> operations = new LinkedHashSet<QName>();
+      final WebService webService = implClass.getAnnotation(WebService.class);
+      if (webService == null)
+         return operations;
+
+      Class<?> seiClass = implClass;
+      if (webService.endpointInterface().length() > 0)
+      {
+         try
+         {
+            seiClass = loader.loadClass(webService.endpointInterface());
+         }
+         catch (ClassNotFoundException ex)
+         {
+            // left to the first invocations
+            return operations;
+         }
+      }
+      final String namespace = getTargetNamespace(seiClass);
+      if (namespace == null)
+         return operations;
+
+      for (Method method : seiClass.getMethods())
+      {
+         if (isOperation(seiClass, method))
+         {
+            final WebMethod webMethod = method.getAnnotation(WebMethod.class);
+            final String name = webMethod != null && webMethod.operationName().length() > 0 ? webMethod.operationName() : method.getName();
+            operations.add(new QName(namespace, name));
+         }
+      }
+      return operations;
+   }
+
+   private static boolean isOperation(Class<?> seiClass, Method method)
+   {
+      final WebMethod webMethod = method.getAnnotation(WebMethod.class);
+      if (webMethod != null && webMethod.exclude())
+         return false;
+      if (seiClass.isInterface())
+         return true;
+      final int modifiers = method.getModifiers();
+      return !Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+            && method.getDeclaringClass().isAnnotationPresent(WebService.class);
+   }
+
+   /**
+    * The explicit target namespace or else the one derived from the package,
+    * as mandated by JAX-WS; null when there is neither
+    */
+   private static String getTargetNamespace(Class<?> seiClass)
+   {
+      final WebService webService = seiClass.getAnnotation(WebService.class);
+      if (webService != null && webService.targetNamespace().length() > 0)
+         return webService.targetNamespace();
+
+      final Package pkg = seiClass.getPackage();
+      if (pkg == null || pkg.getName().length() == 0)
+         return null;
+      final String[] tokens = pkg.getName().split("\\.");
+      final StringBuilder sb = new StringBuilder("http://");
+      for (int i = tokens.length - 1; i >= 0; i--)
+      {
+         sb.append(tokens[i]);
+         if (i > 0)
+            sb.append('.');
+      }
+      return sb.append('/').toString();
+   }
+}
@@ -21,6 +21,8 @@
  */
 package org.jboss.ws.common.deployment;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -87,6 +89,25 @@ public class EndpointRecordProcessorDeploymentAspect extends AbstractDeploymentA
          for (RecordProcessor processor : processors)
          {
             this.unregisterRecordProcessor(processor, ep);
+            this.closeRecordProcessor(processor);
+         }
+      }
+   }
+
+   /**
+    * Releases the threads and files of the processors which hold some
+    */
+   private void closeRecordProcessor(RecordProcessor processor)
+   {
+      if (processor instanceof Closeable)
+      {
+         try
+         {
+            ((Closeable)processor).close();
+         }
+         catch (IOException ex)
+         {
+            Loggers.MANAGEMENT_LOGGER.cannotCloseProcessor(processor.getName(), ex);
          }
       }
    }
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.deployment;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DocumentBuilderFactoryRegistry;
+import org.jboss.ws.common.integration.AbstractDeploymentAspect;
+import org.jboss.wsf.spi.deployment.Deployment;
+
+/**
+ * A deployer that releases the XML factories, builder pools and transformer factories cached for the deployment classloader
+ * when the deployment is stopped, so that parsers shipped by the deployment don't
+ * keep its classloader reachable after undeploy.
+ */
+public class XMLFactoryCacheDeploymentAspect extends AbstractDeploymentAspect
+{
+   @Override
+   public void stop(Deployment dep)
+   {
+      final ClassLoader classLoader = dep.getClassLoader();
+      if (classLoader != null)
+      {
+         DOMUtils.clearCaches(classLoader);
+         DocumentBuilderFactoryRegistry.clear(classLoader);
+      }
+   }
+}
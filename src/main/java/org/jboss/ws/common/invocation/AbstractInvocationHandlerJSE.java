@@ -28,8 +28,11 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
 import org.jboss.ws.common.Loggers;
+import org.jboss.ws.common.management.InvocationEndpointMetrics;
+import org.jboss.ws.common.management.RequestStartTime;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.invocation.Invocation;
+import org.jboss.wsf.spi.management.EndpointMetrics;
 
 /**
  * Handles invocations on JSE endpoints.
@@ -85,12 +88,19 @@ public abstract class AbstractInvocationHandlerJSE extends AbstractInvocationHan
     *   </li>
     * </ul>
     *
+    * When the org.jboss.ws.management.track_endpoint_time system property is set, the
+    * time spent in this method and the time taken to get here since the begin of the
+    * request processing are reported to the endpoint metrics.
+    *
     * @param endpoint which method is going to be invoked
     * @param invocation current invocation
     * @throws Exception if any error occurs
     */
    public final void invoke(final Endpoint endpoint, final Invocation invocation) throws Exception
    {
+      final EndpointMetrics metrics = RequestStartTime.TRACKING ? endpoint.getEndpointMetrics() : null;
+      final long requestStart = RequestStartTime.TRACKING ? RequestStartTime.getAndClear() : 0;
+      final long dispatchStart = metrics instanceof InvocationEndpointMetrics ? System.nanoTime() : 0;
       try
       {
          // prepare for invocation
@@ -118,6 +128,11 @@ public abstract class AbstractInvocationHandlerJSE extends AbstractInvocationHan
       }
       finally
       {
+         if (dispatchStart != 0)
+         {
+            ((InvocationEndpointMetrics)metrics).processInvocation(requestStart != 0 ? dispatchStart - requestStart : -1,
+                  System.nanoTime() - dispatchStart);
+         }
          // notify subclasses
          this.onAfterInvocation(invocation);
       }
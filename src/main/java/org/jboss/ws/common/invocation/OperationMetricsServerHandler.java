@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.invocation;
+
+import java.util.Arrays;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.handler.soap.SOAPMessageContext;
+
+import org.jboss.ws.api.handler.GenericSOAPHandler;
+import org.jboss.ws.common.deployment.AbstractDefaultEndpoint;
+import org.jboss.ws.common.management.OperationMetrics;
+import org.jboss.wsf.spi.deployment.Endpoint;
+import org.jboss.wsf.spi.invocation.EndpointAssociation;
+
+/**
+ * This handler collects the per operation metrics of the current endpoint,
+ * timing each message exchange from the inbound message to the response
+ * or fault (or to the end of the exchange, for one-way operations).
+ *
+ * The operation metrics are looked up by the WSDL operation QName and the
+ * start times are kept in a per thread primitive stack, so nothing is allocated
+ * per request once the operations are known.
+ */
+public class OperationMetricsServerHandler extends GenericSOAPHandler<SOAPMessageContext>
+{
+   private static final ThreadLocal<Exchanges> EXCHANGES = new ThreadLocal<Exchanges>()
+   {
+      @Override
+      protected Exchanges initialValue()
+      {
+         return new Exchanges();
+      }
+   };
+
+   protected boolean handleInbound(SOAPMessageContext ctx)
+   {
+      final OperationMetrics metrics = getOperationMetrics(ctx);
+      if (metrics != null)
+      {
+         metrics.processRequestMessage();
+         EXCHANGES.get().push(metrics, System.nanoTime());
+      }
+      return true;
+   }
+
+   protected boolean handleOutbound(SOAPMessageContext ctx)
+   {
+      return handleOutbound(ctx, false);
+   }
+
+   public boolean handleFault(SOAPMessageContext ctx)
+   {
+      return handleOutbound(ctx, true);
+   }
+
+   private boolean handleOutbound(SOAPMessageContext ctx, boolean fault)
+   {
+      final Exchanges exchanges = EXCHANGES.get();
+      final OperationMetrics metrics = exchanges.peekMetrics();
+      if (metrics != null && metrics.getOperationName().equals(ctx.get(MessageContext.WSDL_OPERATION)))
+      {
+         final long beginTime = exchanges.complete();
+         if (beginTime != 0)
+         {
+            final long processingTime = System.nanoTime() - beginTime;
+            if (fault)
+               metrics.processFaultMessage(processingTime);
+            else
+               metrics.processResponseMessage(processingTime);
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void close(MessageContext ctx)
+   {
+      final Exchanges exchanges = EXCHANGES.get();
+      final OperationMetrics metrics = exchanges.peekMetrics();
+      if (metrics != null && metrics.getOperationName().equals(ctx.get(MessageContext.WSDL_OPERATION)))
+      {
+         // one-way exchanges end here
+         final long beginTime = exchanges.complete();
+         if (beginTime != 0)
+            metrics.processResponseMessage(System.nanoTime() - beginTime);
+         exchanges.pop();
+      }
+   }
+
+   private static OperationMetrics getOperationMetrics(SOAPMessageContext ctx)
+   {
+      final Endpoint endpoint = EndpointAssociation.getEndpoint();
+      if (endpoint instanceof AbstractDefaultEndpoint)
+      {
+         return ((AbstractDefaultEndpoint)endpoint).getOperationMetrics().getOrCreate((QName)ctx.get(MessageContext.WSDL_OPERATION));
+      }
+      return null;
+   }
+
+   /**
+    * The exchanges in progress on the current thread; a begin time of 0
+    * marks a completed exchange
+    */
+   private static final class Exchanges
+   {
+      private OperationMetrics[] metrics = new OperationMetrics[4];
+      private long[] beginTimes = new long[4];
+      private int size;
+
+      void push(OperationMetrics m, long beginTime)
+      {
+         if (size == metrics.length)
+         {
+            metrics = Arrays.copyOf(metrics, size * 2);
+            beginTimes = Arrays.copyOf(beginTimes, size * 2);
+         }
+         metrics[size] = m;
+         beginTimes[size++] = beginTime == 0 ? 1 : beginTime;
+      }
+
+      OperationMetrics peekMetrics()
+      {
+         return size > 0 ? metrics[size - 1] : null;
+      }
+
+      long complete()
+      {
+         final long beginTime = beginTimes[size - 1];
+         beginTimes[size - 1] = 0;
+         return beginTime;
+      }
+
+      void pop()
+      {
+         metrics[--size] = null;
+      }
+   }
+}
@@ -25,7 +25,6 @@ import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
 
 import java.net.URL;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -39,12 +38,18 @@ import javax.xml.ws.handler.soap.SOAPMessageContext;
 import org.jboss.ws.api.handler.GenericSOAPHandler;
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.Record.MessageType;
-import org.jboss.ws.api.monitoring.RecordGroupAssociation;
 import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.DOMUtils;
 import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.GroupID;
+import org.jboss.ws.common.monitoring.GroupIDAssociation;
 import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordFilterCompiler;
+import org.jboss.ws.common.monitoring.RecordImpl;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.invocation.EndpointAssociation;
+import org.w3c.dom.Document;
 
 /**
  * This handler is responsible for collecting the information about the
@@ -63,8 +68,9 @@ public class RecordingServerHandler extends GenericSOAPHandler<SOAPMessageContex
       Endpoint endpoint = EndpointAssociation.getEndpoint();
       if (endpoint != null && isRecording(endpoint))
       {
-         Record record = RecordFactory.newRecord();
-         RecordGroupAssociation.pushGroupID(record.getGroupID());
+         GroupID groupID = RecordFactory.newGroupKey();
+         GroupIDAssociation.push(groupID);
+         Record record = RecordFactory.newRecord(groupID);
          record.setDate(new Date());
          HttpServletRequest httpServletRequest = (HttpServletRequest)ctx.get(MessageContext.SERVLET_REQUEST);
          if (httpServletRequest != null)
@@ -82,62 +88,39 @@ public class RecordingServerHandler extends GenericSOAPHandler<SOAPMessageContex
          record.setHeaders((Map<String,List<String>>)(ctx.get(MessageContext.HTTP_REQUEST_HEADERS)));
          record.setMessageType(MessageType.INBOUND);
          record.setOperation((QName)ctx.get(MessageContext.WSDL_OPERATION));
-         boolean processEnvelope = false;
-         for (Iterator<RecordProcessor> it = endpoint.getRecordProcessors().iterator(); it.hasNext() && !processEnvelope; )
+         if (isProcessEnvelope(endpoint, record)) //skip message processing if not required since it's very time-consuming
          {
-            processEnvelope = it.next().isProcessEnvelope();
-         }
-         if (processEnvelope) //skip message processing if not required since it's very time-consuming
-         {
-            try
-            {
-               SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
-               if (soapEnv != null)
-               {
-                  record.setEnvelope(DOMWriter.printNode(soapEnv, true));
-               }
-            }
-            catch (SOAPException ex)
-            {
-               MONITORING_LOGGER.cannotTraceSoapMessage(ex);
-            }
+            captureEnvelope(ctx, record);
          }
          endpoint.processRecord(record);
       }
       return true;
    }
 
-   @SuppressWarnings("unchecked")
    protected boolean handleOutbound(SOAPMessageContext ctx)
+   {
+      return handleOutbound(ctx, false);
+   }
+
+   @SuppressWarnings("unchecked")
+   private boolean handleOutbound(SOAPMessageContext ctx, boolean fault)
    {
       Endpoint endpoint = EndpointAssociation.getEndpoint();
       if (endpoint != null && isRecording(endpoint))
       {
-         String groupID = RecordGroupAssociation.popGroupID();
+         GroupID groupID = GroupIDAssociation.pop();
          Record record = RecordFactory.newRecord(groupID);
          record.setDate(new Date());
          record.setHeaders((Map<String,List<String>>)(ctx.get(MessageContext.HTTP_RESPONSE_HEADERS)));
          record.setMessageType(MessageType.OUTBOUND);
-         record.setOperation((QName)ctx.get(MessageContext.WSDL_OPERATION));
-         boolean processEnvelope = false;
-         for (Iterator<RecordProcessor> it = endpoint.getRecordProcessors().iterator(); it.hasNext() && !processEnvelope; )
+         if (fault && record instanceof RecordImpl)
          {
-            processEnvelope = it.next().isProcessEnvelope();
+            ((RecordImpl)record).setFault(true);
          }
-         if (processEnvelope) //skip message processing if not required since it's very time-consuming
+         record.setOperation((QName)ctx.get(MessageContext.WSDL_OPERATION));
+         if (isProcessEnvelope(endpoint, record)) //skip message processing if not required since it's very time-consuming
          {
-            try
-            {
-               SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
-               if (soapEnv != null)
-               {
-                  record.setEnvelope(DOMWriter.printNode(soapEnv, true));
-               }
-            }
-            catch (SOAPException ex)
-            {
-               MONITORING_LOGGER.cannotTraceSoapMessage(ex);
-            }
+            captureEnvelope(ctx, record);
          }
          endpoint.processRecord(record);
       }
@@ -146,7 +129,59 @@ public class RecordingServerHandler extends GenericSOAPHandler<SOAPMessageContex
 
    public boolean handleFault(SOAPMessageContext ctx)
    {
-      return handleOutbound(ctx);
+      return handleOutbound(ctx, true);
+   }
+
+   /**
+    * Returns true if there's at least a recording processor requiring the envelope
+    * whose filters can still match the record, given its header level fields
+    */
+   private boolean isProcessEnvelope(Endpoint endpoint, Record record)
+   {
+      for (RecordProcessor processor : endpoint.getRecordProcessors())
+      {
+         if (processor.isRecording() && processor.isProcessEnvelope() && mayMatch(processor, record))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static boolean mayMatch(RecordProcessor processor, Record record)
+   {
+      return !(processor instanceof AbstractRecordProcessor)
+            || RecordFilterCompiler.mayMatch(((AbstractRecordProcessor)processor).getCompiledFilter(), record);
+   }
+
+   /**
+    * Sets a detached copy of the envelope on the record; the copy is serialized
+    * only if and when a processor actually reads the envelope. The copy itself
+    * is a deep import of the envelope, linear in its size like the serialization
+    * it defers, hence it's taken only for the records some processor can match.
+    */
+   private void captureEnvelope(SOAPMessageContext ctx, Record record)
+   {
+      try
+      {
+         SOAPEnvelope soapEnv = ctx.getMessage().getSOAPPart().getEnvelope();
+         if (soapEnv != null)
+         {
+            if (record instanceof RecordImpl)
+            {
+               Document doc = DOMUtils.getDocumentBuilder().newDocument();
+               ((RecordImpl)record).setEnvelopeSnapshot(doc.importNode(soapEnv, true));
+            }
+            else
+            {
+               record.setEnvelope(DOMWriter.printNode(soapEnv, true));
+            }
+         }
+      }
+      catch (SOAPException ex)
+      {
+         MONITORING_LOGGER.cannotTraceSoapMessage(ex);
+      }
    }
 
    /**
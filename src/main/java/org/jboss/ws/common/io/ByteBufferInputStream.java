@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.ws.common.io;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream reading the remaining bytes of a (heap, direct or mapped) ByteBuffer;
+ * the stream works on a duplicate, so the position of the provided buffer is not changed.
+ */
+public final class ByteBufferInputStream extends InputStream
+{
+
+   private final ByteBuffer buffer;
+   private int mark;
+
+   public ByteBufferInputStream(final ByteBuffer buffer)
+   {
+      if (buffer == null)
+      {
+         throw new IllegalArgumentException();
+      }
+      this.buffer = buffer.duplicate();
+      this.mark = this.buffer.position();
+   }
+
+   @Override
+   public int read()
+   {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+   }
+
+   @Override
+   public int read(final byte[] data, final int offset, final int length)
+   {
+      if (length == 0)
+      {
+         return 0;
+      }
+      final int remaining = buffer.remaining();
+      if (remaining == 0)
+      {
+         return -1;
+      }
+      final int n = Math.min(length, remaining);
+      buffer.get(data, offset, n);
+      return n;
+   }
+
+   @Override
+   public long skip(final long n)
+   {
+      final int skipped = (int)Math.max(0, Math.min(n, buffer.remaining()));
+      // Buffer cast keeps the class binary compatible with Java 8
+      ((Buffer)buffer).position(buffer.position() + skipped);
+      return skipped;
+   }
+
+   @Override
+   public int available()
+   {
+      return buffer.remaining();
+   }
+
+   @Override
+   public boolean markSupported()
+   {
+      return true;
+   }
+
+   @Override
+   public void mark(final int readLimit)
+   {
+      mark = buffer.position();
+   }
+
+   @Override
+   public void reset()
+   {
+      ((Buffer)buffer).position(mark);
+   }
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.ws.common.io;
+
+import java.io.Reader;
+
+/**
+ * A non synchronized Reader over a CharSequence, reading its characters in place
+ * (no copy of the whole sequence is made).
+ */
+public final class CharSequenceReader extends Reader
+{
+
+   private final CharSequence seq;
+   private int pos;
+   private int mark;
+
+   public CharSequenceReader(final CharSequence seq)
+   {
+      if (seq == null)
+      {
+         throw new IllegalArgumentException();
+      }
+      this.seq = seq;
+   }
+
+   @Override
+   public int read()
+   {
+      return pos < seq.length() ? seq.charAt(pos++) : -1;
+   }
+
+   @Override
+   public int read(final char[] cbuf, final int off, final int len)
+   {
+      final int remaining = seq.length() - pos;
+      if (len == 0)
+      {
+         return 0;
+      }
+      if (remaining <= 0)
+      {
+         return -1;
+      }
+      final int n = Math.min(len, remaining);
+      if (seq instanceof String)
+      {
+         ((String)seq).getChars(pos, pos + n, cbuf, off);
+      }
+      else if (seq instanceof StringBuilder)
+      {
+         ((StringBuilder)seq).getChars(pos, pos + n, cbuf, off);
+      }
+      else
+      {
+         for (int i = 0; i < n; i++)
+         {
+            cbuf[off + i] = seq.charAt(pos + i);
+         }
+      }
+      pos += n;
+      return n;
+   }
+
+   @Override
+   public long skip(final long n)
+   {
+      final int skipped = (int)Math.max(0, Math.min(n, seq.length() - pos));
+      pos += skipped;
+      return skipped;
+   }
+
+   @Override
+   public boolean ready()
+   {
+      return true;
+   }
+
+   @Override
+   public boolean markSupported()
+   {
+      return true;
+   }
+
+   @Override
+   public void mark(final int readAheadLimit)
+   {
+      mark = pos;
+   }
+
+   @Override
+   public void reset()
+   {
+      pos = mark;
+   }
+
+   @Override
+   public void close()
+   {
+   }
+}
@@ -0,0 +1,403 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.ws.common.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A non synchronized Writer that encodes characters straight into a single
+ * reusable byte buffer, which is drained to the target OutputStream or
+ * WritableByteChannel only when it is full or when the writer is flushed.
+ * UTF-8 is encoded inline; any other charset goes through a CharsetEncoder
+ * writing into the same buffer. Malformed and unmappable input is replaced,
+ * as with java.io.OutputStreamWriter.
+ */
+public final class EncodingBufferedWriter extends Writer
+{
+   public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+   private static final byte REPLACEMENT = (byte)'?';
+
+   private final OutputStream stream;
+   private final WritableByteChannel channel;
+   private final boolean utf8;
+   private final CharsetEncoder encoder;
+   private final byte[] buf;
+   private final ByteBuffer byteBuffer;
+   private int pos;
+   // a high surrogate received at the very end of the previous write
+   private char pendingHighSurrogate;
+   private boolean closed;
+
+   public EncodingBufferedWriter(final OutputStream stream, final Charset charset)
+   {
+      this(stream, null, charset, DEFAULT_BUFFER_SIZE);
+   }
+
+   public EncodingBufferedWriter(final OutputStream stream, final Charset charset, final int bufferSize)
+   {
+      this(stream, null, charset, bufferSize);
+   }
+
+   public EncodingBufferedWriter(final WritableByteChannel channel, final Charset charset)
+   {
+      this(null, channel, charset, DEFAULT_BUFFER_SIZE);
+   }
+
+   public EncodingBufferedWriter(final WritableByteChannel channel, final Charset charset, final int bufferSize)
+   {
+      this(null, channel, charset, bufferSize);
+   }
+
+   private EncodingBufferedWriter(final OutputStream stream, final WritableByteChannel channel, final Charset charset, final int bufferSize)
+   {
+      if ((stream == null && channel == null) || charset == null || bufferSize < 16)
+      {
+         throw new IllegalArgumentException();
+      }
+      this.stream = stream;
+      this.channel = channel;
+      this.utf8 = StandardCharsets.UTF_8.equals(charset);
+      this.encoder = utf8 ? null : charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      this.buf = new byte[bufferSize];
+      this.byteBuffer = ByteBuffer.wrap(buf);
+   }
+
+   @Override
+   public void write(final int c) throws IOException
+   {
+      ensureOpen();
+      final char ch = (char)c;
+      if (utf8 && ch < 0x80 && pendingHighSurrogate == 0)
+      {
+         if (pos == buf.length)
+         {
+            drain();
+         }
+         buf[pos++] = (byte)ch;
+      }
+      else
+      {
+         write(new char[] { ch }, 0, 1);
+      }
+   }
+
+   @Override
+   public void write(final char[] cbuf, final int off, final int len) throws IOException
+   {
+      ensureOpen();
+      if (len <= 0)
+      {
+         return;
+      }
+      if (utf8)
+      {
+         encodeUTF8(cbuf, null, off, off + len);
+      }
+      else
+      {
+         encode(CharBuffer.wrap(cbuf, off, len));
+      }
+   }
+
+   @Override
+   public void write(final String str, final int off, final int len) throws IOException
+   {
+      ensureOpen();
+      if (len <= 0)
+      {
+         return;
+      }
+      if (utf8)
+      {
+         encodeUTF8(null, str, off, off + len);
+      }
+      else
+      {
+         encode(CharBuffer.wrap(str, off, off + len));
+      }
+   }
+
+   @Override
+   public Writer append(final CharSequence csq) throws IOException
+   {
+      final CharSequence s = (csq == null ? "null" : csq);
+      return append(s, 0, s.length());
+   }
+
+   @Override
+   public Writer append(final CharSequence csq, final int start, final int end) throws IOException
+   {
+      final CharSequence s = (csq == null ? "null" : csq);
+      if (s instanceof String)
+      {
+         write((String)s, start, end - start);
+      }
+      else
+      {
+         ensureOpen();
+         if (utf8)
+         {
+            for (int i = start; i < end; i++)
+            {
+               write(s.charAt(i));
+            }
+         }
+         else
+         {
+            encode(CharBuffer.wrap(s, start, end));
+         }
+      }
+      return this;
+   }
+
+   /**
+    * Drains the buffered bytes to the target and flushes it; a trailing high surrogate
+    * is kept until its low surrogate is written.
+    */
+   @Override
+   public void flush() throws IOException
+   {
+      ensureOpen();
+      drain();
+      if (stream != null)
+      {
+         stream.flush();
+      }
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      if (closed)
+      {
+         return;
+      }
+      try
+      {
+         if (pendingHighSurrogate != 0)
+         {
+            pendingHighSurrogate = 0;
+            if (utf8)
+            {
+               ensureCapacity(1);
+               buf[pos++] = REPLACEMENT;
+            }
+            else
+            {
+               encode(CharBuffer.wrap(new char[] { '?' }));
+            }
+         }
+         drain();
+      }
+      finally
+      {
+         closed = true;
+         if (stream != null)
+         {
+            stream.close();
+         }
+         else
+         {
+            channel.close();
+         }
+      }
+   }
+
+   private void encodeUTF8(final char[] cbuf, final String str, final int start, final int end) throws IOException
+   {
+      final byte[] b = buf;
+      int i = start;
+      if (pendingHighSurrogate != 0)
+      {
+         final char high = pendingHighSurrogate;
+         pendingHighSurrogate = 0;
+         final char low = (cbuf != null ? cbuf[i] : str.charAt(i));
+         if (Character.isLowSurrogate(low))
+         {
+            writeCodePoint(Character.toCodePoint(high, low));
+            i++;
+         }
+         else
+         {
+            ensureCapacity(1);
+            b[pos++] = REPLACEMENT;
+         }
+      }
+      while (i < end)
+      {
+         // fast path for ASCII runs
+         int p = pos;
+         final int limit = Math.min(b.length, p + (end - i));
+         char c = 0;
+         while (p < limit && (c = (cbuf != null ? cbuf[i] : str.charAt(i))) < 0x80)
+         {
+            b[p++] = (byte)c;
+            i++;
+         }
+         pos = p;
+         if (i == end)
+         {
+            break;
+         }
+         if (p == b.length)
+         {
+            drain();
+            continue;
+         }
+         ensureCapacity(4);
+         if (c < 0x800)
+         {
+            b[pos++] = (byte)(0xC0 | (c >> 6));
+            b[pos++] = (byte)(0x80 | (c & 0x3F));
+         }
+         else if (Character.isHighSurrogate(c))
+         {
+            if (i + 1 == end)
+            {
+               pendingHighSurrogate = c;
+            }
+            else
+            {
+               final char low = (cbuf != null ? cbuf[i + 1] : str.charAt(i + 1));
+               if (Character.isLowSurrogate(low))
+               {
+                  writeCodePoint(Character.toCodePoint(c, low));
+                  i++;
+               }
+               else
+               {
+                  b[pos++] = REPLACEMENT;
+               }
+            }
+         }
+         else if (Character.isLowSurrogate(c))
+         {
+            b[pos++] = REPLACEMENT;
+         }
+         else
+         {
+            b[pos++] = (byte)(0xE0 | (c >> 12));
+            b[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            b[pos++] = (byte)(0x80 | (c & 0x3F));
+         }
+         i++;
+      }
+   }
+
+   private void writeCodePoint(final int cp) throws IOException
+   {
+      ensureCapacity(4);
+      buf[pos++] = (byte)(0xF0 | (cp >> 18));
+      buf[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+      buf[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+      buf[pos++] = (byte)(0x80 | (cp & 0x3F));
+   }
+
+   private void encode(final CharBuffer in) throws IOException
+   {
+      CharBuffer src = in;
+      if (pendingHighSurrogate != 0)
+      {
+         // re-join the surrogate pair split across two writes
+         final char[] joined = new char[in.remaining() + 1];
+         joined[0] = pendingHighSurrogate;
+         in.get(joined, 1, joined.length - 1);
+         pendingHighSurrogate = 0;
+         src = CharBuffer.wrap(joined);
+      }
+      // Buffer casts keep the class binary compatible with Java 8
+      ((Buffer)byteBuffer).limit(buf.length);
+      ((Buffer)byteBuffer).position(pos);
+      while (true)
+      {
+         final CoderResult result = encoder.encode(src, byteBuffer, false);
+         pos = byteBuffer.position();
+         if (result.isOverflow())
+         {
+            drain();
+            ((Buffer)byteBuffer).limit(buf.length);
+            ((Buffer)byteBuffer).position(pos);
+         }
+         else
+         {
+            break;
+         }
+      }
+      if (src.hasRemaining())
+      {
+         // only a trailing high surrogate can be left unconsumed
+         pendingHighSurrogate = src.get();
+      }
+   }
+
+   private void ensureCapacity(final int n) throws IOException
+   {
+      if (pos + n > buf.length)
+      {
+         drain();
+      }
+   }
+
+   private void drain() throws IOException
+   {
+      if (pos == 0)
+      {
+         return;
+      }
+      if (stream != null)
+      {
+         stream.write(buf, 0, pos);
+      }
+      else
+      {
+         ((Buffer)byteBuffer).limit(pos);
+         ((Buffer)byteBuffer).position(0);
+         while (byteBuffer.hasRemaining())
+         {
+            channel.write(byteBuffer);
+         }
+      }
+      pos = 0;
+   }
+
+   private void ensureOpen() throws IOException
+   {
+      if (closed)
+      {
+         throw new IOException("Stream closed");
+      }
+   }
+}
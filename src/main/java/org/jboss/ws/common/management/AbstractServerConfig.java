@@ -341,6 +341,7 @@ public abstract class AbstractServerConfig implements AbstractServerConfigMBean,
       MBeanServer mbeanServer = getMbeanServer();
       if (mbeanServer != null) {
          mbeanServer.registerMBean(this, AbstractServerConfigMBean.OBJECT_NAME);
+         mbeanServer.registerMBean(new DOMMetrics(), DOMMetricsMBean.OBJECT_NAME);
       }
       
       clientConfigStore.reload();
@@ -369,6 +370,7 @@ public abstract class AbstractServerConfig implements AbstractServerConfigMBean,
       MBeanServer mbeanServer = getMbeanServer();
       if (mbeanServer != null) {
          mbeanServer.unregisterMBean(AbstractServerConfigMBean.OBJECT_NAME);
+         mbeanServer.unregisterMBean(DOMMetricsMBean.OBJECT_NAME);
       }
       
       clientConfigStore.unload();
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DocumentBuilderPool;
+
+/**
+ * Publishes the DOMUtils metrics; registered along with the server config.
+ */
+public class DOMMetrics implements DOMMetricsMBean
+{
+   public long getThreadBoundNodeCount()
+   {
+      return DOMUtils.getThreadBoundNodeCount();
+   }
+
+   public long getThreadBoundDocumentCount()
+   {
+      return DOMUtils.getThreadBoundDocumentCount();
+   }
+
+   public int getDocumentBuilderPoolCount()
+   {
+      return DOMUtils.getDocumentBuilderPools().size();
+   }
+
+   public int getDocumentBuilderPoolMaxSize()
+   {
+      int maxSize = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         maxSize += pool.getMaxSize();
+      }
+      return maxSize;
+   }
+
+   public int getDocumentBuilderPoolSize()
+   {
+      int size = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         size += pool.getSize();
+      }
+      return size;
+   }
+
+   public int getIdleDocumentBuilderCount()
+   {
+      int count = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         count += pool.getIdleCount();
+      }
+      return count;
+   }
+
+   public long getDocumentBuilderBorrowCount()
+   {
+      long count = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         count += pool.getBorrowCount();
+      }
+      return count;
+   }
+
+   public long getDocumentBuilderWaitCount()
+   {
+      long count = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         count += pool.getWaitCount();
+      }
+      return count;
+   }
+
+   public long getDocumentBuilderTotalWaitTime()
+   {
+      long time = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         time += pool.getTotalWaitTime();
+      }
+      return TimeUnit.NANOSECONDS.toMillis(time);
+   }
+
+   public long getDocumentBuilderMaxWaitTime()
+   {
+      long time = 0;
+      for (DocumentBuilderPool pool : DOMUtils.getDocumentBuilderPools())
+      {
+         time = Math.max(time, pool.getMaxWaitTime());
+      }
+      return TimeUnit.NANOSECONDS.toMillis(time);
+   }
+}
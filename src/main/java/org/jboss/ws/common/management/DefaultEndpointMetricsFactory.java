@@ -32,9 +32,27 @@ import org.jboss.wsf.spi.management.EndpointMetricsFactory;
  */
 public class DefaultEndpointMetricsFactory extends EndpointMetricsFactory
 {
+   /**
+    * Set this property to true for striped metrics, whose writers never wait and which scale better
+    * with many concurrent requests at the cost of some memory per endpoint
+    */
+   public static final String STRIPED_METRICS = "org.jboss.ws.management.striped_metrics";
+
+   private final boolean striped;
+
+   public DefaultEndpointMetricsFactory()
+   {
+      this(Boolean.getBoolean(STRIPED_METRICS));
+   }
+
+   public DefaultEndpointMetricsFactory(boolean striped)
+   {
+      this.striped = striped;
+   }
+
    @Override
    public EndpointMetrics newEndpointMetrics()
    {
-      return new EndpointMetricsImpl();
+      return striped ? new StripedEndpointMetrics() : new EndpointMetricsImpl();
    }
 }
@@ -26,8 +26,6 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.jboss.wsf.spi.management.EndpointMetrics;
-
 /**
  * Service Endpoint Metrics
  *
@@ -35,7 +33,7 @@ import org.jboss.wsf.spi.management.EndpointMetrics;
  * @author Thomas.Diesler@jboss.org
  * @since 14-Dec-2005
  */
-public class EndpointMetricsImpl implements EndpointMetrics
+public class EndpointMetricsImpl implements HistogramEndpointMetrics, RateEndpointMetrics, InvocationEndpointMetrics
 {
    private volatile boolean started = false;
    
@@ -53,6 +51,23 @@ public class EndpointMetricsImpl implements EndpointMetrics
    private final AtomicLong maxProcessingTime = new AtomicLong(0);
    private final AtomicLong minProcessingTime = new AtomicLong(0);
    private final AtomicLong totalProcessingTime = new AtomicLong(0);
+   private final AtomicLong inFlightCount = new AtomicLong(0);
+   private final AtomicLong peakInFlightCount = new AtomicLong(0);
+   private final AtomicLong invocationCount = new AtomicLong(0);
+   private final AtomicLong totalEndpointTime = new AtomicLong(0);
+   private final AtomicLong dispatchCount = new AtomicLong(0);
+   private final AtomicLong totalDispatchTime = new AtomicLong(0);
+   private final LatencyHistogram processingTimeHistogram = new LatencyHistogram();
+   private final EndpointRates rates = new EndpointRates(new EndpointRates.Counters()
+   {
+      public void sample(long[] counts)
+      {
+         counts[EndpointRates.REQUESTS] = requestCount.get();
+         counts[EndpointRates.FAULTS] = faultCount.get();
+         counts[EndpointRates.COMPLETED] = responseCount.get() + faultCount.get();
+         counts[EndpointRates.PROCESSING_TIME] = totalProcessingTime.get();
+      }
+   });
    
    private volatile long updateTime = 0;
 
@@ -73,7 +88,12 @@ public class EndpointMetricsImpl implements EndpointMetrics
          return 0;
       }
       requestCount.incrementAndGet();
+      updateMax(peakInFlightCount, inFlightCount.incrementAndGet());
       updateTime = System.nanoTime();
+      if (RequestStartTime.TRACKING)
+      {
+         RequestStartTime.set(updateTime);
+      }
       return updateTime;
    }
 
@@ -84,6 +104,7 @@ public class EndpointMetricsImpl implements EndpointMetrics
          r.lock();
          try {
             responseCount.incrementAndGet();
+            inFlightCount.decrementAndGet();
             totalProcessingTime.addAndGet(procTime);
             updateTime = System.nanoTime();
          } finally {
@@ -92,6 +113,7 @@ public class EndpointMetricsImpl implements EndpointMetrics
          minProcessingTime.compareAndSet(0, procTime);
          updateMax(maxProcessingTime, procTime);
          updateMin(minProcessingTime, procTime);
+         processingTimeHistogram.record(procTime);
       }
    }
 
@@ -102,6 +124,7 @@ public class EndpointMetricsImpl implements EndpointMetrics
          r.lock();
          try {
             faultCount.incrementAndGet();
+            inFlightCount.decrementAndGet();
             totalProcessingTime.addAndGet(procTime);
             updateTime = System.nanoTime();
          } finally {
@@ -110,6 +133,21 @@ public class EndpointMetricsImpl implements EndpointMetrics
          minProcessingTime.compareAndSet(0, procTime);
          updateMax(maxProcessingTime, procTime);
          updateMin(minProcessingTime, procTime);
+         processingTimeHistogram.record(procTime);
+      }
+   }
+
+   public void processInvocation(long dispatchTime, long endpointTime)
+   {
+      if (started)
+      {
+         invocationCount.incrementAndGet();
+         totalEndpointTime.addAndGet(endpointTime);
+         if (dispatchTime >= 0)
+         {
+            dispatchCount.incrementAndGet();
+            totalDispatchTime.addAndGet(dispatchTime);
+         }
       }
    }
 
@@ -161,6 +199,56 @@ public class EndpointMetricsImpl implements EndpointMetrics
       return totalProcessingTime.get() / 1000000;
    }
 
+   public LatencyHistogram getProcessingTimeHistogram()
+   {
+      return processingTimeHistogram;
+   }
+
+   public long getInFlightCount()
+   {
+      return Math.max(0, inFlightCount.get());
+   }
+
+   public long getPeakInFlightCount()
+   {
+      return peakInFlightCount.get();
+   }
+
+   public void resetPeakInFlightCount()
+   {
+      peakInFlightCount.set(getInFlightCount());
+   }
+
+   public long getInvocationCount()
+   {
+      return invocationCount.get();
+   }
+
+   public long getTotalEndpointTimeNanos()
+   {
+      return totalEndpointTime.get();
+   }
+
+   public long getDispatchCount()
+   {
+      return dispatchCount.get();
+   }
+
+   public long getTotalDispatchTimeNanos()
+   {
+      return totalDispatchTime.get();
+   }
+
+   public long getTotalProcessingTimeNanos()
+   {
+      return totalProcessingTime.get();
+   }
+
+   public EndpointRates getRates()
+   {
+      return rates;
+   }
+
    public long getRequestCount()
    {
       return requestCount.get();
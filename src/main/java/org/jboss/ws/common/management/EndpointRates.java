@@ -0,0 +1,266 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponentially weighted moving averages of the request rate, the fault rate and
+ * the mean processing time of an endpoint, over 1, 5 and 15 minutes, in the style
+ * of the Unix load averages.
+ *
+ * The averages are updated every {@link #TICK_INTERVAL} seconds by a shared ticker
+ * thread, which samples the cumulative counters of the endpoint metrics; the request
+ * threads hence do no additional work.
+ */
+public final class EndpointRates
+{
+   /** The interval between the updates of the averages, in seconds */
+   public static final int TICK_INTERVAL = 5;
+
+   /** The index of the request count in the sampled counters */
+   public static final int REQUESTS = 0;
+   /** The index of the fault count in the sampled counters */
+   public static final int FAULTS = 1;
+   /** The index of the number of responses and faults in the sampled counters */
+   public static final int COMPLETED = 2;
+   /** The index of the total processing time of the responses and faults (in ns) in the sampled counters */
+   public static final int PROCESSING_TIME = 3;
+
+   /**
+    * The cumulative counters the averages are computed from
+    */
+   public interface Counters
+   {
+      /**
+       * Samples all the counters at once into the given array, at the
+       * {@link #REQUESTS}, {@link #FAULTS}, {@link #COMPLETED} and {@link #PROCESSING_TIME} indexes
+       */
+      void sample(long[] counts);
+   }
+
+   private static final double[] ALPHAS = { alpha(1), alpha(5), alpha(15) };
+
+   private final Counters counters;
+   // the counters sampled at each tick, only accessed by the ticking thread
+   private final long[] counts = new long[4];
+   private final Ewma requests = new Ewma();
+   private final Ewma faults = new Ewma();
+   private final Ewma completions = new Ewma();
+   private final Ewma processingTime = new Ewma();
+   // the counters at the last tick, only accessed by the ticking thread
+   private long lastRequestCount;
+   private long lastFaultCount;
+   private long lastCompletedCount;
+   private long lastProcessingTime;
+
+   /**
+    * Creates the averages, updated by the shared ticker
+    */
+   public EndpointRates(Counters counters)
+   {
+      this(counters, true);
+   }
+
+   /**
+    * @param counters   the cumulative counters
+    * @param scheduled  whether the averages are updated by the shared ticker,
+    *                   rather than by explicitly calling {@link #tick()}
+    */
+   public EndpointRates(Counters counters, boolean scheduled)
+   {
+      this.counters = counters;
+      counters.sample(counts);
+      this.lastRequestCount = counts[REQUESTS];
+      this.lastFaultCount = counts[FAULTS];
+      this.lastCompletedCount = counts[COMPLETED];
+      this.lastProcessingTime = counts[PROCESSING_TIME];
+      if (scheduled)
+      {
+         final TickTask task = new TickTask(this);
+         task.future = Ticker.INSTANCE.scheduleAtFixedRate(task, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.SECONDS);
+      }
+   }
+
+   private static double alpha(int minutes)
+   {
+      return 1 - Math.exp(-(double)TICK_INTERVAL / (60 * minutes));
+   }
+
+   /**
+    * Updates the averages with the counts of the last tick interval
+    */
+   public synchronized void tick()
+   {
+      counters.sample(counts);
+      final long requestCount = counts[REQUESTS];
+      final long faultCount = counts[FAULTS];
+      final long completedCount = counts[COMPLETED];
+      final long totalProcessingTime = counts[PROCESSING_TIME];
+      requests.update((double)(requestCount - lastRequestCount) / TICK_INTERVAL);
+      faults.update((double)(faultCount - lastFaultCount) / TICK_INTERVAL);
+      completions.update((double)(completedCount - lastCompletedCount) / TICK_INTERVAL);
+      processingTime.update((double)(totalProcessingTime - lastProcessingTime) / TICK_INTERVAL);
+      lastRequestCount = requestCount;
+      lastFaultCount = faultCount;
+      lastCompletedCount = completedCount;
+      lastProcessingTime = totalProcessingTime;
+   }
+
+   /** The requests per second over the last minute */
+   public double getOneMinuteRequestRate()
+   {
+      return requests.get(0);
+   }
+
+   /** The requests per second over the last 5 minutes */
+   public double getFiveMinuteRequestRate()
+   {
+      return requests.get(1);
+   }
+
+   /** The requests per second over the last 15 minutes */
+   public double getFifteenMinuteRequestRate()
+   {
+      return requests.get(2);
+   }
+
+   /** The faults per second over the last minute */
+   public double getOneMinuteFaultRate()
+   {
+      return faults.get(0);
+   }
+
+   /** The faults per second over the last 5 minutes */
+   public double getFiveMinuteFaultRate()
+   {
+      return faults.get(1);
+   }
+
+   /** The faults per second over the last 15 minutes */
+   public double getFifteenMinuteFaultRate()
+   {
+      return faults.get(2);
+   }
+
+   /** The mean processing time over the last minute, in ns */
+   public long getOneMinuteMeanProcessingTime()
+   {
+      return meanProcessingTime(0);
+   }
+
+   /** The mean processing time over the last 5 minutes, in ns */
+   public long getFiveMinuteMeanProcessingTime()
+   {
+      return meanProcessingTime(1);
+   }
+
+   /** The mean processing time over the last 15 minutes, in ns */
+   public long getFifteenMinuteMeanProcessingTime()
+   {
+      return meanProcessingTime(2);
+   }
+
+   private long meanProcessingTime(int window)
+   {
+      // the ratio of the decayed time and the decayed completions is the decayed mean
+      final double rate = completions.get(window);
+      return rate > 0 ? Math.round(processingTime.get(window) / rate) : 0;
+   }
+
+   /**
+    * The 1, 5 and 15 minutes averages of a rate; written by the ticking thread only
+    */
+   private static final class Ewma
+   {
+      private final double[] rates = new double[ALPHAS.length];
+      private volatile boolean initialized;
+
+      void update(double rate)
+      {
+         for (int i = 0; i < rates.length; i++)
+         {
+            rates[i] = initialized ? rates[i] + ALPHAS[i] * (rate - rates[i]) : rate;
+         }
+         // publishes the rates
+         initialized = true;
+      }
+
+      double get(int window)
+      {
+         return initialized ? rates[window] : 0;
+      }
+   }
+
+   /**
+    * Periodically ticks the averages, until they're garbage collected
+    */
+   private static final class TickTask implements Runnable
+   {
+      private final WeakReference<EndpointRates> rates;
+      private volatile Future<?> future;
+
+      TickTask(EndpointRates rates)
+      {
+         this.rates = new WeakReference<EndpointRates>(rates);
+      }
+
+      public void run()
+      {
+         final EndpointRates r = rates.get();
+         if (r == null)
+         {
+            final Future<?> f = future;
+            if (f != null)
+               f.cancel(false);
+            return;
+         }
+         r.tick();
+      }
+   }
+
+   private static final class Ticker
+   {
+      static final ScheduledExecutorService INSTANCE;
+      static
+      {
+         final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+         {
+            public Thread newThread(Runnable r)
+            {
+               final Thread thread = new Thread(r, "EndpointRates-tick");
+               thread.setDaemon(true);
+               // the thread is shared by all the deployments
+               thread.setContextClassLoader(null);
+               return thread;
+            }
+         });
+         executor.setRemoveOnCancelPolicy(true);
+         INSTANCE = executor;
+      }
+   }
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import org.jboss.wsf.spi.management.EndpointMetrics;
+
+/**
+ * Endpoint metrics also tracking the invocations in progress and the time
+ * spent in the endpoint implementation, as opposed to the time spent in the
+ * container (dispatching, unmarshalling, handlers, marshalling).
+ */
+public interface InvocationEndpointMetrics extends EndpointMetrics
+{
+   /**
+    * Records an invocation of the endpoint implementation
+    *
+    * @param dispatchTime   the time (in ns) from the begin of the request processing to the
+    *                       dispatch to the endpoint implementation, negative if not known
+    * @param endpointTime   the time (in ns) spent in the endpoint implementation
+    */
+   void processInvocation(long dispatchTime, long endpointTime);
+
+   /** The number of requests being processed */
+   long getInFlightCount();
+
+   /** The max number of requests processed at the same time, which might be sampled, hence approximate */
+   long getPeakInFlightCount();
+
+   /** Resets the peak to the number of requests being processed */
+   void resetPeakInFlightCount();
+
+   /** The number of invocations of the endpoint implementation */
+   long getInvocationCount();
+
+   /** The total time spent in the endpoint implementation, in ns */
+   long getTotalEndpointTimeNanos();
+
+   /** The number of invocations whose dispatch time is known */
+   long getDispatchCount();
+
+   /** The total time from the begin of the request processing to the dispatch to the endpoint implementation, in ns */
+   long getTotalDispatchTimeNanos();
+
+   /** The total processing time of responses and faults, in ns */
+   long getTotalProcessingTimeNanos();
+}
@@ -0,0 +1,299 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram of latencies (in ns), in the style of HdrHistogram.
+ *
+ * Values below 2^(subBucketBits + 1) get a bucket each; above that, every power of
+ * two range is split into 2^subBucketBits buckets, so the values reported for
+ * percentiles are within 1 / 2^subBucketBits of the recorded ones. Values above
+ * the highest trackable value are counted in the last bucket, the max is exact.
+ *
+ * Besides the cumulative distribution, the histogram tracks the distribution of the
+ * last completed interval: intervals are rolled over lazily when they're read, or
+ * explicitly with {@link #resetInterval()}, by taking the difference from the counts
+ * at the beginning of the interval, so recording never waits for readers.
+ *
+ * The counts and maxima can be split into stripes, each thread recording into the one
+ * its id hashes to, so that concurrent threads mostly update different cache lines;
+ * the stripes are summed up by the readers. Each stripe takes 8 bytes per bucket,
+ * i.e. 32 KB with the default resolution.
+ */
+public final class LatencyHistogram
+{
+   /** The default interval length, in ms */
+   public static final long DEFAULT_INTERVAL = 60000L;
+
+   // the max and interval max of a stripe are on their own cache line
+   private static final int MAXIMA_STRIDE = 8;
+   private static final int MAX = 0;
+   private static final int INTERVAL_MAX = 1;
+
+   private final int subBucketBits;
+   private final long highestTrackableValue;
+   // the number of buckets of each stripe
+   private final int length;
+   private final int stripeMask;
+   private final AtomicLongArray counts;
+   private final AtomicLongArray maxima;
+   private volatile long intervalLength = DEFAULT_INTERVAL;
+   // interval state, guarded by this
+   private long[] intervalBaseline;
+   private long intervalStart = System.currentTimeMillis();
+   private Snapshot lastInterval;
+
+   /**
+    * Creates a histogram with 128 buckets per power of two (< 1% error) tracking
+    * values up to about 4.5 minutes
+    */
+   public LatencyHistogram()
+   {
+      this(7, 1L << 38);
+   }
+
+   /**
+    * @param subBucketBits          the log2 of the number of buckets per power of two
+    * @param highestTrackableValue  the highest value told apart from the lower ones
+    */
+   public LatencyHistogram(int subBucketBits, long highestTrackableValue)
+   {
+      this(subBucketBits, highestTrackableValue, 1);
+   }
+
+   /**
+    * @param subBucketBits          the log2 of the number of buckets per power of two
+    * @param highestTrackableValue  the highest value told apart from the lower ones
+    * @param stripes                the number of stripes, rounded up to a power of two
+    */
+   public LatencyHistogram(int subBucketBits, long highestTrackableValue, int stripes)
+   {
+      if (subBucketBits < 1 || subBucketBits > 16 || highestTrackableValue < 1 || stripes < 1 || stripes > (1 << 16))
+         throw new IllegalArgumentException();
+      this.subBucketBits = subBucketBits;
+      this.highestTrackableValue = Math.max(highestTrackableValue, 2L << subBucketBits);
+      final int n = stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1;
+      this.stripeMask = n - 1;
+      this.length = indexOf(this.highestTrackableValue) + 1;
+      this.counts = new AtomicLongArray(length * n);
+      this.maxima = new AtomicLongArray(MAXIMA_STRIDE * n);
+      this.intervalBaseline = new long[length];
+   }
+
+   /**
+    * Records the given latency (in ns)
+    */
+   public void record(long value)
+   {
+      final int stripe = stripeMask == 0 ? 0 : (int)((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+      counts.incrementAndGet(stripe * length + indexOf(value));
+      updateMax(stripe * MAXIMA_STRIDE + MAX, value);
+      updateMax(stripe * MAXIMA_STRIDE + INTERVAL_MAX, value);
+   }
+
+   private void updateMax(int index, long value)
+   {
+      long oldValue = maxima.get(index);
+      while (value > oldValue)
+      {
+         if (maxima.compareAndSet(index, oldValue, value))
+            break;
+         oldValue = maxima.get(index);
+      }
+   }
+
+   /**
+    * Sums up the stripes of the given bucket
+    */
+   private long count(int index)
+   {
+      long count = 0;
+      for (int i = index; i < counts.length(); i += length)
+      {
+         count += counts.get(i);
+      }
+      return count;
+   }
+
+   int indexOf(long value)
+   {
+      final long v = value < 0 ? 0 : value > highestTrackableValue ? highestTrackableValue : value;
+      if (v < (2L << subBucketBits))
+         return (int)v;
+      final int shift = 63 - Long.numberOfLeadingZeros(v) - subBucketBits;
+      return (shift << subBucketBits) + (int)(v >>> shift);
+   }
+
+   long highestEquivalentValue(int index)
+   {
+      if (index < (2 << subBucketBits))
+         return index;
+      final int shift = (index >>> subBucketBits) - 1;
+      final long subBucket = index - (shift << subBucketBits);
+      return ((subBucket + 1) << shift) - 1;
+   }
+
+   /**
+    * Gets the cumulative distribution of the recorded values
+    */
+   public Snapshot snapshot()
+   {
+      final long[] copy = new long[length];
+      for (int i = 0; i < copy.length; i++)
+      {
+         copy[i] = count(i);
+      }
+      long maxValue = 0;
+      for (int i = MAX; i < maxima.length(); i += MAXIMA_STRIDE)
+      {
+         maxValue = Math.max(maxValue, maxima.get(i));
+      }
+      return new Snapshot(copy, maxValue, 0, System.currentTimeMillis());
+   }
+
+   /**
+    * Gets the distribution of the values recorded in the last completed interval,
+    * starting a new interval if the current one has lasted longer than the interval length
+    */
+   public synchronized Snapshot intervalSnapshot()
+   {
+      final long now = System.currentTimeMillis();
+      if (lastInterval == null || now - intervalStart >= intervalLength)
+      {
+         rollOver(now);
+      }
+      return lastInterval;
+   }
+
+   /**
+    * Ends the current interval, whose distribution is returned, and starts a new one
+    */
+   public synchronized Snapshot resetInterval()
+   {
+      rollOver(System.currentTimeMillis());
+      return lastInterval;
+   }
+
+   private void rollOver(long now)
+   {
+      final long[] current = new long[length];
+      final long[] interval = new long[current.length];
+      // the max is reset first, values recorded meanwhile may be counted in the next interval max too
+      long maxValue = 0;
+      for (int i = INTERVAL_MAX; i < maxima.length(); i += MAXIMA_STRIDE)
+      {
+         maxValue = Math.max(maxValue, maxima.getAndSet(i, 0));
+      }
+      for (int i = 0; i < current.length; i++)
+      {
+         current[i] = count(i);
+         interval[i] = current[i] - intervalBaseline[i];
+      }
+      intervalBaseline = current;
+      lastInterval = new Snapshot(interval, maxValue, intervalStart, now);
+      intervalStart = now;
+   }
+
+   /** The interval length, in ms */
+   public long getIntervalLength()
+   {
+      return intervalLength;
+   }
+
+   public void setIntervalLength(long intervalLength)
+   {
+      this.intervalLength = intervalLength;
+   }
+
+   /**
+    * A point in time copy of a distribution
+    */
+   public final class Snapshot
+   {
+      private final long[] counts;
+      private final long totalCount;
+      private final long maxValue;
+      private final long startTime;
+      private final long endTime;
+
+      private Snapshot(long[] counts, long maxValue, long startTime, long endTime)
+      {
+         long total = 0;
+         for (long c : counts)
+         {
+            total += c;
+         }
+         this.counts = counts;
+         this.totalCount = total;
+         this.maxValue = total > 0 ? maxValue : 0;
+         this.startTime = startTime;
+         this.endTime = endTime;
+      }
+
+      /**
+       * Gets the value (in ns) below or at which the given percentage of the recorded values are
+       *
+       * @param percentile   the percentile, from 0 to 100
+       */
+      public long getValueAtPercentile(double percentile)
+      {
+         if (totalCount == 0)
+            return 0;
+         final double p = Math.min(Math.max(percentile, 0), 100);
+         final long target = Math.max(1, (long)Math.ceil(p / 100 * totalCount));
+         long cumulative = 0;
+         for (int i = 0; i < counts.length; i++)
+         {
+            cumulative += counts[i];
+            if (cumulative >= target)
+               return Math.min(highestEquivalentValue(i), maxValue);
+         }
+         return maxValue;
+      }
+
+      /** The number of recorded values */
+      public long getTotalCount()
+      {
+         return totalCount;
+      }
+
+      /** The max recorded value, in ns */
+      public long getMaxValue()
+      {
+         return maxValue;
+      }
+
+      /** The beginning of the interval (ms since the epoch), 0 for cumulative snapshots */
+      public long getStartTime()
+      {
+         return startTime;
+      }
+
+      /** When the snapshot has been taken (ms since the epoch) */
+      public long getEndTime()
+      {
+         return endTime;
+      }
+   }
+}
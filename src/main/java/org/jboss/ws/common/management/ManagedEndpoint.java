@@ -26,26 +26,38 @@ import static org.jboss.ws.common.Loggers.MANAGEMENT_LOGGER;
 import java.util.List;
 
 import javax.management.JMException;
+import javax.management.MBeanRegistration;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import javax.xml.namespace.QName;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.common.ObjectNameFactory;
+import org.jboss.ws.common.deployment.AbstractDefaultEndpoint;
 import org.jboss.ws.common.monitoring.ManagedRecordProcessor;
+import org.jboss.ws.common.monitoring.RecordDispatcher;
 import org.jboss.wsf.spi.deployment.Endpoint;
 import org.jboss.wsf.spi.management.EndpointMetrics;
 
 /**
- * The endpoint MBean representation 
+ * The endpoint MBean representation; the metrics of the endpoint operations are
+ * registered as child MBeans while this MBean is registered.
  *
  * @author Thomas.Diesler@jboss.org
  * @since 20-Jun-2007
  */
-public class ManagedEndpoint implements ManagedEndpointMBean
+public class ManagedEndpoint implements ManagedEndpointMBean, MBeanRegistration
 {
    private final Endpoint endpoint;
    private final MBeanServer mbeanServer;
+   private final OperationMetricsRegistry.Listener operationListener = new OperationMetricsRegistry.Listener()
+   {
+      public void operationAdded(OperationMetrics metrics)
+      {
+         registerOperation(metrics);
+      }
+   };
 
    public ManagedEndpoint(Endpoint endpoint, MBeanServer mbeanServer)
    {
@@ -105,6 +117,214 @@ public class ManagedEndpoint implements ManagedEndpointMBean
       EndpointMetrics metrics = endpoint.getEndpointMetrics();
       return metrics != null ? metrics.getUpdateTime() : 0;
    }
+
+   public long getProcessingTimeP50()
+   {
+      return getPercentile(false, 50);
+   }
+
+   public long getProcessingTimeP90()
+   {
+      return getPercentile(false, 90);
+   }
+
+   public long getProcessingTimeP99()
+   {
+      return getPercentile(false, 99);
+   }
+
+   public long getProcessingTimeP999()
+   {
+      return getPercentile(false, 99.9);
+   }
+
+   public long getProcessingTimeMax()
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      return histogram != null ? histogram.snapshot().getMaxValue() : 0;
+   }
+
+   public long getIntervalProcessingTimeP50()
+   {
+      return getPercentile(true, 50);
+   }
+
+   public long getIntervalProcessingTimeP90()
+   {
+      return getPercentile(true, 90);
+   }
+
+   public long getIntervalProcessingTimeP99()
+   {
+      return getPercentile(true, 99);
+   }
+
+   public long getIntervalProcessingTimeP999()
+   {
+      return getPercentile(true, 99.9);
+   }
+
+   public long getIntervalProcessingTimeMax()
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      return histogram != null ? histogram.intervalSnapshot().getMaxValue() : 0;
+   }
+
+   public long getIntervalResponseCount()
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      return histogram != null ? histogram.intervalSnapshot().getTotalCount() : 0;
+   }
+
+   public long getHistogramInterval()
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      return histogram != null ? histogram.getIntervalLength() : 0;
+   }
+
+   public void setHistogramInterval(long interval)
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      if (histogram != null)
+      {
+         histogram.setIntervalLength(interval);
+      }
+   }
+
+   public void resetIntervalHistogram()
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      if (histogram != null)
+      {
+         histogram.resetInterval();
+      }
+   }
+
+   public double getOneMinuteRequestRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getOneMinuteRequestRate() : 0;
+   }
+
+   public double getFiveMinuteRequestRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFiveMinuteRequestRate() : 0;
+   }
+
+   public double getFifteenMinuteRequestRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFifteenMinuteRequestRate() : 0;
+   }
+
+   public double getOneMinuteFaultRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getOneMinuteFaultRate() : 0;
+   }
+
+   public double getFiveMinuteFaultRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFiveMinuteFaultRate() : 0;
+   }
+
+   public double getFifteenMinuteFaultRate()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFifteenMinuteFaultRate() : 0;
+   }
+
+   public long getOneMinuteMeanProcessingTime()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getOneMinuteMeanProcessingTime() : 0;
+   }
+
+   public long getFiveMinuteMeanProcessingTime()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFiveMinuteMeanProcessingTime() : 0;
+   }
+
+   public long getFifteenMinuteMeanProcessingTime()
+   {
+      EndpointRates rates = getRates();
+      return rates != null ? rates.getFifteenMinuteMeanProcessingTime() : 0;
+   }
+
+   public long getInFlightCount()
+   {
+      InvocationEndpointMetrics metrics = getInvocationMetrics();
+      return metrics != null ? metrics.getInFlightCount() : 0;
+   }
+
+   public long getPeakInFlightCount()
+   {
+      InvocationEndpointMetrics metrics = getInvocationMetrics();
+      return metrics != null ? metrics.getPeakInFlightCount() : 0;
+   }
+
+   public void resetPeakInFlightCount()
+   {
+      InvocationEndpointMetrics metrics = getInvocationMetrics();
+      if (metrics != null)
+      {
+         metrics.resetPeakInFlightCount();
+      }
+   }
+
+   public long getAverageEndpointTime()
+   {
+      InvocationEndpointMetrics metrics = getInvocationMetrics();
+      if (metrics == null)
+      {
+         return 0;
+      }
+      final long invocations = metrics.getInvocationCount();
+      return invocations != 0 ? metrics.getTotalEndpointTimeNanos() / invocations : 0;
+   }
+
+   public long getAverageContainerTime()
+   {
+      InvocationEndpointMetrics metrics = getInvocationMetrics();
+      if (metrics == null)
+      {
+         return 0;
+      }
+      final long dispatches = metrics.getDispatchCount();
+      return dispatches != 0 ? metrics.getTotalDispatchTimeNanos() / dispatches : 0;
+   }
+
+   private InvocationEndpointMetrics getInvocationMetrics()
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof InvocationEndpointMetrics ? (InvocationEndpointMetrics)metrics : null;
+   }
+
+   private EndpointRates getRates()
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof RateEndpointMetrics ? ((RateEndpointMetrics)metrics).getRates() : null;
+   }
+
+   private long getPercentile(boolean interval, double percentile)
+   {
+      LatencyHistogram histogram = getProcessingTimeHistogram();
+      if (histogram == null)
+      {
+         return 0;
+      }
+      return (interval ? histogram.intervalSnapshot() : histogram.snapshot()).getValueAtPercentile(percentile);
+   }
+
+   private LatencyHistogram getProcessingTimeHistogram()
+   {
+      EndpointMetrics metrics = endpoint.getEndpointMetrics();
+      return metrics instanceof HistogramEndpointMetrics ? ((HistogramEndpointMetrics)metrics).getProcessingTimeHistogram() : null;
+   }
+
    public void start()
    {
       endpoint.getLifecycleHandler().start(endpoint);
@@ -120,6 +340,101 @@ public class ManagedEndpoint implements ManagedEndpointMBean
       endpoint.processRecord(record);
    }
 
+   public long getPendingRecordCount()
+   {
+      RecordDispatcher dispatcher = getRecordDispatcher();
+      return dispatcher != null ? dispatcher.getPendingCount() : 0;
+   }
+
+   public long getDroppedRecordCount()
+   {
+      return getDroppedOldestRecordCount() + getDroppedNewestRecordCount();
+   }
+
+   public long getDroppedOldestRecordCount()
+   {
+      return endpoint instanceof AbstractDefaultEndpoint ? ((AbstractDefaultEndpoint)endpoint).getDroppedOldestRecordCount() : 0;
+   }
+
+   public long getDroppedNewestRecordCount()
+   {
+      return endpoint instanceof AbstractDefaultEndpoint ? ((AbstractDefaultEndpoint)endpoint).getDroppedNewestRecordCount() : 0;
+   }
+
+   public ObjectName preRegister(MBeanServer server, ObjectName name) throws Exception
+   {
+      return name;
+   }
+
+   public void postRegister(Boolean registrationDone)
+   {
+      OperationMetricsRegistry registry = getOperationMetricsRegistry();
+      if (registry != null && Boolean.TRUE.equals(registrationDone))
+      {
+         registry.addListener(operationListener);
+         for (OperationMetrics metrics : registry.getOperationMetrics())
+         {
+            registerOperation(metrics);
+         }
+      }
+   }
+
+   public void preDeregister() throws Exception
+   {
+      OperationMetricsRegistry registry = getOperationMetricsRegistry();
+      if (registry != null)
+      {
+         registry.removeListener(operationListener);
+         for (OperationMetrics metrics : registry.getOperationMetrics())
+         {
+            final ObjectName on = getOperationObjectName(metrics.getOperationName());
+            try
+            {
+               if (mbeanServer.isRegistered(on))
+                  mbeanServer.unregisterMBean(on);
+            }
+            catch (JMException ex)
+            {
+               MANAGEMENT_LOGGER.cannotUnregisterOperationWithJmxServer(on, ex);
+            }
+         }
+      }
+   }
+
+   public void postDeregister()
+   {
+      // nothing to do
+   }
+
+   private void registerOperation(OperationMetrics metrics)
+   {
+      final ObjectName on = getOperationObjectName(metrics.getOperationName());
+      try
+      {
+         if (!mbeanServer.isRegistered(on))
+            mbeanServer.registerMBean(metrics, on);
+      }
+      catch (JMException ex)
+      {
+         MANAGEMENT_LOGGER.cannotRegisterOperationWithJmxServer(on, ex);
+      }
+   }
+
+   private ObjectName getOperationObjectName(QName operation)
+   {
+      return ObjectNameFactory.create(endpoint.getName() + ",operation=" + ObjectName.quote(operation.toString()));
+   }
+
+   private OperationMetricsRegistry getOperationMetricsRegistry()
+   {
+      return endpoint instanceof AbstractDefaultEndpoint ? ((AbstractDefaultEndpoint)endpoint).getOperationMetrics() : null;
+   }
+
+   private RecordDispatcher getRecordDispatcher()
+   {
+      return endpoint instanceof AbstractDefaultEndpoint ? ((AbstractDefaultEndpoint)endpoint).getRecordDispatcher() : null;
+   }
+
    public void addRecordProcessor(RecordProcessor processor)
    {
       ObjectName on = ObjectNameFactory.create(endpoint.getName() + ",recordProcessor=" + processor.getName());
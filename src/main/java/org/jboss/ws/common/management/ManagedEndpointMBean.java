@@ -53,8 +53,107 @@ public interface ManagedEndpointMBean
    long getResponseCount();
    
    long getUpdateTime();
+
+   /** The 50th percentile of the processing times, in ns */
+   long getProcessingTimeP50();
+
+   /** The 90th percentile of the processing times, in ns */
+   long getProcessingTimeP90();
+
+   /** The 99th percentile of the processing times, in ns */
+   long getProcessingTimeP99();
+
+   /** The 99.9th percentile of the processing times, in ns */
+   long getProcessingTimeP999();
+
+   /** The max processing time, in ns */
+   long getProcessingTimeMax();
+
+   /** The 50th percentile of the processing times in the last completed interval, in ns */
+   long getIntervalProcessingTimeP50();
+
+   /** The 90th percentile of the processing times in the last completed interval, in ns */
+   long getIntervalProcessingTimeP90();
+
+   /** The 99th percentile of the processing times in the last completed interval, in ns */
+   long getIntervalProcessingTimeP99();
+
+   /** The 99.9th percentile of the processing times in the last completed interval, in ns */
+   long getIntervalProcessingTimeP999();
+
+   /** The max processing time in the last completed interval, in ns */
+   long getIntervalProcessingTimeMax();
+
+   /** The number of responses and faults in the last completed interval */
+   long getIntervalResponseCount();
+
+   /** The length of the intervals, in ms */
+   long getHistogramInterval();
+
+   void setHistogramInterval(long interval);
+
+   /** Ends the current interval, the interval attributes then refer to it */
+   void resetIntervalHistogram();
+
+   /** The requests per second, averaged over the last minute */
+   double getOneMinuteRequestRate();
+
+   /** The requests per second, averaged over the last 5 minutes */
+   double getFiveMinuteRequestRate();
+
+   /** The requests per second, averaged over the last 15 minutes */
+   double getFifteenMinuteRequestRate();
+
+   /** The faults per second, averaged over the last minute */
+   double getOneMinuteFaultRate();
+
+   /** The faults per second, averaged over the last 5 minutes */
+   double getFiveMinuteFaultRate();
+
+   /** The faults per second, averaged over the last 15 minutes */
+   double getFifteenMinuteFaultRate();
+
+   /** The processing time averaged over the last minute, in ns */
+   long getOneMinuteMeanProcessingTime();
+
+   /** The processing time averaged over the last 5 minutes, in ns */
+   long getFiveMinuteMeanProcessingTime();
+
+   /** The processing time averaged over the last 15 minutes, in ns */
+   long getFifteenMinuteMeanProcessingTime();
+
+   /** The number of requests being processed */
+   long getInFlightCount();
+
+   /** The max number of requests processed at the same time */
+   long getPeakInFlightCount();
+
+   void resetPeakInFlightCount();
+
+   /**
+    * The average time spent in the endpoint implementation, in ns; only tracked
+    * with the org.jboss.ws.management.track_endpoint_time system property set
+    */
+   long getAverageEndpointTime();
+
+   /**
+    * The average time from the begin of the request processing to the dispatch to the
+    * endpoint implementation, i.e. spent in the container before the invocation, in ns;
+    * only tracked with the org.jboss.ws.management.track_endpoint_time system property set
+    */
+   long getAverageContainerTime();
    
    void processRecord(Record record);
+
+   /** The number of records waiting to be dispatched, with asynchronous record dispatching */
+   long getPendingRecordCount();
+
+   /** The number of records dropped because the dispatch queue was full */
+   long getDroppedRecordCount();
+
+   long getDroppedOldestRecordCount();
+
+   long getDroppedNewestRecordCount();
    
    void addRecordProcessor(RecordProcessor processor);
    
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.namespace.QName;
+
+/**
+ * The metrics of a single operation of an endpoint; times are recorded in ns
+ * and, as for the endpoint metrics, reported in ms, except for the percentiles.
+ */
+public final class OperationMetrics implements OperationMetricsMBean
+{
+   private final QName operation;
+   private final LongAdder requestCount = new LongAdder();
+   private final LongAdder responseCount = new LongAdder();
+   private final LongAdder faultCount = new LongAdder();
+   private final LongAdder totalProcessingTime = new LongAdder();
+   private final AtomicLong minProcessingTime = new AtomicLong(Long.MAX_VALUE);
+   // a coarser histogram than the endpoint one, there might be many operations
+   private final LatencyHistogram processingTimeHistogram = new LatencyHistogram(5, 1L << 36);
+
+   public OperationMetrics(QName operation)
+   {
+      this.operation = operation;
+   }
+
+   public void processRequestMessage()
+   {
+      requestCount.increment();
+   }
+
+   public void processResponseMessage(long processingTime)
+   {
+      responseCount.increment();
+      record(processingTime);
+   }
+
+   public void processFaultMessage(long processingTime)
+   {
+      faultCount.increment();
+      record(processingTime);
+   }
+
+   private void record(long processingTime)
+   {
+      totalProcessingTime.add(processingTime);
+      long oldValue = minProcessingTime.get();
+      while (processingTime < oldValue)
+      {
+         if (minProcessingTime.compareAndSet(oldValue, processingTime))
+            break;
+         oldValue = minProcessingTime.get();
+      }
+      processingTimeHistogram.record(processingTime);
+   }
+
+   public QName getOperationName()
+   {
+      return operation;
+   }
+
+   public String getOperation()
+   {
+      return operation.toString();
+   }
+
+   public long getRequestCount()
+   {
+      return requestCount.sum();
+   }
+
+   public long getResponseCount()
+   {
+      return responseCount.sum();
+   }
+
+   public long getFaultCount()
+   {
+      return faultCount.sum();
+   }
+
+   public long getMinProcessingTime()
+   {
+      final long min = minProcessingTime.get();
+      return min != Long.MAX_VALUE ? min / 1000000 : 0;
+   }
+
+   public long getMaxProcessingTime()
+   {
+      return processingTimeHistogram.snapshot().getMaxValue() / 1000000;
+   }
+
+   public long getAverageProcessingTime()
+   {
+      final long totResponses = responseCount.sum() + faultCount.sum();
+      return totResponses != 0 ? totalProcessingTime.sum() / (totResponses * 1000000) : 0;
+   }
+
+   public long getTotalProcessingTime()
+   {
+      return totalProcessingTime.sum() / 1000000;
+   }
+
+   public long getProcessingTimeP50()
+   {
+      return processingTimeHistogram.snapshot().getValueAtPercentile(50);
+   }
+
+   public long getProcessingTimeP90()
+   {
+      return processingTimeHistogram.snapshot().getValueAtPercentile(90);
+   }
+
+   public long getProcessingTimeP99()
+   {
+      return processingTimeHistogram.snapshot().getValueAtPercentile(99);
+   }
+
+   public long getProcessingTimeP999()
+   {
+      return processingTimeHistogram.snapshot().getValueAtPercentile(99.9);
+   }
+
+   public LatencyHistogram getProcessingTimeHistogram()
+   {
+      return processingTimeHistogram;
+   }
+
+   public String toString()
+   {
+      StringBuilder buffer = new StringBuilder("operation=" + operation);
+      buffer.append("\n  requestCount=" + getRequestCount());
+      buffer.append("\n  responseCount=" + getResponseCount());
+      buffer.append("\n  faultCount=" + getFaultCount());
+      buffer.append("\n  avgProcessingTime=" + getAverageProcessingTime());
+      buffer.append("\n  totalProcessingTime=" + getTotalProcessingTime());
+      return buffer.toString();
+   }
+}
@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.xml.namespace.QName;
+
+/**
+ * The per operation metrics of an endpoint.
+ *
+ * Metrics are looked up in an immutable open addressing table, so the lookups
+ * neither lock nor allocate; the table is rebuilt when an operation is added,
+ * which happens once at deployment for the operations of the endpoint interface
+ * (see EndpointOperationsDeploymentAspect), or else on the request thread, on
+ * the first invocation of each operation that was not known upfront.
+ */
+public final class OperationMetricsRegistry
+{
+   /** The max number of tracked operations, protecting from unbounded growth */
+   public static final int MAX_OPERATIONS = 1024;
+
+   /**
+    * Notified of the operations added to the registry
+    */
+   public interface Listener
+   {
+      void operationAdded(OperationMetrics metrics);
+   }
+
+   private static final Table EMPTY = new Table(new OperationMetrics[0]);
+
+   private volatile Table table = EMPTY;
+   private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+   /**
+    * Gets the metrics of the given operation, null if the operation is not tracked
+    */
+   public OperationMetrics get(QName operation)
+   {
+      return operation != null ? table.get(operation) : null;
+   }
+
+   /**
+    * Gets the metrics of the given operation, adding the operation if needed;
+    * null for a null operation or when too many operations are tracked already
+    */
+   public OperationMetrics getOrCreate(QName operation)
+   {
+      if (operation == null)
+         return null;
+      final OperationMetrics metrics = table.get(operation);
+      return metrics != null ? metrics : add(Collections.singleton(operation)).get(operation);
+   }
+
+   /**
+    * Sizes the registry for the given operations, once they're known;
+    * called at deployment by EndpointOperationsDeploymentAspect
+    */
+   public void setOperations(Collection<QName> operations)
+   {
+      add(operations);
+   }
+
+   private Table add(Collection<QName> operations)
+   {
+      final List<OperationMetrics> added = new ArrayList<OperationMetrics>();
+      final Table t;
+      synchronized (this)
+      {
+         final Table current = table;
+         final List<OperationMetrics> all = new ArrayList<OperationMetrics>(Arrays.asList(current.all));
+         for (QName operation : operations)
+         {
+            if (operation != null && all.size() < MAX_OPERATIONS && current.get(operation) == null && !contains(added, operation))
+            {
+               final OperationMetrics metrics = new OperationMetrics(operation);
+               added.add(metrics);
+               all.add(metrics);
+            }
+         }
+         if (!added.isEmpty())
+         {
+            table = new Table(all.toArray(new OperationMetrics[all.size()]));
+         }
+         t = table;
+      }
+      for (OperationMetrics metrics : added)
+      {
+         for (Listener listener : listeners)
+         {
+            listener.operationAdded(metrics);
+         }
+      }
+      return t;
+   }
+
+   private static boolean contains(List<OperationMetrics> list, QName operation)
+   {
+      for (OperationMetrics metrics : list)
+      {
+         if (metrics.getOperationName().equals(operation))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * Gets the metrics of all the tracked operations
+    */
+   public List<OperationMetrics> getOperationMetrics()
+   {
+      return Collections.unmodifiableList(Arrays.asList(table.all));
+   }
+
+   public void addListener(Listener listener)
+   {
+      listeners.add(listener);
+   }
+
+   public void removeListener(Listener listener)
+   {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Linear probing table, with at most half of the slots in use
+    */
+   private static final class Table
+   {
+      private final QName[] keys;
+      private final OperationMetrics[] values;
+      private final OperationMetrics[] all;
+      private final int mask;
+
+      Table(OperationMetrics[] all)
+      {
+         final int capacity = Integer.highestOneBit(Math.max(1, all.length) * 2 - 1) << 1;
+         this.keys = new QName[capacity];
+         this.values = new OperationMetrics[capacity];
+         this.all = all;
+         this.mask = capacity - 1;
+         for (OperationMetrics metrics : all)
+         {
+            int i = indexOf(metrics.getOperationName());
+            while (keys[i] != null)
+            {
+               i = (i + 1) & mask;
+            }
+            keys[i] = metrics.getOperationName();
+            values[i] = metrics;
+         }
+      }
+
+      OperationMetrics get(QName operation)
+      {
+         int i = indexOf(operation);
+         QName key;
+         while ((key = keys[i]) != null)
+         {
+            if (key == operation || key.equals(operation))
+               return values[i];
+            i = (i + 1) & mask;
+         }
+         return null;
+      }
+
+      private int indexOf(QName operation)
+      {
+         final int h = operation.hashCode() * 0x9E3779B9;
+         return (h ^ (h >>> 16)) & mask;
+      }
+   }
+}
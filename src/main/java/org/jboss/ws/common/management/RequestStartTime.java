@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+/**
+ * Hands the begin time of the request being processed by the current thread from the
+ * endpoint metrics over to the invocation handler, which measures the time taken to
+ * dispatch the request to the endpoint implementation. Only used when the
+ * org.jboss.ws.management.track_endpoint_time system property is set.
+ */
+public final class RequestStartTime
+{
+   /** True, if the time spent in the endpoint implementation is tracked apart from the container time */
+   public static final boolean TRACKING = Boolean.getBoolean("org.jboss.ws.management.track_endpoint_time");
+
+   private static final ThreadLocal<long[]> startTime = new ThreadLocal<long[]>()
+   {
+      protected long[] initialValue()
+      {
+         return new long[1];
+      }
+   };
+
+   // Hide the constructor
+   private RequestStartTime()
+   {
+   }
+
+   /**
+    * Sets the begin time (a System.nanoTime() value) of the request the current thread processes
+    */
+   public static void set(long beginTime)
+   {
+      startTime.get()[0] = beginTime;
+   }
+
+   /**
+    * Gets and clears the begin time of the request the current thread processes,
+    * 0 if it's not known
+    */
+   public static long getAndClear()
+   {
+      final long[] holder = startTime.get();
+      final long beginTime = holder[0];
+      holder[0] = 0;
+      return beginTime;
+   }
+}
@@ -0,0 +1,568 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Service Endpoint Metrics kept in striped cells, in the style of LongAdder.
+ *
+ * Each thread updates the cell its id hashes to, so concurrent requests mostly
+ * touch different cache lines; a thread finding its cell busy moves on to the next
+ * one rather than waiting. Every cell is guarded by a sequence number, odd while
+ * the cell is being updated, which lets readers take a consistent {@link Snapshot}
+ * without blocking the writers.
+ *
+ * That is a seqlock: the odd sequence works as a per cell try-lock for the writers,
+ * and a reader finding a cell being updated yields until the writer is done. Writers
+ * never wait, but a writer descheduled within its (few instructions long) update
+ * stalls the readers of that cell, i.e. the management clients, until it's resumed;
+ * that's the price of snapshots in which each response or fault is either fully
+ * included or not included at all. The moving averages take one snapshot per tick.
+ *
+ * The requests in flight are derived from the cells, as the requests not responded
+ * yet, so that no counter is shared by the request threads. The peak in flight is
+ * hence sampled rather than tracked on each request: it's updated on each tick of
+ * the moving averages and when it or the requests in flight are read, so it's
+ * approximate and might miss the spikes shorter than the tick interval.
+ *
+ * The processing time histogram is striped the same way, with up to 8 stripes.
+ */
+public class StripedEndpointMetrics implements HistogramEndpointMetrics, RateEndpointMetrics, InvocationEndpointMetrics
+{
+   private static final int MAX_CELLS = 128;
+   // each stripe of the histogram takes 32 KB
+   private static final int MAX_HISTOGRAM_STRIPES = 8;
+
+   private final Cell[] cells;
+   private final int mask;
+   private final LatencyHistogram processingTimeHistogram;
+   private final EndpointRates rates;
+   // only written by the ticker and the management clients
+   private final AtomicLong peakInFlightCount = new AtomicLong();
+   private volatile boolean started = false;
+
+   public StripedEndpointMetrics()
+   {
+      this(Runtime.getRuntime().availableProcessors() * 2);
+   }
+
+   /**
+    * @param stripes the number of cells, rounded up to a power of two
+    */
+   public StripedEndpointMetrics(int stripes)
+   {
+      final int n = Math.min(MAX_CELLS, stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1);
+      cells = new Cell[n];
+      for (int i = 0; i < n; i++)
+      {
+         cells[i] = new Cell();
+      }
+      mask = n - 1;
+      processingTimeHistogram = new LatencyHistogram(7, 1L << 38, Math.min(n, MAX_HISTOGRAM_STRIPES));
+      rates = new EndpointRates(new EndpointRates.Counters()
+      {
+         public void sample(long[] counts)
+         {
+            final Snapshot snapshot = snapshot();
+            counts[EndpointRates.REQUESTS] = snapshot.getRequestCount();
+            counts[EndpointRates.FAULTS] = snapshot.getFaultCount();
+            counts[EndpointRates.COMPLETED] = snapshot.getResponseCount() + snapshot.getFaultCount();
+            counts[EndpointRates.PROCESSING_TIME] = snapshot.getTotalProcessingTimeNanos();
+            samplePeakInFlightCount(snapshot.getInFlightCount());
+         }
+      });
+   }
+
+   public void start()
+   {
+      started = true;
+   }
+
+   public void stop()
+   {
+      started = false;
+   }
+
+   public long processRequestMessage()
+   {
+      if (!started)
+      {
+         return 0;
+      }
+      final long now = System.nanoTime();
+      final Cell cell = acquire();
+      cell.request(now);
+      cell.release();
+      if (RequestStartTime.TRACKING)
+      {
+         RequestStartTime.set(now);
+      }
+      return now;
+   }
+
+   public void processResponseMessage(long beginTime)
+   {
+      if (beginTime > 0)
+      {
+         final long now = System.nanoTime();
+         final Cell cell = acquire();
+         cell.response(now - beginTime, now);
+         cell.release();
+         processingTimeHistogram.record(now - beginTime);
+      }
+   }
+
+   public void processFaultMessage(long beginTime)
+   {
+      if (beginTime > 0)
+      {
+         final long now = System.nanoTime();
+         final Cell cell = acquire();
+         cell.fault(now - beginTime, now);
+         cell.release();
+         processingTimeHistogram.record(now - beginTime);
+      }
+   }
+
+   public void processInvocation(long dispatchTime, long endpointTime)
+   {
+      if (started)
+      {
+         final Cell cell = acquire();
+         cell.invocation(dispatchTime, endpointTime);
+         cell.release();
+      }
+   }
+
+   private Cell acquire()
+   {
+      // Fibonacci hashing spreads the sequential thread ids over the cells
+      int index = (int)((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+      for (;;)
+      {
+         final Cell cell = cells[index & mask];
+         if (cell.tryAcquire())
+         {
+            return cell;
+         }
+         index++;
+      }
+   }
+
+   /**
+    * Sums up the cells into a consistent view of the metrics: each response
+    * or fault is either fully included or not included at all.
+    */
+   public Snapshot snapshot()
+   {
+      long requests = 0;
+      long responses = 0;
+      long faults = 0;
+      long total = 0;
+      long min = Long.MAX_VALUE;
+      long max = 0;
+      long updateTime = 0;
+      long invocations = 0;
+      long endpointTime = 0;
+      long dispatches = 0;
+      long dispatchTime = 0;
+      for (Cell cell : cells)
+      {
+         long seq;
+         long cRequests, cResponses, cFaults, cTotal, cMin, cMax, cUpdateTime, cInvocations, cEndpointTime, cDispatches, cDispatchTime;
+         do
+         {
+            seq = cell.awaitStable();
+            cRequests = cell.requests;
+            cResponses = cell.responses;
+            cFaults = cell.faults;
+            cTotal = cell.total;
+            cMin = cell.min;
+            cMax = cell.max;
+            cUpdateTime = cell.updateTime;
+            cInvocations = cell.invocations;
+            cEndpointTime = cell.endpointTime;
+            cDispatches = cell.dispatches;
+            cDispatchTime = cell.dispatchTime;
+         }
+         while (cell.seq != seq);
+         requests += cRequests;
+         responses += cResponses;
+         faults += cFaults;
+         total += cTotal;
+         min = Math.min(min, cMin);
+         max = Math.max(max, cMax);
+         invocations += cInvocations;
+         endpointTime += cEndpointTime;
+         dispatches += cDispatches;
+         dispatchTime += cDispatchTime;
+         if (cUpdateTime != 0 && (updateTime == 0 || cUpdateTime - updateTime > 0))
+         {
+            updateTime = cUpdateTime;
+         }
+      }
+      return new Snapshot(requests, responses, faults, total, min == Long.MAX_VALUE ? 0 : min, max, updateTime,
+            invocations, endpointTime, dispatches, dispatchTime);
+   }
+
+   public long getInFlightCount()
+   {
+      final long inFlight = snapshot().getInFlightCount();
+      samplePeakInFlightCount(inFlight);
+      return inFlight;
+   }
+
+   /**
+    * The max number of requests in flight sampled so far, see the class description
+    */
+   public long getPeakInFlightCount()
+   {
+      return samplePeakInFlightCount(getInFlightCount());
+   }
+
+   public void resetPeakInFlightCount()
+   {
+      peakInFlightCount.set(snapshot().getInFlightCount());
+   }
+
+   private long samplePeakInFlightCount(long inFlight)
+   {
+      long peak = peakInFlightCount.get();
+      while (inFlight > peak && !peakInFlightCount.compareAndSet(peak, inFlight))
+      {
+         peak = peakInFlightCount.get();
+      }
+      return Math.max(peak, inFlight);
+   }
+
+   public long getInvocationCount()
+   {
+      return snapshot().getInvocationCount();
+   }
+
+   public long getTotalEndpointTimeNanos()
+   {
+      return snapshot().getTotalEndpointTimeNanos();
+   }
+
+   public long getDispatchCount()
+   {
+      return snapshot().getDispatchCount();
+   }
+
+   public long getTotalDispatchTimeNanos()
+   {
+      return snapshot().getTotalDispatchTimeNanos();
+   }
+
+   public long getTotalProcessingTimeNanos()
+   {
+      return snapshot().getTotalProcessingTimeNanos();
+   }
+
+   public LatencyHistogram getProcessingTimeHistogram()
+   {
+      return processingTimeHistogram;
+   }
+
+   public EndpointRates getRates()
+   {
+      return rates;
+   }
+
+   public long getMinProcessingTime()
+   {
+      return snapshot().getMinProcessingTime();
+   }
+
+   public long getMaxProcessingTime()
+   {
+      return snapshot().getMaxProcessingTime();
+   }
+
+   public long getAverageProcessingTime()
+   {
+      return snapshot().getAverageProcessingTime();
+   }
+
+   public long getTotalProcessingTime()
+   {
+      return snapshot().getTotalProcessingTime();
+   }
+
+   public long getRequestCount()
+   {
+      return snapshot().getRequestCount();
+   }
+
+   public long getFaultCount()
+   {
+      return snapshot().getFaultCount();
+   }
+
+   public long getResponseCount()
+   {
+      return snapshot().getResponseCount();
+   }
+
+   public long getUpdateTime()
+   {
+      return snapshot().getUpdateTime();
+   }
+
+   public String toString()
+   {
+      return snapshot().toString();
+   }
+
+   /**
+    * A point in time view of the metrics; times are in ms, except for the update time
+    * which is a System.nanoTime() value
+    */
+   public static final class Snapshot
+   {
+      private final long requestCount;
+      private final long responseCount;
+      private final long faultCount;
+      private final long totalProcessingTime;
+      private final long minProcessingTime;
+      private final long maxProcessingTime;
+      private final long updateTime;
+      private final long invocationCount;
+      private final long totalEndpointTime;
+      private final long dispatchCount;
+      private final long totalDispatchTime;
+
+      private Snapshot(long requestCount, long responseCount, long faultCount, long totalProcessingTime, long minProcessingTime,
+            long maxProcessingTime, long updateTime, long invocationCount, long totalEndpointTime, long dispatchCount,
+            long totalDispatchTime)
+      {
+         this.requestCount = requestCount;
+         this.responseCount = responseCount;
+         this.faultCount = faultCount;
+         this.totalProcessingTime = totalProcessingTime;
+         this.minProcessingTime = minProcessingTime;
+         this.maxProcessingTime = maxProcessingTime;
+         this.updateTime = updateTime;
+         this.invocationCount = invocationCount;
+         this.totalEndpointTime = totalEndpointTime;
+         this.dispatchCount = dispatchCount;
+         this.totalDispatchTime = totalDispatchTime;
+      }
+
+      public long getRequestCount()
+      {
+         return requestCount;
+      }
+
+      public long getResponseCount()
+      {
+         return responseCount;
+      }
+
+      public long getFaultCount()
+      {
+         return faultCount;
+      }
+
+      public long getTotalProcessingTime()
+      {
+         return totalProcessingTime / 1000000;
+      }
+
+      public long getTotalProcessingTimeNanos()
+      {
+         return totalProcessingTime;
+      }
+
+      public long getMinProcessingTime()
+      {
+         return minProcessingTime / 1000000;
+      }
+
+      public long getMaxProcessingTime()
+      {
+         return maxProcessingTime / 1000000;
+      }
+
+      public long getAverageProcessingTime()
+      {
+         final long totResponses = responseCount + faultCount;
+         return totResponses != 0 ? totalProcessingTime / (totResponses * 1000000) : 0;
+      }
+
+      public long getUpdateTime()
+      {
+         return updateTime;
+      }
+
+      /** The number of requests being processed */
+      public long getInFlightCount()
+      {
+         return Math.max(0, requestCount - responseCount - faultCount);
+      }
+
+      public long getInvocationCount()
+      {
+         return invocationCount;
+      }
+
+      /** The total time spent in the endpoint implementation, in ns */
+      public long getTotalEndpointTimeNanos()
+      {
+         return totalEndpointTime;
+      }
+
+      /** The number of invocations whose dispatch time is known */
+      public long getDispatchCount()
+      {
+         return dispatchCount;
+      }
+
+      /** The total time from the begin of the request processing to the dispatch to the endpoint implementation, in ns */
+      public long getTotalDispatchTimeNanos()
+      {
+         return totalDispatchTime;
+      }
+
+      public String toString()
+      {
+         StringBuilder buffer = new StringBuilder("requestCount=" + requestCount);
+         buffer.append("\n  responseCount=" + responseCount);
+         buffer.append("\n  faultCount=" + faultCount);
+         buffer.append("\n  maxProcessingTime=" + maxProcessingTime);
+         buffer.append("\n  minProcessingTime=" + minProcessingTime);
+         buffer.append("\n  avgProcessingTime=" + getAverageProcessingTime());
+         buffer.append("\n  totalProcessingTime=" + totalProcessingTime);
+         return buffer.toString();
+      }
+   }
+
+   /**
+    * Padding keeping the hot fields of a cell off the cache lines of its neighbours
+    */
+   abstract static class CellPad
+   {
+      long p0, p1, p2, p3, p4, p5, p6, p7;
+   }
+
+   /**
+    * A stripe of the metrics; the fields are only written by the thread owning
+    * the (odd) sequence, with ordered stores which the release of the sequence
+    * publishes to the readers.
+    */
+   static final class Cell extends CellPad
+   {
+      private static final AtomicLongFieldUpdater<Cell> SEQ = AtomicLongFieldUpdater.newUpdater(Cell.class, "seq");
+      private static final AtomicLongFieldUpdater<Cell> REQUESTS = AtomicLongFieldUpdater.newUpdater(Cell.class, "requests");
+      private static final AtomicLongFieldUpdater<Cell> RESPONSES = AtomicLongFieldUpdater.newUpdater(Cell.class, "responses");
+      private static final AtomicLongFieldUpdater<Cell> FAULTS = AtomicLongFieldUpdater.newUpdater(Cell.class, "faults");
+      private static final AtomicLongFieldUpdater<Cell> TOTAL = AtomicLongFieldUpdater.newUpdater(Cell.class, "total");
+      private static final AtomicLongFieldUpdater<Cell> MIN = AtomicLongFieldUpdater.newUpdater(Cell.class, "min");
+      private static final AtomicLongFieldUpdater<Cell> MAX = AtomicLongFieldUpdater.newUpdater(Cell.class, "max");
+      private static final AtomicLongFieldUpdater<Cell> UPDATE_TIME = AtomicLongFieldUpdater.newUpdater(Cell.class, "updateTime");
+      private static final AtomicLongFieldUpdater<Cell> INVOCATIONS = AtomicLongFieldUpdater.newUpdater(Cell.class, "invocations");
+      private static final AtomicLongFieldUpdater<Cell> ENDPOINT_TIME = AtomicLongFieldUpdater.newUpdater(Cell.class, "endpointTime");
+      private static final AtomicLongFieldUpdater<Cell> DISPATCHES = AtomicLongFieldUpdater.newUpdater(Cell.class, "dispatches");
+      private static final AtomicLongFieldUpdater<Cell> DISPATCH_TIME = AtomicLongFieldUpdater.newUpdater(Cell.class, "dispatchTime");
+
+      volatile long seq;
+      volatile long requests;
+      volatile long responses;
+      volatile long faults;
+      volatile long total;
+      volatile long min = Long.MAX_VALUE;
+      volatile long max;
+      volatile long updateTime;
+      volatile long invocations;
+      volatile long endpointTime;
+      volatile long dispatches;
+      volatile long dispatchTime;
+      long q0, q1, q2, q3, q4, q5, q6, q7;
+
+      boolean tryAcquire()
+      {
+         final long s = seq;
+         return (s & 1) == 0 && SEQ.compareAndSet(this, s, s + 1);
+      }
+
+      void release()
+      {
+         SEQ.lazySet(this, seq + 1);
+      }
+
+      void request(long now)
+      {
+         REQUESTS.lazySet(this, requests + 1);
+         UPDATE_TIME.lazySet(this, now);
+      }
+
+      void response(long time, long now)
+      {
+         RESPONSES.lazySet(this, responses + 1);
+         record(time, now);
+      }
+
+      void fault(long time, long now)
+      {
+         FAULTS.lazySet(this, faults + 1);
+         record(time, now);
+      }
+
+      void invocation(long dispatch, long time)
+      {
+         INVOCATIONS.lazySet(this, invocations + 1);
+         ENDPOINT_TIME.lazySet(this, endpointTime + time);
+         if (dispatch >= 0)
+         {
+            DISPATCHES.lazySet(this, dispatches + 1);
+            DISPATCH_TIME.lazySet(this, dispatchTime + dispatch);
+         }
+      }
+
+      private void record(long time, long now)
+      {
+         TOTAL.lazySet(this, total + time);
+         if (time < min)
+         {
+            MIN.lazySet(this, time);
+         }
+         if (time > max)
+         {
+            MAX.lazySet(this, time);
+         }
+         UPDATE_TIME.lazySet(this, now);
+      }
+
+      long awaitStable()
+      {
+         long s;
+         while (((s = seq) & 1) != 0)
+         {
+            Thread.yield();
+         }
+         return s;
+      }
+   }
+}
@@ -21,8 +21,10 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordFilter;
@@ -38,7 +40,10 @@ import org.jboss.ws.api.monitoring.RecordProcessor;
 public abstract class AbstractRecordProcessor implements RecordProcessor
 {
    private static final long serialVersionUID = -1825185742740851152L;
+   private static final AtomicReferenceFieldUpdater<AbstractRecordProcessor, CompiledFilter> COMPILED_FILTER = AtomicReferenceFieldUpdater
+         .newUpdater(AbstractRecordProcessor.class, CompiledFilter.class, "compiledFilter");
    
+   // changed through this class' methods or replaced only, otherwise the compiled filter gets stale
    protected List<RecordFilter> filters = new CopyOnWriteArrayList<RecordFilter>();
    protected boolean processDestinationHost = true;
    protected boolean processSourceHost = true;
@@ -49,6 +54,8 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    protected boolean processDate = true;
    protected String name;
    protected boolean recording = false;
+   protected String filterExpression;
+   private transient volatile CompiledFilter compiledFilter;
 
    public abstract void processRecord(Record record);
 
@@ -65,16 +72,90 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
    public void addFilter(RecordFilter filter)
    {
       filters.add(filter);
+      filterExpression = null;
+      invalidateCompiledFilter();
    }
 
+   /**
+    * Gets a read-only view of the filters; they're changed through {@link #addFilter(RecordFilter)},
+    * {@link #setFilters(List)} and {@link #setFilterExpression(String)}, so that they're compiled again.
+    */
    public List<RecordFilter> getFilters()
    {
-      return filters;
+      return Collections.unmodifiableList(filters);
    }
 
    public void setFilters(List<RecordFilter> filters)
    {
       this.filters = new CopyOnWriteArrayList<RecordFilter>(filters);
+      filterExpression = null;
+      invalidateCompiledFilter();
+   }
+
+   /**
+    * Gets the expression the current filters have been set with, null if the filters
+    * have not been set through an expression
+    */
+   public String getFilterExpression()
+   {
+      return filterExpression;
+   }
+
+   /**
+    * Replaces the filters with the one parsed from the given expression,
+    * see {@link RecordFilterExpression}; an empty expression removes all the filters.
+    */
+   public void setFilterExpression(String expression)
+   {
+      final RecordFilter filter = RecordFilterExpression.parse(expression);
+      final List<RecordFilter> list = new CopyOnWriteArrayList<RecordFilter>();
+      if (filter != null)
+      {
+         list.add(filter);
+      }
+      this.filters = list;
+      this.filterExpression = expression;
+      invalidateCompiledFilter();
+   }
+
+   /**
+    * Gets the filters compiled into a single one by the {@link RecordFilterCompiler};
+    * the filters are compiled again after they're changed through this class' methods
+    * or the filter list is replaced.
+    */
+   public HoldingRecordFilter getCompiledFilter()
+   {
+      final CompiledFilter compiled = compiledFilter;
+      final List<RecordFilter> current = filters;
+      if (compiled != null && compiled.source == current)
+      {
+         return compiled.filter;
+      }
+      final CompiledFilter recompiled = new CompiledFilter(current, RecordFilterCompiler.compile(current));
+      // not published if the filters have been changed meanwhile
+      COMPILED_FILTER.compareAndSet(this, compiled, recompiled);
+      return recompiled.filter;
+   }
+
+   private void invalidateCompiledFilter()
+   {
+      // a new marker each time, so that a filter compiled before the change is never published
+      compiledFilter = new CompiledFilter(null, null);
+   }
+
+   /**
+    * The compiled filter, along with the filter list it comes from
+    */
+   private static final class CompiledFilter
+   {
+      final List<RecordFilter> source;
+      final HoldingRecordFilter filter;
+
+      CompiledFilter(List<RecordFilter> source, HoldingRecordFilter filter)
+      {
+         this.source = source;
+         this.filter = filter;
+      }
    }
 
    public boolean isProcessDestinationHost()
@@ -176,6 +257,8 @@ public abstract class AbstractRecordProcessor implements RecordProcessor
       retObj.processDate = this.processDate;
       retObj.recording = this.recording;
       retObj.name = this.name;
+      retObj.filterExpression = this.filterExpression;
+      retObj.compiledFilter = null;
       return retObj;
    }
 
@@ -28,8 +28,8 @@ import org.jboss.ws.api.monitoring.RecordProcessor;
 import org.jboss.ws.api.monitoring.RecordProcessorFactory;
 
 /**
- * JBossWS-Common factory of record processors: includes the LogRecorder
- * and the MemoryBufferRecorder.
+ * JBossWS-Common factory of record processors: includes the LogRecorder,
+ * the JsonLogRecorder, the MemoryBufferRecorder and the JournalRecorder.
  * 
  * @author <a href="mailto:alessio.soldano@jboss.com">Alessio Soldano</a>
  * @since 18-Jul-2011
@@ -39,7 +39,9 @@ public class CommonRecordProcessorFactory implements RecordProcessorFactory
    public List<RecordProcessor> newRecordProcessors() {
       List<RecordProcessor> list = new LinkedList<RecordProcessor>();
       list.add(new LogRecorder());
+      list.add(new JsonLogRecorder());
       list.add(new MemoryBufferRecorder());
+      list.add(new JournalRecorder());
       return list;
    }
 }
@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.ObjectStreamException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * A copy of a record whose envelope is kept compressed in an {@link EnvelopeStore};
+ * the envelope is decompressed each time it's requested.
+ */
+final class CompactRecord implements Record
+{
+   private static final long serialVersionUID = 3017441587458235012L;
+
+   private String sourceHost;
+   private String destinationHost;
+   private Map<String, List<String>> headers;
+   private MessageType messageType;
+   private QName operation;
+   private String groupID;
+   private GroupID groupKey;
+   private Date date;
+   private volatile String envelope;
+   private transient volatile EnvelopeStore.Handle handle;
+   private final transient AtomicBoolean released = new AtomicBoolean();
+
+   CompactRecord(Record record, EnvelopeStore.Handle handle)
+   {
+      this.sourceHost = record.getSourceHost();
+      this.destinationHost = record.getDestinationHost();
+      this.headers = record.getHeaders();
+      this.messageType = record.getMessageType();
+      this.operation = record.getOperation();
+      this.groupKey = GroupID.of(record);
+      this.groupID = groupKey == null ? record.getGroupID() : null;
+      this.date = record.getDate();
+      this.handle = handle;
+   }
+
+   /**
+    * Creates a copy sharing the stored envelope
+    */
+   CompactRecord copy()
+   {
+      final EnvelopeStore.Handle h = handle;
+      final CompactRecord copy = new CompactRecord(this, h != null && h.retain() ? h : null);
+      copy.envelope = envelope;
+      return copy;
+   }
+
+   /**
+    * Releases the stored envelope; the record is then left with no envelope
+    */
+   void release()
+   {
+      final EnvelopeStore.Handle h = handle;
+      if (h != null && released.compareAndSet(false, true))
+         h.release();
+   }
+
+   /** The bytes used by the compressed envelope */
+   int getStoredSize()
+   {
+      final EnvelopeStore.Handle h = handle;
+      return h != null ? h.getStoredSize() : 0;
+   }
+
+   public String getEnvelope()
+   {
+      final String s = envelope;
+      if (s != null)
+         return s;
+
+      final EnvelopeStore.Handle h = handle;
+      return h != null && released.get() == false ? h.load() : null;
+   }
+
+   public void setEnvelope(String envelope)
+   {
+      this.envelope = envelope;
+      release();
+   }
+
+   public void addHeaders(String key, List<String> value)
+   {
+      if (headers == null)
+         headers = new HashMap<String, List<String>>();
+      headers.put(key, value);
+   }
+
+   public Map<String, List<String>> getHeaders()
+   {
+      return headers;
+   }
+
+   public void setHeaders(Map<String, List<String>> headers)
+   {
+      if (headers != null)
+         this.headers = new HashMap<String, List<String>>(headers);
+   }
+
+   public MessageType getMessageType()
+   {
+      return messageType;
+   }
+
+   public void setMessageType(MessageType messageType)
+   {
+      this.messageType = messageType;
+   }
+
+   public String getSourceHost()
+   {
+      return sourceHost;
+   }
+
+   public void setSourceHost(String sourceHost)
+   {
+      this.sourceHost = sourceHost;
+   }
+
+   public String getDestinationHost()
+   {
+      return destinationHost;
+   }
+
+   public void setDestinationHost(String destinationHost)
+   {
+      this.destinationHost = destinationHost;
+   }
+
+   public String getGroupID()
+   {
+      final GroupID key = groupKey;
+      return key != null ? key.toString() : groupID;
+   }
+
+   public void setGroupID(String groupID)
+   {
+      this.groupID = groupID;
+      this.groupKey = null;
+   }
+
+   GroupID getGroupKey()
+   {
+      return groupKey;
+   }
+
+   public QName getOperation()
+   {
+      return operation;
+   }
+
+   public void setOperation(QName operation)
+   {
+      this.operation = operation;
+   }
+
+   public Date getDate()
+   {
+      return date;
+   }
+
+   public void setDate(Date date)
+   {
+      this.date = date;
+   }
+
+   /**
+    * Serialized as a plain record with the decompressed envelope
+    */
+   private Object writeReplace() throws ObjectStreamException
+   {
+      final RecordImpl record = new RecordImpl();
+      record.setSourceHost(sourceHost);
+      record.setDestinationHost(destinationHost);
+      record.setHeaders(headers);
+      record.setMessageType(messageType);
+      record.setOperation(operation);
+      if (groupKey != null)
+         record.setGroupKey(groupKey);
+      else
+         record.setGroupID(groupID);
+      record.setDate(date);
+      record.setEnvelope(getEnvelope());
+      return record;
+   }
+}
@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.Date;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * This filter matches records whose date is within the given (inclusive) range;
+ * a null bound leaves the range open on that side.
+ */
+public class DateFilter implements RecordFilter
+{
+   private static final long serialVersionUID = -1652896452179036508L;
+
+   private final Date from;
+   private final Date to;
+
+   public DateFilter(Date from, Date to)
+   {
+      this.from = from != null ? (Date)from.clone() : null;
+      this.to = to != null ? (Date)to.clone() : null;
+   }
+
+   public boolean match(Record record)
+   {
+      Date date = record.getDate();
+      if (date == null)
+      {
+         return false;
+      }
+      return (from == null || !date.before(from)) && (to == null || !date.after(to));
+   }
+
+   public Date getFrom()
+   {
+      return from != null ? (Date)from.clone() : null;
+   }
+
+   public Date getTo()
+   {
+      return to != null ? (Date)to.clone() : null;
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      return new DateFilter(this.from, this.to);
+   }
+}
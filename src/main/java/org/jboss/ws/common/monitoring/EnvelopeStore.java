@@ -0,0 +1,438 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps envelopes deflated in pooled, fixed size off-heap blocks.
+ *
+ * The deflater is primed with a dictionary sampled from the recent traffic, which
+ * mostly holds the namespace declarations and element names shared by the messages
+ * of an endpoint; the dictionary is refreshed periodically and each stored envelope
+ * keeps a reference to the one it was compressed with.
+ *
+ * The blocks are carved out of direct chunks; chunks whose blocks are all free are
+ * released beyond a small reserve, and the chunks allocated overall are bounded by
+ * the configured max bytes, if any.
+ */
+final class EnvelopeStore
+{
+   static final int BLOCK_SIZE = 512;
+   private static final int CHUNK_BLOCKS = 2048;
+   private static final int DICTIONARY_SIZE = 16 * 1024;
+   private static final int DICTIONARY_REFRESH = 1024;
+   private static final int MAX_POOLED_CODECS = 8;
+   static final int RESERVED_CHUNKS = 1;
+
+   // the chunks, in allocation order; guarded by this
+   private final List<Chunk> chunks = new ArrayList<Chunk>();
+   private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+   private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<Inflater>();
+   private final AtomicLong allocatedBytes = new AtomicLong();
+   private final AtomicLong usedBytes = new AtomicLong();
+   private final AtomicLong storeCount = new AtomicLong();
+   private volatile byte[] dictionary;
+   private volatile long maxBytes;
+   // the empty chunks kept for later use; guarded by this
+   private int reservedChunks = RESERVED_CHUNKS;
+
+   /**
+    * Compresses the given envelope into the store; returns null if the blocks it takes
+    * can't be allocated within the max bytes.
+    */
+   Handle store(String envelope)
+   {
+      final byte[] data = envelope.getBytes(StandardCharsets.UTF_8);
+      final byte[] dict = dictionary;
+      byte[] compressed;
+      int length;
+      Deflater deflater = deflaters.poll();
+      if (deflater == null)
+         deflater = new Deflater(Deflater.BEST_SPEED);
+      try
+      {
+         if (dict != null)
+            deflater.setDictionary(dict);
+         deflater.setInput(data);
+         deflater.finish();
+         compressed = new byte[Math.max(64, data.length / 4)];
+         length = 0;
+         while (deflater.finished() == false)
+         {
+            if (length == compressed.length)
+               compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            length += deflater.deflate(compressed, length, compressed.length - length);
+         }
+      }
+      finally
+      {
+         deflater.reset();
+         recycle(deflaters, deflater);
+      }
+
+      if ((storeCount.getAndIncrement() % DICTIONARY_REFRESH) == 0)
+      {
+         // the leading part of an envelope holds the most common strings
+         dictionary = Arrays.copyOf(data, Math.min(data.length, DICTIONARY_SIZE));
+      }
+
+      final Block[] blocks = allocateBlocks((length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+      if (blocks == null)
+         return null;
+
+      for (int i = 0; i < blocks.length; i++)
+      {
+         final ByteBuffer block = blocks[i].buffer;
+         final int offset = i * BLOCK_SIZE;
+         block.put(compressed, offset, Math.min(BLOCK_SIZE, length - offset));
+         // Buffer cast keeps the class binary compatible with Java 8
+         ((Buffer)block).clear();
+      }
+      usedBytes.addAndGet((long)blocks.length * BLOCK_SIZE);
+      return new Handle(this, blocks, length, data.length, dict);
+   }
+
+   /**
+    * Decompresses the envelope of the given handle, null if it has been released meanwhile
+    */
+   String load(Handle handle)
+   {
+      if (handle.retain() == false)
+         return null;
+
+      final byte[] compressed = new byte[handle.length];
+      try
+      {
+         for (int i = 0; i < handle.blocks.length; i++)
+         {
+            final int offset = i * BLOCK_SIZE;
+            handle.blocks[i].buffer.duplicate().get(compressed, offset, Math.min(BLOCK_SIZE, handle.length - offset));
+         }
+      }
+      finally
+      {
+         handle.release();
+      }
+
+      final byte[] data = new byte[handle.originalLength];
+      Inflater inflater = inflaters.poll();
+      if (inflater == null)
+         inflater = new Inflater();
+      try
+      {
+         inflater.setInput(compressed);
+         int length = 0;
+         while (length < data.length && inflater.finished() == false)
+         {
+            final int n = inflater.inflate(data, length, data.length - length);
+            if (n == 0 && inflater.needsDictionary())
+               inflater.setDictionary(handle.dictionary);
+            else if (n == 0 && inflater.needsInput())
+               break;
+            length += n;
+         }
+         return new String(data, 0, length, StandardCharsets.UTF_8);
+      }
+      catch (DataFormatException e)
+      {
+         throw new IllegalStateException(e);
+      }
+      finally
+      {
+         inflater.reset();
+         recycle(inflaters, inflater);
+      }
+   }
+
+   /**
+    * Allocates the given number of blocks, preferring the oldest chunks so that the most
+    * recent ones get empty and can be released; null if that exceeds the max bytes.
+    */
+   private synchronized Block[] allocateBlocks(int count)
+   {
+      final Block[] blocks = new Block[count];
+      int n = 0;
+      for (int i = 0; i < chunks.size() && n < count; i++)
+      {
+         final Chunk chunk = chunks.get(i);
+         while (chunk.free > 0 && n < count)
+         {
+            blocks[n++] = chunk.pop();
+         }
+      }
+      while (n < count)
+      {
+         final long limit = maxBytes;
+         int chunkBlocks = CHUNK_BLOCKS;
+         if (limit > 0)
+         {
+            // chunks small compared to the max bytes get empty (and released) more easily;
+            // never allocate beyond the max bytes, a smaller chunk does for the remaining room
+            final long room = (limit - allocatedBytes.get()) / BLOCK_SIZE;
+            chunkBlocks = (int)Math.min(Math.min(chunkBlocks, room), Math.max(count - n, limit / (8 * BLOCK_SIZE)));
+            if (chunkBlocks < count - n)
+            {
+               for (int i = 0; i < n; i++)
+               {
+                  free(blocks[i]);
+               }
+               return null;
+            }
+         }
+         final Chunk chunk = new Chunk(chunkBlocks);
+         chunks.add(chunk);
+         allocatedBytes.addAndGet(chunk.getCapacity());
+         while (chunk.free > 0 && n < count)
+         {
+            blocks[n++] = chunk.pop();
+         }
+      }
+      return blocks;
+   }
+
+   private synchronized void free(Handle handle)
+   {
+      for (Block block : handle.blocks)
+      {
+         free(block);
+      }
+      usedBytes.addAndGet(-(long)handle.blocks.length * BLOCK_SIZE);
+   }
+
+   // guarded by this
+   private void free(Block block)
+   {
+      ((Buffer)block.buffer).clear();
+      final Chunk chunk = block.chunk;
+      chunk.push(block);
+      if (chunk.isEmpty() && isReleasable())
+      {
+         release(chunk);
+      }
+   }
+
+   // guarded by this
+   private void release(Chunk chunk)
+   {
+      chunks.remove(chunk);
+      // the direct memory is freed once the chunk is collected
+      allocatedBytes.addAndGet(-chunk.getCapacity());
+   }
+
+   // guarded by this
+   private boolean isReleasable()
+   {
+      return chunks.size() > reservedChunks || (maxBytes > 0 && allocatedBytes.get() > maxBytes);
+   }
+
+   /**
+    * Sets the max off-heap bytes the store allocates, 0 for no limit; the chunks
+    * exceeding the limit are released as soon as they get empty.
+    */
+   synchronized void setMaxBytes(long maxBytes)
+   {
+      this.maxBytes = maxBytes;
+      trim();
+   }
+
+   /**
+    * Sets the number of empty chunks kept for later use, e.g. 0 when no envelope
+    * is going to be stored anymore; the empty chunks beyond that are released.
+    */
+   synchronized void setReservedChunks(int reservedChunks)
+   {
+      this.reservedChunks = reservedChunks;
+      trim();
+   }
+
+   // guarded by this
+   private void trim()
+   {
+      for (int i = chunks.size() - 1; i >= 0; i--)
+      {
+         final Chunk chunk = chunks.get(i);
+         if (chunk.isEmpty() && isReleasable())
+         {
+            release(chunk);
+         }
+      }
+   }
+
+   private static <T> void recycle(ConcurrentLinkedQueue<T> pool, T codec)
+   {
+      // the pool size is only loosely bounded, that's enough to cap the native memory in use
+      if (pool.size() < MAX_POOLED_CODECS)
+      {
+         pool.offer(codec);
+      }
+      else if (codec instanceof Deflater)
+      {
+         ((Deflater)codec).end();
+      }
+      else
+      {
+         ((Inflater)codec).end();
+      }
+   }
+
+   /** The off-heap memory reserved by the block pool */
+   long getAllocatedBytes()
+   {
+      return allocatedBytes.get();
+   }
+
+   /** The off-heap memory holding stored envelopes */
+   long getUsedBytes()
+   {
+      return usedBytes.get();
+   }
+
+   /**
+    * A reference counted envelope stored in the off-heap blocks; the blocks go back
+    * to the pool once the last reference is released.
+    */
+   static final class Handle
+   {
+      private final EnvelopeStore store;
+      private final Block[] blocks;
+      private final int length;
+      private final int originalLength;
+      private final byte[] dictionary;
+      private final AtomicInteger refs = new AtomicInteger(1);
+
+      private Handle(EnvelopeStore store, Block[] blocks, int length, int originalLength, byte[] dictionary)
+      {
+         this.store = store;
+         this.blocks = blocks;
+         this.length = length;
+         this.originalLength = originalLength;
+         this.dictionary = dictionary;
+      }
+
+      /** Acquires a new reference, unless the handle has already been released */
+      boolean retain()
+      {
+         for (;;)
+         {
+            final int count = refs.get();
+            if (count <= 0)
+               return false;
+            if (refs.compareAndSet(count, count + 1))
+               return true;
+         }
+      }
+
+      void release()
+      {
+         if (refs.decrementAndGet() == 0)
+            store.free(this);
+      }
+
+      String load()
+      {
+         return store.load(this);
+      }
+
+      /** The off-heap bytes used by this envelope */
+      int getStoredSize()
+      {
+         return blocks.length * BLOCK_SIZE;
+      }
+
+      int getOriginalSize()
+      {
+         return originalLength;
+      }
+   }
+
+   /**
+    * A block of a chunk
+    */
+   private static final class Block
+   {
+      private final ByteBuffer buffer;
+      private final Chunk chunk;
+
+      Block(ByteBuffer buffer, Chunk chunk)
+      {
+         this.buffer = buffer;
+         this.chunk = chunk;
+      }
+   }
+
+   /**
+    * A direct buffer split into blocks, keeping a stack of its free blocks;
+    * guarded by the store
+    */
+   private static final class Chunk
+   {
+      private final Block[] freeBlocks;
+      private int free;
+
+      Chunk(int blocks)
+      {
+         final ByteBuffer memory = ByteBuffer.allocateDirect(BLOCK_SIZE * blocks);
+         freeBlocks = new Block[blocks];
+         for (int i = 0; i < blocks; i++)
+         {
+            ((Buffer)memory).limit((i + 1) * BLOCK_SIZE);
+            ((Buffer)memory).position(i * BLOCK_SIZE);
+            freeBlocks[blocks - 1 - i] = new Block(memory.slice(), this);
+         }
+         free = blocks;
+      }
+
+      Block pop()
+      {
+         final Block block = freeBlocks[--free];
+         freeBlocks[free] = null;
+         return block;
+      }
+
+      void push(Block block)
+      {
+         freeBlocks[free++] = block;
+      }
+
+      boolean isEmpty()
+      {
+         return free == freeBlocks.length;
+      }
+
+      long getCapacity()
+      {
+         return (long)freeBlocks.length * BLOCK_SIZE;
+      }
+   }
+}
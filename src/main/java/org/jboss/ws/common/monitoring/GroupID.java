@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Serializable;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * The binary form of a record group ID, made of the ID of the node (i.e. the
+ * JVM instance) which generated it and a counter; the string form of the ID is
+ * "counter-node" and is only built when requested.
+ */
+public final class GroupID implements Serializable, Comparable<GroupID>
+{
+   private static final long serialVersionUID = -6184120467310815732L;
+
+   /** the length of the byte array form */
+   public static final int BYTES = 16;
+
+   private final long counter;
+   private final long node;
+   private transient volatile String string;
+
+   public GroupID(long counter, long node)
+   {
+      this.counter = counter;
+      this.node = node;
+   }
+
+   public long getCounter()
+   {
+      return counter;
+   }
+
+   public long getNode()
+   {
+      return node;
+   }
+
+   /**
+    * Gets the big-endian byte array form of this ID
+    */
+   public byte[] toBytes()
+   {
+      final byte[] bytes = new byte[BYTES];
+      for (int i = 0; i < 8; i++)
+      {
+         bytes[i] = (byte)(counter >>> (56 - 8 * i));
+         bytes[8 + i] = (byte)(node >>> (56 - 8 * i));
+      }
+      return bytes;
+   }
+
+   /**
+    * Gets the ID from its byte array form
+    */
+   public static GroupID fromBytes(byte[] bytes)
+   {
+      if (bytes == null || bytes.length != BYTES)
+         throw new IllegalArgumentException();
+      long counter = 0;
+      long node = 0;
+      for (int i = 0; i < 8; i++)
+      {
+         counter = (counter << 8) | (bytes[i] & 0xff);
+         node = (node << 8) | (bytes[8 + i] & 0xff);
+      }
+      return new GroupID(counter, node);
+   }
+
+   /**
+    * Parses the string form of an ID, the way it's returned by {@link #toString()}
+    *
+    * @return the ID, or null if the string is not in the canonical form
+    */
+   public static GroupID parse(String id)
+   {
+      if (id == null)
+         return null;
+      final int sep = id.indexOf('-');
+      if (sep < 0)
+         return null;
+      final long counter = parsePart(id, 0, sep);
+      final long node = parsePart(id, sep + 1, id.length());
+      return counter >= 0 && node >= 0 ? new GroupID(counter, node) : null;
+   }
+
+   /**
+    * Parses a non-negative decimal without leading zeros, returns -1 if that's not possible
+    */
+   private static long parsePart(String s, int start, int end)
+   {
+      if (start == end || (s.charAt(start) == '0' && end - start > 1))
+         return -1;
+      long value = 0;
+      for (int i = start; i < end; i++)
+      {
+         final int digit = s.charAt(i) - '0';
+         if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10)
+            return -1;
+         value = value * 10 + digit;
+      }
+      return value;
+   }
+
+   /**
+    * Gets the binary ID of the given record, parsing its group ID only if the
+    * record doesn't carry the binary form already; null if there's no such form.
+    */
+   static GroupID of(Record record)
+   {
+      if (record instanceof RecordImpl)
+         return ((RecordImpl)record).getGroupKey();
+      if (record instanceof CompactRecord)
+         return ((CompactRecord)record).getGroupKey();
+      return parse(record.getGroupID());
+   }
+
+   /**
+    * Gets the key identifying the group of the given record: the binary ID if
+    * available, the string ID otherwise, or null if the record has no group ID.
+    */
+   static Object keyOf(Record record)
+   {
+      final GroupID key = of(record);
+      return key != null ? key : record.getGroupID();
+   }
+
+   /**
+    * Gets a well spread hash of the given group key
+    */
+   static int hash(Object key)
+   {
+      int h = key.hashCode() * 0x9E3779B9;
+      return h ^ (h >>> 16);
+   }
+
+   public int compareTo(GroupID o)
+   {
+      final int c = Long.compare(node, o.node);
+      return c != 0 ? c : Long.compare(counter, o.counter);
+   }
+
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof GroupID))
+         return false;
+      final GroupID other = (GroupID)obj;
+      return counter == other.counter && node == other.node;
+   }
+
+   @Override
+   public int hashCode()
+   {
+      final long h = counter * 0x9E3779B97F4A7C15L ^ node;
+      return (int)(h ^ (h >>> 32));
+   }
+
+   @Override
+   public String toString()
+   {
+      String s = string;
+      if (s == null)
+      {
+         s = counter + "-" + node;
+         string = s;
+      }
+      return s;
+   }
+}
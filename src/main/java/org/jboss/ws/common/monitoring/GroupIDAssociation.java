@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.ArrayDeque;
+
+/**
+ * Associates the binary IDs of the record groups being processed with the
+ * current thread; unlike the String based RecordGroupAssociation of the
+ * API, no lock is involved.
+ */
+public final class GroupIDAssociation
+{
+   // pushed in place of null, which the deque doesn't allow
+   private static final GroupID NONE = new GroupID(-1, -1);
+   private static final ThreadLocal<ArrayDeque<GroupID>> groupIDs = new ThreadLocal<ArrayDeque<GroupID>>();
+
+   private GroupIDAssociation()
+   {
+   }
+
+   public static void push(GroupID groupID)
+   {
+      ArrayDeque<GroupID> stack = groupIDs.get();
+      if (stack == null)
+      {
+         stack = new ArrayDeque<GroupID>(4);
+         groupIDs.set(stack);
+      }
+      stack.push(groupID != null ? groupID : NONE);
+   }
+
+   public static GroupID peek()
+   {
+      final ArrayDeque<GroupID> stack = groupIDs.get();
+      final GroupID groupID = stack != null ? stack.peek() : null;
+      return groupID != NONE ? groupID : null;
+   }
+
+   public static GroupID pop()
+   {
+      final ArrayDeque<GroupID> stack = groupIDs.get();
+      final GroupID groupID = stack != null ? stack.poll() : null;
+      return groupID != NONE ? groupID : null;
+   }
+}
@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * A record filter which might hold back the records it doesn't match, to have
+ * them processed later on if the rest of their group matches.
+ *
+ * The endpoint calls {@link #release(Record, boolean)} after evaluating the
+ * processor's filters on each record, whether they matched or not, and processes
+ * the returned record before the given one. The {@link RecordFilterCompiler} collects
+ * the holding filters of the whole filter tree, including the ones nested in
+ * {@link AndFilter}, {@link OrFilter} and {@link NotFilter}.
+ */
+public interface HoldingRecordFilter extends RecordFilter
+{
+   /**
+    * Gets and forgets the record held back for the group of the given record. The held
+    * records of a group which is not matched are forgotten too, and so is a held record
+    * matched through another filter.
+    *
+    * @param record   the record the processor's filters have just been evaluated on
+    * @param matched  whether the processor's filters matched the record
+    * @return the held record to be processed before the given one, null if there's none
+    */
+   Record release(Record record, boolean matched);
+}
@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+
+/**
+ * The binary layout of the monitoring journal segments.
+ *
+ * A segment starts with a fixed size header followed by the entries; each entry
+ * is made of the payload length, the CRC32 of the payload and the payload itself.
+ * The length is written last, hence a zero length marks the end of the segment,
+ * while a CRC mismatch marks an entry torn by a crash.
+ */
+final class JournalFormat
+{
+   static final String SEGMENT_SUFFIX = ".journal";
+   static final int MAGIC = 0x57534a4c;
+   static final short VERSION = 1;
+   // magic, version, reserved, creation time, writer id, segment number
+   static final int SEGMENT_HEADER_SIZE = 4 + 2 + 2 + 8 + 8 + 8;
+   // length, crc
+   static final int ENTRY_HEADER_SIZE = 4 + 4;
+
+   private static final long NO_DATE = Long.MIN_VALUE;
+
+   private JournalFormat()
+   {
+   }
+
+   /**
+    * Encodes the record, leaving out the data the given processor is not interested in
+    */
+   static Payload encode(Record record, AbstractRecordProcessor processor)
+   {
+      final String envelope = processor.isProcessEnvelope() ? RecordImpl.getCompactEnvelope(record) : null;
+      final Payload payload = new Payload(256 + (envelope != null ? envelope.length() + (envelope.length() >> 2) : 0));
+      final Date date = processor.isProcessDate() ? record.getDate() : null;
+      payload.writeLong(date != null ? date.getTime() : NO_DATE);
+      final MessageType messageType = processor.isProcessMessageType() ? record.getMessageType() : null;
+      payload.writeByte(messageType != null ? messageType.ordinal() + 1 : 0);
+      payload.writeString(record.getGroupID());
+      payload.writeString(processor.isProcessSourceHost() ? record.getSourceHost() : null);
+      payload.writeString(processor.isProcessDestinationHost() ? record.getDestinationHost() : null);
+      final QName operation = processor.isProcessOperation() ? record.getOperation() : null;
+      payload.writeString(operation != null ? operation.getNamespaceURI() : null);
+      payload.writeString(operation != null ? operation.getLocalPart() : null);
+      final Map<String, List<String>> headers = processor.isProcessHeaders() ? record.getHeaders() : null;
+      if (headers != null)
+      {
+         payload.writeInt(headers.size());
+         for (Entry<String, List<String>> e : headers.entrySet())
+         {
+            payload.writeString(e.getKey());
+            final List<String> values = e.getValue();
+            payload.writeInt(values != null ? values.size() : -1);
+            if (values != null)
+            {
+               for (String value : values)
+               {
+                  payload.writeString(value);
+               }
+            }
+         }
+      }
+      else
+      {
+         payload.writeInt(-1);
+      }
+      payload.writeString(envelope);
+      return payload;
+   }
+
+   /**
+    * Decodes the record from the given buffer, starting at its current position
+    *
+    * @throws BufferUnderflowException if the payload is corrupted
+    */
+   static Record decode(ByteBuffer buffer)
+   {
+      final RecordImpl record = new RecordImpl();
+      final long time = buffer.getLong();
+      if (time != NO_DATE)
+         record.setDate(new Date(time));
+      final int type = buffer.get();
+      if (type > 0 && type <= MessageType.values().length)
+         record.setMessageType(MessageType.values()[type - 1]);
+      record.setGroupID(readString(buffer));
+      record.setSourceHost(readString(buffer));
+      record.setDestinationHost(readString(buffer));
+      final String namespace = readString(buffer);
+      final String localPart = readString(buffer);
+      if (localPart != null)
+         record.setOperation(new QName(namespace, localPart));
+      final int headerCount = buffer.getInt();
+      if (headerCount >= 0)
+      {
+         final Map<String, List<String>> headers = new HashMap<String, List<String>>(Math.min(headerCount, 64) * 2);
+         for (int i = 0; i < headerCount; i++)
+         {
+            final String key = readString(buffer);
+            final int valueCount = buffer.getInt();
+            String[] values = null;
+            if (valueCount >= 0)
+            {
+               values = new String[Math.min(valueCount, buffer.remaining())];
+               if (values.length < valueCount)
+                  throw new BufferUnderflowException();
+               for (int j = 0; j < valueCount; j++)
+               {
+                  values[j] = readString(buffer);
+               }
+            }
+            headers.put(key, values != null ? Arrays.asList(values) : null);
+         }
+         record.setHeaders(headers);
+      }
+      record.setEnvelope(readString(buffer));
+      return record;
+   }
+
+   private static String readString(ByteBuffer buffer)
+   {
+      final int length = buffer.getInt();
+      if (length < 0)
+         return null;
+      if (length > buffer.remaining())
+         throw new BufferUnderflowException();
+      final byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * A growable buffer holding an encoded record
+    */
+   static final class Payload
+   {
+      private byte[] data;
+      private int length;
+
+      Payload(int capacity)
+      {
+         data = new byte[capacity];
+      }
+
+      byte[] getData()
+      {
+         return data;
+      }
+
+      int getLength()
+      {
+         return length;
+      }
+
+      private void ensureCapacity(int n)
+      {
+         if (length + n > data.length)
+            data = Arrays.copyOf(data, Math.max(data.length << 1, length + n));
+      }
+
+      void writeByte(int b)
+      {
+         ensureCapacity(1);
+         data[length++] = (byte)b;
+      }
+
+      void writeInt(int v)
+      {
+         ensureCapacity(4);
+         data[length++] = (byte)(v >>> 24);
+         data[length++] = (byte)(v >>> 16);
+         data[length++] = (byte)(v >>> 8);
+         data[length++] = (byte)v;
+      }
+
+      void writeLong(long v)
+      {
+         writeInt((int)(v >>> 32));
+         writeInt((int)v);
+      }
+
+      void writeString(String s)
+      {
+         if (s == null)
+         {
+            writeInt(-1);
+            return;
+         }
+         final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+         writeInt(bytes.length);
+         ensureCapacity(bytes.length);
+         System.arraycopy(bytes, 0, data, length, bytes.length);
+         length += bytes.length;
+      }
+   }
+}
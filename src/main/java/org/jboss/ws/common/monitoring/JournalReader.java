@@ -0,0 +1,310 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * Reads the records of the journal written by a {@link JournalRecorder}.
+ *
+ * Segments are read in the order they were written; reading a segment stops at its
+ * first incomplete or corrupted entry, which is what a crash leaves at the tail.
+ */
+public final class JournalReader
+{
+   private final Path directory;
+
+   /**
+    * A callback receiving the records read from the journal
+    */
+   public interface Visitor
+   {
+      /**
+       * @return false to stop reading
+       */
+      boolean visit(Record record);
+   }
+
+   public JournalReader(Path directory)
+   {
+      this.directory = directory;
+   }
+
+   /**
+    * Gets the segment files in the directory, in the order they were written
+    */
+   public List<Path> getSegments() throws IOException
+   {
+      final Map<Path, long[]> headers = new HashMap<Path, long[]>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + JournalFormat.SEGMENT_SUFFIX))
+      {
+         for (Path path : stream)
+         {
+            final long[] header = readHeader(path);
+            if (header != null)
+               headers.put(path, header);
+         }
+      }
+      final List<Path> segments = new ArrayList<Path>(headers.keySet());
+      Collections.sort(segments, new Comparator<Path>()
+      {
+         public int compare(Path p1, Path p2)
+         {
+            final long[] h1 = headers.get(p1);
+            final long[] h2 = headers.get(p2);
+            for (int i = 0; i < h1.length; i++)
+            {
+               if (h1[i] != h2[i])
+                  return Long.compare(h1[i], h2[i]);
+            }
+            return p1.compareTo(p2);
+         }
+      });
+      return segments;
+   }
+
+   /**
+    * Reads the records matching all the given filters from all the segments
+    *
+    * @return the number of records passed to the visitor
+    */
+   public long scan(RecordFilter[] filters, Visitor visitor) throws IOException
+   {
+      final long[] count = new long[1];
+      for (Path segment : getSegments())
+      {
+         if (!scan(segment, filters, visitor, count))
+            break;
+      }
+      return count[0];
+   }
+
+   /**
+    * Gets the records matching all the given filters
+    */
+   public List<Record> getMatchingRecords(RecordFilter[] filters) throws IOException
+   {
+      final List<Record> records = new ArrayList<Record>();
+      scan(filters, new Visitor()
+      {
+         public boolean visit(Record record)
+         {
+            records.add(record);
+            return true;
+         }
+      });
+      return records;
+   }
+
+   /**
+    * Exports the records matching all the given filters as text
+    *
+    * @return the number of exported records
+    */
+   public long export(RecordFilter[] filters, final Writer writer) throws IOException
+   {
+      final IOException[] failure = new IOException[1];
+      final long count = scan(filters, new Visitor()
+      {
+         public boolean visit(Record record)
+         {
+            try
+            {
+               write(record, writer);
+               return true;
+            }
+            catch (IOException e)
+            {
+               failure[0] = e;
+               return false;
+            }
+         }
+      });
+      if (failure[0] != null)
+         throw failure[0];
+      writer.flush();
+      return count;
+   }
+
+   /**
+    * Reads the records matching all the given filters from the given segment
+    *
+    * @return the number of records passed to the visitor
+    */
+   public static long scan(Path segment, RecordFilter[] filters, Visitor visitor) throws IOException
+   {
+      final long[] count = new long[1];
+      scan(segment, filters, visitor, count);
+      return count[0];
+   }
+
+   /**
+    * @return false if the visitor stopped the scan
+    */
+   private static boolean scan(Path segment, RecordFilter[] filters, Visitor visitor, long[] count) throws IOException
+   {
+      final MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ))
+      {
+         buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      }
+      if (buffer.remaining() < JournalFormat.SEGMENT_HEADER_SIZE || buffer.getInt(0) != JournalFormat.MAGIC
+            || buffer.getShort(4) != JournalFormat.VERSION)
+         return true;
+
+      final CRC32 crc = new CRC32();
+      int pos = JournalFormat.SEGMENT_HEADER_SIZE;
+      while (buffer.limit() - pos >= JournalFormat.ENTRY_HEADER_SIZE)
+      {
+         final int length = buffer.getInt(pos);
+         if (length <= 0 || length > buffer.limit() - pos - JournalFormat.ENTRY_HEADER_SIZE)
+            break;
+         final ByteBuffer payload = buffer.duplicate();
+         ((Buffer)payload).limit(pos + JournalFormat.ENTRY_HEADER_SIZE + length);
+         ((Buffer)payload).position(pos + JournalFormat.ENTRY_HEADER_SIZE);
+         crc.reset();
+         crc.update(payload.duplicate());
+         if ((int)crc.getValue() != buffer.getInt(pos + 4))
+            break;
+         final Record record;
+         try
+         {
+            record = JournalFormat.decode(payload);
+         }
+         catch (BufferUnderflowException e)
+         {
+            break;
+         }
+         pos += JournalFormat.ENTRY_HEADER_SIZE + length;
+         if (matches(record, filters))
+         {
+            count[0]++;
+            if (!visitor.visit(record))
+               return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean matches(Record record, RecordFilter[] filters)
+   {
+      for (RecordFilter filter : filters)
+      {
+         if (!filter.match(record))
+            return false;
+      }
+      return true;
+   }
+
+   /**
+    * Reads the creation time, writer id and segment number, null if the file is not a segment
+    */
+   private static long[] readHeader(Path path) throws IOException
+   {
+      final ByteBuffer header = ByteBuffer.allocate(JournalFormat.SEGMENT_HEADER_SIZE);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+      {
+         while (header.hasRemaining() && channel.read(header) >= 0)
+         {
+            // keep reading
+         }
+      }
+      if (header.hasRemaining() || header.getInt(0) != JournalFormat.MAGIC || header.getShort(4) != JournalFormat.VERSION)
+         return null;
+      return new long[] { header.getLong(8), header.getLong(16), header.getLong(24) };
+   }
+
+   private static void write(Record record, Writer writer) throws IOException
+   {
+      writer.write(record.getMessageType() != null ? record.getMessageType() + " MESSAGE" : "MESSAGE");
+      if (record.getSourceHost() != null)
+      {
+         writer.write(" from ");
+         writer.write(record.getSourceHost());
+      }
+      if (record.getDestinationHost() != null)
+      {
+         writer.write(" to ");
+         writer.write(record.getDestinationHost());
+      }
+      writer.write(":");
+      if (record.getDate() != null)
+      {
+         writer.write("\nDate: ");
+         writer.write(String.valueOf(record.getDate()));
+      }
+      writer.write("\nGroupID: ");
+      writer.write(String.valueOf(record.getGroupID()));
+      if (record.getOperation() != null)
+      {
+         writer.write("\nOperation: ");
+         writer.write(String.valueOf(record.getOperation()));
+      }
+      writer.write("\n");
+      if (record.getHeaders() != null)
+      {
+         for (Entry<String, List<String>> e : record.getHeaders().entrySet())
+         {
+            writer.write(String.valueOf(e.getKey()));
+            writer.write(": ");
+            if (e.getValue() != null)
+            {
+               for (String h : e.getValue())
+               {
+                  writer.write(String.valueOf(h));
+                  writer.write("; ");
+               }
+            }
+            writer.write("\n");
+         }
+      }
+      writer.write("\n");
+      if (record.getEnvelope() != null)
+      {
+         writer.write(record.getEnvelope());
+         writer.write("\n");
+      }
+      writer.write("\n");
+   }
+}
@@ -0,0 +1,234 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Paths;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * A record processor that appends records to a binary journal made of
+ * memory-mapped segment files, for post-mortem analysis of the traffic;
+ * the journal can be read offline with a {@link JournalReader}.
+ *
+ * The journal is closed (and a new one started by the next record) when the
+ * configuration changes; {@link #close()} stops the journal for good, when the
+ * endpoint is undeployed. Envelopes are journaled in their compact form.
+ */
+public class JournalRecorder extends AbstractRecordProcessor implements JournalRecorderMBean, Serializable, Closeable
+{
+   private static final long serialVersionUID = 2883513745520184628L;
+
+   private volatile String directory = System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")) + File.separator
+         + "jbossws-journal";
+   private volatile long segmentSize = 64 * 1024 * 1024;
+   private volatile long maxSegmentAge = 60 * 60 * 1000L;
+   private volatile long forceInterval = 1000L;
+   private volatile int maxSegments = 16;
+   private transient volatile JournalWriter writer;
+   private transient volatile boolean failing;
+   private transient volatile boolean closed;
+
+   public JournalRecorder()
+   {
+      this.name = "JournalRecorder";
+   }
+
+   @Override
+   public void processRecord(Record record)
+   {
+      if (closed)
+      {
+         return;
+      }
+      JournalFormat.Payload payload = JournalFormat.encode(record, this);
+      try
+      {
+         final JournalWriter w = getWriter();
+         if (w == null)
+         {
+            return;
+         }
+         w.append(payload.getData(), payload.getLength());
+         failing = false;
+      }
+      catch (IOException e)
+      {
+         // log once per failure streak, the journal is re-opened on the next record
+         if (!failing)
+         {
+            failing = true;
+            MONITORING_LOGGER.cannotWriteJournal(directory, e);
+         }
+         closeWriter();
+      }
+   }
+
+   /**
+    * Gets the current writer, null once this recorder is closed
+    */
+   private JournalWriter getWriter() throws IOException
+   {
+      JournalWriter w = writer;
+      if (w == null)
+      {
+         synchronized (this)
+         {
+            w = writer;
+            if (w == null && !closed)
+            {
+               w = new JournalWriter(Paths.get(directory), name.replaceAll("[^A-Za-z0-9._-]", "_"), segmentSize, maxSegmentAge, forceInterval, maxSegments);
+               writer = w;
+            }
+         }
+      }
+      return w;
+   }
+
+   /**
+    * Closes the journal for good, releasing its mapped segment and cancelling its periodic
+    * force; the records processed afterwards are dropped.
+    */
+   public void close()
+   {
+      closed = true;
+      closeWriter();
+   }
+
+   /**
+    * Closes the current journal, the next record starts a new one
+    */
+   private void closeWriter()
+   {
+      JournalWriter w;
+      synchronized (this)
+      {
+         w = writer;
+         writer = null;
+      }
+      if (w != null)
+      {
+         w.close();
+      }
+   }
+
+   @Override
+   public void setRecording(boolean recording)
+   {
+      super.setRecording(recording);
+      if (!recording)
+      {
+         closeWriter();
+      }
+   }
+
+   public String getDirectory()
+   {
+      return directory;
+   }
+
+   public void setDirectory(String directory)
+   {
+      this.directory = directory;
+      closeWriter();
+   }
+
+   public long getSegmentSize()
+   {
+      return segmentSize;
+   }
+
+   public void setSegmentSize(long segmentSize)
+   {
+      this.segmentSize = segmentSize;
+      closeWriter();
+   }
+
+   public long getMaxSegmentAge()
+   {
+      return maxSegmentAge;
+   }
+
+   public void setMaxSegmentAge(long maxSegmentAge)
+   {
+      this.maxSegmentAge = maxSegmentAge;
+      closeWriter();
+   }
+
+   public long getForceInterval()
+   {
+      return forceInterval;
+   }
+
+   public void setForceInterval(long forceInterval)
+   {
+      this.forceInterval = forceInterval;
+      closeWriter();
+   }
+
+   public int getMaxSegments()
+   {
+      return maxSegments;
+   }
+
+   public void setMaxSegments(int maxSegments)
+   {
+      this.maxSegments = maxSegments;
+      closeWriter();
+   }
+
+   public long getRecordCount()
+   {
+      JournalWriter w = writer;
+      return w != null ? w.getRecordCount() : 0;
+   }
+
+   public void force()
+   {
+      JournalWriter w = writer;
+      if (w != null)
+      {
+         w.force();
+      }
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      JournalRecorder cl = (JournalRecorder)super.clone();
+      cl.directory = this.directory;
+      cl.segmentSize = this.segmentSize;
+      cl.maxSegmentAge = this.maxSegmentAge;
+      cl.forceInterval = this.forceInterval;
+      cl.maxSegments = this.maxSegments;
+      cl.writer = null;
+      cl.failing = false;
+      cl.closed = false;
+      return cl;
+   }
+}
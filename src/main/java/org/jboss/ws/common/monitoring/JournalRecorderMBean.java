@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+/**
+ * The JournalRecorder's MBean view
+ */
+public interface JournalRecorderMBean extends ManagedRecordProcessorMBean
+{
+   /**
+    * Gets the directory the journal segments are written to
+    * 
+    * @return
+    */
+   public String getDirectory();
+
+   public void setDirectory(String directory);
+
+   /**
+    * Gets the size (in bytes) of each journal segment
+    * 
+    * @return
+    */
+   public long getSegmentSize();
+
+   public void setSegmentSize(long segmentSize);
+
+   /**
+    * Gets the max age (in ms) of the segment being written, after which a new
+    * segment is started; 0 means no limit
+    * 
+    * @return
+    */
+   public long getMaxSegmentAge();
+
+   public void setMaxSegmentAge(long maxSegmentAge);
+
+   /**
+    * Gets the interval (in ms) between forces of the written records
+    * to the storage; 0 means records are never explicitly forced
+    * 
+    * @return
+    */
+   public long getForceInterval();
+
+   public void setForceInterval(long forceInterval);
+
+   /**
+    * Gets the max number of segments kept in the directory by this recorder,
+    * including the ones written before a restart or a configuration change;
+    * the oldest ones are deleted when a new segment is started. Defaults to 16,
+    * 0 means no limit
+    * 
+    * @return
+    */
+   public int getMaxSegments();
+
+   public void setMaxSegments(int maxSegments);
+
+   /**
+    * Gets the number of records written to the current journal
+    * 
+    * @return
+    */
+   public long getRecordCount();
+
+   /**
+    * Forces the written records to the storage
+    */
+   public void force();
+}
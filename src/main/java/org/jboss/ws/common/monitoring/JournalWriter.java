@@ -0,0 +1,355 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Appends the encoded records to memory-mapped segment files, see {@link JournalFormat}.
+ *
+ * Segments are preallocated and their channel is closed as soon as they're mapped,
+ * so no file descriptor is held; a new segment is started when the current one is
+ * full or too old, and the oldest segments with the same prefix in the directory,
+ * including the ones left by previous writers, are deleted when the max number of
+ * segments is exceeded. The mapped pages are periodically forced to
+ * the storage by a shared background thread.
+ */
+final class JournalWriter
+{
+   private static final AtomicInteger WRITERS = new AtomicInteger();
+
+   private final Path directory;
+   private final String prefix;
+   private final long writerId;
+   private final long segmentSize;
+   private final long maxSegmentAge;
+   private final int maxSegments;
+   private final CRC32 crc = new CRC32();
+   private final Future<?> forceTask;
+   private MappedByteBuffer buffer;
+   private long created;
+   private long segmentNumber;
+   private long recordCount;
+   private int segmentCount;
+   private boolean unforced;
+   private boolean closed;
+
+   /**
+    * @param directory      the directory of the segment files
+    * @param prefix         the prefix of the segment file names
+    * @param segmentSize    the size of the segment files
+    * @param maxSegmentAge  the max age (ms) of a segment being written, 0 for no limit
+    * @param forceInterval  the interval (ms) between forces of the written data, 0 to never force it
+    * @param maxSegments    the max number of segments to keep, 0 for no limit
+    */
+   JournalWriter(Path directory, String prefix, long segmentSize, long maxSegmentAge, long forceInterval, int maxSegments) throws IOException
+   {
+      this.directory = Files.createDirectories(directory);
+      this.prefix = prefix;
+      this.writerId = (System.currentTimeMillis() << 16) | (WRITERS.incrementAndGet() & 0xffff);
+      this.segmentSize = Math.max(segmentSize, JournalFormat.SEGMENT_HEADER_SIZE + JournalFormat.ENTRY_HEADER_SIZE);
+      this.maxSegmentAge = maxSegmentAge;
+      this.maxSegments = maxSegments;
+      if (forceInterval > 0)
+      {
+         final ForceTask task = new ForceTask(this);
+         task.future = Scheduler.INSTANCE.scheduleWithFixedDelay(task, forceInterval, forceInterval, TimeUnit.MILLISECONDS);
+         forceTask = task.future;
+      }
+      else
+      {
+         forceTask = null;
+      }
+   }
+
+   /**
+    * Appends an entry with the given payload; nothing is written once the writer is closed.
+    */
+   synchronized void append(byte[] payload, int length) throws IOException
+   {
+      if (closed)
+         return;
+      final int entrySize = JournalFormat.ENTRY_HEADER_SIZE + length;
+      final long now = System.currentTimeMillis();
+      if (buffer == null || buffer.remaining() < entrySize || (maxSegmentAge > 0 && now - created >= maxSegmentAge))
+         rotate(now, entrySize);
+
+      crc.reset();
+      crc.update(payload, 0, length);
+      final int pos = buffer.position();
+      ((Buffer)buffer).position(pos + JournalFormat.ENTRY_HEADER_SIZE);
+      buffer.put(payload, 0, length);
+      buffer.putInt(pos + 4, (int)crc.getValue());
+      // the length commits the entry
+      buffer.putInt(pos, length);
+      recordCount++;
+      unforced = true;
+   }
+
+   private void rotate(long now, int entrySize) throws IOException
+   {
+      if (buffer != null)
+      {
+         buffer.force();
+         buffer = null;
+      }
+      // an entry never spans segments, a larger one gets a segment of its own
+      final long size = Math.max(segmentSize, (long)JournalFormat.SEGMENT_HEADER_SIZE + entrySize);
+      Path path;
+      FileChannel channel;
+      for (;;)
+      {
+         path = directory.resolve(prefix + "-" + Long.toHexString(writerId) + "-" + String.format("%06d", segmentNumber++) + JournalFormat.SEGMENT_SUFFIX);
+         try
+         {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            break;
+         }
+         catch (FileAlreadyExistsException e)
+         {
+            // left by a previous writer with the same id, try the next number
+         }
+      }
+      try
+      {
+         buffer = channel.map(MapMode.READ_WRITE, 0, size);
+      }
+      finally
+      {
+         // the mapping stays valid after the channel is closed
+         channel.close();
+      }
+      created = now;
+      buffer.putInt(JournalFormat.MAGIC);
+      buffer.putShort(JournalFormat.VERSION);
+      buffer.putShort((short)0);
+      buffer.putLong(now);
+      buffer.putLong(writerId);
+      buffer.putLong(segmentNumber - 1);
+
+      prune();
+   }
+
+   /**
+    * Deletes the oldest segments with this writer's prefix exceeding the max number of segments
+    */
+   private void prune() throws IOException
+   {
+      final List<Path> segments = listSegments();
+      int count = segments.size();
+      for (int i = 0; maxSegments > 0 && count > maxSegments; i++, count--)
+      {
+         Files.deleteIfExists(segments.get(i));
+      }
+      segmentCount = count;
+   }
+
+   /**
+    * Lists the segments with this writer's prefix in the directory, oldest first
+    */
+   private List<Path> listSegments() throws IOException
+   {
+      final List<Segment> segments = new ArrayList<Segment>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "-*" + JournalFormat.SEGMENT_SUFFIX))
+      {
+         for (Path path : stream)
+         {
+            final Segment segment = parseSegmentName(path);
+            if (segment != null)
+               segments.add(segment);
+         }
+      }
+      // the writer ids start with the creation time of the writer
+      Collections.sort(segments, new Comparator<Segment>()
+      {
+         public int compare(Segment s1, Segment s2)
+         {
+            return s1.writerId != s2.writerId ? Long.compare(s1.writerId, s2.writerId) : Long.compare(s1.number, s2.number);
+         }
+      });
+      final List<Path> paths = new ArrayList<Path>(segments.size());
+      for (Segment segment : segments)
+      {
+         paths.add(segment.path);
+      }
+      return paths;
+   }
+
+   /**
+    * Parses the writer id and the segment number out of a segment file name,
+    * null if the name doesn't belong to a segment with this writer's prefix
+    */
+   private Segment parseSegmentName(Path path)
+   {
+      final String name = path.getFileName().toString();
+      final int start = prefix.length() + 1;
+      final int end = name.length() - JournalFormat.SEGMENT_SUFFIX.length();
+      final int dash = name.indexOf('-', start);
+      if (dash < 0 || dash >= end)
+         return null;
+      try
+      {
+         // another prefix starting with this one (e.g. "ep-1" and "ep") doesn't parse
+         return new Segment(path, Long.parseLong(name.substring(start, dash), 16), Long.parseLong(name.substring(dash + 1, end)));
+      }
+      catch (NumberFormatException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Forces the data written so far to the storage
+    */
+   void force()
+   {
+      final MappedByteBuffer b;
+      synchronized (this)
+      {
+         if (unforced == false || buffer == null)
+            return;
+         b = buffer;
+         unforced = false;
+      }
+      b.force();
+   }
+
+   /**
+    * Forces the written data and stops writing
+    */
+   synchronized void close()
+   {
+      if (closed)
+         return;
+      closed = true;
+      if (forceTask != null)
+         forceTask.cancel(false);
+      if (buffer != null)
+      {
+         buffer.force();
+         buffer = null;
+      }
+   }
+
+   synchronized long getRecordCount()
+   {
+      return recordCount;
+   }
+
+   /** The number of segments with this writer's prefix, as of the last segment started */
+   synchronized int getSegmentCount()
+   {
+      return segmentCount;
+   }
+
+   private static final class Segment
+   {
+      private final Path path;
+      private final long writerId;
+      private final long number;
+
+      Segment(Path path, long writerId, long number)
+      {
+         this.path = path;
+         this.writerId = writerId;
+         this.number = number;
+      }
+   }
+
+   /**
+    * Periodically forces a writer, until the writer is closed or garbage collected
+    */
+   private static final class ForceTask implements Runnable
+   {
+      private final WeakReference<JournalWriter> writer;
+      private volatile Future<?> future;
+
+      ForceTask(JournalWriter writer)
+      {
+         this.writer = new WeakReference<JournalWriter>(writer);
+      }
+
+      public void run()
+      {
+         final JournalWriter w = writer.get();
+         if (w == null)
+         {
+            final Future<?> f = future;
+            if (f != null)
+               f.cancel(false);
+            return;
+         }
+         try
+         {
+            w.force();
+         }
+         catch (RuntimeException e)
+         {
+            MONITORING_LOGGER.cannotWriteJournal(w.directory.toString(), e);
+         }
+      }
+   }
+
+   private static final class Scheduler
+   {
+      static final ScheduledExecutorService INSTANCE;
+      static
+      {
+         final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+         {
+            public Thread newThread(Runnable r)
+            {
+               final Thread thread = new Thread(r, "JournalRecorder-force");
+               thread.setDaemon(true);
+               // the thread is shared by all the deployments
+               thread.setContextClassLoader(null);
+               return thread;
+            }
+         });
+         executor.setRemoveOnCancelPolicy(true);
+         INSTANCE = executor;
+      }
+   }
+}
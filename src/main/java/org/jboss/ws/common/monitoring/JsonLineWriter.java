@@ -0,0 +1,304 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TimeZone;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * Writes records as JSON lines to a channel.
+ *
+ * Text is escaped and UTF-8 encoded straight into the output buffer, which is
+ * written to the channel whenever it fills up and on {@link #flush()}; records
+ * larger than the buffer hence need no intermediate copy. Not thread safe.
+ */
+final class JsonLineWriter
+{
+   private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+   private final WritableByteChannel channel;
+   private final ByteBuffer buffer;
+   private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.ENGLISH);
+   private long cachedSecond = Long.MIN_VALUE;
+   private String cachedDate;
+
+   JsonLineWriter(WritableByteChannel channel, int bufferSize)
+   {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocateDirect(bufferSize < 16 ? 16 : bufferSize);
+      this.dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+   }
+
+   /**
+    * Writes the given record as a single line, honouring the processor switches
+    */
+   void write(Record record, AbstractRecordProcessor processor) throws IOException
+   {
+      put('{');
+      boolean first = true;
+      if (processor.isProcessDate() && record.getDate() != null)
+      {
+         first = name("date", first);
+         put('"');
+         putDate(record.getDate());
+         put('"');
+      }
+      first = name("groupID", first);
+      putString(record.getGroupID());
+      if (processor.isProcessMessageType() && record.getMessageType() != null)
+      {
+         first = name("type", first);
+         putString(record.getMessageType().name());
+      }
+      if (processor.isProcessSourceHost() && record.getSourceHost() != null)
+      {
+         first = name("sourceHost", first);
+         putString(record.getSourceHost());
+      }
+      if (processor.isProcessDestinationHost() && record.getDestinationHost() != null)
+      {
+         first = name("destinationHost", first);
+         putString(record.getDestinationHost());
+      }
+      final QName operation = record.getOperation();
+      if (processor.isProcessOperation() && operation != null)
+      {
+         first = name("operation", first);
+         put('"');
+         if (operation.getNamespaceURI().length() > 0)
+         {
+            put('{');
+            putChars(operation.getNamespaceURI());
+            put('}');
+         }
+         putChars(operation.getLocalPart());
+         put('"');
+      }
+      final Map<String, List<String>> headers = record.getHeaders();
+      if (processor.isProcessHeaders() && headers != null)
+      {
+         first = name("headers", first);
+         putHeaders(headers);
+      }
+      if (processor.isProcessEnvelope())
+      {
+         final String envelope = RecordImpl.getCompactEnvelope(record);
+         if (envelope != null)
+         {
+            name("envelope", first);
+            putString(envelope);
+         }
+      }
+      put('}');
+      put('\n');
+   }
+
+   /**
+    * Writes the buffered bytes to the channel
+    */
+   void flush() throws IOException
+   {
+      ((Buffer)buffer).flip();
+      while (buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+      ((Buffer)buffer).clear();
+   }
+
+   private void putHeaders(Map<String, List<String>> headers) throws IOException
+   {
+      put('{');
+      boolean first = true;
+      for (Entry<String, List<String>> e : headers.entrySet())
+      {
+         if (!first)
+            put(',');
+         first = false;
+         putString(e.getKey());
+         put(':');
+         final List<String> values = e.getValue();
+         if (values == null)
+         {
+            putAscii("null");
+            continue;
+         }
+         put('[');
+         boolean firstValue = true;
+         for (String value : values)
+         {
+            if (!firstValue)
+               put(',');
+            firstValue = false;
+            putString(value);
+         }
+         put(']');
+      }
+      put('}');
+   }
+
+   private boolean name(String name, boolean first) throws IOException
+   {
+      if (!first)
+         put(',');
+      put('"');
+      putAscii(name);
+      put('"');
+      put(':');
+      return false;
+   }
+
+   private void putDate(Date date) throws IOException
+   {
+      // the formatted seconds are cached, records mostly come in chronological order
+      final long time = date.getTime();
+      final long second = Math.floorDiv(time, 1000L);
+      if (second != cachedSecond)
+      {
+         cachedDate = dateFormat.format(new Date(second * 1000L));
+         cachedSecond = second;
+      }
+      putAscii(cachedDate);
+      final int millis = (int)Math.floorMod(time, 1000L);
+      put('.');
+      put((char)('0' + millis / 100));
+      put((char)('0' + millis / 10 % 10));
+      put((char)('0' + millis % 10));
+      put('Z');
+   }
+
+   private void putString(String s) throws IOException
+   {
+      if (s == null)
+      {
+         putAscii("null");
+         return;
+      }
+      put('"');
+      putChars(s);
+      put('"');
+   }
+
+   private void putChars(String s) throws IOException
+   {
+      final int length = s.length();
+      for (int i = 0; i < length; i++)
+      {
+         final char c = s.charAt(i);
+         if (c < 0x80)
+         {
+            switch (c)
+            {
+               case '"':
+               case '\\':
+                  put('\\');
+                  put(c);
+                  break;
+               case '\n':
+                  put('\\');
+                  put('n');
+                  break;
+               case '\r':
+                  put('\\');
+                  put('r');
+                  break;
+               case '\t':
+                  put('\\');
+                  put('t');
+                  break;
+               default:
+                  if (c < 0x20)
+                  {
+                     putAscii("\\u00");
+                     put((char)HEX[c >> 4]);
+                     put((char)HEX[c & 0xf]);
+                  }
+                  else
+                  {
+                     put(c);
+                  }
+            }
+         }
+         else if (c < 0x800)
+         {
+            ensure(2);
+            buffer.put((byte)(0xc0 | (c >> 6)));
+            buffer.put((byte)(0x80 | (c & 0x3f)));
+         }
+         else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1)))
+         {
+            final int cp = Character.toCodePoint(c, s.charAt(++i));
+            ensure(4);
+            buffer.put((byte)(0xf0 | (cp >> 18)));
+            buffer.put((byte)(0x80 | ((cp >> 12) & 0x3f)));
+            buffer.put((byte)(0x80 | ((cp >> 6) & 0x3f)));
+            buffer.put((byte)(0x80 | (cp & 0x3f)));
+         }
+         else if (Character.isSurrogate(c))
+         {
+            // unpaired surrogate, not encodable in UTF-8
+            put('?');
+         }
+         else
+         {
+            ensure(3);
+            buffer.put((byte)(0xe0 | (c >> 12)));
+            buffer.put((byte)(0x80 | ((c >> 6) & 0x3f)));
+            buffer.put((byte)(0x80 | (c & 0x3f)));
+         }
+      }
+   }
+
+   private void putAscii(String s) throws IOException
+   {
+      for (int i = 0; i < s.length(); i++)
+      {
+         put(s.charAt(i));
+      }
+   }
+
+   private void put(char c) throws IOException
+   {
+      if (!buffer.hasRemaining())
+         flush();
+      buffer.put((byte)c);
+   }
+
+   private void ensure(int bytes) throws IOException
+   {
+      if (buffer.remaining() < bytes)
+         flush();
+   }
+}
@@ -0,0 +1,358 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.common.monitoring.RecordDispatcher.OverflowPolicy;
+
+/**
+ * A record processor that appends records to a file as JSON lines, for log
+ * pipelines to ingest.
+ *
+ * Records are handed over to a background writer; the records queued meanwhile
+ * are written together, with a single channel write (and optionally force) per
+ * batch, so the request threads neither format nor write anything.
+ *
+ * The file is closed (and re-opened by the next record) when the configuration
+ * changes; {@link #close()} stops the writer for good, when the endpoint is undeployed.
+ */
+public class JsonLogRecorder extends AbstractRecordProcessor implements JsonLogRecorderMBean, Serializable, Closeable
+{
+   private static final long serialVersionUID = -3146517418766322452L;
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private volatile String file = System.getProperty("jboss.server.log.dir", System.getProperty("java.io.tmpdir")) + File.separator
+         + "jbossws-records.jsonl";
+   private volatile int queueSize = 8192;
+   private volatile int batchSize = 256;
+   private volatile String overflowPolicy = OverflowPolicy.DROP_NEWEST.name();
+   private volatile boolean forceOnCommit;
+   private transient volatile RecordDispatcher dispatcher;
+   private transient volatile Output output;
+   private transient volatile boolean closed;
+   private AtomicLong written = new AtomicLong();
+   private AtomicLong commits = new AtomicLong();
+
+   public JsonLogRecorder()
+   {
+      this.name = "JsonLogRecorder";
+   }
+
+   @Override
+   public void processRecord(Record record)
+   {
+      final RecordDispatcher d = getDispatcher();
+      if (d != null)
+      {
+         d.offer(record);
+      }
+   }
+
+   /**
+    * Gets the current dispatcher, null once this recorder is closed
+    */
+   private RecordDispatcher getDispatcher()
+   {
+      RecordDispatcher d = dispatcher;
+      if (d == null)
+      {
+         synchronized (this)
+         {
+            d = dispatcher;
+            if (d == null && !closed)
+            {
+               output = new Output(Paths.get(file), forceOnCommit);
+               d = new RecordDispatcher("jbossws-json-log-" + name, queueSize, batchSize,
+                     OverflowPolicy.fromString(overflowPolicy, OverflowPolicy.DROP_NEWEST), output);
+               dispatcher = d;
+            }
+         }
+      }
+      return d;
+   }
+
+   /**
+    * Writes the queued records and closes the file for good; the records
+    * processed afterwards are dropped.
+    */
+   public void close()
+   {
+      closed = true;
+      closeOutput();
+   }
+
+   /**
+    * Writes the queued records and closes the file, the next record re-opens it
+    */
+   private void closeOutput()
+   {
+      RecordDispatcher d;
+      Output o;
+      synchronized (this)
+      {
+         d = dispatcher;
+         o = output;
+         dispatcher = null;
+         output = null;
+      }
+      if (d != null)
+      {
+         d.stop();
+      }
+      if (o != null)
+      {
+         o.close();
+      }
+   }
+
+   @Override
+   public void setRecording(boolean recording)
+   {
+      super.setRecording(recording);
+      if (!recording)
+      {
+         closeOutput();
+      }
+   }
+
+   public String getFile()
+   {
+      return file;
+   }
+
+   public void setFile(String file)
+   {
+      this.file = file;
+      closeOutput();
+   }
+
+   public int getQueueSize()
+   {
+      return queueSize;
+   }
+
+   public void setQueueSize(int queueSize)
+   {
+      this.queueSize = queueSize;
+      closeOutput();
+   }
+
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize)
+   {
+      this.batchSize = batchSize;
+      closeOutput();
+   }
+
+   public String getOverflowPolicy()
+   {
+      return overflowPolicy;
+   }
+
+   public void setOverflowPolicy(String overflowPolicy)
+   {
+      this.overflowPolicy = OverflowPolicy.fromString(overflowPolicy, OverflowPolicy.DROP_NEWEST).name();
+      closeOutput();
+   }
+
+   public boolean isForceOnCommit()
+   {
+      return forceOnCommit;
+   }
+
+   public void setForceOnCommit(boolean forceOnCommit)
+   {
+      this.forceOnCommit = forceOnCommit;
+      closeOutput();
+   }
+
+   public long getWrittenCount()
+   {
+      return written.get();
+   }
+
+   public long getCommitCount()
+   {
+      return commits.get();
+   }
+
+   public long getDroppedCount()
+   {
+      RecordDispatcher d = dispatcher;
+      return d != null ? d.getDroppedCount() : 0;
+   }
+
+   public int getPendingCount()
+   {
+      RecordDispatcher d = dispatcher;
+      return d != null ? d.getPendingCount() : 0;
+   }
+
+   public void flush()
+   {
+      closeOutput();
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      JsonLogRecorder cl = (JsonLogRecorder)super.clone();
+      cl.file = this.file;
+      cl.queueSize = this.queueSize;
+      cl.batchSize = this.batchSize;
+      cl.overflowPolicy = this.overflowPolicy;
+      cl.forceOnCommit = this.forceOnCommit;
+      cl.dispatcher = null;
+      cl.output = null;
+      cl.closed = false;
+      cl.written = new AtomicLong();
+      cl.commits = new AtomicLong();
+      return cl;
+   }
+
+   /**
+    * The file the batches are committed to; it's usually called by the dispatcher
+    * thread only, the lock is for the records processed by the caller once
+    * the dispatcher is stopped. Once closed, the output never re-opens the file:
+    * the records a caller got to the stopped dispatcher after that are handed
+    * over to the current dispatcher, or dropped if the recorder is closed.
+    */
+   private final class Output implements RecordDispatcher.Sink
+   {
+      private final Path path;
+      private final boolean force;
+      private FileChannel channel;
+      private JsonLineWriter writer;
+      private boolean failing;
+      private boolean closed;
+
+      Output(Path path, boolean force)
+      {
+         this.path = path;
+         this.force = force;
+      }
+
+      public void processRecords(Record[] batch, int size)
+      {
+         if (!write(batch, size))
+         {
+            for (int i = 0; i < size; i++)
+            {
+               final RecordDispatcher d = isRecording() ? getDispatcher() : null;
+               if (d == null)
+               {
+                  return;
+               }
+               d.offer(batch[i]);
+            }
+         }
+      }
+
+      /**
+       * Writes the records, unless this output is closed
+       *
+       * @return false if the output is closed
+       */
+      private synchronized boolean write(Record[] batch, int size)
+      {
+         if (closed)
+         {
+            return false;
+         }
+         try
+         {
+            if (channel == null)
+            {
+               final Path parent = path.toAbsolutePath().getParent();
+               if (parent != null)
+               {
+                  parent.toFile().mkdirs();
+               }
+               channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+               writer = new JsonLineWriter(channel, BUFFER_SIZE);
+            }
+            for (int i = 0; i < size; i++)
+            {
+               writer.write(batch[i], JsonLogRecorder.this);
+            }
+            writer.flush();
+            if (force)
+            {
+               channel.force(false);
+            }
+            written.addAndGet(size);
+            commits.incrementAndGet();
+            failing = false;
+         }
+         catch (IOException e)
+         {
+            // log once per failure streak, the file is re-opened on the next batch
+            if (!failing)
+            {
+               failing = true;
+               MONITORING_LOGGER.cannotWriteRecordLog(path.toString(), e);
+            }
+            closeChannel();
+         }
+         return true;
+      }
+
+      synchronized void close()
+      {
+         closed = true;
+         closeChannel();
+      }
+
+      private void closeChannel()
+      {
+         if (channel != null)
+         {
+            try
+            {
+               channel.close();
+            }
+            catch (IOException e)
+            {
+               // ignore
+            }
+            channel = null;
+            writer = null;
+         }
+      }
+   }
+}
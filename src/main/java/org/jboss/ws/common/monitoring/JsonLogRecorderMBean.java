@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+/**
+ * The JsonLogRecorder's MBean view
+ */
+public interface JsonLogRecorderMBean extends ManagedRecordProcessorMBean
+{
+   /**
+    * Gets the file the records are appended to
+    * 
+    * @return
+    */
+   public String getFile();
+
+   public void setFile(String file);
+
+   /**
+    * Gets the max number of records waiting to be written
+    * 
+    * @return
+    */
+   public int getQueueSize();
+
+   public void setQueueSize(int queueSize);
+
+   /**
+    * Gets the max number of records written to the file at once
+    * 
+    * @return
+    */
+   public int getBatchSize();
+
+   public void setBatchSize(int batchSize);
+
+   /**
+    * Gets what happens to records when the queue is full: DROP_NEWEST,
+    * DROP_OLDEST or BLOCK
+    * 
+    * @return
+    */
+   public String getOverflowPolicy();
+
+   public void setOverflowPolicy(String overflowPolicy);
+
+   /**
+    * Gets whether each written batch is forced to the storage
+    * 
+    * @return
+    */
+   public boolean isForceOnCommit();
+
+   public void setForceOnCommit(boolean forceOnCommit);
+
+   /**
+    * Gets the number of records written to the file
+    * 
+    * @return
+    */
+   public long getWrittenCount();
+
+   /**
+    * Gets the number of batches written to the file
+    * 
+    * @return
+    */
+   public long getCommitCount();
+
+   /**
+    * Gets the number of records dropped because the queue was full
+    * 
+    * @return
+    */
+   public long getDroppedCount();
+
+   /**
+    * Gets the number of records waiting to be written
+    * 
+    * @return
+    */
+   public int getPendingCount();
+
+   /**
+    * Writes the queued records and closes the file
+    */
+   public void flush();
+}
@@ -21,6 +21,7 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.jboss.ws.api.monitoring.Record;
@@ -52,6 +53,24 @@ public class ManagedRecordProcessor implements ManagedRecordProcessorMBean
       return processor.getFilters();
    }
 
+   public String getFilterExpression()
+   {
+      return processor instanceof AbstractRecordProcessor ? ((AbstractRecordProcessor)processor).getFilterExpression() : null;
+   }
+
+   public void setFilterExpression(String expression)
+   {
+      if (processor instanceof AbstractRecordProcessor)
+      {
+         ((AbstractRecordProcessor)processor).setFilterExpression(expression);
+      }
+      else
+      {
+         RecordFilter filter = RecordFilterExpression.parse(expression);
+         processor.setFilters(filter != null ? Collections.singletonList(filter) : Collections.<RecordFilter>emptyList());
+      }
+   }
+
    public boolean isProcessDate()
    {
       return processor.isProcessDate();
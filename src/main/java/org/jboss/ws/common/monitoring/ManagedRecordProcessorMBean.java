@@ -46,6 +46,10 @@ public interface ManagedRecordProcessorMBean
 
    public void setFilters(List<RecordFilter> filters);
 
+   public String getFilterExpression();
+
+   public void setFilterExpression(String expression);
+
    public boolean isProcessSourceHost();
 
    public void setProcessSourceHost(boolean value);
@@ -22,21 +22,15 @@
 package org.jboss.ws.common.monitoring;
 
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.namespace.QName;
 
 import org.jboss.ws.api.monitoring.Record;
 import org.jboss.ws.api.monitoring.RecordFilter;
-import org.jboss.ws.api.monitoring.Record.MessageType;
 
 /**
  * Keeps the last received records in memory and allows user to
@@ -49,10 +43,14 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
 {
    private static final long serialVersionUID = 5180978625780333738L;
    
-   private Map<String, List<Record>> recentRecords = Collections.synchronizedMap(new HashMap<String, List<Record>>());
-   private ConcurrentLinkedQueue<String> recentRecordGroups = new ConcurrentLinkedQueue<String>();
-   private volatile int size = 0;
+   // the estimated heap bytes used by a record, besides its envelope
+   private static final int RECORD_OVERHEAD = 512;
+
+   private RecordGroupBuffer recentRecords = new RecordGroupBuffer(50);
    private volatile int maxSize = 50;
+   private volatile long maxBytes = 0;
+   private volatile boolean compressEnvelopes = false;
+   private transient volatile EnvelopeStore envelopeStore;
 
    public MemoryBufferRecorder()
    {
@@ -62,81 +60,89 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
    @Override
    public void processRecord(Record record)
    {
-      synchronized (recentRecords)
+      Record stored = record;
+      final long budget = maxBytes;
+      if (compressEnvelopes)
       {
-         List<Record> list = recentRecords.get(record.getGroupID());
-         if (list == null)
+         String envelope = record.getEnvelope();
+         if (envelope != null)
          {
-            list = new LinkedList<Record>();
-            recentRecords.put(record.getGroupID(), list);
-            while (size > maxSize)
+            final EnvelopeStore store = getEnvelopeStore();
+            EnvelopeStore.Handle handle = store.store(envelope);
+            // the store is out of room within the budget, make some by evicting the oldest groups
+            while (handle == null && recentRecords.evictOldest())
+            {
+               handle = store.store(envelope);
+            }
+            if (handle != null)
             {
-               this.deleteOldestRecord();
+               stored = new CompactRecord(record, handle);
             }
-            recentRecordGroups.offer(record.getGroupID());
-            size++;
          }
-         list.add(record);
       }
-   }
-   
-
-   private void deleteOldestRecord()
-   {
-      String id = recentRecordGroups.poll();
-      if (id != null)
+      if (budget > 0)
       {
-         recentRecords.remove(id);
-         size--;
+         recentRecords.add(stored, sizeOf(stored));
+         recentRecords.evict(budget);
+      }
+      else
+      {
+         recentRecords.add(stored);
       }
    }
 
-   private Map<String, List<Record>> getRecentRecords()
+   private static long sizeOf(Record record)
    {
-      synchronized (recentRecords)
+      if (record instanceof CompactRecord)
       {
-         return new HashMap<String, List<Record>>(recentRecords);
+         return RECORD_OVERHEAD + ((CompactRecord)record).getStoredSize();
       }
+      String envelope = record.getEnvelope();
+      return RECORD_OVERHEAD + (envelope != null ? 2L * envelope.length() : 0);
    }
 
-   public Set<String> getClientHosts()
+   private EnvelopeStore getEnvelopeStore()
    {
-      Map<String, List<Record>> map = this.getRecentRecords();
-      Set<String> hosts = new HashSet<String>();
-      for (List<Record> list : map.values())
+      EnvelopeStore store = envelopeStore;
+      if (store == null)
       {
-         for (Record record : list)
+         synchronized (this)
          {
-            if (MessageType.INBOUND.equals(record.getMessageType()) && record.getSourceHost() != null)
+            store = envelopeStore;
+            if (store == null)
             {
-               hosts.add(record.getSourceHost());
+               store = new EnvelopeStore();
+               store.setMaxBytes(maxBytes);
+               envelopeStore = store;
             }
          }
       }
-      return hosts;
+      return store;
+   }
+
+   private Map<String, List<Record>> getRecentRecords()
+   {
+      return recentRecords.snapshot();
+   }
+
+   public Set<String> getClientHosts()
+   {
+      return recentRecords.getClientHosts();
    }
 
    public Map<String, List<Record>> getMatchingRecords(RecordFilter[] filters)
    {
-      Map<String, List<Record>> map = this.getRecentRecords();
-      Map<String, List<Record>> result = new HashMap<String, List<Record>>();
-      for (List<Record> list : map.values())
-      {
-         for (Record record : list)
-         {
-            boolean match = true;
-            for (int i = 0; i < filters.length && match; i++)
-            {
-               match = match && filters[i].match(record);
-            }
-            if (match)
-            {
-               result.put(record.getGroupID(), list);
-               break;
-            }
-         }
-      }
-      return result;
+      return this.getMatchingRecords(filters, 0, Integer.MAX_VALUE);
+   }
+
+   public Map<String, List<Record>> getMatchingRecords(RecordFilter[] filters, int offset, int limit)
+   {
+      return RecordGroupBuffer.toMap(recentRecords.query(filters, offset, limit));
+   }
+
+   public Map<String, List<Record>> getRecords(int offset, int limit)
+   {
+      return this.getMatchingRecords(new RecordFilter[0], offset, limit);
    }
 
    public Map<String, List<Record>> getRecordsByClientHost(String clientHost)
@@ -170,19 +176,65 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
 
    public void setMaxSize(int maxSize)
    {
-      synchronized (recentRecords)
+      recentRecords.resize(maxSize);
+      this.maxSize = maxSize;
+   }
+
+   public int getSize()
+   {
+      return recentRecords.size();
+   }
+
+   public long getMaxBytes()
+   {
+      return maxBytes;
+   }
+
+   public void setMaxBytes(long maxBytes)
+   {
+      this.maxBytes = maxBytes;
+      if (maxBytes > 0)
       {
-         while (maxSize < size)
-         {
-            this.deleteOldestRecord();
-         }
-         this.maxSize = maxSize;
+         recentRecords.evict(maxBytes);
+      }
+      EnvelopeStore store = envelopeStore;
+      if (store != null)
+      {
+         store.setMaxBytes(maxBytes);
       }
    }
 
-   public int getSize()
+   public long getBytes()
+   {
+      return recentRecords.getBytes();
+   }
+
+   public boolean isCompressEnvelopes()
+   {
+      return compressEnvelopes;
+   }
+
+   public void setCompressEnvelopes(boolean compressEnvelopes)
+   {
+      this.compressEnvelopes = compressEnvelopes;
+      EnvelopeStore store = envelopeStore;
+      if (store != null)
+      {
+         // when disabled, release the chunks as soon as they don't hold envelopes anymore
+         store.setReservedChunks(compressEnvelopes ? EnvelopeStore.RESERVED_CHUNKS : 0);
+      }
+   }
+
+   public long getEnvelopeStoreBytes()
    {
-      return size;
+      EnvelopeStore store = envelopeStore;
+      return store != null ? store.getUsedBytes() : 0;
+   }
+
+   public long getEnvelopeStoreAllocatedBytes()
+   {
+      EnvelopeStore store = envelopeStore;
+      return store != null ? store.getAllocatedBytes() : 0;
    }
    
    public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails)
@@ -190,6 +242,11 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
       Map<String,List<Record>> records = this.getRecentRecords();
       return toHtml(groupRecords, showDetails, records);
    }
+
+   public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails, int offset, int limit)
+   {
+      return toHtml(groupRecords, showDetails, this.getRecords(offset, limit));
+   }
    
    private String toHtml(boolean groupRecords, boolean showDetails, Map<String, List<Record>> records)
    {
@@ -272,26 +329,11 @@ public class MemoryBufferRecorder extends AbstractRecordProcessor implements Mem
    public Object clone() throws CloneNotSupportedException
    {
       MemoryBufferRecorder cl = (MemoryBufferRecorder)super.clone();
-      cl.recentRecords = Collections.synchronizedMap(new HashMap<String, List<Record>>());
-      synchronized (this.recentRecords)
-      {
-         for (String key : this.recentRecords.keySet())
-         {
-            List<Record> list = new LinkedList<Record>();
-            for (Record record : this.recentRecords.get(key))
-            {
-               list.add(record);
-            }
-            cl.recentRecords.put(key, list);
-         }
-         cl.recentRecordGroups = new ConcurrentLinkedQueue<String>();
-         for (String id : this.recentRecordGroups)
-         {
-            cl.recentRecordGroups.add(id);
-         }
-      }
+      cl.recentRecords = this.recentRecords.copy();
       cl.maxSize = this.maxSize;
-      cl.size = this.size;
+      cl.maxBytes = this.maxBytes;
+      cl.compressEnvelopes = this.compressEnvelopes;
+      cl.envelopeStore = null;
       return cl;
    }
 }
@@ -45,6 +45,27 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
     */
    public Map<String, List<Record>> getMatchingRecords(RecordFilter[] filters);
 
+   /**
+    * Gets a page of the records matching the provided filters, from the most
+    * recent group to the oldest one. Records having the same group ID are
+    * returned together.
+    * 
+    * @param filters
+    * @param offset  the number of matching groups to skip
+    * @param limit   the max number of groups to return
+    * @return The matching records as a map GroupID->List<Record>
+    */
+   public Map<String, List<Record>> getMatchingRecords(RecordFilter[] filters, int offset, int limit);
+
+   /**
+    * Gets a page of the records, from the most recent group to the oldest one.
+    * 
+    * @param offset  the number of groups to skip
+    * @param limit   the max number of groups to return
+    * @return The records as a map GroupID->List<Record>
+    */
+   public Map<String, List<Record>> getRecords(int offset, int limit);
+
    /**
     * Gets the records with the given operation. Records having the
     * same group ID are returned together.
@@ -85,6 +106,47 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
     * @return
     */
    public int getSize();
+
+   /**
+    * Gets the max (estimated) bytes used by the buffered records, 0 if the buffer is
+    * only limited by the number of record groups
+    * 
+    * @return
+    */
+   public long getMaxBytes();
+
+   public void setMaxBytes(long maxBytes);
+
+   /**
+    * Gets the (estimated) bytes currently used by the buffered records; this is
+    * only computed when a max bytes limit is set
+    * 
+    * @return
+    */
+   public long getBytes();
+
+   /**
+    * Whether the envelopes are kept compressed off-heap (and decompressed when queried)
+    * 
+    * @return
+    */
+   public boolean isCompressEnvelopes();
+
+   public void setCompressEnvelopes(boolean compressEnvelopes);
+
+   /**
+    * Gets the off-heap bytes holding the compressed envelopes
+    * 
+    * @return
+    */
+   public long getEnvelopeStoreBytes();
+
+   /**
+    * Gets the off-heap bytes reserved for compressed envelopes
+    * 
+    * @return
+    */
+   public long getEnvelopeStoreAllocatedBytes();
    
    /**
     * Shows all the records as a HTML table
@@ -94,6 +156,17 @@ public interface MemoryBufferRecorderMBean extends ManagedRecordProcessorMBean
     * @return
     */
    public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails);
+
+   /**
+    * Shows a page of the records as a HTML table, from the most recent group.
+    * 
+    * @param groupRecords  whether the records should be grouped using the group ID
+    * @param showDetails   whether to show headers and envelopes
+    * @param offset        the number of groups to skip
+    * @param limit         the max number of groups to show
+    * @return
+    */
+   public String getRecordsAsHTMLTable(boolean groupRecords, boolean showDetails, int offset, int limit);
    
    /**
     * Shows the records with the given client host as a HTML table.
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * This filter matches the record groups at a limited rate, using a token bucket:
+ * each group started by an inbound record takes a token, and the outbound record
+ * is matched if its group has been admitted. Records with no group ID or message
+ * type take a token each.
+ *
+ * Filters are cloned for each endpoint, hence the rate applies per endpoint.
+ * The admitted groups are remembered in a fixed size table, so a group still in
+ * progress might be forgotten (and its outbound record discarded) when a lot
+ * of concurrent groups are admitted.
+ */
+public class RateLimitFilter implements RecordFilter
+{
+   private static final long serialVersionUID = -2318726498401756206L;
+   private static final int DEFAULT_CAPACITY = 1024;
+
+   private final double permitsPerSecond;
+   private final int burst;
+   private final long interval;
+   private final long tolerance;
+   // the theoretical arrival time of the next token (GCRA)
+   private final AtomicLong next = new AtomicLong(Long.MIN_VALUE);
+   private final AtomicReferenceArray<Object> admitted;
+
+   /**
+    * @param permitsPerSecond  the max number of groups per second
+    * @param burst             the max number of groups admitted at once, after an idle period
+    */
+   public RateLimitFilter(double permitsPerSecond, int burst)
+   {
+      if (permitsPerSecond <= 0 || burst < 1)
+         throw new IllegalArgumentException();
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+      this.interval = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+      this.tolerance = interval * (burst - 1);
+      this.admitted = new AtomicReferenceArray<Object>(DEFAULT_CAPACITY);
+   }
+
+   public boolean match(Record record)
+   {
+      final Object key = GroupID.keyOf(record);
+      final MessageType type = record.getMessageType();
+      if (key == null || type == null)
+         return tryAcquire();
+      final int index = GroupID.hash(key) & (admitted.length() - 1);
+      if (type == MessageType.INBOUND)
+      {
+         if (!tryAcquire())
+            return false;
+         admitted.set(index, key);
+         return true;
+      }
+      final Object current = admitted.get(index);
+      return current != null && current.equals(key) && admitted.compareAndSet(index, current, null);
+   }
+
+   private boolean tryAcquire()
+   {
+      for (;;)
+      {
+         final long now = System.nanoTime();
+         final long tat = next.get();
+         final long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+         if (start - now > tolerance)
+            return false;
+         if (next.compareAndSet(tat, start + interval))
+            return true;
+      }
+   }
+
+   public double getPermitsPerSecond()
+   {
+      return permitsPerSecond;
+   }
+
+   public int getBurst()
+   {
+      return burst;
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      return new RateLimitFilter(this.permitsPerSecond, this.burst);
+   }
+}
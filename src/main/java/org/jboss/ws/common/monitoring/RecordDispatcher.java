@@ -0,0 +1,390 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Loggers.MONITORING_LOGGER;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jboss.ws.api.monitoring.Record;
+
+/**
+ * Hands the records over to a background thread, which dispatches them in batches,
+ * so that the request threads only pay for enqueuing them.
+ *
+ * Records are kept in a bounded, lock-free array queue; when the queue is full
+ * the configured {@link OverflowPolicy} applies and the dropped records are counted.
+ */
+public final class RecordDispatcher
+{
+   private static final long MAX_PARK_NANOS = 1000000L;
+   private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+   /**
+    * What to do with a record offered to a full queue
+    */
+   public enum OverflowPolicy
+   {
+      /** evict the oldest queued record */
+      DROP_OLDEST,
+      /** discard the offered record */
+      DROP_NEWEST,
+      /** wait for the dispatcher thread to make room */
+      BLOCK;
+
+      /** Get the policy by (case insensitive) name, or the default one if the name is unknown */
+      public static OverflowPolicy fromString(String name, OverflowPolicy defaultPolicy)
+      {
+         for (OverflowPolicy policy : values())
+         {
+            if (policy.name().equalsIgnoreCase(name))
+               return policy;
+         }
+         return defaultPolicy;
+      }
+   }
+
+   /**
+    * The target of the dispatched records
+    */
+   public interface Sink
+   {
+      /** Process the first size records of the given batch */
+      void processRecords(Record[] batch, int size);
+   }
+
+   private final Sink sink;
+   private final OverflowPolicy policy;
+   private final int batchSize;
+   private final int mask;
+   private final AtomicReferenceArray<Record> buffer;
+   // the sequence of each slot tells whether it's ready to be written or read
+   private final AtomicLongArray sequences;
+   private final AtomicLong enqueuePos = new AtomicLong();
+   private final AtomicLong dequeuePos = new AtomicLong();
+   private final LongAdder droppedOldest;
+   private final LongAdder droppedNewest;
+   private final AtomicLong dispatched = new AtomicLong();
+   private final AtomicLong batches = new AtomicLong();
+   private final Thread thread;
+   private volatile boolean running = true;
+   private volatile boolean waiting;
+
+   /**
+    * Creates the dispatcher and starts its (daemon) thread.
+    *
+    * @param name       the name of the dispatcher thread
+    * @param capacity   the queue capacity, rounded up to a power of two
+    * @param batchSize  the max number of records handed to the sink at once
+    * @param policy     the overflow policy
+    * @param sink       the target of the records
+    */
+   public RecordDispatcher(String name, int capacity, int batchSize, OverflowPolicy policy, Sink sink)
+   {
+      this(name, capacity, batchSize, policy, sink, new LongAdder(), new LongAdder());
+   }
+
+   /**
+    * Creates the dispatcher and starts its (daemon) thread, counting the dropped records
+    * into the given counters, which can hence outlive the dispatcher.
+    *
+    * @param name          the name of the dispatcher thread
+    * @param capacity      the queue capacity, rounded up to a power of two
+    * @param batchSize     the max number of records handed to the sink at once
+    * @param policy        the overflow policy
+    * @param sink          the target of the records
+    * @param droppedOldest the counter of the records evicted by the DROP_OLDEST policy
+    * @param droppedNewest the counter of the records discarded by the DROP_NEWEST policy
+    */
+   public RecordDispatcher(String name, int capacity, int batchSize, OverflowPolicy policy, Sink sink,
+         LongAdder droppedOldest, LongAdder droppedNewest)
+   {
+      if (capacity < 1 || batchSize < 1 || policy == null || sink == null || droppedOldest == null || droppedNewest == null)
+         throw new IllegalArgumentException();
+
+      final int size = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+      this.mask = size - 1;
+      this.buffer = new AtomicReferenceArray<Record>(size);
+      this.sequences = new AtomicLongArray(size);
+      for (int i = 0; i < size; i++)
+      {
+         sequences.set(i, i);
+      }
+      this.batchSize = batchSize;
+      this.policy = policy;
+      this.sink = sink;
+      this.droppedOldest = droppedOldest;
+      this.droppedNewest = droppedNewest;
+      this.thread = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            drain();
+         }
+      }, name);
+      thread.setDaemon(true);
+      // the thread outlives the caller's deployment, it must not keep its classloader reachable
+      thread.setContextClassLoader(null);
+      thread.start();
+   }
+
+   /**
+    * Queues the record for dispatching; once the dispatcher is stopped, the record
+    * (and any record queued while stopping) is dispatched by the calling thread.
+    */
+   public void offer(Record record)
+   {
+      if (running == false)
+      {
+         sink.processRecords(new Record[] { record }, 1);
+         return;
+      }
+      if (tryOffer(record) == false)
+      {
+         switch (policy)
+         {
+            case DROP_NEWEST:
+               droppedNewest.increment();
+               return;
+            case DROP_OLDEST:
+               do
+               {
+                  if (tryPoll() != null)
+                     droppedOldest.increment();
+               }
+               while (tryOffer(record) == false);
+               break;
+            case BLOCK:
+               long parkNanos = 1000L;
+               while (tryOffer(record) == false)
+               {
+                  if (running == false)
+                  {
+                     sink.processRecords(new Record[] { record }, 1);
+                     return;
+                  }
+                  LockSupport.unpark(thread);
+                  LockSupport.parkNanos(this, parkNanos);
+                  parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+               }
+               break;
+         }
+      }
+      if (running == false)
+      {
+         // stop() may have drained the queue before the record got in
+         dispatchPending();
+         return;
+      }
+      if (waiting)
+         LockSupport.unpark(thread);
+   }
+
+   /**
+    * Stops the dispatcher thread, once the queued records have been dispatched
+    */
+   public void stop()
+   {
+      running = false;
+      LockSupport.unpark(thread);
+      if (Thread.currentThread() == thread)
+         return;
+      try
+      {
+         thread.join(TimeUnit.SECONDS.toMillis(10));
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      // dispatch the records queued while the thread was terminating
+      dispatchPending();
+   }
+
+   private void dispatchPending()
+   {
+      Record record;
+      while ((record = tryPoll()) != null)
+      {
+         sink.processRecords(new Record[] { record }, 1);
+      }
+   }
+
+   private void drain()
+   {
+      final Record[] batch = new Record[batchSize];
+      for (;;)
+      {
+         int size = 0;
+         Record record;
+         while (size < batchSize && (record = tryPoll()) != null)
+         {
+            batch[size++] = record;
+         }
+         if (size > 0)
+         {
+            try
+            {
+               sink.processRecords(batch, size);
+            }
+            catch (RuntimeException e)
+            {
+               MONITORING_LOGGER.cannotProcessRecords(e);
+            }
+            dispatched.addAndGet(size);
+            batches.incrementAndGet();
+            Arrays.fill(batch, 0, size, null);
+            continue;
+         }
+         if (running == false)
+            return;
+
+         // the producers unpark this thread only when it's waiting
+         waiting = true;
+         if (isEmpty() && running)
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+         waiting = false;
+      }
+   }
+
+   private boolean tryOffer(Record record)
+   {
+      long pos = enqueuePos.get();
+      for (;;)
+      {
+         final int index = (int)(pos & mask);
+         final long diff = sequences.get(index) - pos;
+         if (diff == 0)
+         {
+            if (enqueuePos.compareAndSet(pos, pos + 1))
+            {
+               buffer.set(index, record);
+               sequences.set(index, pos + 1);
+               return true;
+            }
+            pos = enqueuePos.get();
+         }
+         else if (diff < 0)
+         {
+            // full
+            return false;
+         }
+         else
+         {
+            pos = enqueuePos.get();
+         }
+      }
+   }
+
+   private Record tryPoll()
+   {
+      long pos = dequeuePos.get();
+      for (;;)
+      {
+         final int index = (int)(pos & mask);
+         final long diff = sequences.get(index) - (pos + 1);
+         if (diff == 0)
+         {
+            if (dequeuePos.compareAndSet(pos, pos + 1))
+            {
+               final Record record = buffer.getAndSet(index, null);
+               sequences.set(index, pos + mask + 1);
+               return record;
+            }
+            pos = dequeuePos.get();
+         }
+         else if (diff < 0)
+         {
+            // empty
+            return null;
+         }
+         else
+         {
+            pos = dequeuePos.get();
+         }
+      }
+   }
+
+   private boolean isEmpty()
+   {
+      final long pos = dequeuePos.get();
+      return sequences.get((int)(pos & mask)) - (pos + 1) < 0;
+   }
+
+   public OverflowPolicy getOverflowPolicy()
+   {
+      return policy;
+   }
+
+   /** The queue capacity */
+   public int getCapacity()
+   {
+      return mask + 1;
+   }
+
+   /** The number of records waiting to be dispatched */
+   public int getPendingCount()
+   {
+      return (int)Math.max(0, enqueuePos.get() - dequeuePos.get());
+   }
+
+   /** The number of records evicted from the full queue by the DROP_OLDEST policy */
+   public long getDroppedOldestCount()
+   {
+      return droppedOldest.sum();
+   }
+
+   /** The number of records discarded by the DROP_NEWEST policy */
+   public long getDroppedNewestCount()
+   {
+      return droppedNewest.sum();
+   }
+
+   /** The total number of dropped records */
+   public long getDroppedCount()
+   {
+      return droppedOldest.sum() + droppedNewest.sum();
+   }
+
+   /** The number of records handed to the sink */
+   public long getDispatchedCount()
+   {
+      return dispatched.get();
+   }
+
+   /** The number of batches handed to the sink */
+   public long getBatchCount()
+   {
+      return batches.get();
+   }
+
+   public boolean isRunning()
+   {
+      return running;
+   }
+}
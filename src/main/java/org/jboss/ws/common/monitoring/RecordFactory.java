@@ -21,6 +21,8 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.jboss.ws.api.monitoring.Record;
 
 /**
@@ -31,20 +33,37 @@ import org.jboss.ws.api.monitoring.Record;
  */
 public class RecordFactory
 {
-   private static long count = 0;
-   
-   public static String newGroupID()
+   // the node part of the generated IDs, i.e. the time this JVM started generating IDs
+   private static final long NODE = System.currentTimeMillis();
+   private static final int BLOCK_SIZE = 1024;
+   private static final AtomicLong blocks = new AtomicLong();
+   // the next counter value and the end of the block reserved by the current thread
+   private static final ThreadLocal<long[]> threadBlock = new ThreadLocal<long[]>();
+
+   /**
+    * Generates a new group ID; each thread takes its counter values from a block it
+    * reserves in advance, so no lock nor contended atomic update is involved.
+    */
+   public static GroupID newGroupKey()
    {
-      long time = System.currentTimeMillis();
-      StringBuilder sb = new StringBuilder();
-      synchronized (RecordFactory.class)
+      long[] block = threadBlock.get();
+      if (block == null)
       {
-         count++;
-         sb.append(count);
+         block = new long[2];
+         threadBlock.set(block);
       }
-      sb.append("-");
-      sb.append(time);
-      return sb.toString();
+      if (block[0] == block[1])
+      {
+         final long start = blocks.getAndIncrement() * BLOCK_SIZE + 1;
+         block[0] = start;
+         block[1] = start + BLOCK_SIZE;
+      }
+      return new GroupID(block[0]++, NODE);
+   }
+
+   public static String newGroupID()
+   {
+      return newGroupKey().toString();
    }
    
    public static Record newRecord(String groupID)
@@ -53,9 +72,16 @@ public class RecordFactory
       record.setGroupID(groupID);
       return record;
    }
+
+   public static Record newRecord(GroupID groupID)
+   {
+      RecordImpl record = new RecordImpl();
+      record.setGroupKey(groupID);
+      return record;
+   }
    
    public static Record newRecord()
    {
-      return newRecord(newGroupID());
+      return newRecord(newGroupKey());
    }
 }
@@ -0,0 +1,706 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * Compiles a list of record filters (which are all to be matched) into a single filter.
+ *
+ * The and / or / not trees are flattened and duplicated subexpressions removed; the host,
+ * operation and message type filters of a disjunction are merged into hashed sets, and the
+ * operands of each conjunction and disjunction are sorted by their estimated cost, so that
+ * the cheaper checks short-circuit the more expensive ones. Filters of other types are kept
+ * as they are and evaluated last, in their original order. The {@link HoldingRecordFilter}s
+ * of the whole tree are collected, the compiled filter releases their held records.
+ *
+ * A compiled filter can also be evaluated on the header level fields of a record only
+ * (hosts, operation and message type), with no side effect, to tell whether the record
+ * can still match before any expensive data, like the envelope, is collected.
+ */
+public final class RecordFilterCompiler
+{
+   private RecordFilterCompiler()
+   {
+   }
+
+   /**
+    * Compiles the given filters
+    *
+    * @param filters  the filters, all of them have to match
+    * @return the compiled filter, a {@link HoldingRecordFilter} releasing the records
+    *         held by any of the given filters or their operands
+    */
+   public static HoldingRecordFilter compile(List<RecordFilter> filters)
+   {
+      final List<Node> nodes = new ArrayList<Node>(filters.size());
+      final List<HoldingRecordFilter> holders = new ArrayList<HoldingRecordFilter>(0);
+      for (RecordFilter filter : filters)
+      {
+         nodes.add(build(filter, holders));
+      }
+      return new CompiledFilter(and(nodes), holders.toArray(new HoldingRecordFilter[holders.size()]));
+   }
+
+   /**
+    * Tells whether the given record can still match the given compiled filter, whatever the
+    * filters other than the host, operation and message type ones answer; side effect free.
+    * Filters which are not compiled, or which hold records back, can always match.
+    *
+    * @param filter  the filter, as returned by {@link #compile(List)}
+    * @param record  the record, with its header level fields set
+    * @return false if the record cannot match the filter
+    */
+   public static boolean mayMatch(RecordFilter filter, Record record)
+   {
+      return !(filter instanceof CompiledFilter) || ((CompiledFilter)filter).mayMatch(record);
+   }
+
+   private static Node build(RecordFilter filter, List<HoldingRecordFilter> holders)
+   {
+      // subclasses might override match(), hence only the exact filter types are compiled
+      final Class<?> type = filter.getClass();
+      if (type == AndFilter.class)
+         return and(Arrays.asList(build(((AndFilter)filter).getFilter1(), holders), build(((AndFilter)filter).getFilter2(), holders)));
+      if (type == OrFilter.class)
+         return or(Arrays.asList(build(((OrFilter)filter).getFilter1(), holders), build(((OrFilter)filter).getFilter2(), holders)));
+      if (type == NotFilter.class)
+         return not(build(((NotFilter)filter).getFilter(), holders));
+      if (type == HostFilter.class)
+      {
+         final HostFilter hostFilter = (HostFilter)filter;
+         final Set<String> hosts = new HashSet<String>();
+         for (String host : hostFilter.getHosts())
+         {
+            if (host != null)
+               hosts.add(host.toLowerCase(Locale.ENGLISH));
+         }
+         return new HostSet(hostFilter.isSource(), hosts);
+      }
+      if (type == OperationFilter.class)
+         return new OperationSet(Collections.singleton(((OperationFilter)filter).getOperation()));
+      if (type == MessageTypeFilter.class)
+         return new TypeSet(Collections.singleton(((MessageTypeFilter)filter).getMessageType()));
+      if (filter instanceof HoldingRecordFilter && !holders.contains(filter))
+         holders.add((HoldingRecordFilter)filter);
+      return new Opaque(filter);
+   }
+
+   private static Node and(List<Node> operands)
+   {
+      final Set<Node> flat = new LinkedHashSet<Node>();
+      for (Node node : operands)
+      {
+         if (node == Constant.FALSE)
+            return Constant.FALSE;
+         if (node instanceof And)
+            flat.addAll(Arrays.asList(((And)node).operands));
+         else if (node != Constant.TRUE)
+            flat.add(node);
+      }
+      if (flat.isEmpty())
+         return Constant.TRUE;
+      if (flat.size() == 1)
+         return flat.iterator().next();
+      return new And(sort(flat));
+   }
+
+   private static Node or(List<Node> operands)
+   {
+      final Set<Node> flat = new LinkedHashSet<Node>();
+      final Set<String> sourceHosts = new HashSet<String>();
+      final Set<String> destinationHosts = new HashSet<String>();
+      final Set<QName> operations = new HashSet<QName>();
+      final Set<MessageType> types = new HashSet<MessageType>();
+      boolean hasSourceHosts = false, hasDestinationHosts = false, hasOperations = false, hasTypes = false;
+      final List<Node> pending = new ArrayList<Node>(operands);
+      for (int i = 0; i < pending.size(); i++)
+      {
+         final Node node = pending.get(i);
+         if (node == Constant.TRUE)
+            return Constant.TRUE;
+         if (node instanceof Or)
+         {
+            pending.addAll(Arrays.asList(((Or)node).operands));
+         }
+         else if (node instanceof HostSet && ((HostSet)node).source)
+         {
+            sourceHosts.addAll(((HostSet)node).hosts);
+            hasSourceHosts = true;
+         }
+         else if (node instanceof HostSet)
+         {
+            destinationHosts.addAll(((HostSet)node).hosts);
+            hasDestinationHosts = true;
+         }
+         else if (node instanceof OperationSet)
+         {
+            operations.addAll(((OperationSet)node).operations);
+            hasOperations = true;
+         }
+         else if (node instanceof TypeSet)
+         {
+            types.addAll(((TypeSet)node).types);
+            hasTypes = true;
+         }
+         else if (node != Constant.FALSE)
+         {
+            flat.add(node);
+         }
+      }
+      if (hasSourceHosts)
+         flat.add(new HostSet(true, sourceHosts));
+      if (hasDestinationHosts)
+         flat.add(new HostSet(false, destinationHosts));
+      if (hasOperations)
+         flat.add(new OperationSet(operations));
+      if (hasTypes)
+         flat.add(new TypeSet(types));
+      if (flat.isEmpty())
+         return Constant.FALSE;
+      if (flat.size() == 1)
+         return flat.iterator().next();
+      return new Or(sort(flat));
+   }
+
+   private static Node not(Node operand)
+   {
+      if (operand instanceof Not)
+         return ((Not)operand).operand;
+      if (operand == Constant.TRUE)
+         return Constant.FALSE;
+      if (operand == Constant.FALSE)
+         return Constant.TRUE;
+      return new Not(operand);
+   }
+
+   private static Node[] sort(Set<Node> nodes)
+   {
+      final Node[] sorted = nodes.toArray(new Node[nodes.size()]);
+      // stable, hence opaque filters keep their order
+      Arrays.sort(sorted, COST_ORDER);
+      return sorted;
+   }
+
+   private static final Comparator<Node> COST_ORDER = new Comparator<Node>()
+   {
+      public int compare(Node n1, Node n2)
+      {
+         return Integer.compare(n1.cost(), n2.cost());
+      }
+   };
+
+   /**
+    * The compiled filter
+    */
+   private static final class CompiledFilter implements HoldingRecordFilter
+   {
+      private static final long serialVersionUID = -3105487264750829532L;
+
+      private final Node root;
+      private final HoldingRecordFilter[] holders;
+
+      CompiledFilter(Node root, HoldingRecordFilter[] holders)
+      {
+         this.root = root;
+         this.holders = holders;
+      }
+
+      public boolean match(Record record)
+      {
+         return root.match(record);
+      }
+
+      boolean mayMatch(Record record)
+      {
+         // held records are released by the later records of their group, whatever they match
+         return holders.length > 0 || root.prematch(record) != Node.NO;
+      }
+
+      public Record release(Record record, boolean matched)
+      {
+         Record released = null;
+         // all the holders are released, the records they hold for a group are the same
+         for (HoldingRecordFilter holder : holders)
+         {
+            final Record held = holder.release(record, matched);
+            if (released == null)
+               released = held;
+         }
+         return released;
+      }
+
+      @Override
+      public Object clone() throws CloneNotSupportedException
+      {
+         return super.clone();
+      }
+
+      @Override
+      public String toString()
+      {
+         return root.toString();
+      }
+   }
+
+   private abstract static class Node implements RecordFilter
+   {
+      private static final long serialVersionUID = 1L;
+
+      static final int NO = 0;
+      static final int YES = 1;
+      static final int UNKNOWN = 2;
+
+      /** The estimated cost of a match */
+      abstract int cost();
+
+      /**
+       * Matches the header level fields only, without side effects;
+       * UNKNOWN when the result depends on other filters
+       */
+      int prematch(Record record)
+      {
+         return match(record) ? YES : NO;
+      }
+
+      @Override
+      public Object clone() throws CloneNotSupportedException
+      {
+         return super.clone();
+      }
+   }
+
+   private static final class Constant extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      static final Constant TRUE = new Constant(true);
+      static final Constant FALSE = new Constant(false);
+
+      private final boolean value;
+
+      private Constant(boolean value)
+      {
+         this.value = value;
+      }
+
+      public boolean match(Record record)
+      {
+         return value;
+      }
+
+      int cost()
+      {
+         return 0;
+      }
+
+      private Object readResolve()
+      {
+         return value ? TRUE : FALSE;
+      }
+
+      @Override
+      public String toString()
+      {
+         return String.valueOf(value);
+      }
+   }
+
+   private static final class And extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final Node[] operands;
+      private final int cost;
+
+      And(Node[] operands)
+      {
+         this.operands = operands;
+         int c = 0;
+         for (Node node : operands)
+         {
+            c += node.cost();
+         }
+         this.cost = c;
+      }
+
+      public boolean match(Record record)
+      {
+         for (Node node : operands)
+         {
+            if (!node.match(record))
+               return false;
+         }
+         return true;
+      }
+
+      @Override
+      int prematch(Record record)
+      {
+         int result = YES;
+         for (Node node : operands)
+         {
+            final int r = node.prematch(record);
+            if (r == NO)
+               return NO;
+            if (r == UNKNOWN)
+               result = UNKNOWN;
+         }
+         return result;
+      }
+
+      int cost()
+      {
+         return cost;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof And && Arrays.equals(operands, ((And)obj).operands);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return Arrays.hashCode(operands);
+      }
+
+      @Override
+      public String toString()
+      {
+         return join(operands, " and ");
+      }
+   }
+
+   private static final class Or extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final Node[] operands;
+      private final int cost;
+
+      Or(Node[] operands)
+      {
+         this.operands = operands;
+         int c = 0;
+         for (Node node : operands)
+         {
+            c += node.cost();
+         }
+         this.cost = c;
+      }
+
+      public boolean match(Record record)
+      {
+         for (Node node : operands)
+         {
+            if (node.match(record))
+               return true;
+         }
+         return false;
+      }
+
+      @Override
+      int prematch(Record record)
+      {
+         int result = NO;
+         for (Node node : operands)
+         {
+            final int r = node.prematch(record);
+            if (r == YES)
+               return YES;
+            if (r == UNKNOWN)
+               result = UNKNOWN;
+         }
+         return result;
+      }
+
+      int cost()
+      {
+         return cost;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof Or && Arrays.equals(operands, ((Or)obj).operands);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return 31 * Arrays.hashCode(operands) + 1;
+      }
+
+      @Override
+      public String toString()
+      {
+         return join(operands, " or ");
+      }
+   }
+
+   private static final class Not extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final Node operand;
+
+      Not(Node operand)
+      {
+         this.operand = operand;
+      }
+
+      public boolean match(Record record)
+      {
+         return !operand.match(record);
+      }
+
+      @Override
+      int prematch(Record record)
+      {
+         final int r = operand.prematch(record);
+         return r == UNKNOWN ? UNKNOWN : YES - r;
+      }
+
+      int cost()
+      {
+         return operand.cost();
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof Not && operand.equals(((Not)obj).operand);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return ~operand.hashCode();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "not " + operand;
+      }
+   }
+
+   private static final class TypeSet extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final Set<MessageType> types;
+      private final EnumSet<MessageType> lookup;
+      private final boolean matchNull;
+
+      TypeSet(Set<MessageType> types)
+      {
+         this.types = new HashSet<MessageType>(types);
+         this.matchNull = this.types.remove(null);
+         this.lookup = this.types.isEmpty() ? EnumSet.noneOf(MessageType.class) : EnumSet.copyOf(this.types);
+         if (matchNull)
+            this.types.add(null);
+      }
+
+      public boolean match(Record record)
+      {
+         final MessageType type = record.getMessageType();
+         return type != null ? lookup.contains(type) : matchNull;
+      }
+
+      int cost()
+      {
+         return 1;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof TypeSet && types.equals(((TypeSet)obj).types);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return types.hashCode();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "type in " + types;
+      }
+   }
+
+   private static final class OperationSet extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final Set<QName> operations;
+
+      OperationSet(Set<QName> operations)
+      {
+         this.operations = new HashSet<QName>(operations);
+      }
+
+      public boolean match(Record record)
+      {
+         return operations.contains(record.getOperation());
+      }
+
+      int cost()
+      {
+         return 2;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof OperationSet && operations.equals(((OperationSet)obj).operations);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return operations.hashCode();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "operation in " + operations;
+      }
+   }
+
+   private static final class HostSet extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final boolean source;
+      // lower case
+      final Set<String> hosts;
+
+      HostSet(boolean source, Set<String> hosts)
+      {
+         this.source = source;
+         this.hosts = new HashSet<String>(hosts);
+      }
+
+      public boolean match(Record record)
+      {
+         final String host = source ? record.getSourceHost() : record.getDestinationHost();
+         // toLowerCase returns the same string when it's already lower case, which is the common case
+         return host != null && hosts.contains(host.toLowerCase(Locale.ENGLISH));
+      }
+
+      int cost()
+      {
+         return 3;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         return obj instanceof HostSet && source == ((HostSet)obj).source && hosts.equals(((HostSet)obj).hosts);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hosts.hashCode() + (source ? 1 : 0);
+      }
+
+      @Override
+      public String toString()
+      {
+         return (source ? "sourceHost in " : "destinationHost in ") + hosts;
+      }
+   }
+
+   private static final class Opaque extends Node
+   {
+      private static final long serialVersionUID = 1L;
+      final RecordFilter filter;
+
+      Opaque(RecordFilter filter)
+      {
+         this.filter = filter;
+      }
+
+      public boolean match(Record record)
+      {
+         return filter.match(record);
+      }
+
+      @Override
+      int prematch(Record record)
+      {
+         return UNKNOWN;
+      }
+
+      int cost()
+      {
+         return 100;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         // the filter might be stateful, only the very same filter is a duplicate
+         return obj instanceof Opaque && filter == ((Opaque)obj).filter;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return System.identityHashCode(filter);
+      }
+
+      @Override
+      public String toString()
+      {
+         return filter.toString();
+      }
+   }
+
+   private static String join(Node[] operands, String separator)
+   {
+      final StringBuilder sb = new StringBuilder("(");
+      for (int i = 0; i < operands.length; i++)
+      {
+         if (i > 0)
+            sb.append(separator);
+         sb.append(operands[i]);
+      }
+      return sb.append(')').toString();
+   }
+}
@@ -0,0 +1,322 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import static org.jboss.ws.common.Messages.MESSAGES;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+
+/**
+ * Parses the textual form of a record filter, for instance
+ *
+ * <pre>
+ * sourceHost in (10.0.0.1, 10.0.0.2) and not operation = '{urn:test}echo'
+ * (type = INBOUND or tail(500)) and sample(0.1)
+ * </pre>
+ *
+ * The supported predicates are <code>sourceHost</code>, <code>destinationHost</code>,
+ * <code>operation</code> (a QName in the <code>{namespace}localPart</code> form) and
+ * <code>type</code>, followed by <code>= value</code> or <code>in (value, ...)</code>,
+ * and the sampling functions <code>sample(rate)</code>, <code>rate(permitsPerSecond[, burst])</code>
+ * and <code>tail(latencyMillis[, keepFaults])</code>. Predicates are combined with
+ * <code>and</code> (or <code>&amp;&amp;</code>), <code>or</code> (or <code>||</code>),
+ * <code>not</code> (or <code>!</code>) and parentheses; values including spaces or
+ * special characters are quoted with single or double quotes. The sampling functions keep
+ * their relative order, which matters for <code>tail</code>, see {@link TailSamplingFilter}.
+ */
+public final class RecordFilterExpression
+{
+   private final String expression;
+   private final List<String> tokens = new ArrayList<String>();
+   private final List<Integer> positions = new ArrayList<Integer>();
+   private final List<Boolean> quoted = new ArrayList<Boolean>();
+   private int index;
+
+   private RecordFilterExpression(String expression)
+   {
+      this.expression = expression;
+   }
+
+   /**
+    * Parses the given expression
+    *
+    * @return the filter, null if the expression is empty
+    * @throws IllegalArgumentException if the expression is not valid
+    */
+   public static RecordFilter parse(String expression)
+   {
+      if (expression == null || expression.trim().isEmpty())
+         return null;
+      final RecordFilterExpression parser = new RecordFilterExpression(expression);
+      parser.tokenize();
+      final RecordFilter filter = parser.parseOr();
+      if (parser.index < parser.tokens.size())
+         throw parser.unexpected();
+      return filter;
+   }
+
+   private void tokenize()
+   {
+      final int length = expression.length();
+      int i = 0;
+      while (i < length)
+      {
+         final char c = expression.charAt(i);
+         if (Character.isWhitespace(c))
+         {
+            i++;
+         }
+         else if (c == '(' || c == ')' || c == ',' || c == '=' || c == '!')
+         {
+            add(String.valueOf(c), i, false);
+            i++;
+         }
+         else if ((c == '&' || c == '|') && i + 1 < length && expression.charAt(i + 1) == c)
+         {
+            add(c == '&' ? "and" : "or", i, false);
+            i += 2;
+         }
+         else if (c == '\'' || c == '"')
+         {
+            final int end = expression.indexOf(c, i + 1);
+            if (end < 0)
+               throw MESSAGES.invalidRecordFilterExpression(expression, expression.substring(i), i);
+            add(expression.substring(i + 1, end), i, true);
+            i = end + 1;
+         }
+         else
+         {
+            int end = i;
+            while (end < length && !isDelimiter(expression.charAt(end)))
+            {
+               end++;
+            }
+            if (end == i)
+               throw MESSAGES.invalidRecordFilterExpression(expression, String.valueOf(c), i);
+            add(expression.substring(i, end), i, false);
+            i = end;
+         }
+      }
+   }
+
+   private static boolean isDelimiter(char c)
+   {
+      return Character.isWhitespace(c) || c == '(' || c == ')' || c == ',' || c == '=' || c == '!' || c == '&' || c == '|' || c == '\''
+            || c == '"';
+   }
+
+   private void add(String token, int position, boolean isQuoted)
+   {
+      tokens.add(token);
+      positions.add(position);
+      quoted.add(isQuoted);
+   }
+
+   private RecordFilter parseOr()
+   {
+      RecordFilter filter = parseAnd();
+      while (acceptKeyword("or"))
+      {
+         filter = new OrFilter(filter, parseAnd());
+      }
+      return filter;
+   }
+
+   private RecordFilter parseAnd()
+   {
+      RecordFilter filter = parseNot();
+      while (acceptKeyword("and"))
+      {
+         filter = new AndFilter(filter, parseNot());
+      }
+      return filter;
+   }
+
+   private RecordFilter parseNot()
+   {
+      if (acceptKeyword("not") || accept("!"))
+         return new NotFilter(parseNot());
+      if (accept("("))
+      {
+         final RecordFilter filter = parseOr();
+         expect(")");
+         return filter;
+      }
+      return parsePredicate();
+   }
+
+   private RecordFilter parsePredicate()
+   {
+      final int start = index;
+      final String name = next(false);
+      if ("sample".equalsIgnoreCase(name) || "rate".equalsIgnoreCase(name) || "tail".equalsIgnoreCase(name))
+      {
+         final List<String> args = parseList();
+         if (args.isEmpty() || args.size() > ("sample".equalsIgnoreCase(name) ? 1 : 2))
+            throw unexpected(start);
+         try
+         {
+            if ("sample".equalsIgnoreCase(name))
+               return new SamplingFilter(Double.parseDouble(args.get(0)));
+            if ("rate".equalsIgnoreCase(name))
+            {
+               final double permits = Double.parseDouble(args.get(0));
+               final int burst = args.size() > 1 ? Integer.parseInt(args.get(1)) : (int)Math.max(1, Math.ceil(permits));
+               return new RateLimitFilter(permits, burst);
+            }
+            return new TailSamplingFilter(Long.parseLong(args.get(0)), args.size() < 2 || Boolean.parseBoolean(args.get(1)));
+         }
+         catch (IllegalArgumentException e)
+         {
+            // including NumberFormatException
+            throw unexpected(start);
+         }
+      }
+
+      final List<String> values;
+      if (accept("="))
+      {
+         values = new ArrayList<String>(1);
+         values.add(next(true));
+      }
+      else if (acceptKeyword("in"))
+      {
+         values = parseList();
+      }
+      else
+      {
+         throw unexpected();
+      }
+
+      if ("sourceHost".equalsIgnoreCase(name) || "destinationHost".equalsIgnoreCase(name))
+         return new HostFilter(values, "sourceHost".equalsIgnoreCase(name));
+      if ("operation".equalsIgnoreCase(name))
+      {
+         RecordFilter filter = null;
+         for (String value : values)
+         {
+            final RecordFilter f = new OperationFilter(QName.valueOf(value));
+            filter = filter == null ? f : new OrFilter(filter, f);
+         }
+         return filter;
+      }
+      if ("type".equalsIgnoreCase(name))
+      {
+         RecordFilter filter = null;
+         for (String value : values)
+         {
+            final RecordFilter f;
+            try
+            {
+               f = new MessageTypeFilter(MessageType.valueOf(value.toUpperCase(Locale.ENGLISH)));
+            }
+            catch (IllegalArgumentException e)
+            {
+               throw MESSAGES.invalidRecordFilterExpression(expression, value, positions.get(start));
+            }
+            filter = filter == null ? f : new OrFilter(filter, f);
+         }
+         return filter;
+      }
+      throw unexpected(start);
+   }
+
+   /**
+    * Parses a parenthesized, comma separated, non empty list of values
+    */
+   private List<String> parseList()
+   {
+      expect("(");
+      final List<String> values = new ArrayList<String>();
+      do
+      {
+         values.add(next(true));
+      }
+      while (accept(","));
+      expect(")");
+      return values;
+   }
+
+   /**
+    * Gets the next token, which has to be a value (or a name)
+    */
+   private String next(boolean value)
+   {
+      if (index >= tokens.size())
+         throw unexpected();
+      final String token = tokens.get(index);
+      if (!quoted.get(index) && (isDelimiter(token.charAt(0)) || (!value && isKeyword(token))))
+         throw unexpected();
+      index++;
+      return token;
+   }
+
+   private static boolean isKeyword(String token)
+   {
+      return "and".equalsIgnoreCase(token) || "or".equalsIgnoreCase(token) || "not".equalsIgnoreCase(token) || "in".equalsIgnoreCase(token);
+   }
+
+   private boolean accept(String symbol)
+   {
+      if (index < tokens.size() && !quoted.get(index) && symbol.equals(tokens.get(index)))
+      {
+         index++;
+         return true;
+      }
+      return false;
+   }
+
+   private boolean acceptKeyword(String keyword)
+   {
+      if (index < tokens.size() && !quoted.get(index) && keyword.equalsIgnoreCase(tokens.get(index)))
+      {
+         index++;
+         return true;
+      }
+      return false;
+   }
+
+   private void expect(String symbol)
+   {
+      if (!accept(symbol))
+         throw unexpected();
+   }
+
+   private IllegalArgumentException unexpected()
+   {
+      return unexpected(index);
+   }
+
+   private IllegalArgumentException unexpected(int i)
+   {
+      if (i >= tokens.size())
+         return MESSAGES.invalidRecordFilterExpression(expression, "", expression.length());
+      return MESSAGES.invalidRecordFilterExpression(expression, tokens.get(i), positions.get(i));
+   }
+}
@@ -0,0 +1,487 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * A fixed capacity, lock-free ring buffer of record groups.
+ *
+ * Each new group gets a sequence number and is stored in the slot given by
+ * that number modulo the capacity, evicting the group previously stored there;
+ * groups are indexed by group ID, so that the records of an existing group
+ * are appended to it with a single CAS and no monitor is ever held by the
+ * recording threads.
+ *
+ * The buffer also accounts for the (estimated) bytes used by the stored records,
+ * so that the oldest groups can be evicted to keep within a memory budget.
+ *
+ * The groups are indexed by the attributes of their records (see {@link RecordGroupIndex}),
+ * so that queries only go through the groups which might match.
+ */
+final class RecordGroupBuffer implements Serializable
+{
+   private static final long serialVersionUID = -3907146526164591817L;
+
+   private final AtomicLong sequence = new AtomicLong();
+   // the sequence of the oldest group which might still be stored
+   private final AtomicLong tail = new AtomicLong();
+   private final AtomicLong bytes = new AtomicLong();
+   // keyed by the binary group ID, or by the string one for IDs not generated by the RecordFactory
+   private final ConcurrentHashMap<Object, RecordGroup> groups = new ConcurrentHashMap<Object, RecordGroup>();
+   private final RecordGroupIndex index = new RecordGroupIndex();
+   private volatile AtomicReferenceArray<RecordGroup> ring;
+
+   RecordGroupBuffer(int capacity)
+   {
+      ring = new AtomicReferenceArray<RecordGroup>(Math.max(capacity, 1));
+   }
+
+   /**
+    * Appends the record to its group, creating the group (and evicting the oldest one) if needed
+    */
+   void add(Record record)
+   {
+      add(record, 0);
+   }
+
+   /**
+    * Appends the record, accounting for the given number of bytes
+    */
+   void add(Record record, long size)
+   {
+      final Object id = getKey(record);
+      RecordGroup group = groups.get(id);
+      if (group == null)
+      {
+         final RecordGroup created = new RecordGroup(id, record);
+         group = groups.putIfAbsent(id, created);
+         if (group == null)
+         {
+            created.bytes = size;
+            bytes.addAndGet(size);
+            created.seq = sequence.getAndIncrement();
+            // indexed before being stored, so that an immediate eviction removes the entries
+            index.add(created, record);
+            store(created);
+            return;
+         }
+      }
+      group.append(record);
+      if (size != 0)
+      {
+         RecordGroup.BYTES.addAndGet(group, size);
+         bytes.addAndGet(size);
+      }
+      index.add(group, record);
+      if (group.evicted)
+      {
+         // the group has been evicted meanwhile
+         evicted(group);
+      }
+   }
+
+   /**
+    * Evicts the oldest stored group
+    *
+    * @return false if there's no group to evict
+    */
+   boolean evictOldest()
+   {
+      for (;;)
+      {
+         final AtomicReferenceArray<RecordGroup> slots = ring;
+         final long pos = tail.get();
+         final long head = sequence.get();
+         if (pos >= head)
+            return false;
+
+         // the groups before head - capacity have already been overwritten
+         if (pos < head - slots.length())
+         {
+            tail.compareAndSet(pos, head - slots.length());
+            continue;
+         }
+         final int index = (int)(pos % slots.length());
+         final RecordGroup group = slots.get(index);
+         if (tail.compareAndSet(pos, pos + 1) && group != null && group.seq == pos && slots.compareAndSet(index, group, null))
+         {
+            evicted(group);
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Evicts the oldest groups until the stored bytes are within the given budget
+    */
+   void evict(long maxBytes)
+   {
+      while (bytes.get() > maxBytes && evictOldest())
+      {
+         // keep evicting
+      }
+   }
+
+   /**
+    * Removes the evicted group from the indexes and releases its records; this is idempotent.
+    */
+   private void evicted(RecordGroup group)
+   {
+      group.evicted = true;
+      groups.remove(group.id, group);
+      bytes.addAndGet(-RecordGroup.BYTES.getAndSet(group, 0));
+      for (Record record : group.records)
+      {
+         index.remove(group, record);
+         if (record instanceof CompactRecord)
+            ((CompactRecord)record).release();
+      }
+   }
+
+   /**
+    * Stores the group in its slot, unless the slot already holds a more recent group.
+    * The operation is idempotent, hence it can be safely retried when the ring is resized.
+    */
+   private void store(RecordGroup group)
+   {
+      for (;;)
+      {
+         final AtomicReferenceArray<RecordGroup> slots = ring;
+         final int index = (int)(group.seq % slots.length());
+         final RecordGroup prev = slots.get(index);
+         if (prev == group)
+         {
+            if (ring == slots)
+               return;
+         }
+         else if (prev != null && prev.seq > group.seq)
+         {
+            // already evicted by a more recent group
+            evicted(group);
+            return;
+         }
+         else if (slots.compareAndSet(index, prev, group))
+         {
+            if (ring == slots)
+            {
+               if (prev != null)
+                  evicted(prev);
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Changes the capacity, keeping the most recent groups
+    */
+   synchronized void resize(int capacity)
+   {
+      final AtomicReferenceArray<RecordGroup> old = ring;
+      if (old.length() == Math.max(capacity, 1))
+         return;
+
+      // publish the new ring first, the groups concurrently stored in the old one are moved by their writers
+      ring = new AtomicReferenceArray<RecordGroup>(Math.max(capacity, 1));
+      for (int i = 0; i < old.length(); i++)
+      {
+         final RecordGroup group = old.get(i);
+         if (group != null)
+            store(group);
+      }
+      // evict the indexed groups which didn't make it to the new ring (e.g. overwritten in the old one meanwhile)
+      final AtomicReferenceArray<RecordGroup> slots = ring;
+      for (RecordGroup group : groups.values())
+      {
+         if (group.seq >= 0 && slots.get((int)(group.seq % slots.length())) != group)
+            evicted(group);
+      }
+   }
+
+   /**
+    * Evicts all the groups
+    */
+   synchronized void clear()
+   {
+      final AtomicReferenceArray<RecordGroup> slots = ring;
+      for (int i = 0; i < slots.length(); i++)
+      {
+         final RecordGroup group = slots.getAndSet(i, null);
+         if (group != null)
+            evicted(group);
+      }
+   }
+
+   int getCapacity()
+   {
+      return ring.length();
+   }
+
+   int size()
+   {
+      return groups.size();
+   }
+
+   /** The bytes used by the stored records */
+   long getBytes()
+   {
+      return bytes.get();
+   }
+
+   /** The source hosts of the stored inbound records */
+   Set<String> getClientHosts()
+   {
+      return index.getClientHosts();
+   }
+
+   /**
+    * Gets a page of the groups having a record which matches all the given filters,
+    * from the most recent group to the oldest one; only the groups which might match
+    * according to the indexes are considered, unless no filter can be looked up.
+    *
+    * @param filters  the filters
+    * @param offset   the number of matching groups to skip
+    * @param limit    the max number of groups to return
+    */
+   List<RecordGroup> query(RecordFilter[] filters, int offset, int limit)
+   {
+      Collection<RecordGroup> candidates = null;
+      for (RecordFilter filter : filters)
+      {
+         final Collection<RecordGroup> c = index.lookup(filter);
+         if (c != null && (candidates == null || c.size() < candidates.size()))
+            candidates = c;
+      }
+
+      final List<RecordGroup> result = new ArrayList<RecordGroup>(Math.min(Math.max(limit, 0), 64));
+      if (limit <= 0)
+         return result;
+      int skip = Math.max(offset, 0);
+      if (candidates == null)
+      {
+         // go through the ring backwards, from the most recent group
+         final AtomicReferenceArray<RecordGroup> slots = ring;
+         final long head = sequence.get();
+         final long end = Math.max(0, head - slots.length());
+         for (long seq = head - 1; seq >= end && result.size() < limit; seq--)
+         {
+            final RecordGroup group = slots.get((int)(seq % slots.length()));
+            if (group != null && group.seq == seq && group.evicted == false && group.matches(filters))
+            {
+               if (skip > 0)
+                  skip--;
+               else
+                  result.add(group);
+            }
+         }
+      }
+      else
+      {
+         final RecordGroup[] sorted = candidates.toArray(new RecordGroup[0]);
+         Arrays.sort(sorted, REVERSE_SEQUENCE_ORDER);
+         for (int i = 0; i < sorted.length && result.size() < limit; i++)
+         {
+            final RecordGroup group = sorted[i];
+            if (group.evicted == false && group.matches(filters))
+            {
+               if (skip > 0)
+                  skip--;
+               else
+                  result.add(group);
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Gets the records of the given groups as a map GroupID->List<Record>, keeping the groups order
+    */
+   static Map<String, List<Record>> toMap(List<RecordGroup> groups)
+   {
+      final Map<String, List<Record>> result = new LinkedHashMap<String, List<Record>>(groups.size() * 2);
+      for (RecordGroup group : groups)
+      {
+         result.put(group.id.toString(), group.getRecords());
+      }
+      return result;
+   }
+
+   /**
+    * Gets a snapshot of the stored groups, from the oldest to the most recent one.
+    * Each group's record list is the one at the time of the call and is not affected
+    * by later appends or evictions.
+    */
+   Map<String, List<Record>> snapshot()
+   {
+      return toMap(getGroups());
+   }
+
+   /**
+    * Gets the stored groups, from the oldest to the most recent one
+    */
+   List<RecordGroup> getGroups()
+   {
+      final AtomicReferenceArray<RecordGroup> slots = ring;
+      final List<RecordGroup> result = new ArrayList<RecordGroup>(slots.length());
+      for (int i = 0; i < slots.length(); i++)
+      {
+         final RecordGroup group = slots.get(i);
+         if (group != null)
+            result.add(group);
+      }
+      result.sort(SEQUENCE_ORDER);
+      return result;
+   }
+
+   /**
+    * Creates a copy of this buffer, sharing the (immutable) records
+    */
+   RecordGroupBuffer copy()
+   {
+      final RecordGroupBuffer copy = new RecordGroupBuffer(getCapacity());
+      for (RecordGroup group : getGroups())
+      {
+         final Record[] records = group.records.clone();
+         for (int i = 0; i < records.length; i++)
+         {
+            if (records[i] instanceof CompactRecord)
+               records[i] = ((CompactRecord)records[i]).copy();
+         }
+         final RecordGroup clone = new RecordGroup(group.id, records);
+         clone.bytes = group.bytes;
+         copy.bytes.addAndGet(clone.bytes);
+         clone.seq = copy.sequence.getAndIncrement();
+         copy.groups.put(clone.id, clone);
+         for (Record record : records)
+         {
+            copy.index.add(clone, record);
+         }
+         copy.store(clone);
+      }
+      return copy;
+   }
+
+   private static Object getKey(Record record)
+   {
+      final Object key = GroupID.keyOf(record);
+      return key != null ? key : "";
+   }
+
+   private static final Comparator<RecordGroup> SEQUENCE_ORDER = new Comparator<RecordGroup>()
+   {
+      public int compare(RecordGroup g1, RecordGroup g2)
+      {
+         return Long.compare(g1.seq, g2.seq);
+      }
+   };
+
+   private static final Comparator<RecordGroup> REVERSE_SEQUENCE_ORDER = new Comparator<RecordGroup>()
+   {
+      public int compare(RecordGroup g1, RecordGroup g2)
+      {
+         return Long.compare(g2.seq, g1.seq);
+      }
+   };
+
+   /**
+    * The records sharing the same group ID; the record array is replaced on each append
+    */
+   static final class RecordGroup implements Serializable
+   {
+      private static final long serialVersionUID = 6290180297637312846L;
+      private static final AtomicReferenceFieldUpdater<RecordGroup, Record[]> RECORDS = AtomicReferenceFieldUpdater.newUpdater(
+            RecordGroup.class, Record[].class, "records");
+      private static final AtomicLongFieldUpdater<RecordGroup> BYTES = AtomicLongFieldUpdater.newUpdater(RecordGroup.class, "bytes");
+
+      // the GroupID or the String ID
+      final Object id;
+      // written before the group is published in the ring
+      long seq = -1;
+      private volatile Record[] records;
+      private volatile long bytes;
+      volatile boolean evicted;
+
+      RecordGroup(Object id, Record first)
+      {
+         this(id, new Record[] { first });
+      }
+
+      private RecordGroup(Object id, Record[] records)
+      {
+         this.id = id;
+         this.records = records;
+      }
+
+      void append(Record record)
+      {
+         for (;;)
+         {
+            final Record[] current = records;
+            final Record[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = record;
+            if (RECORDS.compareAndSet(this, current, next))
+               return;
+         }
+      }
+
+      /**
+       * Whether any of the records matches all the given filters
+       */
+      boolean matches(RecordFilter[] filters)
+      {
+         for (Record record : records)
+         {
+            boolean match = true;
+            for (int i = 0; i < filters.length && match; i++)
+            {
+               match = filters[i].match(record);
+            }
+            if (match)
+               return true;
+         }
+         return false;
+      }
+
+      List<Record> getRecords()
+      {
+         return new ArrayList<Record>(Arrays.asList(records));
+      }
+   }
+}
@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.RecordGroupBuffer.RecordGroup;
+
+/**
+ * Secondary indexes of the stored record groups, by source / destination host,
+ * operation, message type and date (in one minute buckets).
+ *
+ * The indexes are updated while records are added and groups are evicted, without
+ * locking the keys shared by all the requests (the message types, the current date
+ * bucket, busy operations): the group sets are looked up first and only created on a
+ * miss. The sets of the message type and operation keys, which are only a few, are never
+ * removed; the empty sets of the host and date keys are, and an entry added to a set
+ * being removed is then added again, so it's never lost. The groups returned by a lookup
+ * are candidates only, they still need to be matched against the actual filters.
+ */
+final class RecordGroupIndex implements Serializable
+{
+   private static final long serialVersionUID = -8413630962707418305L;
+
+   static final long BUCKET_MILLIS = 60 * 1000L;
+   // records with no operation are indexed under this name
+   private static final QName NO_OPERATION = new QName("");
+
+   private final ConcurrentHashMap<String, Set<RecordGroup>> sourceHosts = new ConcurrentHashMap<String, Set<RecordGroup>>();
+   private final ConcurrentHashMap<String, Set<RecordGroup>> destinationHosts = new ConcurrentHashMap<String, Set<RecordGroup>>();
+   // the (not normalized) source hosts of inbound records
+   private final ConcurrentHashMap<String, Set<RecordGroup>> clientHosts = new ConcurrentHashMap<String, Set<RecordGroup>>();
+   private final ConcurrentHashMap<QName, Set<RecordGroup>> operations = new ConcurrentHashMap<QName, Set<RecordGroup>>();
+   private final ConcurrentHashMap<MessageType, Set<RecordGroup>> messageTypes = new ConcurrentHashMap<MessageType, Set<RecordGroup>>();
+   private final ConcurrentHashMap<Long, Set<RecordGroup>> dates = new ConcurrentHashMap<Long, Set<RecordGroup>>();
+   // the buckets in the date index, sorted for range lookups
+   private final ConcurrentSkipListSet<Long> buckets = new ConcurrentSkipListSet<Long>();
+
+   /**
+    * Indexes the given record of the group
+    */
+   void add(RecordGroup group, Record record)
+   {
+      final String sourceHost = record.getSourceHost();
+      if (sourceHost != null)
+      {
+         add(sourceHosts, hostKey(sourceHost), group, null);
+         if (record.getMessageType() == MessageType.INBOUND)
+            add(clientHosts, sourceHost, group, null);
+      }
+      if (record.getDestinationHost() != null)
+         add(destinationHosts, hostKey(record.getDestinationHost()), group, null);
+      add(operations, operationKey(record.getOperation()), group, null);
+      if (record.getMessageType() != null)
+         add(messageTypes, record.getMessageType(), group, null);
+      if (record.getDate() != null)
+         add(dates, bucket(record.getDate()), group, buckets);
+   }
+
+   /**
+    * Removes the index entries of the given record of the group; this is idempotent.
+    */
+   void remove(RecordGroup group, Record record)
+   {
+      final String sourceHost = record.getSourceHost();
+      if (sourceHost != null)
+      {
+         remove(sourceHosts, hostKey(sourceHost), group, null, true);
+         if (record.getMessageType() == MessageType.INBOUND)
+            remove(clientHosts, sourceHost, group, null, true);
+      }
+      if (record.getDestinationHost() != null)
+         remove(destinationHosts, hostKey(record.getDestinationHost()), group, null, true);
+      remove(operations, operationKey(record.getOperation()), group, null, false);
+      if (record.getMessageType() != null)
+         remove(messageTypes, record.getMessageType(), group, null, false);
+      if (record.getDate() != null)
+         remove(dates, bucket(record.getDate()), group, buckets, true);
+   }
+
+   /**
+    * Gets the source hosts of the indexed inbound records
+    */
+   Set<String> getClientHosts()
+   {
+      return new HashSet<String>(clientHosts.keySet());
+   }
+
+   /**
+    * Gets the groups which might have a record matching the given filter,
+    * or null if the filter can't be answered from the indexes.
+    */
+   Collection<RecordGroup> lookup(RecordFilter filter)
+   {
+      // subclasses might override match(), hence only the exact filter types are looked up
+      final Class<?> type = filter.getClass();
+      if (type == HostFilter.class)
+      {
+         final HostFilter hostFilter = (HostFilter)filter;
+         final ConcurrentHashMap<String, Set<RecordGroup>> index = hostFilter.isSource() ? sourceHosts : destinationHosts;
+         Collection<RecordGroup> result = Collections.emptySet();
+         for (String host : hostFilter.getHosts())
+         {
+            if (host != null)
+               result = union(result, index.get(hostKey(host)));
+         }
+         return result;
+      }
+      if (type == OperationFilter.class)
+      {
+         return nonNull(operations.get(operationKey(((OperationFilter)filter).getOperation())));
+      }
+      if (type == MessageTypeFilter.class)
+      {
+         final MessageType messageType = ((MessageTypeFilter)filter).getMessageType();
+         return messageType != null ? nonNull(messageTypes.get(messageType)) : null;
+      }
+      if (type == DateFilter.class)
+      {
+         final DateFilter dateFilter = (DateFilter)filter;
+         final long from = dateFilter.getFrom() != null ? bucket(dateFilter.getFrom()) : Long.MIN_VALUE;
+         final long to = dateFilter.getTo() != null ? bucket(dateFilter.getTo()) : Long.MAX_VALUE;
+         Collection<RecordGroup> result = Collections.emptySet();
+         if (from <= to)
+         {
+            for (Long bucket : buckets.subSet(from, true, to, true))
+            {
+               result = union(result, dates.get(bucket));
+            }
+         }
+         return result;
+      }
+      if (type == AndFilter.class)
+      {
+         final Collection<RecordGroup> c1 = lookup(((AndFilter)filter).getFilter1());
+         final Collection<RecordGroup> c2 = lookup(((AndFilter)filter).getFilter2());
+         if (c1 == null || (c2 != null && c2.size() < c1.size()))
+            return c2;
+         return c1;
+      }
+      if (type == OrFilter.class)
+      {
+         final Collection<RecordGroup> c1 = lookup(((OrFilter)filter).getFilter1());
+         final Collection<RecordGroup> c2 = c1 != null ? lookup(((OrFilter)filter).getFilter2()) : null;
+         return c2 != null ? union(c1, c2) : null;
+      }
+      return null;
+   }
+
+   private static <K> void add(ConcurrentHashMap<K, Set<RecordGroup>> index, K key, RecordGroup group, Set<K> keys)
+   {
+      for (;;)
+      {
+         Set<RecordGroup> set = index.get(key);
+         if (set == null)
+         {
+            final Set<RecordGroup> created = ConcurrentHashMap.newKeySet();
+            set = index.putIfAbsent(key, created);
+            if (set == null)
+            {
+               set = created;
+               if (keys != null)
+                  keys.add(key);
+            }
+         }
+         set.add(group);
+         // otherwise the set has been removed meanwhile, either before the group was
+         // added to it or afterwards, in which case the group is added again anyway
+         if (index.get(key) == set)
+            return;
+      }
+   }
+
+   private static <K> void remove(ConcurrentHashMap<K, Set<RecordGroup>> index, K key, RecordGroup group, Set<K> keys, boolean prune)
+   {
+      final Set<RecordGroup> set = index.get(key);
+      if (set == null)
+         return;
+      set.remove(group);
+      if (prune && set.isEmpty() && index.remove(key, set))
+      {
+         if (keys != null)
+         {
+            keys.remove(key);
+            // a set might have been mapped again meanwhile
+            if (index.containsKey(key))
+               keys.add(key);
+         }
+         // the groups added while the set was being removed
+         for (RecordGroup added : set)
+         {
+            if (!added.evicted)
+               add(index, key, added, keys);
+         }
+      }
+   }
+
+   private static Collection<RecordGroup> union(Collection<RecordGroup> c1, Collection<RecordGroup> c2)
+   {
+      if (c2 == null || c2.isEmpty())
+         return c1;
+      if (c1.isEmpty())
+         return c2;
+      final Set<RecordGroup> result = new HashSet<RecordGroup>(c1);
+      result.addAll(c2);
+      return result;
+   }
+
+   private static Collection<RecordGroup> nonNull(Set<RecordGroup> set)
+   {
+      return set != null ? set : Collections.<RecordGroup>emptySet();
+   }
+
+   private static String hostKey(String host)
+   {
+      // same as the case insensitive comparison of HostFilter, for the (ASCII) host names
+      return host.toLowerCase(Locale.ENGLISH);
+   }
+
+   private static QName operationKey(QName operation)
+   {
+      return operation != null ? operation : NO_OPERATION;
+   }
+
+   static long bucket(Date date)
+   {
+      return Math.floorDiv(date.getTime(), BUCKET_MILLIS);
+   }
+}
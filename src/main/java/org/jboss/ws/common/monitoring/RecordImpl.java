@@ -21,6 +21,8 @@
  */
 package org.jboss.ws.common.monitoring;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +31,8 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.common.DOMWriter;
+import org.w3c.dom.Node;
 
 /**
  * Default Record implementation
@@ -46,8 +50,15 @@ public class RecordImpl implements Record
    private MessageType messageType;
    private QName operation;
    private String groupID;
+   // the binary form of the group ID, when available it takes precedence over the string
+   private GroupID groupKey;
    private Date date;
-   private String envelope;
+   private boolean fault;
+   private volatile String envelope;
+   // the compact form of the envelope snapshot, lazily computed
+   private volatile String compactEnvelope;
+   // a detached copy of the envelope, serialized on demand
+   private transient volatile Node envelopeSnapshot;
    
    RecordImpl()
    {
@@ -102,7 +113,29 @@ public class RecordImpl implements Record
 
    public String getGroupID()
    {
-      return groupID;
+      final GroupID key = groupKey;
+      return key != null ? key.toString() : groupID;
+   }
+
+   /**
+    * Gets the binary form of the group ID, null if the ID is not in the form
+    * generated by the {@link RecordFactory}
+    */
+   public GroupID getGroupKey()
+   {
+      GroupID key = groupKey;
+      if (key == null && groupID != null)
+      {
+         key = GroupID.parse(groupID);
+         groupKey = key;
+      }
+      return key;
+   }
+
+   public void setGroupKey(GroupID groupKey)
+   {
+      this.groupKey = groupKey;
+      this.groupID = null;
    }
 
    public QName getOperation()
@@ -113,6 +146,7 @@ public class RecordImpl implements Record
    public void setGroupID(String groupID)
    {
       this.groupID = groupID;
+      this.groupKey = null;
    }
 
    public void setOperation(QName operation)
@@ -120,6 +154,19 @@ public class RecordImpl implements Record
       this.operation = operation;
    }
 
+   /**
+    * Whether this is the record of a fault message
+    */
+   public boolean isFault()
+   {
+      return fault;
+   }
+
+   public void setFault(boolean fault)
+   {
+      this.fault = fault;
+   }
+
    public Date getDate()
    {
       return date;
@@ -132,12 +179,72 @@ public class RecordImpl implements Record
    
    public void setEnvelope(String envelope)
    {
+      this.envelopeSnapshot = null;
+      this.compactEnvelope = null;
       this.envelope = envelope;
    }
-   
+
+   /**
+    * Sets a detached copy of the envelope, which is serialized only when
+    * the envelope is first requested; the serialized forms are then shared
+    * by all the processors reading this record.
+    */
+   public void setEnvelopeSnapshot(Node envelope)
+   {
+      this.envelope = null;
+      this.compactEnvelope = null;
+      this.envelopeSnapshot = envelope;
+   }
+
+   /**
+    * Gets the pretty printed envelope
+    */
    public String getEnvelope()
    {
-      return envelope;
+      return getEnvelope(true);
+   }
+
+   /**
+    * Gets the pretty printed or compact envelope; when the envelope has been
+    * set as a string, that is returned in both cases.
+    */
+   public String getEnvelope(boolean prettyPrint)
+   {
+      final Node snapshot = envelopeSnapshot;
+      String result = prettyPrint ? envelope : compactEnvelope;
+      if (result == null && snapshot != null)
+      {
+         // the DOM is not safe for concurrent reads
+         synchronized (snapshot)
+         {
+            result = prettyPrint ? envelope : compactEnvelope;
+            if (result == null)
+            {
+               result = DOMWriter.printNode(snapshot, prettyPrint);
+               if (prettyPrint)
+                  envelope = result;
+               else
+                  compactEnvelope = result;
+            }
+         }
+      }
+      return result != null ? result : envelope;
+   }
+
+   /**
+    * Gets the compact envelope of the given record if that's a RecordImpl,
+    * its envelope otherwise
+    */
+   static String getCompactEnvelope(Record record)
+   {
+      return record instanceof RecordImpl ? ((RecordImpl)record).getEnvelope(false) : record.getEnvelope();
+   }
+
+   private void writeObject(ObjectOutputStream out) throws IOException
+   {
+      // the snapshot is not serializable, write its pretty printed form instead
+      getEnvelope(true);
+      out.defaultWriteObject();
    }
 
 }
@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.RecordFilter;
+
+/**
+ * This filter matches a fixed fraction of the record groups.
+ *
+ * The decision is taken hashing the group ID, so the records of a group are
+ * either all matched or all discarded, with no state to be kept; records with
+ * no group ID are sampled one by one.
+ */
+public class SamplingFilter implements RecordFilter
+{
+   private static final long serialVersionUID = 7465317829120964517L;
+
+   private final double rate;
+   private final long threshold;
+
+   /**
+    * @param rate the fraction of groups to match, between 0 and 1
+    */
+   public SamplingFilter(double rate)
+   {
+      if (rate < 0 || rate > 1)
+         throw new IllegalArgumentException();
+      this.rate = rate;
+      this.threshold = (long)(rate * (1L << 32));
+   }
+
+   public boolean match(Record record)
+   {
+      final Object key = GroupID.keyOf(record);
+      final int hash = key != null ? GroupID.hash(key) : ThreadLocalRandom.current().nextInt();
+      return (hash & 0xffffffffL) < threshold;
+   }
+
+   public double getRate()
+   {
+      return rate;
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      return new SamplingFilter(this.rate);
+   }
+}
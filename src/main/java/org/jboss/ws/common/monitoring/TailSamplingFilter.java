@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.ws.common.monitoring;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+
+/**
+ * This filter keeps the record groups whose outbound record is a fault, or comes
+ * later than the given threshold after the inbound record.
+ *
+ * Inbound records are held back (and not matched) until the outbound record of
+ * their group comes: if the group is kept, the endpoint gets the held inbound record
+ * through {@link #release(Record, boolean)} and processes it before the outbound one. Held
+ * records are kept in a fixed size table, so the inbound record of a group might be
+ * lost when a lot of concurrent groups are in progress.
+ *
+ * The filter can be nested in and / or / not filters, see {@link HoldingRecordFilter}.
+ * A conjunction stops at its first operand not matching, hence the operands evaluated
+ * after this one never see inbound records: this filter must then come after any filter
+ * deciding on a group from its inbound record, like {@link RateLimitFilter}. With
+ * rate(..) after tail(..) in a filter expression or list, the rate limiter admits no
+ * group and discards every outbound record.
+ */
+public class TailSamplingFilter implements HoldingRecordFilter
+{
+   private static final long serialVersionUID = 2563125409837115208L;
+   private static final int DEFAULT_CAPACITY = 1024;
+
+   private final long latencyThreshold;
+   private final boolean keepFaults;
+   private final AtomicReferenceArray<Record> held;
+
+   /**
+    * @param latencyThreshold  the min time (ms) between the inbound and outbound records
+    *                          for a group to be kept, a negative value to not keep slow groups
+    * @param keepFaults        whether the groups ending with a fault are kept
+    */
+   public TailSamplingFilter(long latencyThreshold, boolean keepFaults)
+   {
+      this.latencyThreshold = latencyThreshold;
+      this.keepFaults = keepFaults;
+      this.held = new AtomicReferenceArray<Record>(DEFAULT_CAPACITY);
+   }
+
+   public boolean match(Record record)
+   {
+      final Object key = GroupID.keyOf(record);
+      if (key == null || record.getMessageType() == null)
+         return false;
+      final int index = GroupID.hash(key) & (held.length() - 1);
+      if (record.getMessageType() == MessageType.INBOUND)
+      {
+         held.set(index, record);
+         return false;
+      }
+      Record inbound = held.get(index);
+      if (inbound != null && !key.equals(GroupID.keyOf(inbound)))
+         inbound = null;
+      if ((keepFaults && isFault(record)) || isSlow(inbound, record))
+         return true;
+      // the group is discarded
+      if (inbound != null)
+         held.compareAndSet(index, inbound, null);
+      return false;
+   }
+
+   private boolean isSlow(Record inbound, Record outbound)
+   {
+      if (latencyThreshold < 0 || inbound == null)
+         return false;
+      final Date start = inbound.getDate();
+      final Date end = outbound.getDate();
+      return start != null && end != null && end.getTime() - start.getTime() >= latencyThreshold;
+   }
+
+   /**
+    * Gets and forgets the inbound record held back for the group of the given outbound
+    * record, if the group is kept; the inbound record is forgotten as well when it's
+    * matched through another filter, or when the group is not kept.
+    *
+    * @return the held record, null if there's none or the group is not kept
+    */
+   public Record release(Record record, boolean matched)
+   {
+      final Object key = GroupID.keyOf(record);
+      if (key == null || record.getMessageType() == null)
+         return null;
+      final int index = GroupID.hash(key) & (held.length() - 1);
+      final Record inbound = held.get(index);
+      if (record.getMessageType() == MessageType.INBOUND)
+      {
+         if (matched && inbound == record)
+            held.compareAndSet(index, inbound, null);
+         return null;
+      }
+      if (inbound != null && key.equals(GroupID.keyOf(inbound)) && held.compareAndSet(index, inbound, null))
+         return matched ? inbound : null;
+      return null;
+   }
+
+   private static boolean isFault(Record record)
+   {
+      return record instanceof RecordImpl && ((RecordImpl)record).isFault();
+   }
+
+   public long getLatencyThreshold()
+   {
+      return latencyThreshold;
+   }
+
+   public boolean isKeepFaults()
+   {
+      return keepFaults;
+   }
+
+   @Override
+   public Object clone() throws CloneNotSupportedException
+   {
+      return new TailSamplingFilter(this.latencyThreshold, this.keepFaults);
+   }
+}
@@ -41,13 +41,12 @@ import java.util.List;
 import javax.wsdl.Definition;
 import javax.wsdl.Import;
 import javax.wsdl.factory.WSDLFactory;
-import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.jboss.ws.common.Constants;
 import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DocumentBuilderFactoryRegistry;
 import org.jboss.ws.common.IOUtils;
 import org.jboss.ws.common.management.AbstractServerConfig;
 import org.jboss.wsf.spi.deployment.ArchiveDeployment;
@@ -101,28 +100,9 @@ public abstract class AbstractWSDLFilePublisher
    {
       if (builder == null)
       {
-         final ClassLoader classLoader = SecurityActions.getContextClassLoader();
-         SecurityActions.setContextClassLoader(AbstractWSDLFilePublisher.class.getClassLoader());
-         try
-         {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setValidating(false);
-            factory.setNamespaceAware(true);
-            factory.setExpandEntityReferences(false);
-            try
-            {
-               factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            }
-            catch (ParserConfigurationException pce)
-            {
-               DEPLOYMENT_LOGGER.error(pce);
-            }
-            builder = DOMUtils.newDocumentBuilder(factory);
-         }
-         finally
-         {
-            SecurityActions.setContextClassLoader(classLoader);
-         }
+         DocumentBuilderFactory factory = DocumentBuilderFactoryRegistry.getFactory(AbstractWSDLFilePublisher.class.getClassLoader(),
+               DocumentBuilderFactoryRegistry.SECURE_PROCESSING);
+         builder = DOMUtils.newDocumentBuilder(factory);
       }
       return builder;
    }
@@ -23,61 +23,21 @@ package org.jboss.ws.common.utils;
 
 import static org.jboss.ws.common.Messages.MESSAGES;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
 
 /**
  * Utility class for resolving predefined XML entity and character references.
+ * 
+ * The references are decoded in a single pass: literal runs are copied as they are,
+ * character references are parsed inline (supplementary code points become surrogate
+ * pairs) and the five predefined entities are matched without any lookup table.
  *
  * @author <a href="mailto:jason.greene@jboss.com">Jason T. Greene</a>
  */
 public class XMLPredefinedEntityReferenceResolver
 {
-   private static final HashMap<String, Character> entities = new HashMap<String, Character>(8);
-
-   static
-   {
-      entities.put("quot", '"');
-      entities.put("amp", '&');
-      entities.put("lt", '<');
-      entities.put("gt", '>');
-      entities.put("apos", '\'');
-   }
-
-   private static int resolveCharRef(String source, int pos, StringBuilder builder)
-   {
-      int radix = 10;
-      if (source.charAt(pos += 2) == 'x')
-      {
-         pos++;
-         radix = 16;
-      }
-
-      int end = source.indexOf(';', pos);
-      if (end == -1)
-         throw MESSAGES.entityResolutionInvalidCharacterReference(source);
-
-      int c = Integer.parseInt(source.substring(pos, end), radix);
-      builder.append((char) c);
-
-      return end + 1;
-   }
-
-   private static int resolveEntityRef(String source, int pos, StringBuilder builder)
-   {
-      int end = source.indexOf(';', ++pos);
-      if (end == -1)
-         throw MESSAGES.entityResolutionInvalidEntityReference(source);
-
-      String entity = source.substring(pos, end);
-      Character c = entities.get(entity);
-      if (c == null)
-         throw MESSAGES.entityResolutionInvalidEntity(entity);
-
-      builder.append(c.charValue());
-
-      return end + 1;
-   }
-
    /**
     * Transforms an XML normalized string by resolving all predefined character and entity references
     *
@@ -86,39 +46,245 @@ public class XMLPredefinedEntityReferenceResolver
     */
    public static String resolve(String normalized)
    {
-      StringBuilder builder = new StringBuilder();
       int end = normalized.length();
       int pos = normalized.indexOf('&');
-      int last = 0;
 
       // No references
       if (pos == -1)
          return normalized;
 
+      StringBuilder builder = new StringBuilder(end);
+      try
+      {
+         decode(normalized, 0, end, builder, null, 0);
+      }
+      catch (IOException e)
+      {
+         // cannot happen, StringBuilder does not throw IOException
+         throw new IllegalStateException(e);
+      }
+      return builder.toString();
+   }
+
+   /**
+    * Resolves all predefined character and entity references of the given
+    * XML normalized sequence, appending the result to the provided sink.
+    *
+    * @param normalized an XML normalized char sequence
+    * @param out the sink the resolved characters are appended to
+    */
+   public static void resolve(CharSequence normalized, Appendable out) throws IOException
+   {
+      decode(normalized, 0, normalized.length(), out, null, 0);
+   }
+
+   /**
+    * Resolves all predefined character and entity references of the given
+    * XML normalized characters, appending the result to the provided sink.
+    *
+    * @param ch the buffer holding the XML normalized characters
+    * @param start the offset of the first character
+    * @param length the number of characters
+    * @param out the sink the resolved characters are appended to
+    */
+   public static void resolve(char[] ch, int start, int length, Appendable out) throws IOException
+   {
+      decode(CharBuffer.wrap(ch), start, start + length, out, null, 0);
+   }
+
+   /**
+    * Resolves all predefined character and entity references of the given
+    * XML normalized characters in place; the resolved value is never longer
+    * than the normalized one, so the same (reusable) buffer holds the result.
+    *
+    * @param ch the buffer holding the XML normalized characters
+    * @param start the offset of the first character
+    * @param length the number of characters
+    * @return the number of resolved characters, stored starting at the given offset
+    */
+   public static int resolveInPlace(char[] ch, int start, int length)
+   {
+      try
+      {
+         return decode(CharBuffer.wrap(ch), start, start + length, null, ch, start) - start;
+      }
+      catch (IOException e)
+      {
+         // cannot happen, no Appendable is involved
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Decodes the references in the [start, end) range of the source, either appending
+    * to the provided sink or, when dest is not null, writing in place into the array
+    * backing the source; returns the next write position in dest.
+    */
+   private static int decode(CharSequence in, int start, int end, Appendable out, char[] dest, int destPos) throws IOException
+   {
+      int last = start;
+      int pos = indexOf(in, '&', start, end);
       while (pos != -1)
       {
-         String sub = normalized.subSequence(last, pos).toString();
-         builder.append(sub);
-         
+         if (last < pos)
+         {
+            if (dest != null)
+            {
+               System.arraycopy(dest, last, dest, destPos, pos - last);
+               destPos += pos - last;
+            }
+            else
+            {
+               append(in, last, pos, out);
+            }
+         }
+
          int peek = pos + 1;
          if (peek == end)
-            throw MESSAGES.entityResolutionInvalidEntityReference(normalized);
+            throw MESSAGES.entityResolutionInvalidEntityReference(in.subSequence(start, end).toString());
 
-         if (normalized.charAt(peek) == '#')
-            pos = resolveCharRef(normalized, pos, builder);
+         int semi = indexOf(in, ';', peek, end);
+         int c;
+         if (in.charAt(peek) == '#')
+         {
+            if (semi == -1)
+               throw MESSAGES.entityResolutionInvalidCharacterReference(in.subSequence(start, end).toString());
+            c = parseCharRef(in, peek + 1, semi, start, end);
+         }
          else
-            pos = resolveEntityRef(normalized, pos, builder);
+         {
+            if (semi == -1)
+               throw MESSAGES.entityResolutionInvalidEntityReference(in.subSequence(start, end).toString());
+            c = predefinedEntity(in, peek, semi);
+            if (c == -1)
+               throw MESSAGES.entityResolutionInvalidEntity(in.subSequence(peek, semi).toString());
+         }
 
-         last = pos;
-         pos = normalized.indexOf('&', pos);
+         if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT)
+         {
+            if (dest != null)
+               dest[destPos++] = (char)c;
+            else
+               out.append((char)c);
+         }
+         else
+         {
+            char high = Character.highSurrogate(c);
+            char low = Character.lowSurrogate(c);
+            if (dest != null)
+            {
+               dest[destPos++] = high;
+               dest[destPos++] = low;
+            }
+            else
+            {
+               out.append(high);
+               out.append(low);
+            }
+         }
+
+         last = semi + 1;
+         pos = indexOf(in, '&', last, end);
       }
 
       if (last < end)
       {
-         String sub = normalized.subSequence(last, end).toString();
-         builder.append(sub);
+         if (dest != null)
+         {
+            System.arraycopy(dest, last, dest, destPos, end - last);
+            destPos += end - last;
+         }
+         else
+         {
+            append(in, last, end, out);
+         }
       }
+      return destPos;
+   }
 
-      return builder.toString();
+   /** Parses the code point of a decimal ('&#10;') or hexadecimal ('&#xA;') character reference. */
+   private static int parseCharRef(CharSequence in, int from, int to, int start, int end)
+   {
+      int radix = 10;
+      if (from < to && in.charAt(from) == 'x')
+      {
+         from++;
+         radix = 16;
+      }
+      if (from == to)
+         throw MESSAGES.entityResolutionInvalidCharacterReference(in.subSequence(start, end).toString());
+
+      int c = 0;
+      for (int i = from; i < to; i++)
+      {
+         char ch = in.charAt(i);
+         int digit;
+         if (ch >= '0' && ch <= '9')
+            digit = ch - '0';
+         else if (radix == 16 && ch >= 'a' && ch <= 'f')
+            digit = ch - 'a' + 10;
+         else if (radix == 16 && ch >= 'A' && ch <= 'F')
+            digit = ch - 'A' + 10;
+         else
+            digit = -1;
+
+         c = c * radix + digit;
+         if (digit == -1 || c > Character.MAX_CODE_POINT)
+            throw MESSAGES.entityResolutionInvalidCharacterReference(in.subSequence(start, end).toString());
+      }
+      return c;
+   }
+
+   /** Matches the predefined entities; returns -1 if the name is not one of them. */
+   private static int predefinedEntity(CharSequence in, int from, int to)
+   {
+      switch (to - from)
+      {
+         case 2:
+            if (in.charAt(from + 1) == 't')
+            {
+               char first = in.charAt(from);
+               if (first == 'l')
+                  return '<';
+               if (first == 'g')
+                  return '>';
+            }
+            return -1;
+         case 3:
+            return (in.charAt(from) == 'a' && in.charAt(from + 1) == 'm' && in.charAt(from + 2) == 'p') ? '&' : -1;
+         case 4:
+            char first = in.charAt(from);
+            if (first == 'q' && in.charAt(from + 1) == 'u' && in.charAt(from + 2) == 'o' && in.charAt(from + 3) == 't')
+               return '"';
+            if (first == 'a' && in.charAt(from + 1) == 'p' && in.charAt(from + 2) == 'o' && in.charAt(from + 3) == 's')
+               return '\'';
+            return -1;
+         default:
+            return -1;
+      }
+   }
+
+   private static int indexOf(CharSequence in, char c, int from, int end)
+   {
+      if (in instanceof String)
+      {
+         int pos = ((String)in).indexOf(c, from);
+         return (pos < end ? pos : -1);
+      }
+      for (int i = from; i < end; i++)
+      {
+         if (in.charAt(i) == c)
+            return i;
+      }
+      return -1;
+   }
+
+   private static void append(CharSequence in, int start, int end, Appendable out) throws IOException
+   {
+      // Writer.append(CharSequence, int, int) creates a sub sequence string
+      if (in instanceof String && out instanceof Writer)
+         ((Writer)out).write((String)in, start, end - start);
+      else
+         out.append(in, start, end);
    }
 }
@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.DocumentBuilderPool;
+
+/**
+ * Test the DocumentBuilderPool
+ */
+public class DocumentBuilderPoolTestCase extends TestCase
+{
+   public void testBorrowRelease() throws Exception
+   {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      DocumentBuilderPool pool = new DocumentBuilderPool(factory, 2);
+
+      DocumentBuilder first = pool.borrow();
+      DocumentBuilder second = pool.borrow();
+      assertNotSame(first, second);
+      assertEquals(2, pool.getSize());
+      assertEquals(0, pool.getIdleCount());
+
+      pool.release(first);
+      assertEquals(1, pool.getIdleCount());
+      assertSame(first, pool.borrow());
+      assertEquals(2, pool.getSize());
+      assertEquals(0, pool.getWaitCount());
+
+      byte[] xml = "<root/>".getBytes(StandardCharsets.UTF_8);
+      assertEquals("root", second.parse(new ByteArrayInputStream(xml)).getDocumentElement().getNodeName());
+   }
+
+   public void testWaitForRelease() throws Exception
+   {
+      final DocumentBuilderPool pool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance(), 1);
+      final DocumentBuilder builder = pool.borrow();
+      Thread releaser = new Thread(new Runnable() {
+         public void run()
+         {
+            try
+            {
+               Thread.sleep(50);
+            }
+            catch (InterruptedException e)
+            {
+               // ignore
+            }
+            pool.release(builder);
+         }
+      });
+      releaser.start();
+      assertSame(builder, pool.borrow());
+      releaser.join();
+      assertEquals(1, pool.getSize());
+      assertEquals(1, pool.getWaitCount());
+      assertEquals(2, pool.getBorrowCount());
+      assertTrue(pool.getMaxWaitTime() > 0);
+      assertTrue(pool.getTotalWaitTime() >= pool.getMaxWaitTime());
+   }
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.management;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.EndpointRates;
+
+/**
+ * Test the EndpointRates
+ */
+public class EndpointRatesTestCase extends TestCase
+{
+   private long requests;
+   private long faults;
+   private long completed;
+   private long processingTime;
+
+   public void testRates() throws Exception
+   {
+      EndpointRates rates = new EndpointRates(new EndpointRates.Counters()
+      {
+         public void sample(long[] counts)
+         {
+            counts[EndpointRates.REQUESTS] = requests;
+            counts[EndpointRates.FAULTS] = faults;
+            counts[EndpointRates.COMPLETED] = completed;
+            counts[EndpointRates.PROCESSING_TIME] = processingTime;
+         }
+      }, false);
+      assertEquals(0.0, rates.getOneMinuteRequestRate());
+      assertEquals(0, rates.getOneMinuteMeanProcessingTime());
+
+      // 10 requests/s, 1 fault/s, 2ms each
+      advance(EndpointRates.TICK_INTERVAL, 10, 1, 2000000L);
+      rates.tick();
+      assertEquals(10.0, rates.getOneMinuteRequestRate(), 0.0001);
+      assertEquals(10.0, rates.getFifteenMinuteRequestRate(), 0.0001);
+      assertEquals(1.0, rates.getFiveMinuteFaultRate(), 0.0001);
+      assertEquals(2000000L, rates.getOneMinuteMeanProcessingTime());
+
+      // then 30 requests/s, 6ms each, for 5 minutes
+      for (int i = 0; i < 60; i++)
+      {
+         advance(EndpointRates.TICK_INTERVAL, 30, 0, 6000000L);
+         rates.tick();
+      }
+      assertEquals(30.0, rates.getOneMinuteRequestRate(), 0.2);
+      assertTrue(rates.getFiveMinuteRequestRate() > 20 && rates.getFiveMinuteRequestRate() < 30);
+      assertTrue(rates.getFifteenMinuteRequestRate() < rates.getFiveMinuteRequestRate());
+      assertTrue(rates.getOneMinuteFaultRate() < 0.01);
+      assertTrue(rates.getFifteenMinuteFaultRate() > 0.5);
+      assertEquals(6000000.0, rates.getOneMinuteMeanProcessingTime(), 60000);
+      long fifteen = rates.getFifteenMinuteMeanProcessingTime();
+      assertTrue(fifteen > 2000000L && fifteen < 6000000L);
+
+      // idle for 10 minutes
+      for (int i = 0; i < 120; i++)
+      {
+         rates.tick();
+      }
+      assertTrue(rates.getOneMinuteRequestRate() < 0.01);
+      assertTrue(rates.getFifteenMinuteRequestRate() > 1);
+   }
+
+   public void testEndpointMetrics() throws Exception
+   {
+      EndpointMetricsImpl metrics = new EndpointMetricsImpl();
+      metrics.start();
+      metrics.processResponseMessage(metrics.processRequestMessage());
+      assertEquals(0.0, metrics.getRates().getOneMinuteRequestRate());
+      metrics.getRates().tick();
+      assertEquals(1.0 / EndpointRates.TICK_INTERVAL, metrics.getRates().getOneMinuteRequestRate(), 0.0001);
+   }
+
+   private void advance(int seconds, int requestsPerSecond, int faultsPerSecond, long processingTimeEach)
+   {
+      requests += seconds * requestsPerSecond;
+      faults += seconds * faultsPerSecond;
+      completed += seconds * requestsPerSecond;
+      processingTime += seconds * requestsPerSecond * processingTimeEach;
+   }
+}
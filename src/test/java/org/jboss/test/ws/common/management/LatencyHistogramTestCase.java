@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.management;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.LatencyHistogram;
+import org.jboss.ws.common.management.LatencyHistogram.Snapshot;
+
+/**
+ * Test the LatencyHistogram
+ */
+public class LatencyHistogramTestCase extends TestCase
+{
+   public void testPercentiles() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+      for (long i = 1; i <= 100000; i++)
+      {
+         histogram.record(i * 1000);
+      }
+      Snapshot snapshot = histogram.snapshot();
+      assertEquals(100000, snapshot.getTotalCount());
+      assertEquals(100000000, snapshot.getMaxValue());
+      assertWithin(50000000, snapshot.getValueAtPercentile(50));
+      assertWithin(90000000, snapshot.getValueAtPercentile(90));
+      assertWithin(99000000, snapshot.getValueAtPercentile(99));
+      assertWithin(99900000, snapshot.getValueAtPercentile(99.9));
+      assertEquals(100000000, snapshot.getValueAtPercentile(100));
+      assertWithin(1000, snapshot.getValueAtPercentile(0));
+   }
+
+   public void testSmallAndHugeValues() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram(3, 1000000);
+      for (long i = 0; i < 16; i++)
+      {
+         histogram.record(i);
+      }
+      assertEquals(7, histogram.snapshot().getValueAtPercentile(50));
+      histogram.record(Long.MAX_VALUE);
+      histogram.record(-1);
+      Snapshot snapshot = histogram.snapshot();
+      assertEquals(18, snapshot.getTotalCount());
+      assertEquals(Long.MAX_VALUE, snapshot.getMaxValue());
+      assertTrue(snapshot.getValueAtPercentile(100) >= 1000000);
+   }
+
+   public void testIntervals() throws Exception
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.setIntervalLength(Long.MAX_VALUE);
+      histogram.record(1000);
+      histogram.record(2000);
+      Snapshot first = histogram.resetInterval();
+      assertEquals(2, first.getTotalCount());
+      assertEquals(2000, first.getMaxValue());
+
+      histogram.record(5000000);
+      assertSame(first, histogram.intervalSnapshot());
+      Snapshot second = histogram.resetInterval();
+      assertEquals(1, second.getTotalCount());
+      assertEquals(5000000, second.getMaxValue());
+      assertWithin(5000000, second.getValueAtPercentile(50));
+      assertEquals(3, histogram.snapshot().getTotalCount());
+
+      histogram.setIntervalLength(0);
+      assertEquals(0, histogram.intervalSnapshot().getTotalCount());
+   }
+
+   public void testStripes() throws Exception
+   {
+      final LatencyHistogram histogram = new LatencyHistogram(7, 1L << 38, 4);
+      histogram.setIntervalLength(Long.MAX_VALUE);
+      Thread[] threads = new Thread[8];
+      for (int t = 0; t < threads.length; t++)
+      {
+         final long base = (t + 1) * 1000000L;
+         threads[t] = new Thread(new Runnable()
+         {
+            public void run()
+            {
+               for (int i = 0; i < 1000; i++)
+               {
+                  histogram.record(base);
+               }
+            }
+         });
+         threads[t].start();
+      }
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+      Snapshot snapshot = histogram.snapshot();
+      assertEquals(8000, snapshot.getTotalCount());
+      assertEquals(8000000, snapshot.getMaxValue());
+      assertWithin(4000000, snapshot.getValueAtPercentile(50));
+      Snapshot interval = histogram.resetInterval();
+      assertEquals(8000, interval.getTotalCount());
+      assertEquals(8000000, interval.getMaxValue());
+      assertEquals(0, histogram.resetInterval().getTotalCount());
+   }
+
+   public void testEndpointMetrics() throws Exception
+   {
+      EndpointMetricsImpl metrics = new EndpointMetricsImpl();
+      metrics.start();
+      metrics.processResponseMessage(metrics.processRequestMessage() - 3000000L);
+      metrics.processFaultMessage(metrics.processRequestMessage() - 3000000L);
+      Snapshot snapshot = metrics.getProcessingTimeHistogram().snapshot();
+      assertEquals(2, snapshot.getTotalCount());
+      assertTrue(snapshot.getValueAtPercentile(50) >= 3000000L * 127 / 128);
+   }
+
+   private static void assertWithin(long expected, long actual)
+   {
+      assertTrue(expected + " ~ " + actual, Math.abs(expected - actual) <= expected / 100);
+   }
+}
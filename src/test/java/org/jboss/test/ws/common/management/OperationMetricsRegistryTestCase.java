@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jws.WebMethod;
+import javax.jws.WebService;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.ObjectNameFactory;
+import org.jboss.ws.common.deployment.AbstractDefaultEndpoint;
+import org.jboss.ws.common.deployment.DefaultDeploymentModelFactory;
+import org.jboss.ws.common.deployment.EndpointOperationsDeploymentAspect;
+import org.jboss.ws.common.management.ManagedEndpoint;
+import org.jboss.ws.common.management.OperationMetrics;
+import org.jboss.ws.common.management.OperationMetricsRegistry;
+import org.jboss.wsf.spi.deployment.Deployment;
+
+/**
+ * Test the OperationMetricsRegistry
+ */
+public class OperationMetricsRegistryTestCase extends TestCase
+{
+   public void testRegistry() throws Exception
+   {
+      OperationMetricsRegistry registry = new OperationMetricsRegistry();
+      final List<QName> added = new ArrayList<QName>();
+      registry.addListener(new OperationMetricsRegistry.Listener()
+      {
+         public void operationAdded(OperationMetrics metrics)
+         {
+            added.add(metrics.getOperationName());
+         }
+      });
+      assertNull(registry.get(new QName("urn:test", "op0")));
+      assertNull(registry.getOrCreate(null));
+
+      List<QName> operations = new ArrayList<QName>();
+      for (int i = 0; i < 100; i++)
+      {
+         operations.add(new QName("urn:test", "op" + i));
+      }
+      registry.setOperations(operations);
+      registry.setOperations(operations.subList(0, 10));
+      assertEquals(operations, added);
+      for (QName operation : operations)
+      {
+         OperationMetrics metrics = registry.get(new QName(operation.getNamespaceURI(), operation.getLocalPart()));
+         assertEquals(operation, metrics.getOperationName());
+         assertSame(metrics, registry.getOrCreate(operation));
+      }
+      assertNull(registry.get(new QName("urn:other", "op0")));
+
+      OperationMetrics metrics = registry.getOrCreate(new QName("urn:other", "op0"));
+      assertEquals(101, added.size());
+      assertEquals(101, registry.getOperationMetrics().size());
+      metrics.processRequestMessage();
+      metrics.processResponseMessage(2000000L);
+      metrics.processRequestMessage();
+      metrics.processFaultMessage(4000000L);
+      assertEquals(2, metrics.getRequestCount());
+      assertEquals(1, metrics.getResponseCount());
+      assertEquals(1, metrics.getFaultCount());
+      assertEquals(2, metrics.getMinProcessingTime());
+      assertEquals(4, metrics.getMaxProcessingTime());
+      assertEquals(3, metrics.getAverageProcessingTime());
+      assertEquals(6, metrics.getTotalProcessingTime());
+      assertTrue(Math.abs(metrics.getProcessingTimeP50() - 2000000L) <= 2000000L / 32);
+   }
+
+   public void testMaxOperations() throws Exception
+   {
+      OperationMetricsRegistry registry = new OperationMetricsRegistry();
+      for (int i = 0; i < OperationMetricsRegistry.MAX_OPERATIONS; i++)
+      {
+         assertNotNull(registry.getOrCreate(new QName("op" + i)));
+      }
+      assertNull(registry.getOrCreate(new QName("one-too-many")));
+      assertNotNull(registry.getOrCreate(new QName("op0")));
+   }
+
+   public void testChildMBeans() throws Exception
+   {
+      MBeanServer server = MBeanServerFactory.newMBeanServer();
+      AbstractDefaultEndpoint endpoint = (AbstractDefaultEndpoint)new DefaultDeploymentModelFactory().newHttpEndpoint("org.jboss.test.Bean");
+      ObjectName name = ObjectNameFactory.create("jboss.ws:context=test,endpoint=Bean");
+      endpoint.setName(name);
+      QName echo = new QName("urn:test", "echo");
+      endpoint.getOperationMetrics().setOperations(Arrays.asList(echo));
+
+      server.registerMBean(new ManagedEndpoint(endpoint, server), name);
+      ObjectName echoName = new ObjectName(name + ",operation=" + ObjectName.quote(echo.toString()));
+      assertTrue(server.isRegistered(echoName));
+      assertEquals(echo.toString(), server.getAttribute(echoName, "Operation"));
+
+      QName other = new QName("urn:test", "other");
+      endpoint.getOperationMetrics().getOrCreate(other).processRequestMessage();
+      ObjectName otherName = new ObjectName(name + ",operation=" + ObjectName.quote(other.toString()));
+      assertEquals(1L, server.getAttribute(otherName, "RequestCount"));
+
+      server.unregisterMBean(name);
+      assertFalse(server.isRegistered(echoName));
+      assertFalse(server.isRegistered(otherName));
+   }
+
+   public void testOperationsFromDeployment() throws Exception
+   {
+      DefaultDeploymentModelFactory factory = new DefaultDeploymentModelFactory();
+      Deployment dep = factory.newDeployment("test", getClass().getClassLoader(), null);
+      AbstractDefaultEndpoint seiEndpoint = (AbstractDefaultEndpoint)factory.newHttpEndpoint(EchoBean.class.getName());
+      AbstractDefaultEndpoint implEndpoint = (AbstractDefaultEndpoint)factory.newHttpEndpoint(PlainBean.class.getName());
+      dep.getService().addEndpoint(seiEndpoint);
+      dep.getService().addEndpoint(implEndpoint);
+
+      new EndpointOperationsDeploymentAspect().start(dep);
+
+      OperationMetricsRegistry registry = seiEndpoint.getOperationMetrics();
+      assertEquals(2, registry.getOperationMetrics().size());
+      assertNotNull(registry.get(new QName("urn:test", "echo")));
+      assertNotNull(registry.get(new QName("urn:test", "ping")));
+
+      registry = implEndpoint.getOperationMetrics();
+      String ns = "http://management.common.ws.test.jboss.org/";
+      assertEquals(1, registry.getOperationMetrics().size());
+      assertNotNull(registry.get(new QName(ns, "greet")));
+   }
+
+   @WebService(targetNamespace = "urn:test")
+   public interface EchoEndpoint
+   {
+      String echo(String message);
+
+      @WebMethod(operationName = "ping")
+      void hello();
+   }
+
+   @WebService(endpointInterface = "org.jboss.test.ws.common.management.OperationMetricsRegistryTestCase$EchoEndpoint")
+   public static class EchoBean implements EchoEndpoint
+   {
+      public String echo(String message)
+      {
+         return message;
+      }
+
+      public void hello()
+      {
+      }
+
+      public void notAnOperation()
+      {
+      }
+   }
+
+   @WebService
+   public static class PlainBean
+   {
+      public String greet(String name)
+      {
+         return "Hello " + name;
+      }
+
+      @WebMethod(exclude = true)
+      public void excluded()
+      {
+      }
+
+      public static void helper()
+      {
+      }
+   }
+}
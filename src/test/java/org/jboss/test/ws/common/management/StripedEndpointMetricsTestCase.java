@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.management;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.management.DefaultEndpointMetricsFactory;
+import org.jboss.ws.common.management.EndpointMetricsImpl;
+import org.jboss.ws.common.management.InvocationEndpointMetrics;
+import org.jboss.ws.common.management.StripedEndpointMetrics;
+import org.jboss.ws.common.management.StripedEndpointMetrics.Snapshot;
+
+/**
+ * Test the StripedEndpointMetrics
+ */
+public class StripedEndpointMetricsTestCase extends TestCase
+{
+   public void testFactory() throws Exception
+   {
+      assertTrue(new DefaultEndpointMetricsFactory(true).newEndpointMetrics() instanceof StripedEndpointMetrics);
+      assertTrue(new DefaultEndpointMetricsFactory(false).newEndpointMetrics() instanceof EndpointMetricsImpl);
+   }
+
+   public void testMetrics() throws Exception
+   {
+      StripedEndpointMetrics metrics = new StripedEndpointMetrics(4);
+      assertEquals(0, metrics.processRequestMessage());
+      metrics.start();
+      long begin = metrics.processRequestMessage();
+      assertTrue(begin != 0);
+      metrics.processResponseMessage(begin - 5000000L);
+      metrics.processFaultMessage(metrics.processRequestMessage() - 1000000L);
+      metrics.processResponseMessage(0);
+
+      Snapshot snapshot = metrics.snapshot();
+      assertEquals(2, snapshot.getRequestCount());
+      assertEquals(1, snapshot.getResponseCount());
+      assertEquals(1, snapshot.getFaultCount());
+      assertTrue(snapshot.getMinProcessingTime() >= 1);
+      assertTrue(snapshot.getMaxProcessingTime() >= 5);
+      assertTrue(snapshot.getMinProcessingTime() < snapshot.getMaxProcessingTime());
+      assertEquals(snapshot.getTotalProcessingTime() / 2, snapshot.getAverageProcessingTime());
+      assertTrue(snapshot.getUpdateTime() - begin > 0);
+      metrics.stop();
+      assertEquals(0, metrics.processRequestMessage());
+      assertEquals(2, metrics.getRequestCount());
+   }
+
+   public void testInFlight() throws Exception
+   {
+      checkInFlight(new StripedEndpointMetrics(4));
+      checkInFlight(new EndpointMetricsImpl());
+   }
+
+   private static void checkInFlight(InvocationEndpointMetrics metrics)
+   {
+      metrics.start();
+      long first = metrics.processRequestMessage();
+      long second = metrics.processRequestMessage();
+      long third = metrics.processRequestMessage();
+      assertEquals(3, metrics.getInFlightCount());
+      metrics.processInvocation(200L, 1000L);
+      metrics.processResponseMessage(first);
+      metrics.processInvocation(-1L, 3000L);
+      metrics.processFaultMessage(second);
+      assertEquals(1, metrics.getInFlightCount());
+      assertEquals(3, metrics.getPeakInFlightCount());
+      assertEquals(2, metrics.getInvocationCount());
+      assertEquals(4000L, metrics.getTotalEndpointTimeNanos());
+      assertEquals(1, metrics.getDispatchCount());
+      assertEquals(200L, metrics.getTotalDispatchTimeNanos());
+      assertTrue(metrics.getTotalProcessingTimeNanos() > 0);
+
+      metrics.resetPeakInFlightCount();
+      assertEquals(1, metrics.getPeakInFlightCount());
+      metrics.processResponseMessage(third);
+      assertEquals(0, metrics.getInFlightCount());
+      assertEquals(1, metrics.getPeakInFlightCount());
+
+      long fourth = metrics.processRequestMessage();
+      metrics.processRequestMessage();
+      if (metrics instanceof StripedEndpointMetrics)
+      {
+         // sampled, on each tick and read
+         assertEquals(2, metrics.getPeakInFlightCount());
+         metrics.processResponseMessage(fourth);
+         assertEquals(2, metrics.getPeakInFlightCount());
+         long sixth = metrics.processRequestMessage();
+         metrics.processRequestMessage();
+         ((StripedEndpointMetrics)metrics).getRates().tick();
+         metrics.processResponseMessage(sixth);
+         assertEquals(3, metrics.getPeakInFlightCount());
+      }
+      else
+      {
+         // a high-water mark
+         metrics.processResponseMessage(fourth);
+         assertEquals(2, metrics.getPeakInFlightCount());
+      }
+
+      metrics.stop();
+      metrics.processInvocation(200L, 1000L);
+      assertEquals(2, metrics.getInvocationCount());
+   }
+
+   public void testConcurrentUpdates() throws Exception
+   {
+      final StripedEndpointMetrics metrics = new StripedEndpointMetrics(2);
+      metrics.start();
+      final int threads = 8;
+      final int iterations = 20000;
+      final CountDownLatch done = new CountDownLatch(threads);
+      final AtomicBoolean inconsistent = new AtomicBoolean();
+      for (int t = 0; t < threads; t++)
+      {
+         final boolean faults = (t & 1) == 0;
+         new Thread(new Runnable()
+         {
+            public void run()
+            {
+               for (int i = 0; i < iterations; i++)
+               {
+                  long begin = metrics.processRequestMessage();
+                  // every message takes 1ms, as far as the metrics know
+                  if (faults)
+                     metrics.processFaultMessage(begin - 1000000L);
+                  else
+                     metrics.processResponseMessage(begin - 1000000L);
+               }
+               done.countDown();
+            }
+         }).start();
+      }
+      while (done.getCount() > 0)
+      {
+         Snapshot snapshot = metrics.snapshot();
+         long completed = snapshot.getResponseCount() + snapshot.getFaultCount();
+         if (completed > snapshot.getRequestCount() || (completed > 0 && snapshot.getAverageProcessingTime() != 1))
+            inconsistent.set(true);
+      }
+      done.await();
+      assertFalse(inconsistent.get());
+      assertEquals(threads * iterations, metrics.getRequestCount());
+      assertEquals(threads * iterations / 2, metrics.getResponseCount());
+      assertEquals(threads * iterations / 2, metrics.getFaultCount());
+      assertEquals(1, metrics.getMinProcessingTime());
+      assertEquals(0, metrics.getInFlightCount());
+      assertTrue(metrics.getPeakInFlightCount() <= threads);
+   }
+}
@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.JournalReader;
+import org.jboss.ws.common.monitoring.JournalRecorder;
+import org.jboss.ws.common.monitoring.OperationFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+
+/**
+ * Test the JournalRecorder and JournalReader
+ */
+public class JournalRecorderTestCase extends TestCase
+{
+   private Path directory;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      directory = Files.createTempDirectory("journal");
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory))
+      {
+         for (Path path : stream)
+         {
+            Files.delete(path);
+         }
+      }
+      Files.delete(directory);
+   }
+
+   public void testWriteAndRead() throws Exception
+   {
+      JournalRecorder recorder = newRecorder();
+      recorder.setSegmentSize(4096);
+      recorder.setProcessHeaders(false);
+      for (int i = 0; i < 50; i++)
+      {
+         recorder.processRecord(newRecord(i));
+      }
+      assertEquals(50, recorder.getRecordCount());
+      recorder.setRecording(false);
+
+      JournalReader reader = new JournalReader(directory);
+      assertTrue(reader.getSegments().size() > 1);
+      List<Record> records = reader.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(50, records.size());
+      for (int i = 0; i < 50; i++)
+      {
+         Record record = records.get(i);
+         assertEquals("group-" + i, record.getGroupID());
+         assertEquals(MessageType.INBOUND, record.getMessageType());
+         assertEquals("host" + (i % 5), record.getSourceHost());
+         assertEquals(new QName("urn:test", "op" + (i % 2)), record.getOperation());
+         assertEquals(new Date(1000L * i), record.getDate());
+         assertEquals("<env>\u00e8" + i + "</env>", record.getEnvelope());
+         assertTrue(record.getHeaders().isEmpty());
+      }
+
+      RecordFilter[] filters = new RecordFilter[] { new HostFilter("HOST3", true), new OperationFilter(new QName("urn:test", "op1")) };
+      records = reader.getMatchingRecords(filters);
+      assertEquals(5, records.size());
+      assertEquals("group-3", records.get(0).getGroupID());
+      assertEquals("group-13", records.get(1).getGroupID());
+
+      StringWriter sw = new StringWriter();
+      assertEquals(5, reader.export(filters, sw));
+      assertTrue(sw.toString().startsWith("INBOUND MESSAGE from host3:"));
+      assertTrue(sw.toString().contains("<env>\u00e833</env>"));
+   }
+
+   public void testRetentionAndTornTail() throws Exception
+   {
+      JournalRecorder recorder = newRecorder();
+      recorder.setSegmentSize(1024);
+      recorder.setMaxSegments(2);
+      for (int i = 0; i < 100; i++)
+      {
+         recorder.processRecord(newRecord(i));
+      }
+      recorder.force();
+
+      JournalReader reader = new JournalReader(directory);
+      List<Path> segments = reader.getSegments();
+      assertEquals(2, segments.size());
+      List<Record> records = reader.getMatchingRecords(new RecordFilter[0]);
+      assertEquals("group-99", records.get(records.size() - 1).getGroupID());
+      int count = records.size();
+
+      // corrupt the last entry, as if the process crashed while writing it
+      Path last = segments.get(1);
+      long lastCount = JournalReader.scan(last, new RecordFilter[0], new JournalReader.Visitor()
+      {
+         public boolean visit(Record record)
+         {
+            return true;
+         }
+      });
+      assertTrue(lastCount > 0);
+      String envelope = "<env>\u00e899</env>";
+      byte[] content = Files.readAllBytes(last);
+      int pos = new String(content, "ISO-8859-1").indexOf(new String(envelope.getBytes("UTF-8"), "ISO-8859-1"));
+      try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE))
+      {
+         channel.write(ByteBuffer.wrap(new byte[] { 'X' }), pos + 1);
+      }
+      records = reader.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(count - 1, records.size());
+      assertEquals("group-98", records.get(records.size() - 1).getGroupID());
+
+      // a new journal is started once recording is resumed, the retention still
+      // applies to the segments of the previous one
+      recorder.setRecording(false);
+      recorder.setRecording(true);
+      recorder.processRecord(newRecord(100));
+      recorder.setRecording(false);
+      segments = reader.getSegments();
+      assertEquals(2, segments.size());
+      assertEquals(last, segments.get(0));
+      records = reader.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(lastCount, records.size());
+      assertEquals("group-100", records.get(records.size() - 1).getGroupID());
+      assertEquals(Arrays.asList("text/xml"), records.get(records.size() - 1).getHeaders().get("Content-Type"));
+   }
+
+   public void testCompactEnvelopeAndClose() throws Exception
+   {
+      JournalRecorder recorder = newRecorder();
+      RecordImpl record = (RecordImpl)newRecord(0);
+      record.setEnvelopeSnapshot(DOMUtils.parse("<env><body><echo>text</echo></body></env>"));
+      recorder.processRecord(record);
+      recorder.close();
+      // dropped, no journal is started again
+      recorder.processRecord(newRecord(1));
+      assertEquals(0, recorder.getRecordCount());
+
+      List<Record> records = new JournalReader(directory).getMatchingRecords(new RecordFilter[0]);
+      assertEquals(1, records.size());
+      assertEquals("<env><body><echo>text</echo></body></env>", records.get(0).getEnvelope());
+   }
+
+   private JournalRecorder newRecorder()
+   {
+      JournalRecorder recorder = new JournalRecorder();
+      recorder.setDirectory(directory.toString());
+      recorder.setForceInterval(0);
+      recorder.setRecording(true);
+      return recorder;
+   }
+
+   private static Record newRecord(int i)
+   {
+      Record record = RecordFactory.newRecord("group-" + i);
+      record.setMessageType(MessageType.INBOUND);
+      record.setSourceHost("host" + (i % 5));
+      record.setOperation(new QName("urn:test", "op" + (i % 2)));
+      record.setDate(new Date(1000L * i));
+      Map<String, List<String>> headers = new HashMap<String, List<String>>();
+      headers.put("Content-Type", Arrays.asList("text/xml"));
+      record.setHeaders(headers);
+      record.setEnvelope("<env>\u00e8" + i + "</env>");
+      return record;
+   }
+}
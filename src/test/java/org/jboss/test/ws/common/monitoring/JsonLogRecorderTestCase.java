@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.common.monitoring.JsonLogRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+
+/**
+ * Test the JsonLogRecorder
+ */
+public class JsonLogRecorderTestCase extends TestCase
+{
+   public void testJsonLines() throws Exception
+   {
+      File file = File.createTempFile("json-log", ".jsonl");
+      try
+      {
+         JsonLogRecorder recorder = new JsonLogRecorder();
+         recorder.setFile(file.getPath());
+         recorder.setRecording(true);
+
+         Record record = RecordFactory.newRecord();
+         record.setDate(new Date(1234567890123L));
+         record.setMessageType(MessageType.INBOUND);
+         record.setSourceHost("client");
+         record.setOperation(new QName("urn:test", "echo"));
+         record.addHeaders("SOAPAction", Arrays.asList("\"urn:echo\""));
+         record.setEnvelope("<env a='1'>\u00e8\u20ac\ud83d\ude00\n\t\\</env>");
+         recorder.processRecord(record);
+         // the switches apply when records are written
+         recorder.flush();
+
+         recorder.setProcessEnvelope(false);
+         recorder.setProcessHeaders(false);
+         Record outbound = RecordFactory.newRecord();
+         outbound.setGroupID("g1");
+         outbound.setMessageType(MessageType.OUTBOUND);
+         outbound.setEnvelope("<hidden/>");
+         recorder.processRecord(outbound);
+         recorder.flush();
+
+         assertEquals(2, recorder.getWrittenCount());
+         assertTrue(recorder.getCommitCount() >= 1);
+         List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+         assertEquals(2, lines.size());
+         assertEquals("{\"date\":\"2009-02-13T23:31:30.123Z\",\"groupID\":\"" + record.getGroupID()
+               + "\",\"type\":\"INBOUND\",\"sourceHost\":\"client\",\"operation\":\"{urn:test}echo\","
+               + "\"headers\":{\"SOAPAction\":[\"\\\"urn:echo\\\"\"]},"
+               + "\"envelope\":\"<env a='1'>\u00e8\u20ac\ud83d\ude00\\n\\t\\\\</env>\"}", lines.get(0));
+         assertTrue(lines.get(1), lines.get(1).contains("\"groupID\":\"g1\",\"type\":\"OUTBOUND\""));
+         assertFalse(lines.get(1), lines.get(1).contains("envelope"));
+
+         // records are appended once the file is re-opened
+         recorder.processRecord(outbound);
+         recorder.setRecording(false);
+         assertEquals(3, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   public void testLargeRecords() throws Exception
+   {
+      File file = File.createTempFile("json-log", ".jsonl");
+      try
+      {
+         JsonLogRecorder recorder = new JsonLogRecorder();
+         recorder.setFile(file.getPath());
+         recorder.setBatchSize(8);
+         recorder.setRecording(true);
+         StringBuilder sb = new StringBuilder();
+         for (int i = 0; i < 50000; i++)
+         {
+            sb.append("\u00e8\"");
+         }
+         for (int i = 0; i < 20; i++)
+         {
+            Record record = RecordFactory.newRecord();
+            record.setEnvelope(sb.toString());
+            recorder.processRecord(record);
+         }
+         recorder.flush();
+         List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+         assertEquals(20, lines.size());
+         for (String line : lines)
+         {
+            assertTrue(line.endsWith("\"envelope\":\"" + sb.toString().replace("\"", "\\\"") + "\"}"));
+         }
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   public void testClose() throws Exception
+   {
+      File file = File.createTempFile("json-log", ".jsonl");
+      try
+      {
+         JsonLogRecorder recorder = new JsonLogRecorder();
+         recorder.setName("closing");
+         recorder.setFile(file.getPath());
+         recorder.setRecording(true);
+         recorder.processRecord(RecordFactory.newRecord());
+         assertTrue(hasThread("jbossws-json-log-closing"));
+         recorder.close();
+         assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+         assertFalse(hasThread("jbossws-json-log-closing"));
+
+         // dropped, the writer is never started again
+         recorder.processRecord(RecordFactory.newRecord());
+         assertFalse(hasThread("jbossws-json-log-closing"));
+         assertEquals(1, recorder.getWrittenCount());
+         assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+      }
+      finally
+      {
+         file.delete();
+      }
+   }
+
+   private static boolean hasThread(String name)
+   {
+      for (Thread thread : Thread.getAllStackTraces().keySet())
+      {
+         if (name.equals(thread.getName()) && thread.isAlive())
+            return true;
+      }
+      return false;
+   }
+}
@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.monitoring.AndFilter;
+import org.jboss.ws.common.monitoring.DateFilter;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.MessageTypeFilter;
+import org.jboss.ws.common.monitoring.NotFilter;
+import org.jboss.ws.common.monitoring.OperationFilter;
+import org.jboss.ws.common.monitoring.OrFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+
+/**
+ * Test the MemoryBufferRecorder
+ */
+public class MemoryBufferRecorderTestCase extends TestCase
+{
+   public void testEviction() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(3);
+      for (int i = 0; i < 5; i++)
+      {
+         String groupID = "group-" + i;
+         recorder.processRecord(newRecord(groupID, MessageType.INBOUND, "host" + i));
+         recorder.processRecord(newRecord(groupID, MessageType.OUTBOUND, null));
+      }
+      assertEquals(3, recorder.getSize());
+
+      Map<String, List<Record>> records = recorder.getMatchingRecords(new RecordFilter[0]);
+      assertEquals(3, records.size());
+      assertFalse(records.containsKey("group-1"));
+      List<Record> group = records.get("group-4");
+      assertEquals(2, group.size());
+      assertEquals(MessageType.INBOUND, group.get(0).getMessageType());
+      assertEquals(MessageType.OUTBOUND, group.get(1).getMessageType());
+      assertTrue(recorder.getClientHosts().contains("host2"));
+      assertEquals(1, recorder.getRecordsByClientHost("host3").size());
+
+      recorder.setMaxSize(2);
+      assertEquals(2, recorder.getSize());
+      assertFalse(recorder.getRecordsByClientHost("host2").containsKey("group-2"));
+      assertTrue(recorder.getRecordsByClientHost("host4").containsKey("group-4"));
+
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      recorder.processRecord(newRecord("group-5", MessageType.INBOUND, "host5"));
+      assertEquals(2, clone.getSize());
+      assertTrue(clone.getRecordsByClientHost("host5").isEmpty());
+   }
+
+   public void testConcurrentRecording() throws Exception
+   {
+      final MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(1000);
+      final int threads = 4;
+      final int groups = 200;
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> workers = new ArrayList<Thread>();
+      for (int t = 0; t < threads; t++)
+      {
+         final int id = t;
+         Thread worker = new Thread()
+         {
+            public void run()
+            {
+               try
+               {
+                  start.await();
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+               for (int i = 0; i < groups; i++)
+               {
+                  String groupID = RecordFactory.newGroupID();
+                  recorder.processRecord(newRecord(groupID, MessageType.INBOUND, "host" + id));
+                  recorder.processRecord(newRecord(groupID, MessageType.OUTBOUND, null));
+               }
+            }
+         };
+         worker.start();
+         workers.add(worker);
+      }
+      start.countDown();
+      for (Thread worker : workers)
+      {
+         worker.join();
+      }
+      assertEquals(threads * groups, recorder.getSize());
+      for (List<Record> group : recorder.getRecordsByOperation("urn:test", "op").values())
+      {
+         assertEquals(2, group.size());
+      }
+      assertEquals(groups, recorder.getRecordsByClientHost("host0").size());
+   }
+
+   public void testByteBudget() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(1000);
+      recorder.setMaxBytes(10 * 1024);
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 1000; i++)
+      {
+         sb.append('x');
+      }
+      String envelope = sb.toString();
+      for (int i = 0; i < 20; i++)
+      {
+         Record record = newRecord("group-" + i, MessageType.INBOUND, "host" + i);
+         record.setEnvelope(envelope);
+         recorder.processRecord(record);
+      }
+      // each record takes 2000 bytes for the envelope plus the estimated overhead
+      assertEquals(4, recorder.getSize());
+      assertTrue(recorder.getBytes() <= 10 * 1024);
+      assertTrue(recorder.getRecordsByClientHost("host19").containsKey("group-19"));
+      assertTrue(recorder.getRecordsByClientHost("host15").isEmpty());
+   }
+
+   public void testCompressedEnvelopes() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(10);
+      recorder.setCompressEnvelopes(true);
+      for (int i = 0; i < 30; i++)
+      {
+         Record record = newRecord("group-" + i, MessageType.INBOUND, "host" + i);
+         record.setEnvelope("<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'><env:Body><ns1:echo xmlns:ns1='urn:test'>" + i
+               + "</ns1:echo></env:Body></env:Envelope>");
+         recorder.processRecord(record);
+      }
+      assertEquals(10, recorder.getSize());
+      // the evicted envelopes went back to the pool
+      assertEquals(10 * 512, recorder.getEnvelopeStoreBytes());
+      assertTrue(recorder.getEnvelopeStoreAllocatedBytes() >= recorder.getEnvelopeStoreBytes());
+
+      Record record = recorder.getRecordsByClientHost("host27").get("group-27").get(0);
+      assertEquals("<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'><env:Body><ns1:echo xmlns:ns1='urn:test'>27</ns1:echo></env:Body></env:Envelope>",
+            record.getEnvelope());
+      assertEquals("host27", record.getSourceHost());
+
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      recorder.setMaxSize(1);
+      assertTrue(clone.getRecordsByClientHost("host27").get("group-27").get(0).getEnvelope().contains(">27<"));
+      assertNull(record.getEnvelope());
+   }
+
+   public void testEnvelopeStoreRelease() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(1000);
+      recorder.setMaxBytes(64 * 1024);
+      recorder.setCompressEnvelopes(true);
+      Random random = new Random(1);
+      for (int i = 0; i < 200; i++)
+      {
+         recorder.processRecord(newRandomRecord(random, i));
+      }
+      // the off-heap allocation is bounded by the byte budget
+      assertTrue(recorder.getEnvelopeStoreAllocatedBytes() <= 64 * 1024);
+      assertTrue(recorder.getBytes() <= 64 * 1024);
+      assertTrue(recorder.getRecordsByClientHost("host199").containsKey("group-199"));
+
+      // lowering the budget releases the chunks exceeding it once empty
+      recorder.setMaxBytes(16 * 1024);
+      for (int i = 200; i < 300; i++)
+      {
+         recorder.processRecord(newRandomRecord(random, i));
+      }
+      assertTrue(recorder.getBytes() <= 16 * 1024);
+      assertTrue(recorder.getEnvelopeStoreAllocatedBytes() <= 16 * 1024);
+
+      // with compression disabled, no chunk is kept once the envelopes are evicted
+      recorder.setCompressEnvelopes(false);
+      recorder.setMaxSize(1);
+      Record record = newRecord("plain", MessageType.INBOUND, "host");
+      record.setEnvelope("<env:Envelope/>");
+      recorder.processRecord(record);
+      assertEquals(0, recorder.getEnvelopeStoreBytes());
+      assertEquals(0, recorder.getEnvelopeStoreAllocatedBytes());
+   }
+
+   private static Record newRandomRecord(Random random, int i)
+   {
+      // hardly compressible envelopes taking a few blocks each
+      StringBuilder sb = new StringBuilder("<env:Envelope>");
+      for (int j = 0; j < 2000; j++)
+      {
+         sb.append((char)('a' + random.nextInt(26)));
+      }
+      Record record = newRecord("group-" + i, MessageType.INBOUND, "host" + i);
+      record.setEnvelope(sb.append("</env:Envelope>").toString());
+      return record;
+   }
+
+   public void testIndexedQueries() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setMaxSize(10);
+      long time = 1000L * 60 * 60 * 24 * 365;
+      for (int i = 0; i < 15; i++)
+      {
+         String groupID = "group-" + i;
+         Record inbound = newRecord(groupID, MessageType.INBOUND, "Host" + (i % 3));
+         inbound.setOperation(new QName("urn:test", "op" + (i % 2)));
+         inbound.setDate(new Date(time + i * 60 * 1000L));
+         recorder.processRecord(inbound);
+         if (i % 5 != 0)
+         {
+            Record outbound = newRecord(groupID, MessageType.OUTBOUND, null);
+            outbound.setDestinationHost("Host" + (i % 3));
+            outbound.setOperation(inbound.getOperation());
+            outbound.setDate(inbound.getDate());
+            recorder.processRecord(outbound);
+         }
+      }
+      // groups 5..14 are stored
+      assertEquals(Arrays.asList("Host0", "Host1", "Host2"), new ArrayList<String>(new TreeSet<String>(recorder.getClientHosts())));
+      assertGroups(recorder.getRecordsByClientHost("host1"), 13, 10, 7);
+      assertGroups(recorder.getMatchingRecords(new RecordFilter[] { new HostFilter("HOST1", false) }), 13, 7);
+      assertGroups(recorder.getRecordsByOperation("urn:test", "op0"), 14, 12, 10, 8, 6);
+      assertGroups(recorder.getMatchingRecords(new RecordFilter[] { new MessageTypeFilter(MessageType.OUTBOUND) }, 1, 3), 13, 12, 11);
+      assertGroups(recorder.getMatchingRecords(new RecordFilter[] { new DateFilter(new Date(time + 3 * 60 * 1000L), new Date(time + 7 * 60 * 1000L)) }),
+            7, 6, 5);
+      assertGroups(recorder.getMatchingRecords(new RecordFilter[] {
+            new OrFilter(new HostFilter("host0", true), new HostFilter("host2", true)),
+            new AndFilter(new OperationFilter(new QName("urn:test", "op1")), new MessageTypeFilter(MessageType.INBOUND)) }), 11, 9, 5);
+      // not indexed, hence answered by going through the buffer
+      assertGroups(recorder.getMatchingRecords(new RecordFilter[] { new NotFilter(new MessageTypeFilter(MessageType.OUTBOUND)) }, 8, 5), 6, 5);
+      assertGroups(recorder.getRecords(0, 2), 14, 13);
+      assertTrue(recorder.getRecords(10, 2).isEmpty());
+
+      recorder.setMaxSize(2);
+      assertEquals(Arrays.asList("Host1", "Host2"), new ArrayList<String>(new TreeSet<String>(recorder.getClientHosts())));
+      assertGroups(recorder.getRecordsByClientHost("host1"), 13);
+      assertGroups(recorder.getRecordsByOperation("urn:test", "op0"), 14);
+      assertTrue(recorder.getMatchingRecords(new RecordFilter[] { new DateFilter(null, new Date(time + 12 * 60 * 1000L)) }).isEmpty());
+
+      MemoryBufferRecorder clone = (MemoryBufferRecorder)recorder.clone();
+      recorder.processRecord(newRecord("group-15", MessageType.INBOUND, "host3"));
+      assertGroups(clone.getRecordsByOperation("urn:test", "op1"), 13);
+      assertTrue(clone.getRecordsByClientHost("host3").isEmpty());
+      assertGroups(recorder.getRecordsByClientHost("host3"), 15);
+   }
+
+   private static void assertGroups(Map<String, List<Record>> records, int... groups)
+   {
+      assertEquals(groups.length, records.size());
+      Iterator<String> it = records.keySet().iterator();
+      for (int group : groups)
+      {
+         assertEquals("group-" + group, it.next());
+      }
+   }
+
+   private static Record newRecord(String groupID, MessageType type, String sourceHost)
+   {
+      Record record = RecordFactory.newRecord(groupID);
+      record.setMessageType(type);
+      record.setSourceHost(sourceHost);
+      record.setOperation(new QName("urn:test", "op"));
+      record.setDate(new Date());
+      return record;
+   }
+}
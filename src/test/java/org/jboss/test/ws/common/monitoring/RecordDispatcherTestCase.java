@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.common.monitoring.RecordDispatcher;
+import org.jboss.ws.common.monitoring.RecordDispatcher.OverflowPolicy;
+import org.jboss.ws.common.monitoring.RecordFactory;
+
+/**
+ * Test the RecordDispatcher
+ */
+public class RecordDispatcherTestCase extends TestCase
+{
+   public void testDispatch() throws Exception
+   {
+      CollectingSink sink = new CollectingSink(null);
+      RecordDispatcher dispatcher = new RecordDispatcher("test-dispatcher", 100, 8, OverflowPolicy.BLOCK, sink);
+      assertEquals(128, dispatcher.getCapacity());
+      for (int i = 0; i < 1000; i++)
+      {
+         dispatcher.offer(RecordFactory.newRecord("group-" + i));
+      }
+      dispatcher.stop();
+      assertEquals(1000, sink.records.size());
+      assertEquals("group-0", sink.records.get(0).getGroupID());
+      assertEquals("group-999", sink.records.get(999).getGroupID());
+      assertEquals(0, dispatcher.getDroppedCount());
+      assertEquals(0, dispatcher.getPendingCount());
+
+      // dispatched on the calling thread once stopped
+      dispatcher.offer(RecordFactory.newRecord("late"));
+      assertEquals(1001, sink.records.size());
+   }
+
+   public void testOverflow() throws Exception
+   {
+      for (OverflowPolicy policy : new OverflowPolicy[] { OverflowPolicy.DROP_OLDEST, OverflowPolicy.DROP_NEWEST })
+      {
+         CountDownLatch release = new CountDownLatch(1);
+         CollectingSink sink = new CollectingSink(release);
+         RecordDispatcher dispatcher = new RecordDispatcher("test-dispatcher", 4, 1, policy, sink);
+         dispatcher.offer(RecordFactory.newRecord("first"));
+         // wait for the dispatcher thread to block on the first record
+         assertTrue(sink.busy.await(10, TimeUnit.SECONDS));
+         for (int i = 0; i < 10; i++)
+         {
+            dispatcher.offer(RecordFactory.newRecord("group-" + i));
+         }
+         assertEquals(6, dispatcher.getDroppedCount());
+         release.countDown();
+         dispatcher.stop();
+
+         assertEquals(5, sink.records.size());
+         assertEquals("first", sink.records.get(0).getGroupID());
+         if (policy == OverflowPolicy.DROP_OLDEST)
+         {
+            assertEquals(6, dispatcher.getDroppedOldestCount());
+            assertEquals("group-6", sink.records.get(1).getGroupID());
+         }
+         else
+         {
+            assertEquals(6, dispatcher.getDroppedNewestCount());
+            assertEquals("group-3", sink.records.get(4).getGroupID());
+         }
+      }
+   }
+
+   public void testStopWhileOffering() throws Exception
+   {
+      final CollectingSink sink = new CollectingSink(null);
+      final RecordDispatcher dispatcher = new RecordDispatcher("test-dispatcher", 16, 4, OverflowPolicy.BLOCK, sink);
+      final int records = 5000;
+      final CountDownLatch started = new CountDownLatch(2);
+      Thread[] producers = new Thread[2];
+      for (int t = 0; t < producers.length; t++)
+      {
+         producers[t] = new Thread(new Runnable()
+         {
+            public void run()
+            {
+               started.countDown();
+               for (int i = 0; i < records; i++)
+               {
+                  dispatcher.offer(RecordFactory.newRecord("group-" + i));
+               }
+            }
+         });
+         producers[t].start();
+      }
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      dispatcher.stop();
+      for (Thread producer : producers)
+      {
+         producer.join();
+      }
+      // no record is lost in the queue of the stopped dispatcher
+      assertEquals(2 * records, sink.records.size());
+      assertEquals(0, dispatcher.getPendingCount());
+   }
+
+   private static class CollectingSink implements RecordDispatcher.Sink
+   {
+      private final List<Record> records = new CopyOnWriteArrayList<Record>();
+      private final CountDownLatch busy = new CountDownLatch(1);
+      private final CountDownLatch release;
+
+      CollectingSink(CountDownLatch release)
+      {
+         this.release = release;
+      }
+
+      public void processRecords(Record[] batch, int size)
+      {
+         for (int i = 0; i < size; i++)
+         {
+            records.add(batch[i]);
+         }
+         busy.countDown();
+         if (release != null)
+         {
+            try
+            {
+               release.await();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+      }
+   }
+}
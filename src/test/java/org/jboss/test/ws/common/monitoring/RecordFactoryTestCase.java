@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.monitoring.GroupID;
+import org.jboss.ws.common.monitoring.GroupIDAssociation;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+
+/**
+ * Test the RecordFactory group IDs
+ */
+public class RecordFactoryTestCase extends TestCase
+{
+   public void testGroupIDForms() throws Exception
+   {
+      GroupID id = RecordFactory.newGroupKey();
+      assertEquals(id, GroupID.parse(id.toString()));
+      assertEquals(id, GroupID.fromBytes(id.toBytes()));
+      assertEquals(id.getCounter() + "-" + id.getNode(), id.toString());
+      assertNull(GroupID.parse("01-2"));
+      assertNull(GroupID.parse("1-"));
+      assertNull(GroupID.parse("foo"));
+      assertNull(GroupID.parse("1-99999999999999999999"));
+
+      RecordImpl record = (RecordImpl)RecordFactory.newRecord(id);
+      assertEquals(id.toString(), record.getGroupID());
+      record.setGroupID(id.toString());
+      assertEquals(id, record.getGroupKey());
+      record.setGroupID("custom");
+      assertNull(record.getGroupKey());
+      assertEquals("custom", record.getGroupID());
+
+      GroupIDAssociation.push(id);
+      GroupIDAssociation.push(null);
+      assertNull(GroupIDAssociation.pop());
+      assertEquals(id, GroupIDAssociation.peek());
+      assertEquals(id, GroupIDAssociation.pop());
+      assertNull(GroupIDAssociation.pop());
+   }
+
+   public void testConcurrentGeneration() throws Exception
+   {
+      final Set<GroupID> ids = ConcurrentHashMap.newKeySet();
+      final int count = 5000;
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int t = 0; t < 4; t++)
+      {
+         Thread thread = new Thread()
+         {
+            public void run()
+            {
+               for (int i = 0; i < count; i++)
+               {
+                  ids.add(RecordFactory.newGroupKey());
+               }
+            }
+         };
+         thread.start();
+         threads.add(thread);
+      }
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+      assertEquals(4 * count, ids.size());
+   }
+
+   public void testBinaryAndStringKeysShareGroups() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      Record inbound = RecordFactory.newRecord();
+      inbound.setMessageType(MessageType.INBOUND);
+      Record outbound = RecordFactory.newRecord(inbound.getGroupID());
+      outbound.setMessageType(MessageType.OUTBOUND);
+      recorder.processRecord(inbound);
+      recorder.processRecord(outbound);
+      assertEquals(1, recorder.getSize());
+      assertEquals(2, recorder.getMatchingRecords(new RecordFilter[0]).get(inbound.getGroupID()).size());
+   }
+}
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordFilter;
+import org.jboss.ws.common.monitoring.AndFilter;
+import org.jboss.ws.common.monitoring.HostFilter;
+import org.jboss.ws.common.monitoring.MemoryBufferRecorder;
+import org.jboss.ws.common.monitoring.MessageTypeFilter;
+import org.jboss.ws.common.monitoring.NotFilter;
+import org.jboss.ws.common.monitoring.OperationFilter;
+import org.jboss.ws.common.monitoring.OrFilter;
+import org.jboss.ws.common.monitoring.RateLimitFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordFilterCompiler;
+import org.jboss.ws.common.monitoring.RecordFilterExpression;
+import org.jboss.ws.common.monitoring.SamplingFilter;
+import org.jboss.ws.common.monitoring.TailSamplingFilter;
+
+/**
+ * Test the RecordFilterCompiler and RecordFilterExpression
+ */
+public class RecordFilterCompilerTestCase extends TestCase
+{
+   private static final String[] HOSTS = { "alpha", "Beta", "GAMMA", null };
+   private static final QName[] OPERATIONS = { new QName("urn:test", "op1"), new QName("urn:test", "op2"), null };
+
+   public void testCompiledFiltersMatchTheOriginalOnes() throws Exception
+   {
+      Random random = new Random(42);
+      for (int i = 0; i < 200; i++)
+      {
+         List<RecordFilter> filters = new ArrayList<RecordFilter>();
+         for (int j = random.nextInt(3); j >= 0; j--)
+         {
+            filters.add(randomFilter(random, 3));
+         }
+         RecordFilter compiled = RecordFilterCompiler.compile(filters);
+         for (int k = 0; k < 50; k++)
+         {
+            Record record = RecordFactory.newRecord();
+            record.setSourceHost(HOSTS[random.nextInt(HOSTS.length)]);
+            record.setDestinationHost(HOSTS[random.nextInt(HOSTS.length)]);
+            record.setOperation(OPERATIONS[random.nextInt(OPERATIONS.length)]);
+            record.setMessageType(random.nextBoolean() ? MessageType.INBOUND : MessageType.OUTBOUND);
+            boolean expected = true;
+            for (RecordFilter filter : filters)
+            {
+               expected = expected && filter.match(record);
+            }
+            assertEquals(filters + " on " + record.getSourceHost() + "/" + record.getDestinationHost() + "/" + record.getOperation(), expected,
+                  compiled.match(record));
+            assertEquals(expected, RecordFilterCompiler.mayMatch(compiled, record));
+         }
+      }
+   }
+
+   public void testMergedSets() throws Exception
+   {
+      RecordFilter filter = new OrFilter(new OrFilter(new HostFilter("a", true), new HostFilter(Arrays.asList("B", "c"), true)),
+            new AndFilter(new MessageTypeFilter(MessageType.INBOUND), new MessageTypeFilter(MessageType.INBOUND)));
+      assertEquals("(type in [INBOUND] or sourceHost in [a, b, c])", RecordFilterCompiler.compile(Arrays.asList(filter)).toString());
+      assertEquals("true", RecordFilterCompiler.compile(new ArrayList<RecordFilter>()).toString());
+   }
+
+   public void testExpressions() throws Exception
+   {
+      RecordFilter filter = RecordFilterExpression.parse("sourceHost in (alpha, 'beta') && !(operation = '{urn:test}op1' or type=outbound)");
+      assertTrue(filter.match(newRecord("ALPHA", new QName("urn:test", "op2"), MessageType.INBOUND)));
+      assertFalse(filter.match(newRecord("gamma", new QName("urn:test", "op2"), MessageType.INBOUND)));
+      assertFalse(filter.match(newRecord("beta", new QName("urn:test", "op1"), MessageType.INBOUND)));
+      assertFalse(filter.match(newRecord("beta", new QName("urn:test", "op2"), MessageType.OUTBOUND)));
+
+      AndFilter sampling = (AndFilter)RecordFilterExpression.parse("sample(0.5) and (rate(100, 10) or tail(250, false))");
+      assertTrue(sampling.getFilter1() instanceof SamplingFilter);
+      OrFilter or = (OrFilter)sampling.getFilter2();
+      assertEquals(10, ((RateLimitFilter)or.getFilter1()).getBurst());
+      assertEquals(250, ((TailSamplingFilter)or.getFilter2()).getLatencyThreshold());
+      assertFalse(((TailSamplingFilter)or.getFilter2()).isKeepFaults());
+      assertNull(RecordFilterExpression.parse(" "));
+
+      for (String invalid : new String[] { "sourceHost", "sourceHost = ", "foo = bar", "type = unknown", "sample(x)", "(type = INBOUND",
+            "type = INBOUND)", "sourceHost in ()", "sourceHost = 'a", "rate(1, 2, 3)" })
+      {
+         try
+         {
+            RecordFilterExpression.parse(invalid);
+            fail(invalid);
+         }
+         catch (IllegalArgumentException e)
+         {
+            // expected
+         }
+      }
+   }
+
+   public void testMayMatch() throws Exception
+   {
+      QName op1 = new QName("urn:test", "op1");
+      QName op2 = new QName("urn:test", "op2");
+      RecordFilter compiled = RecordFilterCompiler.compile(Arrays.asList(RecordFilterExpression.parse(
+            "operation = '{urn:test}op1' and sample(0.0) or not (type = OUTBOUND or sample(0.0))")));
+      // the sampling filters are unknown upfront
+      assertTrue(RecordFilterCompiler.mayMatch(compiled, newRecord("a", op1, MessageType.OUTBOUND)));
+      assertTrue(RecordFilterCompiler.mayMatch(compiled, newRecord("a", op2, MessageType.INBOUND)));
+      assertFalse(RecordFilterCompiler.mayMatch(compiled, newRecord("a", op2, MessageType.OUTBOUND)));
+
+      // records held back can match later on
+      compiled = RecordFilterCompiler.compile(Arrays.asList(RecordFilterExpression.parse("tail(500) and type = OUTBOUND")));
+      assertTrue(RecordFilterCompiler.mayMatch(compiled, newRecord("a", op1, MessageType.INBOUND)));
+      assertTrue(RecordFilterCompiler.mayMatch(new HostFilter("b", true), newRecord("a", op1, MessageType.INBOUND)));
+   }
+
+   public void testProcessorFilterExpression() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      recorder.setFilterExpression("type = INBOUND");
+      assertEquals("type = INBOUND", recorder.getFilterExpression());
+      assertEquals(1, recorder.getFilters().size());
+      RecordFilter compiled = recorder.getCompiledFilter();
+      assertSame(compiled, recorder.getCompiledFilter());
+      assertFalse(compiled.match(newRecord("a", null, MessageType.OUTBOUND)));
+
+      recorder.addFilter(new HostFilter("a", true));
+      assertNull(recorder.getFilterExpression());
+      assertNotSame(compiled, recorder.getCompiledFilter());
+      assertTrue(recorder.getCompiledFilter().match(newRecord("a", null, MessageType.INBOUND)));
+      assertFalse(recorder.getCompiledFilter().match(newRecord("b", null, MessageType.INBOUND)));
+
+      recorder.setFilterExpression("");
+      assertTrue(recorder.getFilters().isEmpty());
+   }
+
+   public void testFiltersChangedOnlyThroughProcessor() throws Exception
+   {
+      MemoryBufferRecorder recorder = new MemoryBufferRecorder();
+      HostFilter hostFilter = new HostFilter(Arrays.asList("a"), true);
+      recorder.addFilter(hostFilter);
+      assertFalse(recorder.getCompiledFilter().match(newRecord("b", null, MessageType.INBOUND)));
+      try
+      {
+         // that would leave the compiled filter stale
+         recorder.getFilters().clear();
+         fail("Filters changed bypassing the processor");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // expected
+      }
+      try
+      {
+         hostFilter.getHosts().add("b");
+         fail("Hosts changed after compilation");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // expected
+      }
+      assertFalse(recorder.getCompiledFilter().match(newRecord("b", null, MessageType.INBOUND)));
+      recorder.setFilters(new ArrayList<RecordFilter>());
+      assertTrue(recorder.getCompiledFilter().match(newRecord("b", null, MessageType.INBOUND)));
+   }
+
+   private static RecordFilter randomFilter(Random random, int depth)
+   {
+      switch (depth > 0 ? random.nextInt(7) : 3 + random.nextInt(4))
+      {
+         case 0:
+            return new AndFilter(randomFilter(random, depth - 1), randomFilter(random, depth - 1));
+         case 1:
+            return new OrFilter(randomFilter(random, depth - 1), randomFilter(random, depth - 1));
+         case 2:
+            return new NotFilter(randomFilter(random, depth - 1));
+         case 3:
+            String host = HOSTS[random.nextInt(HOSTS.length - 1)];
+            return random.nextBoolean() ? new HostFilter(host.toUpperCase(), random.nextBoolean())
+                  : new HostFilter(Arrays.asList(host, "delta"), random.nextBoolean());
+         case 4:
+            return new OperationFilter(OPERATIONS[random.nextInt(OPERATIONS.length)]);
+         case 5:
+            return new MessageTypeFilter(random.nextBoolean() ? MessageType.INBOUND : null);
+         default:
+            return new MessageTypeFilter(MessageType.OUTBOUND);
+      }
+   }
+
+   private static Record newRecord(String sourceHost, QName operation, MessageType type)
+   {
+      Record record = RecordFactory.newRecord();
+      record.setSourceHost(sourceHost);
+      record.setOperation(operation);
+      record.setMessageType(type);
+      return record;
+   }
+}
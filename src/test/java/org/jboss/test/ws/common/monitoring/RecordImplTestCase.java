@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Test the RecordImpl
+ */
+public class RecordImplTestCase extends TestCase
+{
+   public void testEnvelopeSnapshot() throws Exception
+   {
+      Element env = DOMUtils.parse("<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'><env:Body><op>1</op></env:Body></env:Envelope>");
+      Document doc = DOMUtils.getDocumentBuilder().newDocument();
+      RecordImpl record = (RecordImpl)RecordFactory.newRecord();
+      record.setEnvelopeSnapshot(doc.importNode(env, true));
+
+      // changes to the original envelope don't affect the snapshot
+      env.getFirstChild().appendChild(env.getOwnerDocument().createElement("other"));
+
+      String compact = "<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'><env:Body><op>1</op></env:Body></env:Envelope>";
+      assertEquals(compact, record.getEnvelope(false));
+      compact = record.getEnvelope(false);
+      String pretty = record.getEnvelope();
+      assertEquals(DOMWriter.printNode(DOMUtils.parse(compact), true), pretty);
+      assertSame(pretty, record.getEnvelope(true));
+      assertSame(compact, record.getEnvelope(false));
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(record);
+      oos.close();
+      RecordImpl copy = (RecordImpl)new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+      assertEquals(pretty, copy.getEnvelope());
+
+      record.setEnvelope("plain");
+      assertEquals("plain", record.getEnvelope(false));
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.api.monitoring.Record;
+import org.jboss.ws.api.monitoring.Record.MessageType;
+import org.jboss.ws.api.monitoring.RecordProcessor;
+import org.jboss.ws.common.deployment.AbstractDefaultEndpoint;
+import org.jboss.ws.common.deployment.DefaultDeploymentModelFactory;
+import org.jboss.ws.common.monitoring.AbstractRecordProcessor;
+import org.jboss.ws.common.monitoring.GroupID;
+import org.jboss.ws.common.monitoring.RateLimitFilter;
+import org.jboss.ws.common.monitoring.RecordFactory;
+import org.jboss.ws.common.monitoring.RecordImpl;
+import org.jboss.ws.common.monitoring.SamplingFilter;
+import org.jboss.ws.common.monitoring.TailSamplingFilter;
+
+/**
+ * Test the sampling record filters
+ */
+public class SamplingFilterTestCase extends TestCase
+{
+   public void testSampling() throws Exception
+   {
+      SamplingFilter filter = new SamplingFilter(0.25);
+      int matched = 0;
+      for (int i = 0; i < 10000; i++)
+      {
+         GroupID groupID = RecordFactory.newGroupKey();
+         boolean inbound = filter.match(newRecord(groupID, MessageType.INBOUND, 0));
+         assertEquals(inbound, filter.match(newRecord(groupID, MessageType.OUTBOUND, 0)));
+         // string IDs are sampled the same way
+         assertEquals(inbound, filter.match(RecordFactory.newRecord(groupID.toString())));
+         if (inbound)
+            matched++;
+      }
+      assertTrue(String.valueOf(matched), matched > 2000 && matched < 3000);
+      assertFalse(new SamplingFilter(0).match(newRecord(RecordFactory.newGroupKey(), MessageType.INBOUND, 0)));
+      assertTrue(new SamplingFilter(1).match(newRecord(RecordFactory.newGroupKey(), MessageType.INBOUND, 0)));
+   }
+
+   public void testRateLimit() throws Exception
+   {
+      RateLimitFilter filter = new RateLimitFilter(0.001, 3);
+      GroupID[] groups = new GroupID[5];
+      for (int i = 0; i < groups.length; i++)
+      {
+         groups[i] = RecordFactory.newGroupKey();
+         assertEquals(i < 3, filter.match(newRecord(groups[i], MessageType.INBOUND, 0)));
+      }
+      for (int i = groups.length - 1; i >= 0; i--)
+      {
+         assertEquals(i < 3, filter.match(newRecord(groups[i], MessageType.OUTBOUND, 0)));
+      }
+      // the clone has its own bucket
+      RateLimitFilter clone = (RateLimitFilter)filter.clone();
+      assertTrue(clone.match(newRecord(RecordFactory.newGroupKey(), MessageType.INBOUND, 0)));
+      assertFalse(filter.match(newRecord(RecordFactory.newGroupKey(), MessageType.INBOUND, 0)));
+   }
+
+   public void testTailSampling() throws Exception
+   {
+      TailSamplingFilter filter = new TailSamplingFilter(500, true);
+
+      GroupID fast = RecordFactory.newGroupKey();
+      Record fastIn = newRecord(fast, MessageType.INBOUND, 1000);
+      assertFalse(filter.match(fastIn));
+      Record fastOut = newRecord(fast, MessageType.OUTBOUND, 1100);
+      assertFalse(filter.match(fastOut));
+      assertNull(filter.release(fastOut, true));
+
+      GroupID slow = RecordFactory.newGroupKey();
+      Record slowIn = newRecord(slow, MessageType.INBOUND, 1000);
+      assertFalse(filter.match(slowIn));
+      Record slowOut = newRecord(slow, MessageType.OUTBOUND, 1600);
+      assertTrue(filter.match(slowOut));
+      assertSame(slowIn, filter.release(slowOut, true));
+      assertNull(filter.release(slowOut, true));
+
+      GroupID fault = RecordFactory.newGroupKey();
+      Record faultIn = newRecord(fault, MessageType.INBOUND, 1000);
+      assertFalse(filter.match(faultIn));
+      RecordImpl faultOut = (RecordImpl)newRecord(fault, MessageType.OUTBOUND, 1001);
+      faultOut.setFault(true);
+      assertTrue(filter.match(faultOut));
+      assertSame(faultIn, filter.release(faultOut, true));
+
+      TailSamplingFilter slowOnly = new TailSamplingFilter(500, false);
+      slowOnly.match(newRecord(fault, MessageType.INBOUND, 1000));
+      assertFalse(slowOnly.match(faultOut));
+   }
+
+   public void testNestedTailSampling() throws Exception
+   {
+      final List<Record> processed = new ArrayList<Record>();
+      AbstractRecordProcessor processor = new AbstractRecordProcessor()
+      {
+         private static final long serialVersionUID = 1L;
+
+         public void processRecord(Record record)
+         {
+            processed.add(record);
+         }
+      };
+      processor.setRecording(true);
+      processor.setFilterExpression("tail(500) and not operation = '{urn:test}skip'");
+      AbstractDefaultEndpoint endpoint = (AbstractDefaultEndpoint)new DefaultDeploymentModelFactory().newHttpEndpoint("org.jboss.test.Bean");
+      endpoint.setRecordProcessors(Arrays.<RecordProcessor>asList(processor));
+
+      GroupID fast = RecordFactory.newGroupKey();
+      endpoint.processRecord(newRecord(fast, MessageType.INBOUND, 1000));
+      endpoint.processRecord(newRecord(fast, MessageType.OUTBOUND, 1100));
+      assertTrue(processed.isEmpty());
+
+      GroupID slow = RecordFactory.newGroupKey();
+      Record slowIn = newRecord(slow, MessageType.INBOUND, 1000);
+      Record slowOut = newRecord(slow, MessageType.OUTBOUND, 1600);
+      endpoint.processRecord(slowIn);
+      assertTrue(processed.isEmpty());
+      endpoint.processRecord(slowOut);
+      assertEquals(Arrays.asList(slowIn, slowOut), processed);
+
+      // the inbound record matched through the other operand is not held, hence not processed twice
+      processed.clear();
+      processor.setFilterExpression("tail(500) or sample(1.0)");
+      GroupID sampled = RecordFactory.newGroupKey();
+      Record sampledIn = newRecord(sampled, MessageType.INBOUND, 1000);
+      Record sampledOut = newRecord(sampled, MessageType.OUTBOUND, 1600);
+      endpoint.processRecord(sampledIn);
+      endpoint.processRecord(sampledOut);
+      assertEquals(Arrays.asList(sampledIn, sampledOut), processed);
+   }
+
+   private static Record newRecord(GroupID groupID, MessageType type, long time)
+   {
+      Record record = RecordFactory.newRecord(groupID);
+      record.setMessageType(type);
+      record.setDate(new Date(time));
+      return record;
+   }
+}
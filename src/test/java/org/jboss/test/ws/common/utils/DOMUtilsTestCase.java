@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.utils;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import javax.xml.transform.sax.SAXSource;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.DOMUtils;
+import org.jboss.ws.common.DOMUtils.DocumentScope;
+import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.DocumentBuilderFactoryRegistry;
+import org.jboss.ws.common.management.DOMMetrics;
+import org.jboss.ws.common.management.DOMMetricsMBean;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Test the DOMUtils
+ */
+public class DOMUtilsTestCase extends TestCase
+{
+   public void testDocumentScope() throws Exception
+   {
+      DOMUtils.clearThreadLocals();
+      long nodes = DOMUtils.getThreadBoundNodeCount();
+
+      Element threadBound = DOMUtils.createElement("foo");
+      Document threadDoc = threadBound.getOwnerDocument();
+      assertSame(threadDoc, DOMUtils.peekOwnerDocument());
+      assertEquals(nodes + 1, DOMUtils.getThreadBoundNodeCount());
+
+      try (DocumentScope scope = DOMUtils.openDocumentScope())
+      {
+         Element scoped = DOMUtils.createElement("bar");
+         scoped.appendChild(DOMUtils.createTextNode("text"));
+         assertSame(scope.getDocument(), scoped.getOwnerDocument());
+         assertNotSame(threadDoc, scoped.getOwnerDocument());
+         try (DocumentScope nested = DOMUtils.openDocumentScope())
+         {
+            assertSame(nested.getDocument(), DOMUtils.createElement("baz").getOwnerDocument());
+         }
+         assertSame(scope.getDocument(), DOMUtils.getOwnerDocument());
+         assertEquals(nodes + 1, DOMUtils.getThreadBoundNodeCount());
+      }
+
+      assertSame(threadDoc, DOMUtils.peekOwnerDocument());
+      DOMUtils.clearThreadLocals();
+      assertNull(DOMUtils.peekOwnerDocument());
+      assertEquals(nodes, DOMUtils.getThreadBoundNodeCount());
+   }
+
+   public void testMetricsMBean() throws Exception
+   {
+      MBeanServer server = MBeanServerFactory.newMBeanServer();
+      server.registerMBean(new DOMMetrics(), DOMMetricsMBean.OBJECT_NAME);
+      DOMUtils.clearThreadLocals();
+      long nodes = DOMUtils.getThreadBoundNodeCount();
+      DOMUtils.createElement("foo");
+      assertEquals(nodes + 1, server.getAttribute(DOMMetricsMBean.OBJECT_NAME, "ThreadBoundNodeCount"));
+      DOMUtils.clearThreadLocals();
+      assertEquals(nodes, server.getAttribute(DOMMetricsMBean.OBJECT_NAME, "ThreadBoundNodeCount"));
+      // the pooled mode is not enabled
+      assertEquals(0, server.getAttribute(DOMMetricsMBean.OBJECT_NAME, "DocumentBuilderPoolCount"));
+      assertEquals(0L, server.getAttribute(DOMMetricsMBean.OBJECT_NAME, "DocumentBuilderWaitCount"));
+   }
+
+   public void testSAXSourceToElement() throws Exception
+   {
+      String xml = "<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/'>" +
+                    "<env:Body>" +
+                     "<ns1:echo xmlns:ns1='http://somens' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>" +
+                      "<arg0 xmlns:xsd='http://www.w3.org/2001/XMLSchema' xsi:type='xsd:string'>a &amp; b</arg0>" +
+                     "</ns1:echo>" +
+                    "</env:Body>" +
+                   "</env:Envelope>";
+      SAXSource source = new SAXSource(new InputSource(new StringReader(xml)));
+      Element el = DOMUtils.sourceToElement(source);
+      assertEquals("Envelope", el.getLocalName());
+      assertEquals("http://schemas.xmlsoap.org/soap/envelope/", el.getNamespaceURI());
+      assertEquals(xml, DOMWriter.printNode(el, false));
+
+      // the identity transformer of the thread is reset and reused
+      Element again = DOMUtils.sourceToElement(new SAXSource(new InputSource(new StringReader(xml))));
+      assertNotSame(el.getOwnerDocument(), again.getOwnerDocument());
+      assertEquals(xml, DOMWriter.printNode(again, false));
+   }
+
+   public void testDocumentBuilderFactoryRegistry() throws Exception
+   {
+      ClassLoader cl = getClass().getClassLoader();
+      int features = DocumentBuilderFactoryRegistry.SECURE_PROCESSING | DocumentBuilderFactoryRegistry.DISALLOW_DOCTYPE_DECL;
+      DocumentBuilderFactory factory = DocumentBuilderFactoryRegistry.getFactory(cl, features);
+      assertSame(factory, DocumentBuilderFactoryRegistry.getFactory(cl, features));
+      assertSame(factory, DocumentBuilderFactoryRegistry.getFactory(new URLClassLoader(new URL[0], cl), features));
+      assertTrue(factory.isNamespaceAware());
+
+      DocumentBuilderFactory lenient = DocumentBuilderFactoryRegistry.getFactory(cl, DocumentBuilderFactoryRegistry.SECURE_PROCESSING);
+      assertNotSame(factory, lenient);
+
+      String xml = "<!DOCTYPE root><root/>";
+      try
+      {
+         factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+         fail("DOCTYPE should be disallowed");
+      }
+      catch (SAXException e)
+      {
+         // expected
+      }
+      assertNotNull(lenient.newDocumentBuilder().parse(new InputSource(new StringReader(xml))));
+   }
+
+   public void testParseBuffers() throws Exception
+   {
+      String xml = "<?xml version='1.0' encoding='UTF-8'?><ns:root xmlns:ns='http://ns'><a>\u00e8\u20ac</a></ns:root>";
+      String expected = "<ns:root xmlns:ns='http://ns'><a>\u00e8\u20ac</a></ns:root>";
+      assertEquals(expected, DOMWriter.printNode(DOMUtils.parse(new StringBuilder(xml)), false));
+
+      byte[] bytes = xml.getBytes("UTF-8");
+      ByteBuffer heap = ByteBuffer.allocate(bytes.length + 4);
+      heap.position(2);
+      heap.put(bytes);
+      heap.position(2);
+      heap.limit(2 + bytes.length);
+      assertEquals(expected, DOMWriter.printNode(DOMUtils.parse(heap.slice()), false));
+      assertEquals(expected, DOMWriter.printNode(DOMUtils.parse(heap), false));
+      assertEquals(2, heap.position());
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes);
+      direct.flip();
+      assertEquals(expected, DOMWriter.printNode(DOMUtils.parse(direct), false));
+      assertEquals(0, direct.position());
+
+      Path file = Files.createTempFile("dom-utils", ".xml");
+      try
+      {
+         Files.write(file, bytes);
+         assertEquals(expected, DOMWriter.printNode(DOMUtils.parse(file), false));
+      }
+      finally
+      {
+         Files.delete(file);
+      }
+   }
+}
@@ -22,8 +22,13 @@
 package org.jboss.test.ws.common.utils;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.OutputKeys;
@@ -36,8 +41,11 @@ import junit.framework.TestCase;
 
 import org.jboss.ws.common.DOMUtils;
 import org.jboss.ws.common.DOMWriter;
+import org.jboss.ws.common.DOMWriter.C14NMethod;
+import org.jboss.ws.common.Normalizer;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * Test the DOMWriter
@@ -183,6 +191,34 @@ public class DOMWriterTestCase extends TestCase
       assertEquals(expStr, wasStr);
    }
    
+   /** The prefix is redeclared below the root node and further up the tree.
+    */
+   public void testNamespaceCompletionShadowed() throws Exception
+   {
+      String inStr = 
+         "<ns1:a xmlns:ns1='http://outer' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xmlns:xsd='http://www.w3.org/2001/XMLSchema'>" +
+          "<ns1:b xmlns:ns1='http://middle'>" +
+           "<ns1:c>" +
+            "<ns1:d xmlns:ns1='http://inner'/>" +
+            "<ns1:e xsi:type='xsd:string'>text</ns1:e>" +
+           "</ns1:c>" +
+          "</ns1:b>" +
+         "</ns1:a>";
+      
+      Element a = DOMUtils.parse(inStr);
+      Element b = DOMUtils.getFirstChildElement(a);
+      Element c = DOMUtils.getFirstChildElement(b);
+      
+      String expStr = 
+         "<ns1:c xmlns:ns1='http://middle'>" +
+          "<ns1:d xmlns:ns1='http://inner'/>" +
+          "<ns1:e xsi:type='xsd:string' xmlns:xsd='http://www.w3.org/2001/XMLSchema' xmlns:ns1='http://middle' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>text</ns1:e>" +
+         "</ns1:c>";
+      
+      String wasStr = DOMWriter.printNode(c, false);
+      assertEquals(expStr, wasStr);
+   }
+   
    public void testEntity() throws Exception
    {
       String expStr = 
@@ -271,4 +307,111 @@ public class DOMWriterTestCase extends TestCase
       String xmlOut = strwr.toString();
       assertEquals("<Hello><Sub>World</Sub></Hello>", xmlOut);
    }
+
+   public void testStreamEncoding() throws Exception
+   {
+      String xmlIn = "<Hello attr='è€'><Sub>Wörld \ud83d\ude00</Sub></Hello>";
+      Element root = DOMUtils.parse(xmlIn);
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      new DOMWriter(baos).print(root);
+      assertEquals(xmlIn, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+
+      baos = new ByteArrayOutputStream();
+      new DOMWriter(Channels.newChannel(baos)).print(root);
+      assertEquals(xmlIn, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+
+      baos = new ByteArrayOutputStream();
+      new DOMWriter(baos, "ISO-8859-1").print(root);
+      String expected = "<?xml version='1.0' encoding='ISO-8859-1'?><Hello attr='è?'><Sub>Wörld ?</Sub></Hello>";
+      assertEquals(expected, new String(baos.toByteArray(), StandardCharsets.ISO_8859_1));
+   }
+
+   public void testStreamBufferBoundaries() throws Exception
+   {
+      StringBuilder sb = new StringBuilder("<root>");
+      for (int i = 0; i < 5000; i++)
+      {
+         sb.append("<e a='").append(i).append("'>é中\ud83d\ude00</e>");
+      }
+      sb.append("</root>");
+      String xmlIn = sb.toString();
+      Element root = DOMUtils.parse(xmlIn);
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      new DOMWriter(baos).print(root);
+      assertEquals(xmlIn, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+      assertEquals(xmlIn, DOMWriter.printNode(root, false));
+      assertEquals(xmlIn, DOMUtils.node2String(root, false).substring("<?xml version='1.0' encoding='UTF-8'?>".length()));
+   }
+
+   public void testNormalize() throws Exception
+   {
+      assertEquals("plain text", Normalizer.normalize("plain text", true));
+      assertEquals("a &lt;b&gt; &amp; &quot;c&apos;\n", Normalizer.normalize("a <b> & \"c'\n", false));
+      assertEquals("a &lt;b&gt; &amp; &quot;c&apos;&#13;&#10;", Normalizer.normalize("a <b> & \"c'\r\n", true));
+
+      StringWriter sw = new StringWriter();
+      Normalizer.normalize("x<y", false, sw);
+      char[] chars = "zz&zz".toCharArray();
+      Normalizer.normalize(CharBuffer.wrap(chars, 1, 3), false, sw);
+      assertEquals("x&lt;yz&amp;z", sw.toString());
+   }
+
+   public void testCanonicalization() throws Exception
+   {
+      String xmlIn = "<?xml version='1.0'?><!--top-->" +
+         "<env:Envelope xmlns:env='http://schemas.xmlsoap.org/soap/envelope/' xmlns:ns1='urn:ns1' xml:lang='en'>" +
+          "<env:Body b='2' a='1'><ns1:op xmlns=''><v>a&amp;b</v><!--c--></ns1:op><empty/></env:Body>" +
+         "</env:Envelope>";
+      Document doc = DOMUtils.parse(xmlIn).getOwnerDocument();
+      Element op = (Element)doc.getElementsByTagNameNS("urn:ns1", "op").item(0);
+
+      String expected = "<!--top-->\n" +
+         "<env:Envelope xmlns:env=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:ns1=\"urn:ns1\" xml:lang=\"en\">" +
+          "<env:Body a=\"1\" b=\"2\"><ns1:op><v>a&amp;b</v><!--c--></ns1:op><empty></empty></env:Body>" +
+         "</env:Envelope>";
+      assertEquals(expected, print(doc, C14NMethod.INCLUSIVE_WITH_COMMENTS));
+
+      expected = "<ns1:op xmlns:env=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:ns1=\"urn:ns1\" xml:lang=\"en\"><v>a&amp;b</v></ns1:op>";
+      assertEquals(expected, print(op, C14NMethod.INCLUSIVE));
+
+      expected = "<ns1:op xmlns:ns1=\"urn:ns1\"><v>a&amp;b</v></ns1:op>";
+      assertEquals(expected, print(op, C14NMethod.EXCLUSIVE));
+
+      StringWriter strw = new StringWriter();
+      new DOMWriter(strw).setC14NMethod(C14NMethod.EXCLUSIVE).setInclusiveNamespaces("env").print(op);
+      assertEquals("<ns1:op xmlns:env=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:ns1=\"urn:ns1\"><v>a&amp;b</v></ns1:op>", strw.toString());
+   }
+
+   public void testCanonicalizationNamespaceFixup() throws Exception
+   {
+      Document doc = DOMUtils.getDocumentBuilder().newDocument();
+      Element root = doc.createElementNS("urn:a", "a:root");
+      Element child = doc.createElementNS(null, "child");
+      child.setAttributeNS("urn:b", "b:att", "\t\"\r\n");
+      child.appendChild(doc.createTextNode("x>\r"));
+      root.appendChild(child);
+      doc.appendChild(root);
+
+      String expected = "<a:root xmlns:a=\"urn:a\"><child xmlns:b=\"urn:b\" b:att=\"&#x9;&quot;&#xD;&#xA;\">x&gt;&#xD;</child></a:root>";
+      assertEquals(expected, print(doc, C14NMethod.INCLUSIVE));
+      assertEquals(expected, print(doc, C14NMethod.EXCLUSIVE));
+   }
+
+   public void testCanonicalDigest() throws Exception
+   {
+      Element root = DOMUtils.parse("<root xmlns='urn:x'><a b='\u00e8'>\u20ac</a></root>");
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] expected = digest.digest(print(root, C14NMethod.EXCLUSIVE).getBytes(StandardCharsets.UTF_8));
+      assertTrue(Arrays.equals(expected, DOMWriter.digest(root, C14NMethod.EXCLUSIVE, digest)));
+      assertSame(C14NMethod.EXCLUSIVE, C14NMethod.fromURI("http://www.w3.org/2001/10/xml-exc-c14n#"));
+   }
+
+   private static String print(Node node, C14NMethod method)
+   {
+      StringWriter strw = new StringWriter();
+      new DOMWriter(strw).setC14NMethod(method).print(node);
+      return strw.toString();
+   }
 }
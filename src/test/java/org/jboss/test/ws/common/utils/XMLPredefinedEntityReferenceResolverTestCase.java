@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.test.ws.common.utils;
+
+import junit.framework.TestCase;
+
+import org.jboss.ws.common.utils.XMLPredefinedEntityReferenceResolver;
+
+/**
+ * Test the XMLPredefinedEntityReferenceResolver
+ */
+public class XMLPredefinedEntityReferenceResolverTestCase extends TestCase
+{
+   public void testResolve() throws Exception
+   {
+      String plain = "no references";
+      assertSame(plain, XMLPredefinedEntityReferenceResolver.resolve(plain));
+      assertEquals("a<b>&\"c'", XMLPredefinedEntityReferenceResolver.resolve("a&lt;b&gt;&amp;&quot;c&apos;"));
+      assertEquals("A\né", XMLPredefinedEntityReferenceResolver.resolve("&#65;&#xA;&#xE9;"));
+      assertEquals("x😀y", XMLPredefinedEntityReferenceResolver.resolve("x&#x1F600;y"));
+   }
+
+   public void testResolveToAppendable() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      XMLPredefinedEntityReferenceResolver.resolve(new StringBuilder("1 &lt; 2"), sb);
+      char[] ch = "[&#128512;]".toCharArray();
+      XMLPredefinedEntityReferenceResolver.resolve(ch, 1, ch.length - 2, sb);
+      assertEquals("1 < 2😀", sb.toString());
+   }
+
+   public void testResolveInPlace() throws Exception
+   {
+      char[] ch = "--a &amp; b &#x1F600; c--".toCharArray();
+      int len = XMLPredefinedEntityReferenceResolver.resolveInPlace(ch, 2, ch.length - 4);
+      assertEquals("a & b 😀 c", new String(ch, 2, len));
+      assertEquals('-', ch[0]);
+   }
+
+   public void testInvalidReferences() throws Exception
+   {
+      String[] invalid = { "&", "&lt", "&foo;", "&#;", "&#x;", "&#12a;", "&#x110000;" };
+      for (String s : invalid)
+      {
+         try
+         {
+            XMLPredefinedEntityReferenceResolver.resolve(s);
+            fail("Expected IllegalArgumentException for " + s);
+         }
+         catch (IllegalArgumentException e)
+         {
+            // expected
+         }
+      }
+   }
+}